@@ -0,0 +1,107 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.DefaultVideoDecoderFactory;
+import org.webrtc.DefaultVideoEncoderFactory;
+import org.webrtc.EglBase;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.audio.JavaAudioDeviceModule;
+
+import java.util.Arrays;
+
+import io.antmedia.webrtcandroidframework.core.SharedPeerConnectionFactory;
+
+/**
+ * Compares the time to get an EglBase and PeerConnectionFactory for a new client when they are created (cold)
+ * and when they are taken from {@link SharedPeerConnectionFactory} (warm).
+ *
+ * Factory is created like WebRTCClient creates it with hardware codecs. Results are written to logcat with
+ * the SharedFactoryBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SharedFactoryStartupBenchmark {
+
+    private static final String TAG = "SharedFactoryBenchmark";
+    private static final String KEY = "benchmark";
+    private static final int ITERATIONS = 10;
+
+    private Context getContext() {
+        return InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    private SharedPeerConnectionFactory.SharedFactory createFactory(EglBase eglBase) {
+        JavaAudioDeviceModule adm = JavaAudioDeviceModule.builder(getContext()).createAudioDeviceModule();
+        PeerConnectionFactory factory = PeerConnectionFactory.builder()
+                .setOptions(new PeerConnectionFactory.Options())
+                .setAudioDeviceModule(adm)
+                .setVideoEncoderFactory(new DefaultVideoEncoderFactory(eglBase.getEglBaseContext(), true, false))
+                .setVideoDecoderFactory(new DefaultVideoDecoderFactory(eglBase.getEglBaseContext()))
+                .createPeerConnectionFactory();
+        adm.release();
+        return new SharedPeerConnectionFactory.SharedFactory(factory, adm);
+    }
+
+    /**
+     * @return time in microseconds to acquire the EglBase and factory like a client does in init
+     */
+    private long startClient(SharedPeerConnectionFactory holder) {
+        long start = System.nanoTime();
+        holder.acquireEglBase();
+        SharedPeerConnectionFactory.SharedFactory sharedFactory = holder.acquireFactory(KEY, this::createFactory);
+        long elapsed = (System.nanoTime() - start) / 1000;
+        assertNotNull(sharedFactory);
+        return elapsed;
+    }
+
+    private void stopClient(SharedPeerConnectionFactory holder, long keepAliveMs) {
+        holder.releaseFactory(KEY, keepAliveMs);
+        holder.releaseEglBase(keepAliveMs);
+    }
+
+    @Test
+    public void testColdAndWarmStartup() {
+        PeerConnectionFactory.initialize(PeerConnectionFactory.InitializationOptions.builder(getContext())
+                .createInitializationOptions());
+        SharedPeerConnectionFactory holder = new SharedPeerConnectionFactory(EglBase::create);
+
+        long[] cold = new long[ITERATIONS];
+        long[] warm = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            //resources are disposed when client stops, so each start creates them
+            cold[i] = startClient(holder);
+            stopClient(holder, 0);
+        }
+
+        //first client keeps the resources, e.g. a publisher while players are created
+        startClient(holder);
+        for (int i = 0; i < ITERATIONS; i++) {
+            warm[i] = startClient(holder);
+            stopClient(holder, 0);
+        }
+        stopClient(holder, 0);
+
+        long coldMedian = median(cold);
+        long warmMedian = median(warm);
+        Log.i(TAG, "Cold client start median: " + coldMedian + "us, all: " + Arrays.toString(cold));
+        Log.i(TAG, "Warm client start median: " + warmMedian + "us, all: " + Arrays.toString(warm));
+
+        assertTrue("Warm start (" + warmMedian + "us) should be faster than cold start (" + coldMedian + "us)",
+                warmMedian < coldMedian);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
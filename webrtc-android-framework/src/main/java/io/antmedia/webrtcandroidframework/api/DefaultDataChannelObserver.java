@@ -9,6 +9,8 @@ import org.webrtc.DataChannel;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
+import io.antmedia.webrtcandroidframework.core.DataChannelBufferPool;
+
 /**
  * Default implementation of {@link IDataChannelObserver}
  * You may extend this class and override methods that you need
@@ -29,13 +31,17 @@ public class DefaultDataChannelObserver implements IDataChannelObserver {
     @Override
     public void onMessage(DataChannel.Buffer buffer, String dataChannelLabel) {
         String messageText = toTextMessage(buffer);
+        if (buffer instanceof DataChannelBufferPool.PooledBuffer) {
+            ((DataChannelBufferPool.PooledBuffer) buffer).release();
+        }
         textMessageReceived(messageText);
     }
 
     @NonNull
     protected String toTextMessage(DataChannel.Buffer buffer) {
         ByteBuffer data = buffer.data;
-        String messageText = new String(data.array(), StandardCharsets.UTF_8);
+        // pooled buffers are larger than the message, so only the bytes up to the limit are read
+        String messageText = new String(data.array(), data.arrayOffset() + data.position(), data.remaining(), StandardCharsets.UTF_8);
         return messageText;
     }
 
@@ -49,6 +55,12 @@ public class DefaultDataChannelObserver implements IDataChannelObserver {
         }
     }
 
+    @Override
+    public void onWritabilityChanged(boolean writable, String dataChannelLabel) {
+        String logText = "Data channel writability changed: " + dataChannelLabel + ": " + writable;
+        Log.d(DefaultDataChannelObserver.class.getName(), logText);
+    }
+
     public void textMessageReceived(String messageText) {
         Log.i(DefaultDataChannelObserver.class.getSimpleName(), "Text message received: " + messageText);
     }
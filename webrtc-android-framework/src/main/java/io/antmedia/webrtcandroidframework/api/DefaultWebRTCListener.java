@@ -8,7 +8,10 @@ import org.webrtc.VideoTrack;
 import java.util.ArrayList;
 
 import de.tavendo.autobahn.WebSocket;
+import io.antmedia.webrtcandroidframework.core.ReconnectionEvent;
 import io.antmedia.webrtcandroidframework.core.StreamInfo;
+import io.antmedia.webrtcandroidframework.core.StreamTimeline;
+import io.antmedia.webrtcandroidframework.core.TieredRecovery;
 import io.antmedia.webrtcandroidframework.websocket.Broadcast;
 
 /**
@@ -243,6 +246,36 @@ public class DefaultWebRTCListener implements IWebRTCListener {
         callbackCalled(messageText);
     }
 
+    @Override
+    public void onSignallingRttMeasured(long rttMs, long smoothedRttMs, long rttVariationMs) {
+        String messageText = "Signalling rtt measured: " + rttMs + "ms";
+        callbackCalled(messageText);
+    }
+
+    @Override
+    public void onInitializationStageCompleted(String stage, long startOffsetMs, long durationMs) {
+        String messageText = "Initialization stage " + stage + " completed in " + durationMs + "ms";
+        callbackCalled(messageText);
+    }
+
+    @Override
+    public void onStreamTimelineCompleted(String streamId, StreamTimeline timeline) {
+        String messageText = "Timeline completed for " + streamId + ": " + timeline.getOffsets();
+        callbackCalled(messageText);
+    }
+
+    @Override
+    public void onReconnectionTierCompleted(String streamId, TieredRecovery.Tier tier, boolean recovered, long durationMs) {
+        String messageText = "Reconnection tier " + tier + (recovered ? " recovered " : " failed for ") + streamId + " in " + durationMs + " ms";
+        callbackCalled(messageText);
+    }
+
+    @Override
+    public void onReconnectionStateChanged(ReconnectionEvent event) {
+        String messageText = "Reconnection state changed: " + event;
+        callbackCalled(messageText);
+    }
+
     protected void callbackCalled(String messageText) {
         Log.d(DefaultWebRTCListener.class.getName(), messageText);
     }
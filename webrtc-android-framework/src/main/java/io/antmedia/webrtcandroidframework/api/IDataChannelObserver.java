@@ -18,4 +18,12 @@ public interface IDataChannelObserver {
     void onMessage(DataChannel.Buffer buffer, String dataChannelLabel);
 
     void onMessageSent(DataChannel.Buffer buffer, boolean successful);
+
+    /**
+     * Send queue of the data channel has reached its high watermark (writable is false) or it's drained to
+     * the low watermark (writable is true). Messages sent while it's not writable are queued, so producers
+     * should pause until it's writable again.
+     */
+    default void onWritabilityChanged(boolean writable, String dataChannelLabel) {
+    }
 }
@@ -0,0 +1,31 @@
+package io.antmedia.webrtcandroidframework.api;
+
+import java.nio.channels.FileChannel;
+
+import io.antmedia.webrtcandroidframework.core.FileTransfer;
+
+/**
+ * This interface is used to observe the files that are sent and received via data channel,
+ * see {@link IWebRTCClient#sendFileViaDataChannel(String, FileChannel, String)}
+ */
+public interface IFileTransferListener {
+
+    /**
+     * A transfer is started by the remote peer. It's called on a worker thread, so the file can be opened
+     * before the first chunk arrives.
+     * @return channel that the received file is written to, or null to ignore the transfer. Channel is closed
+     * when the transfer is completed
+     */
+    FileChannel onIncomingTransfer(String streamId, FileTransfer transfer);
+
+    /**
+     * Transferred bytes of the transfer has changed. It's called at most once for each percent of the file
+     */
+    void onTransferProgress(String streamId, FileTransfer transfer);
+
+    /**
+     * Transfer is completed. It's not successful if it's cancelled, the data channel is closed or
+     * checksum of the received file does not match
+     */
+    void onTransferCompleted(String streamId, FileTransfer transfer, boolean successful);
+}
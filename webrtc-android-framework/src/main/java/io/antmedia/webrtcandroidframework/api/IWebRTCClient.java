@@ -7,6 +7,11 @@ import org.webrtc.VideoCapturer;
 import org.webrtc.VideoTrack;
 import org.webrtc.audio.CustomWebRtcAudioRecord;
 
+import java.nio.channels.FileChannel;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelOptions;
+import io.antmedia.webrtcandroidframework.core.DataChannelSender;
+import io.antmedia.webrtcandroidframework.core.FileTransfer;
 import io.antmedia.webrtcandroidframework.core.StatsCollector;
 
 /**
@@ -125,12 +130,34 @@ public interface IWebRTCClient {
     void stop(String streamId);
 
     /**
-     * This is used to send data via data channel
+     * This is used to send data via data channel. Messages are queued while the data channel is above its
+     * high watermark, see {@link #isDataChannelWritable(String)}
      * @param streamId: id for the stream
      * @param buffer: data to send
      */
     void sendMessageViaDataChannel(String streamId, DataChannel.Buffer buffer);
 
+    /**
+     * This is used to send data via data channel like {@link #sendMessageViaDataChannel(String, DataChannel.Buffer)}
+     * @param streamId: id for the stream
+     * @param buffer: data to send
+     * @return result that is completed when the message is passed to the data channel or it fails
+     */
+    default DataChannelSender.SendResult sendMessageViaDataChannelWithResult(String streamId, DataChannel.Buffer buffer) {
+        return DataChannelSender.SendResult.failed(buffer, "Send result is not supported");
+    }
+
+    /**
+     * This is used to send data via a labeled data channel, see {@link WebRTCClientBuilder#addDataChannel(DataChannelOptions)}
+     * @param streamId: id for the stream
+     * @param label: label of the data channel
+     * @param buffer: data to send
+     * @return result that is completed when the message is passed to the data channel or it fails
+     */
+    default DataChannelSender.SendResult sendMessageViaDataChannel(String streamId, String label, DataChannel.Buffer buffer) {
+        return DataChannelSender.SendResult.failed(buffer, "Labeled data channels are not supported");
+    }
+
     /**
      * This Function Can be used to set Degradation Preference for the Stream such as to
      * Maintaining resolution or FrameRate in bad network conditions
@@ -139,6 +166,25 @@ public interface IWebRTCClient {
 
     void setDegradationPreference(RtpParameters.DegradationPreference degradationPreference);
 
+    /**
+     * @param streamId: id for the stream
+     * @return false if the messages sent via data channel are queued, producers should pause until it's true
+     */
+    default boolean isDataChannelWritable(String streamId) {
+        return true;
+    }
+
+    /**
+     * This is used to send a file via data channel in chunks, see {@link IFileTransferListener}
+     * @param streamId: id for the stream
+     * @param fileChannel: file to send, it's closed when the transfer is completed
+     * @param name: name of the file for the remote peer
+     * @return the transfer to follow its progress or cancel it, null if the data channel is not ready
+     */
+    default FileTransfer sendFileViaDataChannel(String streamId, FileChannel fileChannel, String name) {
+        return null;
+    }
+
     /**
      * This is used to change video source on the fly
      * @param newSource: may be front camera, rear camera, screen or custom source which provides video frames
@@ -5,7 +5,10 @@ import org.webrtc.VideoTrack;
 import java.util.ArrayList;
 
 import de.tavendo.autobahn.WebSocket;
+import io.antmedia.webrtcandroidframework.core.ReconnectionEvent;
 import io.antmedia.webrtcandroidframework.core.StreamInfo;
+import io.antmedia.webrtcandroidframework.core.StreamTimeline;
+import io.antmedia.webrtcandroidframework.core.TieredRecovery;
 import io.antmedia.webrtcandroidframework.websocket.Broadcast;
 
 /**
@@ -223,4 +226,54 @@ public interface IWebRTCListener {
     void onPublishAttempt(String streamId);
 
  void onPlayAttempt(String streamId);
+
+ /**
+  * It's called when round trip time of the signalling connection is measured by ping/pong messages.
+  * @param rttMs round trip time of the last ping
+  * @param smoothedRttMs smoothed round trip time
+  * @param rttVariationMs round trip time variation
+  */
+ default void onSignallingRttMeasured(long rttMs, long smoothedRttMs, long rttVariationMs) {
+ }
+
+ /**
+  * It's called when a stage of the client initialization is completed, e.g. websocket connection or
+  * peer connection factory creation. Stages are WebRTCClient.INIT_STAGE_* and the last call is for
+  * WebRTCClient.INIT_STAGE_ALL with the total time.
+  * @param stage name of the stage
+  * @param startOffsetMs start time of the stage relative to the start of the initialization
+  * @param durationMs duration of the stage
+  */
+ default void onInitializationStageCompleted(String stage, long startOffsetMs, long durationMs) {
+ }
+
+ /**
+  * It's called when media is flowing for a publish or play session: first frame is encoded for publish, first frame is
+  * decoded and rendered for play. Timeline is also delivered with the collected events if no frame arrives in time.
+  * Completed timelines are aggregated in WebRTCClient.getTimelineStatistics
+  * @param streamId id of the stream
+  * @param timeline offsets of the connection setup events from the publish or play call
+  */
+ default void onStreamTimelineCompleted(String streamId, StreamTimeline timeline) {
+ }
+
+ /**
+  * It's called when a tier of the reconnection of a stream ends, i.e. it reconnects the stream or its timeout
+  * passes and the next tier is tried. Tiers are ICE restart, session restore and republish in this order.
+  * Recovery statistics are kept in WebRTCClient.getTieredRecovery
+  * @param streamId id of the stream
+  * @param tier tier that ended
+  * @param recovered true if the tier reconnected the stream
+  * @param durationMs time spent in the tier
+  */
+ default void onReconnectionTierCompleted(String streamId, TieredRecovery.Tier tier, boolean recovered, long durationMs) {
+ }
+
+ /**
+  * It's called on each reconnection state transition of a peer, e.g. from ICE_RESTARTING to SESSION_RESTORING.
+  * Last events are also kept in WebRTCClient.getReconnectionStateMachine().getEvents()
+  * @param event transition of the peer
+  */
+ default void onReconnectionStateChanged(ReconnectionEvent event) {
+ }
 }
@@ -6,8 +6,14 @@ import org.webrtc.RendererCommon;
 import org.webrtc.SurfaceViewRenderer;
 
 import java.util.Arrays;
+import java.util.concurrent.Executor;
 
+import io.antmedia.webrtcandroidframework.core.DataChannelBufferPool;
+import io.antmedia.webrtcandroidframework.core.DataChannelOptions;
 import io.antmedia.webrtcandroidframework.core.WebRTCClient;
+import io.antmedia.webrtcandroidframework.sdp.SdpMungingRules;
+import io.antmedia.webrtcandroidframework.websocket.ReconnectionPolicy;
+import io.antmedia.webrtcandroidframework.websocket.SignalingTransport;
 
 public class WebRTCClientBuilder {
 
@@ -136,6 +142,113 @@ public class WebRTCClientBuilder {
         return this;
     }
 
+    /**
+     * Recovery of a disconnected publish stream with the default timeouts:
+     * <pre>
+     * 0 s       ICE restart on the existing peer connection
+     * 5 s       session restore on the existing peer connection
+     * 10 s      backoff, a random delay up to PEER_RECONNECTION_DELAY_MS (3 s)
+     * 10-13 s   republish, next attempts after a backoff that doubles up to 30 s
+     * </pre>
+     * Play streams skip ICE restart, P2P streams skip session restore and ICE restart is only done by the P2P
+     * initiator. Passing 0 for both timeouts skips both tiers, so the stream is republished within
+     * PEER_RECONNECTION_DELAY_MS of the disconnection like before the tiered recovery.
+     *
+     * @param iceRestartTimeoutMs time given to ICE restart, 0 skips it
+     * @param sessionRestoreTimeoutMs time given to session restore, 0 skips it
+     */
+    public WebRTCClientBuilder setReconnectionTierTimeouts(long iceRestartTimeoutMs, long sessionRestoreTimeoutMs) {
+        webRTCClientConfig.iceRestartTimeoutMs = iceRestartTimeoutMs;
+        webRTCClientConfig.sessionRestoreTimeoutMs = sessionRestoreTimeoutMs;
+        return this;
+    }
+
+    public WebRTCClientBuilder setMaxConcurrentReconnections(int maxConcurrentReconnections) {
+        webRTCClientConfig.maxConcurrentReconnections = maxConcurrentReconnections;
+        return this;
+    }
+
+    public WebRTCClientBuilder setIceCandidateDeduplicationEnabled(boolean enabled) {
+        webRTCClientConfig.iceCandidateDeduplicationEnabled = enabled;
+        return this;
+    }
+
+    public WebRTCClientBuilder setIceCandidatePipeliningEnabled(boolean enabled) {
+        webRTCClientConfig.iceCandidatePipeliningEnabled = enabled;
+        return this;
+    }
+
+    public WebRTCClientBuilder setWsReconnectionPolicy(ReconnectionPolicy wsReconnectionPolicy) {
+        webRTCClientConfig.wsReconnectionPolicy = wsReconnectionPolicy;
+        return this;
+    }
+
+    public WebRTCClientBuilder setSignalingTransport(SignalingTransport signalingTransport) {
+        webRTCClientConfig.signalingTransport = signalingTransport;
+        return this;
+    }
+
+    public WebRTCClientBuilder setSignallingOutboxCapacity(int signallingOutboxCapacity) {
+        webRTCClientConfig.signallingOutboxCapacity = signallingOutboxCapacity;
+        return this;
+    }
+
+    public WebRTCClientBuilder setSharedWebSocketConnection(boolean sharedWebSocketConnection) {
+        webRTCClientConfig.sharedWebSocketConnection = sharedWebSocketConnection;
+        return this;
+    }
+
+    public WebRTCClientBuilder setBinarySignallingEnabled(boolean binarySignallingEnabled, boolean sdpCompressionEnabled) {
+        webRTCClientConfig.binarySignallingEnabled = binarySignallingEnabled;
+        webRTCClientConfig.sdpCompressionEnabled = sdpCompressionEnabled;
+        return this;
+    }
+
+    public WebRTCClientBuilder setSharedPeerConnectionFactory(boolean sharedPeerConnectionFactory, long keepAliveMs) {
+        webRTCClientConfig.sharedPeerConnectionFactory = sharedPeerConnectionFactory;
+        webRTCClientConfig.sharedFactoryKeepAliveMs = keepAliveMs;
+        return this;
+    }
+
+    public WebRTCClientBuilder setSdpMungingRules(SdpMungingRules sdpMungingRules) {
+        webRTCClientConfig.sdpMungingRules = sdpMungingRules;
+        return this;
+    }
+
+    public WebRTCClientBuilder setDataChannelBufferPool(DataChannelBufferPool dataChannelBufferPool) {
+        webRTCClientConfig.dataChannelBufferPool = dataChannelBufferPool;
+        return this;
+    }
+
+    public WebRTCClientBuilder setDataChannelMessageExecutor(Executor dataChannelMessageExecutor) {
+        webRTCClientConfig.dataChannelMessageExecutor = dataChannelMessageExecutor;
+        return this;
+    }
+
+    public WebRTCClientBuilder setDataChannelSendQueue(long highWatermark, long lowWatermark, long maxQueuedBytes) {
+        webRTCClientConfig.dataChannelHighWatermark = highWatermark;
+        webRTCClientConfig.dataChannelLowWatermark = lowWatermark;
+        webRTCClientConfig.dataChannelMaxQueuedBytes = maxQueuedBytes;
+        return this;
+    }
+
+    public WebRTCClientBuilder setFileTransferListener(IFileTransferListener fileTransferListener, int chunkSize) {
+        webRTCClientConfig.fileTransferListener = fileTransferListener;
+        webRTCClientConfig.fileTransferChunkSize = chunkSize;
+        return this;
+    }
+
+    public WebRTCClientBuilder setDataChannelBatching(long flushIntervalMs, int maxBatchSize) {
+        webRTCClientConfig.dataChannelBatchIntervalMs = flushIntervalMs;
+        webRTCClientConfig.dataChannelMaxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public WebRTCClientBuilder addDataChannel(DataChannelOptions dataChannelOptions) {
+        webRTCClientConfig.dataChannels.add(dataChannelOptions);
+        return this;
+    }
+
     public WebRTCClientConfig getConfig() {
         return webRTCClientConfig;
     }
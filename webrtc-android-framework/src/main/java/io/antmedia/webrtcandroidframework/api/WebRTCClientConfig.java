@@ -8,12 +8,23 @@ import org.webrtc.RendererCommon;
 import org.webrtc.SurfaceViewRenderer;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 import io.antmedia.webrtcandroidframework.api.DefaultDataChannelObserver;
 import io.antmedia.webrtcandroidframework.api.DefaultWebRTCListener;
 import io.antmedia.webrtcandroidframework.api.IDataChannelObserver;
 import io.antmedia.webrtcandroidframework.api.IWebRTCClient;
 import io.antmedia.webrtcandroidframework.api.IWebRTCListener;
+import io.antmedia.webrtcandroidframework.core.DataChannelBatcher;
+import io.antmedia.webrtcandroidframework.core.DataChannelBufferPool;
+import io.antmedia.webrtcandroidframework.core.DataChannelOptions;
+import io.antmedia.webrtcandroidframework.core.DataChannelSender;
+import io.antmedia.webrtcandroidframework.core.FileTransfer;
+import io.antmedia.webrtcandroidframework.core.SharedPeerConnectionFactory;
+import io.antmedia.webrtcandroidframework.sdp.SdpMungingRules;
+import io.antmedia.webrtcandroidframework.websocket.ReconnectionPolicy;
+import io.antmedia.webrtcandroidframework.websocket.SignalingTransport;
+import io.antmedia.webrtcandroidframework.websocket.SignallingOutbox;
 
 public class WebRTCClientConfig {
 
@@ -164,8 +175,135 @@ public class WebRTCClientConfig {
      */
     public boolean reconnectionEnabled = true;
 
+    /*
+     * Time given to the ICE restart on the existing peer connection before the session is restored.
+     * 0 skips ICE restart
+     */
+    public long iceRestartTimeoutMs = 5000;
+
+    /*
+     * Time given to the session restore on the existing peer connection before the stream is republished.
+     * 0 skips session restore
+     */
+    public long sessionRestoreTimeoutMs = 5000;
+
+    /*
+     * Maximum number of the peers that are republished at the same time, e.g. in a conference
+     */
+    public int maxConcurrentReconnections = 2;
+
     /*
      * Flag indicating whether AGC (automatic gain contol) and HPF (high pass filter) is disabled in audio processing
      */
     public boolean disableWebRtcAGCAndHPF = false;
+
+    /*
+     * Flag indicating whether the local ICE candidates that are already sent for the stream are dropped
+     */
+    public boolean iceCandidateDeduplicationEnabled = false;
+
+    /*
+     * Flag indicating whether the local ICE candidates that are gathered while the first one is waiting to be sent
+     * are sent with it in one signalling thread pass. Each candidate is still sent in its own frame
+     */
+    public boolean iceCandidatePipeliningEnabled = true;
+
+    /*
+     * Decides the delays between websocket reconnection attempts.
+     * If it's null, exponential backoff with jitter is used
+     */
+    public ReconnectionPolicy wsReconnectionPolicy;
+
+    /*
+     * Transport that carries the signalling messages.
+     * If it's null, websocket connection to serverUrl is used
+     */
+    public SignalingTransport signalingTransport;
+
+    /*
+     * Maximum number of signalling messages kept while websocket is disconnected.
+     * They are sent when it's connected again. 0 disables it
+     */
+    public int signallingOutboxCapacity = SignallingOutbox.DEFAULT_CAPACITY;
+
+    /*
+     * Requests binary (CBOR) signalling from the server when websocket is connected.
+     * Messages are sent as JSON text if server does not support it
+     */
+    public boolean binarySignallingEnabled = false;
+
+    /*
+     * Compresses the SDP in binary signalling messages
+     */
+    public boolean sdpCompressionEnabled = true;
+
+    /*
+     * Shares one websocket connection between the clients that have the same server url.
+     * Incoming messages are delivered to the client of the streamId
+     */
+    public boolean sharedWebSocketConnection = false;
+
+    /*
+     * Uses the process wide PeerConnectionFactory and EglBase instead of creating them for this client.
+     * Clients with the same codec options use the same factory
+     */
+    public boolean sharedPeerConnectionFactory = false;
+
+    /*
+     * Time in milliseconds to keep the shared factory and EglBase after the last client is released,
+     * so a client created right after, e.g. on screen rotation, does not create them again
+     */
+    public long sharedFactoryKeepAliveMs = SharedPeerConnectionFactory.DEFAULT_KEEP_ALIVE_MS;
+
+    /*
+     * SDP rules applied to the offers and answers after the codec, bitrate and video rotation settings,
+     * e.g. codec order, opus DTX/FEC/stereo, header extensions or RED
+     */
+    public SdpMungingRules sdpMungingRules;
+
+    /*
+     * Received data channel messages are copied to the buffers of this pool instead of new buffers.
+     * Data channel observer should release the buffers to the pool, see DataChannelBufferPool
+     */
+    public DataChannelBufferPool dataChannelBufferPool;
+
+    /*
+     * Executor that received data channel messages are delivered on. Messages are delivered on the main thread
+     * if it's not set. A direct executor delivers them on the WebRTC signaling thread without a thread switch
+     */
+    public Executor dataChannelMessageExecutor;
+
+    /*
+     * Messages sent via data channel are queued while its buffered amount is above the high watermark and queued
+     * messages are sent when it drops to the low watermark. Messages are rejected if queued bytes exceed the max
+     */
+    public long dataChannelHighWatermark = DataChannelSender.DEFAULT_HIGH_WATERMARK;
+    public long dataChannelLowWatermark = DataChannelSender.DEFAULT_LOW_WATERMARK;
+    public long dataChannelMaxQueuedBytes = DataChannelSender.DEFAULT_MAX_QUEUED_BYTES;
+
+    /*
+     * Listener of the files sent and received via data channel. Incoming transfers are ignored and
+     * their frames are delivered to the data channel observer if it's not set. While it's set, binary messages
+     * on the default data channel that start with the TransferFrame magic number and a frame type are reserved
+     * for the transfers and they are not delivered to the data channel observer
+     */
+    public IFileTransferListener fileTransferListener;
+
+    /*
+     * Size of the file chunks sent via data channel. 16 KB is the largest size that all browsers receive
+     */
+    public int fileTransferChunkSize = FileTransfer.DEFAULT_CHUNK_SIZE;
+
+    /*
+     * Labeled data channels opened in addition to the default data channel of each stream, e.g. an unordered
+     * channel without retransmits for the messages that are useless when they are late
+     */
+    public ArrayList<DataChannelOptions> dataChannels = new ArrayList<>();
+
+    /*
+     * Messages sent via the default data channel in the interval are coalesced into one message if it's positive.
+     * Remote peer should use the same setting to unpack them, see DataChannelBatcher
+     */
+    public long dataChannelBatchIntervalMs = 0;
+    public int dataChannelMaxBatchSize = DataChannelBatcher.DEFAULT_MAX_BATCH_SIZE;
 }
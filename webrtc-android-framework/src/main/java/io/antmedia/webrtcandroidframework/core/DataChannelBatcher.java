@@ -0,0 +1,308 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import org.webrtc.DataChannel;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.utility.Clock;
+
+/**
+ * Coalesces small data channel messages into batches that are sent as one binary message.
+ *
+ * A batch is sent when the flush interval passes after its first message or when the next message does not fit
+ * in the max batch size. Each message of a batch keeps its binary flag, so the receiving side unpacks the batch
+ * to the original messages with {@link #unpack(ByteBuffer, List)}. Messages that do not fit in an empty batch are
+ * sent alone in a single message frame, after the messages added before them. Every message that the batcher
+ * sends is framed, so the receiving side never takes an application payload for a batch.
+ *
+ * <pre>
+ * batch   | magic (4) | kind 0 (1) | message | message | ...
+ * message | binary (1) | length (2) | payload |
+ * single  | magic (4) | kind 1 (1) | binary (1) | payload |
+ * </pre>
+ *
+ * Messages can be added from any thread. {@link #flush()} sends the batches via the {@link DataChannelSender}, so
+ * it should be called on the thread that the sender is called on.
+ */
+public class DataChannelBatcher {
+
+    public static final int MAGIC = 0x414D4D42;
+    public static final byte KIND_BATCH = 0;
+    public static final byte KIND_SINGLE = 1;
+    /**
+     * magic and kind
+     */
+    public static final int HEADER_SIZE = 5;
+    public static final int MESSAGE_HEADER_SIZE = 3;
+    public static final int MAX_MESSAGE_SIZE = 0xFFFF;
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 10;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 16 * 1024;
+
+    public interface FlushScheduler {
+        /**
+         * Calls {@link #flush()} of the batcher after the delay on the thread of the sender
+         */
+        void scheduleFlush(DataChannelBatcher batcher, long delayMs);
+    }
+
+    public interface Listener {
+        /**
+         * Called on the thread that sends the batch when the results of its messages are completed
+         */
+        void onBatchCompleted(List<DataChannelSender.SendResult> results, boolean sent);
+    }
+
+    private static class Batch {
+        private final DataChannel.Buffer buffer;
+        private final List<DataChannelSender.SendResult> results;
+
+        Batch(DataChannel.Buffer buffer, List<DataChannelSender.SendResult> results) {
+            this.buffer = buffer;
+            this.results = results;
+        }
+    }
+
+    private final DataChannelSender sender;
+    private final Clock clock;
+    private final long flushIntervalMs;
+    private final int maxBatchSize;
+    private final FlushScheduler flushScheduler;
+    private final Listener listener;
+
+    private final ByteBuffer current;
+    private List<DataChannelSender.SendResult> currentResults = new ArrayList<>();
+    private final ArrayDeque<Batch> ready = new ArrayDeque<>();
+    private boolean flushScheduled;
+    private boolean closed;
+
+    private long addedCount;
+    private long sentCount;
+    private long failedCount;
+    private long batchCount;
+    private long firstAddedAtMs = -1;
+    private long lastSentAtMs;
+
+    public DataChannelBatcher(DataChannelSender sender, Clock clock, long flushIntervalMs, int maxBatchSize,
+                              FlushScheduler flushScheduler, Listener listener) {
+        if (maxBatchSize <= HEADER_SIZE + MESSAGE_HEADER_SIZE) {
+            throw new IllegalArgumentException("Max batch size is too small: " + maxBatchSize);
+        }
+        this.sender = sender;
+        this.clock = clock;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxBatchSize = maxBatchSize;
+        this.flushScheduler = flushScheduler;
+        this.listener = listener;
+        //batch is built in the same buffer and copied when it's closed, since the sender may queue it
+        this.current = ByteBuffer.allocate(maxBatchSize);
+    }
+
+    public DataChannelSender getSender() {
+        return sender;
+    }
+
+    /**
+     * Adds the message to the current batch. Position of the data is not changed
+     *
+     * @return result that is completed when the batch of the message is passed to the data channel or it fails
+     */
+    public DataChannelSender.SendResult add(DataChannel.Buffer buffer) {
+        long now = clock.nowMs();
+        DataChannelSender.SendResult result = new DataChannelSender.SendResult(buffer, now);
+        boolean flushNow = false;
+        boolean scheduleFlush = false;
+        synchronized (this) {
+            if (closed) {
+                failedCount++;
+                result.complete(false, "Data channel is closed");
+                return result;
+            }
+            if (firstAddedAtMs < 0) {
+                firstAddedAtMs = now;
+            }
+            addedCount++;
+            int length = buffer.data.remaining();
+            int messageSize = MESSAGE_HEADER_SIZE + length;
+            if (length > MAX_MESSAGE_SIZE || HEADER_SIZE + messageSize > maxBatchSize) {
+                closeBatch();
+                ready.add(new Batch(single(buffer), Collections.singletonList(result)));
+                flushNow = true;
+            } else {
+                if (current.remaining() < messageSize) {
+                    closeBatch();
+                    flushNow = true;
+                }
+                if (current.position() == 0) {
+                    current.putInt(MAGIC).put(KIND_BATCH);
+                }
+                current.put((byte) (buffer.binary ? 1 : 0)).putShort((short) length);
+                current.put(buffer.data.duplicate());
+                currentResults.add(result);
+                if (!flushScheduled) {
+                    flushScheduled = true;
+                    scheduleFlush = true;
+                }
+            }
+        }
+        if (flushNow) {
+            flushScheduler.scheduleFlush(this, 0);
+        } else if (scheduleFlush) {
+            flushScheduler.scheduleFlush(this, flushIntervalMs);
+        }
+        return result;
+    }
+
+    /**
+     * Sends the closed batches and the current batch
+     */
+    public void flush() {
+        List<Batch> batches;
+        synchronized (this) {
+            flushScheduled = false;
+            closeBatch();
+            if (ready.isEmpty()) {
+                return;
+            }
+            batches = new ArrayList<>(ready);
+            ready.clear();
+        }
+        for (Batch batch : batches) {
+            DataChannelSender.SendResult batchResult = sender.send(batch.buffer);
+            batchResult.setCallback((buffer, sent) -> complete(batch, sent, batchResult.getError()));
+        }
+    }
+
+    private static DataChannel.Buffer single(DataChannel.Buffer buffer) {
+        ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + 1 + buffer.data.remaining());
+        data.putInt(MAGIC).put(KIND_SINGLE).put((byte) (buffer.binary ? 1 : 0));
+        data.put(buffer.data.duplicate());
+        data.flip();
+        return new DataChannel.Buffer(data, true);
+    }
+
+    private void closeBatch() {
+        if (currentResults.isEmpty()) {
+            return;
+        }
+        current.flip();
+        ByteBuffer data = ByteBuffer.allocate(current.remaining());
+        data.put(current);
+        data.flip();
+        current.clear();
+        ready.add(new Batch(new DataChannel.Buffer(data, true), currentResults));
+        currentResults = new ArrayList<>();
+    }
+
+    private void complete(Batch batch, boolean sent, String error) {
+        synchronized (this) {
+            batchCount++;
+            if (sent) {
+                sentCount += batch.results.size();
+                lastSentAtMs = clock.nowMs();
+            } else {
+                failedCount += batch.results.size();
+            }
+        }
+        for (DataChannelSender.SendResult result : batch.results) {
+            result.complete(sent, error);
+        }
+        listener.onBatchCompleted(batch.results, sent);
+    }
+
+    /**
+     * Fails the messages that are not sent yet and the messages that are added later
+     */
+    public void close() {
+        List<Batch> batches;
+        synchronized (this) {
+            closed = true;
+            closeBatch();
+            batches = new ArrayList<>(ready);
+            ready.clear();
+        }
+        for (Batch batch : batches) {
+            complete(batch, false, "Data channel is closed");
+        }
+    }
+
+    /**
+     * @return true if the message is a batch or a single message frame. Position of the data is not changed
+     */
+    public static boolean isBatch(ByteBuffer data) {
+        if (data.remaining() < HEADER_SIZE + 1 || data.getInt(data.position()) != MAGIC) {
+            return false;
+        }
+        byte kind = data.get(data.position() + 4);
+        return kind == KIND_BATCH || kind == KIND_SINGLE;
+    }
+
+    /**
+     * Adds the messages of the batch to the list. Messages share the content of the data and the position of
+     * the data is not changed
+     *
+     * @throws IllegalArgumentException if the data is not a valid batch
+     */
+    public static void unpack(ByteBuffer data, List<DataChannel.Buffer> messages) {
+        if (!isBatch(data)) {
+            throw new IllegalArgumentException("Not a data channel batch");
+        }
+        ByteBuffer batch = data.duplicate();
+        byte kind = batch.get(batch.position() + 4);
+        batch.position(batch.position() + HEADER_SIZE);
+        if (kind == KIND_SINGLE) {
+            boolean binary = batch.get() != 0;
+            messages.add(new DataChannel.Buffer(batch.slice(), binary));
+            return;
+        }
+        while (batch.hasRemaining()) {
+            if (batch.remaining() < MESSAGE_HEADER_SIZE) {
+                throw new IllegalArgumentException("Truncated data channel batch");
+            }
+            boolean binary = batch.get() != 0;
+            int length = batch.getShort() & 0xFFFF;
+            if (batch.remaining() < length) {
+                throw new IllegalArgumentException("Truncated data channel batch");
+            }
+            ByteBuffer message = batch.slice();
+            message.limit(length);
+            messages.add(new DataChannel.Buffer(message, binary));
+            batch.position(batch.position() + length);
+        }
+    }
+
+    public synchronized long getAddedCount() {
+        return addedCount;
+    }
+
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * @return number of completed batches, including the messages that are sent as they are
+     */
+    public synchronized long getBatchCount() {
+        return batchCount;
+    }
+
+    public synchronized double getAverageBatchSize() {
+        return batchCount == 0 ? 0 : (double) (sentCount + failedCount) / batchCount;
+    }
+
+    /**
+     * @return messages per second passed to the data channel between the first added and the last sent message
+     */
+    public synchronized long getMessagesPerSecond() {
+        long durationMs = lastSentAtMs - firstAddedAtMs;
+        return durationMs <= 0 ? 0 : sentCount * 1000 / durationMs;
+    }
+}
@@ -0,0 +1,193 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import org.webrtc.DataChannel;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.antmedia.webrtcandroidframework.api.IDataChannelObserver;
+
+/**
+ * Reusable buffers for the received data channel messages.
+ *
+ * WebRTC frees the native buffer of a message after {@link DataChannel.Observer#onMessage(DataChannel.Buffer)}
+ * returns, so the message is copied before it's delivered to {@link IDataChannelObserver}. When a pool is set with
+ * {@link io.antmedia.webrtcandroidframework.api.WebRTCClientBuilder#setDataChannelBufferPool(DataChannelBufferPool)}
+ * messages are copied to the buffers of this pool instead of new ones and the observer should call
+ * {@link #release(DataChannel.Buffer)} when it's done with the buffer. A buffer that is not released is not reused,
+ * so forgetting to release only costs an allocation.
+ *
+ * Buffers are heap buffers in power of two sizes. Position of the data is 0 and its limit is the message length.
+ * Messages larger than the max pooled size get a buffer of their own size that is not pooled.
+ */
+public class DataChannelBufferPool {
+
+    public static final int MIN_BUFFER_SIZE = 64;
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 16 * 1024;
+    public static final int DEFAULT_MAX_BUFFERS_PER_SIZE = 32;
+
+    /**
+     * A message buffer of the pool. It's also the task that delivers the message, so delivering a message
+     * does not allocate anything once the pool is warmed up.
+     */
+    public static class PooledBuffer extends DataChannel.Buffer implements Runnable {
+        private final DataChannelBufferPool pool;
+        private final int sizeIndex;
+        private final AtomicBoolean inUse = new AtomicBoolean();
+        private IDataChannelObserver observer;
+        private String label;
+
+        PooledBuffer(DataChannelBufferPool pool, int sizeIndex, int capacity, boolean binary) {
+            super(ByteBuffer.allocate(capacity), binary);
+            this.pool = pool;
+            this.sizeIndex = sizeIndex;
+        }
+
+        void setDelivery(IDataChannelObserver observer, String label) {
+            this.observer = observer;
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Returns the buffer to its pool. Calling it more than once has no effect
+         */
+        public boolean release() {
+            return pool.release(this);
+        }
+
+        @Override
+        public void run() {
+            IDataChannelObserver target = observer;
+            observer = null;
+            if (target != null) {
+                target.onMessage(this, label);
+            }
+        }
+    }
+
+    private final int maxBufferSize;
+    private final ArrayBlockingQueue<PooledBuffer>[] binaryBuffers;
+    private final ArrayBlockingQueue<PooledBuffer>[] textBuffers;
+
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong allocationCount = new AtomicLong();
+    private final AtomicLong releaseCount = new AtomicLong();
+
+    public DataChannelBufferPool() {
+        this(DEFAULT_MAX_BUFFER_SIZE, DEFAULT_MAX_BUFFERS_PER_SIZE);
+    }
+
+    /**
+     * @param maxBufferSize messages larger than this are not pooled. It's rounded up to a power of two
+     * @param maxBuffersPerSize max number of the released buffers that are kept for each size
+     */
+    @SuppressWarnings("unchecked")
+    public DataChannelBufferPool(int maxBufferSize, int maxBuffersPerSize) {
+        if (maxBuffersPerSize <= 0) {
+            throw new IllegalArgumentException("maxBuffersPerSize should be positive: " + maxBuffersPerSize);
+        }
+        int sizeCount = sizeIndex(Math.max(maxBufferSize, MIN_BUFFER_SIZE)) + 1;
+        this.maxBufferSize = MIN_BUFFER_SIZE << (sizeCount - 1);
+        binaryBuffers = new ArrayBlockingQueue[sizeCount];
+        textBuffers = new ArrayBlockingQueue[sizeCount];
+        for (int i = 0; i < sizeCount; i++) {
+            binaryBuffers[i] = new ArrayBlockingQueue<>(maxBuffersPerSize);
+            textBuffers[i] = new ArrayBlockingQueue<>(maxBuffersPerSize);
+        }
+    }
+
+    /**
+     * @return index of the smallest buffer size that fits the given length
+     */
+    static int sizeIndex(int length) {
+        if (length <= MIN_BUFFER_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros((length - 1) / MIN_BUFFER_SIZE);
+    }
+
+    /**
+     * Copies the remaining bytes of the source to a buffer of the pool. Position of the source is not changed
+     */
+    public PooledBuffer acquire(ByteBuffer source, boolean binary) {
+        acquireCount.incrementAndGet();
+        int length = source.remaining();
+        PooledBuffer buffer;
+        if (length > maxBufferSize) {
+            allocationCount.incrementAndGet();
+            buffer = new PooledBuffer(this, -1, length, binary);
+        } else {
+            int index = sizeIndex(length);
+            buffer = (binary ? binaryBuffers : textBuffers)[index].poll();
+            if (buffer == null) {
+                allocationCount.incrementAndGet();
+                buffer = new PooledBuffer(this, index, MIN_BUFFER_SIZE << index, binary);
+            }
+        }
+        buffer.inUse.set(true);
+        ByteBuffer data = buffer.data;
+        data.clear();
+        int position = source.position();
+        data.put(source);
+        source.position(position);
+        data.flip();
+        return buffer;
+    }
+
+    /**
+     * @return true if the buffer is returned to this pool. Buffers of other pools, not pooled buffers and
+     * the buffers that are already released are ignored
+     */
+    public boolean release(DataChannel.Buffer buffer) {
+        if (!(buffer instanceof PooledBuffer)) {
+            return false;
+        }
+        PooledBuffer pooledBuffer = (PooledBuffer) buffer;
+        if (pooledBuffer.pool != this || !pooledBuffer.inUse.compareAndSet(true, false)) {
+            return false;
+        }
+        releaseCount.incrementAndGet();
+        pooledBuffer.setDelivery(null, null);
+        if (pooledBuffer.sizeIndex < 0) {
+            return false;
+        }
+        // buffer is dropped if there are enough buffers of its size
+        return (pooledBuffer.binary ? binaryBuffers : textBuffers)[pooledBuffer.sizeIndex].offer(pooledBuffer);
+    }
+
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    /**
+     * @return number of the buffers that are allocated because there was no released buffer of the size
+     */
+    public long getAllocationCount() {
+        return allocationCount.get();
+    }
+
+    public long getReleaseCount() {
+        return releaseCount.get();
+    }
+
+    /**
+     * @return number of the buffers that are ready to be reused
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (int i = 0; i < binaryBuffers.length; i++) {
+            count += binaryBuffers[i].size() + textBuffers[i].size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,216 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import org.webrtc.DataChannel;
+
+import io.antmedia.webrtcandroidframework.api.IDataChannelObserver;
+
+/**
+ * Delivery options of a labeled data channel that is opened in addition to the default data channel of a stream.
+ *
+ * <pre>
+ * // latest telemetry matters, lost or late messages are not retransmitted
+ * DataChannelOptions telemetry = DataChannelOptions.builder("telemetry")
+ *         .setOrdered(false)
+ *         .setMaxRetransmits(0)
+ *         .setObserver(telemetryObserver)
+ *         .build();
+ * </pre>
+ *
+ * A channel is either fully reliable, or limited by the number of retransmits or by the packet lifetime.
+ * A negotiated channel is not announced to the remote peer, both peers should create it with the same id.
+ * Instances are immutable.
+ */
+public class DataChannelOptions {
+
+    public static final int MAX_ID = 65534;
+
+    private final String label;
+    private final boolean ordered;
+    private final int maxRetransmits;
+    private final int maxPacketLifeTimeMs;
+    private final int negotiatedId;
+    private final String protocol;
+    private final IDataChannelObserver observer;
+    private final long batchIntervalMs;
+    private final int maxBatchSize;
+
+    private DataChannelOptions(Builder builder) {
+        this.label = builder.label;
+        this.ordered = builder.ordered;
+        this.maxRetransmits = builder.maxRetransmits;
+        this.maxPacketLifeTimeMs = builder.maxPacketLifeTimeMs;
+        this.negotiatedId = builder.negotiatedId;
+        this.protocol = builder.protocol;
+        this.observer = builder.observer;
+        this.batchIntervalMs = builder.batchIntervalMs;
+        this.maxBatchSize = builder.maxBatchSize;
+    }
+
+    public static Builder builder(String label) {
+        return new Builder(label);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * @return -1 if it's not limited by retransmits
+     */
+    public int getMaxRetransmits() {
+        return maxRetransmits;
+    }
+
+    /**
+     * @return -1 if it's not limited by packet lifetime
+     */
+    public int getMaxPacketLifeTimeMs() {
+        return maxPacketLifeTimeMs;
+    }
+
+    public boolean isReliable() {
+        return maxRetransmits < 0 && maxPacketLifeTimeMs < 0;
+    }
+
+    public boolean isNegotiated() {
+        return negotiatedId >= 0;
+    }
+
+    /**
+     * @return id of the negotiated channel or -1
+     */
+    public int getNegotiatedId() {
+        return negotiatedId;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * @return observer of the channel, or null to use the data channel observer of the client
+     */
+    public IDataChannelObserver getObserver() {
+        return observer;
+    }
+
+    /**
+     * @return true if the messages sent on the channel are coalesced, see {@link DataChannelBatcher}
+     */
+    public boolean isBatched() {
+        return batchIntervalMs > 0;
+    }
+
+    public long getBatchIntervalMs() {
+        return batchIntervalMs;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public DataChannel.Init toInit() {
+        DataChannel.Init init = new DataChannel.Init();
+        init.ordered = ordered;
+        init.maxRetransmits = maxRetransmits;
+        init.maxRetransmitTimeMs = maxPacketLifeTimeMs;
+        init.negotiated = isNegotiated();
+        init.id = negotiatedId;
+        init.protocol = protocol;
+        return init;
+    }
+
+    public static class Builder {
+        private final String label;
+        private boolean ordered = true;
+        private int maxRetransmits = -1;
+        private int maxPacketLifeTimeMs = -1;
+        private int negotiatedId = -1;
+        private String protocol = "";
+        private IDataChannelObserver observer;
+        private long batchIntervalMs;
+        private int maxBatchSize = DataChannelBatcher.DEFAULT_MAX_BATCH_SIZE;
+
+        private Builder(String label) {
+            if (label == null || label.isEmpty()) {
+                throw new IllegalArgumentException("Data channel label should not be empty");
+            }
+            this.label = label;
+        }
+
+        /**
+         * @param ordered false to deliver the messages as they arrive instead of waiting for the lost ones
+         */
+        public Builder setOrdered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * @param maxRetransmits 0 to send each message once
+         */
+        public Builder setMaxRetransmits(int maxRetransmits) {
+            if (maxRetransmits < 0) {
+                throw new IllegalArgumentException("Max retransmits should not be negative: " + maxRetransmits);
+            }
+            this.maxRetransmits = maxRetransmits;
+            return this;
+        }
+
+        /**
+         * @param maxPacketLifeTimeMs time that a message is retransmitted in
+         */
+        public Builder setMaxPacketLifeTime(int maxPacketLifeTimeMs) {
+            if (maxPacketLifeTimeMs < 0) {
+                throw new IllegalArgumentException("Max packet lifetime should not be negative: " + maxPacketLifeTimeMs);
+            }
+            this.maxPacketLifeTimeMs = maxPacketLifeTimeMs;
+            return this;
+        }
+
+        public Builder setNegotiatedId(int id) {
+            if (id < 0 || id > MAX_ID) {
+                throw new IllegalArgumentException("Negotiated data channel id should be between 0 and " + MAX_ID + ": " + id);
+            }
+            this.negotiatedId = id;
+            return this;
+        }
+
+        public Builder setProtocol(String protocol) {
+            this.protocol = protocol == null ? "" : protocol;
+            return this;
+        }
+
+        public Builder setObserver(IDataChannelObserver observer) {
+            this.observer = observer;
+            return this;
+        }
+
+        /**
+         * Coalesces the messages sent in the interval into one message. Remote peer should use the same options
+         * to unpack them, see {@link DataChannelBatcher}
+         *
+         * @param flushIntervalMs max time that a message waits for the other messages, 0 to disable batching
+         * @param maxBatchSize max size of a batch in bytes
+         */
+        public Builder setBatching(long flushIntervalMs, int maxBatchSize) {
+            if (flushIntervalMs < 0 || maxBatchSize <= DataChannelBatcher.HEADER_SIZE + DataChannelBatcher.MESSAGE_HEADER_SIZE) {
+                throw new IllegalArgumentException("Invalid batching interval " + flushIntervalMs + " or size " + maxBatchSize);
+            }
+            this.batchIntervalMs = flushIntervalMs;
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public DataChannelOptions build() {
+            if (maxRetransmits >= 0 && maxPacketLifeTimeMs >= 0) {
+                throw new IllegalArgumentException("Data channel cannot be limited by both retransmits and packet lifetime");
+            }
+            return new DataChannelOptions(this);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import org.webrtc.DataChannel;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.antmedia.webrtcandroidframework.utility.Clock;
+
+/**
+ * Send queue of a data channel that keeps {@link DataChannel#bufferedAmount()} between watermarks.
+ *
+ * Messages are sent directly while the buffered amount is below the high watermark and queued otherwise.
+ * Queued messages are sent when the buffered amount drops to the low watermark, so large bursts fill the
+ * SCTP buffer without overflowing it and no message is dropped. The sender is not writable while the
+ * buffered amount and the queued bytes are above the high watermark, and it's writable again when the queue
+ * is empty and the buffered amount is at the low watermark. Producers should pause while it's not writable.
+ * Messages are only rejected when the queue exceeds its max size.
+ *
+ * {@link DataChannel#send(DataChannel.Buffer)} blocks until the signaling thread runs it, so methods should
+ * not be called on the signaling thread, e.g. in {@link DataChannel.Observer#onBufferedAmountChange(long)}.
+ * Callbacks are called on the thread that sends the message.
+ */
+public class DataChannelSender {
+
+    public static final long DEFAULT_HIGH_WATERMARK = 1024 * 1024;
+    public static final long DEFAULT_LOW_WATERMARK = 256 * 1024;
+    public static final long DEFAULT_MAX_QUEUED_BYTES = 16 * 1024 * 1024;
+
+    public interface Callback {
+        void onComplete(DataChannel.Buffer buffer, boolean sent);
+    }
+
+    public interface WritabilityListener {
+        void onWritabilityChanged(boolean writable);
+    }
+
+    /**
+     * Result of a message that is completed when the message is sent, it fails or it's rejected
+     */
+    public static class SendResult {
+        private final DataChannel.Buffer buffer;
+        private final long queuedAtMs;
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean sent;
+        private volatile String error;
+        private Callback callback;
+
+        public SendResult(DataChannel.Buffer buffer, long queuedAtMs) {
+            this.buffer = buffer;
+            this.queuedAtMs = queuedAtMs;
+        }
+
+        /**
+         * @return result that is already failed with the error
+         */
+        public static SendResult failed(DataChannel.Buffer buffer, String error) {
+            SendResult result = new SendResult(buffer, Clock.SYSTEM.nowMs());
+            result.complete(false, error);
+            return result;
+        }
+
+        public DataChannel.Buffer getBuffer() {
+            return buffer;
+        }
+
+        public boolean isDone() {
+            return completed.getCount() == 0;
+        }
+
+        public boolean isSent() {
+            return sent;
+        }
+
+        /**
+         * @return reason of the failure or null if the message is sent or it's not completed yet
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return true if the message is sent in the given time
+         */
+        public boolean await(long timeoutMs) throws InterruptedException {
+            return completed.await(timeoutMs, TimeUnit.MILLISECONDS) && sent;
+        }
+
+        /**
+         * Callback is called when the result is completed, or right away if it's already completed
+         */
+        public void setCallback(Callback callback) {
+            synchronized (this) {
+                if (!isDone()) {
+                    this.callback = callback;
+                    return;
+                }
+            }
+            callback.onComplete(buffer, sent);
+        }
+
+        public void complete(boolean sent, String error) {
+            Callback completedCallback;
+            synchronized (this) {
+                if (isDone()) {
+                    return;
+                }
+                this.sent = sent;
+                this.error = error;
+                completed.countDown();
+                completedCallback = callback;
+            }
+            if (completedCallback != null) {
+                completedCallback.onComplete(buffer, sent);
+            }
+        }
+    }
+
+    private final DataChannel dataChannel;
+    private final Clock clock;
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final long maxQueuedBytes;
+    private final List<WritabilityListener> writabilityListeners = new CopyOnWriteArrayList<>();
+
+    private final ArrayDeque<SendResult> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean writable = true;
+    private boolean closed;
+
+    private long sentCount;
+    private long sentBytes;
+    private long failedCount;
+    private long totalQueueDelayMs;
+    private long maxQueueDelayMs;
+    private long firstSentAtMs = -1;
+    private long lastSentAtMs;
+
+    public DataChannelSender(DataChannel dataChannel) {
+        this(dataChannel, Clock.SYSTEM, DEFAULT_HIGH_WATERMARK, DEFAULT_LOW_WATERMARK, DEFAULT_MAX_QUEUED_BYTES);
+    }
+
+    public DataChannelSender(DataChannel dataChannel, Clock clock, long highWatermark, long lowWatermark, long maxQueuedBytes) {
+        if (lowWatermark < 0 || lowWatermark > highWatermark) {
+            throw new IllegalArgumentException("Low watermark should be between 0 and high watermark: " + lowWatermark);
+        }
+        this.dataChannel = dataChannel;
+        this.clock = clock;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.maxQueuedBytes = maxQueuedBytes;
+    }
+
+    public void addWritabilityListener(WritabilityListener writabilityListener) {
+        writabilityListeners.add(writabilityListener);
+    }
+
+    public void removeWritabilityListener(WritabilityListener writabilityListener) {
+        writabilityListeners.remove(writabilityListener);
+    }
+
+    public DataChannel getDataChannel() {
+        return dataChannel;
+    }
+
+    public SendResult send(DataChannel.Buffer buffer) {
+        SendResult result = new SendResult(buffer, clock.nowMs());
+        send(result);
+        return result;
+    }
+
+    /**
+     * Sends the message of the result or queues it
+     */
+    public synchronized void send(SendResult result) {
+        int size = result.buffer.data.remaining();
+        if (closed) {
+            fail(result, "Data channel is closed");
+            return;
+        }
+        if (queuedBytes + size > maxQueuedBytes) {
+            fail(result, "Data channel send queue is full");
+            return;
+        }
+        queue.add(result);
+        queuedBytes += size;
+        drain();
+    }
+
+    /**
+     * Sends the queued messages if the buffered amount dropped to the low watermark
+     */
+    public synchronized void onBufferedAmountChange() {
+        if (queue.isEmpty() && writable) {
+            return;
+        }
+        long bufferedAmount = getBufferedAmount();
+        if (bufferedAmount >= 0 && bufferedAmount <= lowWatermark) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        long bufferedAmount = getBufferedAmount();
+        while (!queue.isEmpty() && bufferedAmount >= 0 && bufferedAmount < highWatermark) {
+            SendResult result = queue.poll();
+            int size = result.buffer.data.remaining();
+            queuedBytes -= size;
+            sendNow(result, size);
+            bufferedAmount = getBufferedAmount();
+        }
+        if (bufferedAmount < 0) {
+            close();
+            return;
+        }
+        if (writable && bufferedAmount + queuedBytes >= highWatermark) {
+            setWritable(false);
+        } else if (!writable && queue.isEmpty() && bufferedAmount <= lowWatermark) {
+            setWritable(true);
+        }
+    }
+
+    private void sendNow(SendResult result, int size) {
+        long now = clock.nowMs();
+        boolean sent;
+        String error = null;
+        try {
+            sent = dataChannel.send(result.buffer);
+            if (!sent) {
+                error = "Data channel did not accept the message";
+            }
+        } catch (RuntimeException e) {
+            sent = false;
+            error = String.valueOf(e.getMessage());
+        }
+        result.buffer.data.rewind();
+        if (sent) {
+            long queueDelayMs = now - result.queuedAtMs;
+            totalQueueDelayMs += queueDelayMs;
+            maxQueueDelayMs = Math.max(maxQueueDelayMs, queueDelayMs);
+            sentCount++;
+            sentBytes += size;
+            if (firstSentAtMs < 0) {
+                firstSentAtMs = now;
+            }
+            lastSentAtMs = now;
+            result.complete(true, null);
+        } else {
+            fail(result, error);
+        }
+    }
+
+    private void fail(SendResult result, String error) {
+        failedCount++;
+        result.complete(false, error);
+    }
+
+    /**
+     * @return buffered amount of the channel or -1 if it's disposed
+     */
+    private long getBufferedAmount() {
+        try {
+            return dataChannel.bufferedAmount();
+        } catch (IllegalStateException e) {
+            return -1;
+        }
+    }
+
+    private void setWritable(boolean writable) {
+        this.writable = writable;
+        for (WritabilityListener writabilityListener : writabilityListeners) {
+            writabilityListener.onWritabilityChanged(writable);
+        }
+    }
+
+    /**
+     * Fails the queued messages and the messages that are sent later
+     */
+    public synchronized void close() {
+        closed = true;
+        while (!queue.isEmpty()) {
+            fail(queue.poll(), "Data channel is closed");
+        }
+        queuedBytes = 0;
+        if (!writable) {
+            //paused producers are resumed, so their messages fail instead of waiting forever
+            setWritable(true);
+        }
+    }
+
+    public synchronized boolean isWritable() {
+        return writable;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    public synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    public synchronized long getSentBytes() {
+        return sentBytes;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * @return average time between sending a message and passing it to the data channel
+     */
+    public synchronized long getAverageQueueDelayMs() {
+        return sentCount == 0 ? 0 : totalQueueDelayMs / sentCount;
+    }
+
+    public synchronized long getMaxQueueDelayMs() {
+        return maxQueueDelayMs;
+    }
+
+    /**
+     * @return bytes per second passed to the data channel between the first and the last sent message
+     */
+    public synchronized long getThroughputBytesPerSecond() {
+        long durationMs = lastSentAtMs - firstSentAtMs;
+        return durationMs <= 0 ? 0 : sentBytes * 1000 / durationMs;
+    }
+}
@@ -0,0 +1,292 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import org.webrtc.DataChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import io.antmedia.webrtcandroidframework.utility.Clock;
+
+/**
+ * A file that is sent or received via data channel in {@link TransferFrame}s.
+ *
+ * An outgoing transfer reads the next chunk from the file only while the {@link DataChannelSender} is writable,
+ * so the file is never loaded into memory and at most the high watermark of the sender is buffered.
+ * An incoming transfer is written to its file chunk by chunk by {@link FileTransferReceiver}.
+ *
+ * A transfer should be driven by a single thread, i.e. the executor of an outgoing transfer should be the one
+ * that the sender is called on. Getters can be called from any thread.
+ */
+public class FileTransfer implements DataChannelSender.WritabilityListener {
+
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    public interface Listener {
+        void onProgress(FileTransfer transfer);
+
+        void onCompleted(FileTransfer transfer, boolean successful);
+    }
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private final int id;
+    private final String name;
+    private final long size;
+    private final int chunkSize;
+    private final boolean incoming;
+    private final Clock clock;
+    private final Listener listener;
+    private FileChannel fileChannel;
+
+    //only for outgoing transfers
+    private final DataChannelSender sender;
+    private final Executor executor;
+    private boolean startSent;
+    private boolean endSent;
+    private long readPosition;
+
+    private final CRC32 crc = new CRC32();
+    private int nextIndex;
+    private int reportedPercent = -1;
+    private final long startedAtMs;
+    private volatile long completedAtMs = -1;
+    private volatile long transferredBytes;
+    private volatile boolean done;
+    private volatile boolean successful;
+    private volatile String error;
+
+    /**
+     * Creates an outgoing transfer of the whole file, see {@link #start()}
+     */
+    public FileTransfer(String name, FileChannel fileChannel, int chunkSize, DataChannelSender sender, Executor executor,
+                        Clock clock, Listener listener) throws IOException {
+        this(nextId.incrementAndGet(), name, fileChannel.size(), chunkSize, false, sender, executor, clock, listener);
+        this.fileChannel = fileChannel;
+    }
+
+    /**
+     * Creates an incoming transfer for a START frame
+     */
+    FileTransfer(TransferFrame startFrame, Clock clock, Listener listener) {
+        this(startFrame.getTransferId(), startFrame.getName(), startFrame.getSize(), startFrame.getChunkSize(), true,
+                null, null, clock, listener);
+    }
+
+    private FileTransfer(int id, String name, long size, int chunkSize, boolean incoming, DataChannelSender sender,
+                         Executor executor, Clock clock, Listener listener) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size should be positive: " + chunkSize);
+        }
+        this.id = id;
+        this.name = name;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.incoming = incoming;
+        this.sender = sender;
+        this.executor = executor;
+        this.clock = clock;
+        this.listener = listener;
+        this.startedAtMs = clock.nowMs();
+    }
+
+    /**
+     * Starts sending the outgoing transfer on its executor
+     */
+    public void start() {
+        sender.addWritabilityListener(this);
+        executor.execute(this::sendFrames);
+    }
+
+    /**
+     * Cancels the transfer. Remote peer is notified if it's an outgoing transfer
+     */
+    public void cancel() {
+        if (incoming) {
+            complete(false, "Cancelled");
+        } else {
+            executor.execute(() -> {
+                if (!done) {
+                    sender.send(new DataChannel.Buffer(TransferFrame.cancel(id), true));
+                    complete(false, "Cancelled");
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onWritabilityChanged(boolean writable) {
+        if (writable && !done) {
+            executor.execute(this::sendFrames);
+        }
+    }
+
+    private void sendFrames() {
+        try {
+            while (!done && !endSent && sender.isWritable()) {
+                if (!startSent) {
+                    startSent = true;
+                    send(TransferFrame.start(id, size, chunkSize, name), 0, false);
+                } else if (readPosition < size) {
+                    int length = (int) Math.min(chunkSize, size - readPosition);
+                    ByteBuffer frame = TransferFrame.chunk(id, nextIndex++, fileChannel, readPosition, length);
+                    int read = frame.remaining() - TransferFrame.CHUNK_HEADER_SIZE;
+                    if (read != length) {
+                        throw new IOException("File is truncated at " + (readPosition + read));
+                    }
+                    crc.update(frame.array(), frame.arrayOffset() + TransferFrame.CHUNK_HEADER_SIZE, read);
+                    readPosition += read;
+                    send(frame, read, false);
+                } else {
+                    endSent = true;
+                    send(TransferFrame.end(id, crc.getValue()), 0, true);
+                }
+            }
+        } catch (IOException e) {
+            sender.send(new DataChannel.Buffer(TransferFrame.cancel(id), true));
+            complete(false, "Cannot read the file: " + e.getMessage());
+        }
+    }
+
+    private void send(ByteBuffer frame, int payloadLength, boolean end) {
+        sender.send(new DataChannel.Buffer(frame, true)).setCallback((buffer, sent) -> {
+            if (!sent) {
+                complete(false, "Data channel did not send the transfer");
+                return;
+            }
+            if (!done && payloadLength > 0) {
+                transferredBytes += payloadLength;
+                reportProgress();
+            }
+            if (end) {
+                complete(true, null);
+            }
+        });
+    }
+
+    /**
+     * Writes the payload of a CHUNK frame of the incoming transfer
+     */
+    void write(TransferFrame chunkFrame) throws IOException {
+        if (chunkFrame.getIndex() != nextIndex) {
+            throw new IOException("Chunk " + chunkFrame.getIndex() + " is received instead of " + nextIndex);
+        }
+        ByteBuffer payload = chunkFrame.getPayload();
+        if (transferredBytes + payload.remaining() > size) {
+            throw new IOException("Received more than " + size + " bytes");
+        }
+        nextIndex++;
+        crc.update(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        int length = payload.remaining();
+        long position = transferredBytes;
+        while (payload.hasRemaining()) {
+            position += fileChannel.write(payload, position);
+        }
+        transferredBytes += length;
+        reportProgress();
+    }
+
+    /**
+     * Completes the incoming transfer with the checksum of the END frame
+     */
+    void finish(long checksum) {
+        if (transferredBytes != size) {
+            complete(false, "Received " + transferredBytes + " of " + size + " bytes");
+        } else if (checksum != crc.getValue()) {
+            complete(false, "Checksum does not match");
+        } else {
+            complete(true, null);
+        }
+    }
+
+    void setFileChannel(FileChannel fileChannel) {
+        this.fileChannel = fileChannel;
+    }
+
+    private void reportProgress() {
+        int percent = size == 0 ? 100 : (int) (transferredBytes * 100 / size);
+        if (percent > reportedPercent) {
+            reportedPercent = percent;
+            listener.onProgress(this);
+        }
+    }
+
+    void complete(boolean successful, String error) {
+        if (done) {
+            return;
+        }
+        this.successful = successful;
+        this.error = error;
+        completedAtMs = clock.nowMs();
+        done = true;
+        if (sender != null) {
+            sender.removeWritabilityListener(this);
+        }
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+                //transfer is already completed
+            }
+        }
+        listener.onCompleted(this, successful);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public boolean isIncoming() {
+        return incoming;
+    }
+
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    /**
+     * @return transferred bytes for outgoing transfers are the ones passed to the data channel
+     */
+    public double getProgress() {
+        return size == 0 ? (done ? 1 : 0) : (double) transferredBytes / size;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    /**
+     * @return reason of the failure or null
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return average bytes per second from the start to the completion of the transfer, or until now
+     */
+    public long getThroughputBytesPerSecond() {
+        long endMs = done ? completedAtMs : clock.nowMs();
+        long durationMs = endMs - startedAtMs;
+        return durationMs <= 0 ? 0 : transferredBytes * 1000 / durationMs;
+    }
+}
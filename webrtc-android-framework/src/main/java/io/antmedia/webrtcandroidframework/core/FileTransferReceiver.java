@@ -0,0 +1,112 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.antmedia.webrtcandroidframework.utility.Clock;
+
+/**
+ * Reassembles the incoming {@link FileTransfer}s of a data channel from their {@link TransferFrame}s.
+ * Frames of a transfer should be received in order, i.e. on an ordered data channel.
+ */
+public class FileTransferReceiver {
+
+    public interface Listener extends FileTransfer.Listener {
+        /**
+         * @return channel that the transfer is written to, or null to ignore the transfer
+         */
+        FileChannel onIncomingTransfer(FileTransfer transfer);
+    }
+
+    private final Clock clock;
+    private final Listener listener;
+    private final Map<Integer, FileTransfer> transfers = new HashMap<>();
+
+    public FileTransferReceiver(Listener listener) {
+        this(Clock.SYSTEM, listener);
+    }
+
+    public FileTransferReceiver(Clock clock, Listener listener) {
+        this.clock = clock;
+        this.listener = listener;
+    }
+
+    /**
+     * @param data a message that {@link TransferFrame#isFrame(ByteBuffer)}
+     * @return false if the frame is not valid
+     */
+    public synchronized boolean onFrame(ByteBuffer data) {
+        TransferFrame frame;
+        try {
+            frame = TransferFrame.parse(data);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        int transferId = frame.getTransferId();
+        FileTransfer transfer;
+        switch (frame.getType()) {
+            case TransferFrame.START:
+                transfer = new FileTransfer(frame, clock, listener);
+                FileChannel fileChannel = listener.onIncomingTransfer(transfer);
+                if (fileChannel != null) {
+                    transfer.setFileChannel(fileChannel);
+                    FileTransfer previous = transfers.put(transferId, transfer);
+                    if (previous != null) {
+                        previous.complete(false, "Transfer is restarted");
+                    }
+                }
+                break;
+            case TransferFrame.CHUNK:
+                transfer = transfers.get(transferId);
+                if (transfer == null) {
+                    break;
+                }
+                if (transfer.isDone()) {
+                    transfers.remove(transferId);
+                    break;
+                }
+                try {
+                    transfer.write(frame);
+                } catch (IOException e) {
+                    transfers.remove(transferId);
+                    transfer.complete(false, "Cannot write the file: " + e.getMessage());
+                }
+                break;
+            case TransferFrame.END:
+                transfer = transfers.remove(transferId);
+                if (transfer != null) {
+                    transfer.finish(frame.getChecksum());
+                }
+                break;
+            case TransferFrame.CANCEL:
+                transfer = transfers.remove(transferId);
+                if (transfer != null) {
+                    transfer.complete(false, "Cancelled by the remote peer");
+                }
+                break;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Fails the transfers that are not completed
+     */
+    public synchronized void close() {
+        List<FileTransfer> incompleteTransfers = new ArrayList<>(transfers.values());
+        transfers.clear();
+        for (FileTransfer transfer : incompleteTransfers) {
+            transfer.complete(false, "Data channel is closed");
+        }
+    }
+
+    public synchronized int getActiveTransferCount() {
+        return transfers.size();
+    }
+}
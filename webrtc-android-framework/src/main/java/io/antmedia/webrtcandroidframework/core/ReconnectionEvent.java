@@ -0,0 +1,70 @@
+package io.antmedia.webrtcandroidframework.core;
+
+/**
+ * A state transition of the reconnection of a peer. Events are kept in
+ * {@link ReconnectionStateMachine#getEvents()} and delivered to
+ * {@link io.antmedia.webrtcandroidframework.api.IWebRTCListener#onReconnectionStateChanged(ReconnectionEvent)}
+ */
+public class ReconnectionEvent {
+
+    public static final String CSV_HEADER = "timeMs,streamId,from,to,attempt,reason";
+
+    private final long timeMs;
+    private final String streamId;
+    private final ReconnectionStateMachine.State from;
+    private final ReconnectionStateMachine.State to;
+    private final int attempt;
+    private final String reason;
+
+    public ReconnectionEvent(long timeMs, String streamId, ReconnectionStateMachine.State from,
+                             ReconnectionStateMachine.State to, int attempt, String reason) {
+        this.timeMs = timeMs;
+        this.streamId = streamId;
+        this.from = from;
+        this.to = to;
+        this.attempt = attempt;
+        this.reason = reason;
+    }
+
+    /**
+     * @return monotonic time of the transition, see {@link io.antmedia.webrtcandroidframework.utility.Clock}
+     */
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public ReconnectionStateMachine.State getFrom() {
+        return from;
+    }
+
+    public ReconnectionStateMachine.State getTo() {
+        return to;
+    }
+
+    /**
+     * @return number of the republish attempts since the peer is disconnected
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the event as a line of {@link #CSV_HEADER}
+     */
+    public String toCsv() {
+        return timeMs + "," + streamId + "," + from + "," + to + "," + attempt + "," + reason;
+    }
+
+    @Override
+    public String toString() {
+        return streamId + " " + from + " -> " + to + " (attempt " + attempt + ", " + reason + ")";
+    }
+}
@@ -0,0 +1,379 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import android.os.Handler;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import io.antmedia.webrtcandroidframework.utility.Clock;
+import io.antmedia.webrtcandroidframework.websocket.ExponentialBackoffReconnectionPolicy;
+import io.antmedia.webrtcandroidframework.websocket.ReconnectionPolicy;
+
+/**
+ * Reconnection state of the peers of a client.
+ *
+ * <pre>
+ * CONNECTED --disconnected--> ICE_RESTARTING --timeout--> SESSION_RESTORING --timeout--> BACKOFF
+ * BACKOFF --delay--> QUEUED --free slot--> REPUBLISHING --timeout--> BACKOFF
+ * recovering states --connected--> CONNECTED
+ * all states --stop--> STOPPED
+ * </pre>
+ *
+ * Recovery tiers that don't apply to a peer are skipped, see {@link TieredRecovery}. Each peer has its own
+ * exponential backoff with full jitter, so the peers that are disconnected at the same time don't retry in
+ * lockstep, and at most maxConcurrentRepublishes peers are republished at the same time. Peers with higher
+ * priority take the free slots first. Disconnection callbacks of a peer that is already recovering are dropped,
+ * so a peer has a single attempt at a time.
+ *
+ * Every transition is emitted as a {@link ReconnectionEvent} and the last {@link #MAX_EVENT_HISTORY} events
+ * are kept for offline analysis.
+ */
+public class ReconnectionStateMachine {
+    private static final String TAG = "ReconnectionStateMachine";
+
+    public static final int MAX_EVENT_HISTORY = 256;
+    public static final long DEFAULT_ICE_RESTART_TIMEOUT_MS = 5000;
+    public static final long DEFAULT_SESSION_RESTORE_TIMEOUT_MS = 5000;
+    public static final long DEFAULT_BASE_DELAY_MS = 3000;
+    public static final long DEFAULT_MAX_DELAY_MS = 30000;
+    public static final long DEFAULT_ATTEMPT_TIMEOUT_MS = 10000;
+    public static final int DEFAULT_MAX_CONCURRENT_REPUBLISHES = 2;
+
+    public static final String REASON_DISCONNECTED = "disconnected";
+    public static final String REASON_TIMEOUT = "timeout";
+    public static final String REASON_BACKOFF_ELAPSED = "backoff elapsed";
+    public static final String REASON_SLOT_AVAILABLE = "slot available";
+    public static final String REASON_CONNECTED = "connected";
+    public static final String REASON_STOPPED = "stopped";
+
+    public enum State {
+        CONNECTED,
+        ICE_RESTARTING,
+        SESSION_RESTORING,
+        BACKOFF,
+        QUEUED,
+        REPUBLISHING,
+        STOPPED;
+
+        public boolean isRecovering() {
+            return this != CONNECTED && this != STOPPED;
+        }
+    }
+
+    /**
+     * Recovery actions of the client
+     */
+    public interface Actions {
+        boolean isTierApplicable(String streamId, TieredRecovery.Tier tier);
+
+        void restartIce(String streamId);
+
+        void restoreSession(String streamId);
+
+        /**
+         * Closes the peer connection and publishes, plays or joins again
+         */
+        void republish(String streamId);
+
+        /**
+         * @return priority of the peer for the republish slots, higher is republished first
+         */
+        int getPriority(String streamId);
+    }
+
+    public interface Listener {
+        void onStateChanged(ReconnectionEvent event);
+
+        void onTierCompleted(String streamId, TieredRecovery.Tier tier, boolean recovered, long durationMs);
+    }
+
+    private class Peer {
+        private final String streamId;
+        private final ReconnectionPolicy backoff;
+        private State state = State.CONNECTED;
+        private int attempt;
+        private long queueOrder;
+        // changes on each transition, so the timeouts of the previous states are ignored
+        private long sequence;
+
+        Peer(String streamId) {
+            this.streamId = streamId;
+            this.backoff = new ExponentialBackoffReconnectionPolicy(baseDelayMs, maxDelayMs,
+                    ExponentialBackoffReconnectionPolicy.DEFAULT_FAILURE_THRESHOLD,
+                    ExponentialBackoffReconnectionPolicy.DEFAULT_OPEN_CIRCUIT_DELAY_MS, random);
+        }
+    }
+
+    private final Handler handler;
+    private final Clock clock;
+    private final Random random;
+    private final Actions actions;
+    private final Listener listener;
+    private final TieredRecovery tieredRecovery;
+
+    private long iceRestartTimeoutMs = DEFAULT_ICE_RESTART_TIMEOUT_MS;
+    private long sessionRestoreTimeoutMs = DEFAULT_SESSION_RESTORE_TIMEOUT_MS;
+    private long baseDelayMs = DEFAULT_BASE_DELAY_MS;
+    private long maxDelayMs = DEFAULT_MAX_DELAY_MS;
+    private long attemptTimeoutMs = DEFAULT_ATTEMPT_TIMEOUT_MS;
+    private int maxConcurrentRepublishes = DEFAULT_MAX_CONCURRENT_REPUBLISHES;
+
+    private final Map<String, Peer> peers = new LinkedHashMap<>();
+    private final ArrayDeque<ReconnectionEvent> events = new ArrayDeque<>();
+    private long queueCounter;
+    private long deduplicatedCount;
+
+    public ReconnectionStateMachine(Handler handler, Actions actions, Listener listener) {
+        this(handler, Clock.SYSTEM, new Random(), actions, listener);
+    }
+
+    public ReconnectionStateMachine(Handler handler, Clock clock, Random random, Actions actions, Listener listener) {
+        this.handler = handler;
+        this.clock = clock;
+        this.random = random;
+        this.actions = actions;
+        this.listener = listener;
+        this.tieredRecovery = new TieredRecovery(clock);
+    }
+
+    /**
+     * @param iceRestartTimeoutMs time given to ICE restart before the session is restored
+     * @param sessionRestoreTimeoutMs time given to session restore before the peer is republished
+     */
+    public ReconnectionStateMachine setTierTimeouts(long iceRestartTimeoutMs, long sessionRestoreTimeoutMs) {
+        this.iceRestartTimeoutMs = iceRestartTimeoutMs;
+        this.sessionRestoreTimeoutMs = sessionRestoreTimeoutMs;
+        return this;
+    }
+
+    /**
+     * @param baseDelayMs upper bound of the delay before the first republish
+     * @param maxDelayMs upper bound of the delays before the next republishes
+     * @param attemptTimeoutMs time given to a republish attempt before the next one is scheduled
+     */
+    public ReconnectionStateMachine setBackoff(long baseDelayMs, long maxDelayMs, long attemptTimeoutMs) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.attemptTimeoutMs = attemptTimeoutMs;
+        return this;
+    }
+
+    public ReconnectionStateMachine setMaxConcurrentRepublishes(int maxConcurrentRepublishes) {
+        this.maxConcurrentRepublishes = Math.max(1, maxConcurrentRepublishes);
+        return this;
+    }
+
+    /**
+     * Starts the recovery of the peer, it's ignored if the peer is already recovering
+     */
+    public synchronized void onDisconnected(String streamId) {
+        Peer peer = peers.get(streamId);
+        if (peer == null) {
+            peer = new Peer(streamId);
+            peers.put(streamId, peer);
+        }
+        if (peer.state.isRecovering()) {
+            deduplicatedCount++;
+            return;
+        }
+        peer.attempt = 0;
+        TieredRecovery.Tier tier = getNextTier(streamId, null);
+        tieredRecovery.start(streamId, tier);
+        enterTier(peer, tier, REASON_DISCONNECTED);
+    }
+
+    /**
+     * Completes the recovery of the peer if it's recovering
+     */
+    public synchronized void onConnected(String streamId) {
+        Peer peer = peers.get(streamId);
+        if (peer == null || !peer.state.isRecovering()) {
+            return;
+        }
+        boolean republishing = peer.state == State.REPUBLISHING;
+        TieredRecovery.Tier tier = tieredRecovery.getTier(streamId);
+        long durationMs = tieredRecovery.complete(streamId);
+        peer.backoff.onConnected();
+        transition(peer, State.CONNECTED, REASON_CONNECTED);
+        peer.attempt = 0;
+        if (tier != null) {
+            listener.onTierCompleted(streamId, tier, true, durationMs);
+        }
+        if (republishing) {
+            startQueued();
+        }
+    }
+
+    /**
+     * Stops the recovery of the peer and forgets it, e.g. stream is stopped by the user
+     */
+    public synchronized void stop(String streamId) {
+        Peer peer = peers.remove(streamId);
+        if (peer == null) {
+            return;
+        }
+        boolean republishing = peer.state == State.REPUBLISHING;
+        tieredRecovery.cancel(streamId);
+        transition(peer, State.STOPPED, REASON_STOPPED);
+        if (republishing) {
+            startQueued();
+        }
+    }
+
+    public synchronized void clear() {
+        for (String streamId : new ArrayList<>(peers.keySet())) {
+            stop(streamId);
+        }
+    }
+
+    private TieredRecovery.Tier getNextTier(String streamId, TieredRecovery.Tier current) {
+        TieredRecovery.Tier[] tiers = TieredRecovery.Tier.values();
+        for (int i = current == null ? 0 : current.ordinal() + 1; i < tiers.length; i++) {
+            if (tiers[i] == TieredRecovery.Tier.REPUBLISH || actions.isTierApplicable(streamId, tiers[i])) {
+                return tiers[i];
+            }
+        }
+        return TieredRecovery.Tier.REPUBLISH;
+    }
+
+    private void enterTier(Peer peer, TieredRecovery.Tier tier, String reason) {
+        switch (tier) {
+            case ICE_RESTART:
+                transition(peer, State.ICE_RESTARTING, reason);
+                scheduleTierTimeout(peer, iceRestartTimeoutMs);
+                actions.restartIce(peer.streamId);
+                break;
+            case SESSION_RESTORE:
+                transition(peer, State.SESSION_RESTORING, reason);
+                scheduleTierTimeout(peer, sessionRestoreTimeoutMs);
+                actions.restoreSession(peer.streamId);
+                break;
+            default:
+                backoff(peer, reason);
+                break;
+        }
+    }
+
+    private void scheduleTierTimeout(Peer peer, long timeoutMs) {
+        schedule(peer, timeoutMs, () -> {
+            TieredRecovery.Tier failedTier = tieredRecovery.getTier(peer.streamId);
+            TieredRecovery.Tier nextTier = getNextTier(peer.streamId, failedTier);
+            long durationMs = tieredRecovery.escalate(peer.streamId, nextTier);
+            listener.onTierCompleted(peer.streamId, failedTier, false, durationMs);
+            enterTier(peer, nextTier, REASON_TIMEOUT);
+        });
+    }
+
+    private void backoff(Peer peer, String reason) {
+        transition(peer, State.BACKOFF, reason);
+        schedule(peer, peer.backoff.nextDelayMs(), () -> {
+            peer.queueOrder = queueCounter++;
+            transition(peer, State.QUEUED, REASON_BACKOFF_ELAPSED);
+            startQueued();
+        });
+    }
+
+    /**
+     * Republishes the queued peers while there are free slots
+     */
+    private void startQueued() {
+        while (getCount(State.REPUBLISHING) < maxConcurrentRepublishes) {
+            Peer next = null;
+            for (Peer peer : peers.values()) {
+                if (peer.state == State.QUEUED && (next == null
+                        || actions.getPriority(peer.streamId) > actions.getPriority(next.streamId)
+                        || (actions.getPriority(peer.streamId) == actions.getPriority(next.streamId) && peer.queueOrder < next.queueOrder))) {
+                    next = peer;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            final Peer peer = next;
+            peer.attempt++;
+            peer.backoff.onAttempt();
+            transition(peer, State.REPUBLISHING, REASON_SLOT_AVAILABLE);
+            schedule(peer, attemptTimeoutMs, () -> {
+                backoff(peer, REASON_TIMEOUT);
+                startQueued();
+            });
+            actions.republish(peer.streamId);
+        }
+    }
+
+    private void schedule(Peer peer, long delayMs, Runnable runnable) {
+        final long sequence = peer.sequence;
+        handler.postDelayed(() -> {
+            synchronized (ReconnectionStateMachine.this) {
+                if (peer.sequence == sequence && peers.get(peer.streamId) == peer) {
+                    runnable.run();
+                }
+            }
+        }, delayMs);
+    }
+
+    private void transition(Peer peer, State to, String reason) {
+        ReconnectionEvent event = new ReconnectionEvent(clock.nowMs(), peer.streamId, peer.state, to, peer.attempt, reason);
+        peer.state = to;
+        peer.sequence++;
+        if (events.size() == MAX_EVENT_HISTORY) {
+            events.pollFirst();
+        }
+        events.addLast(event);
+        Log.d(TAG, event.toString());
+        listener.onStateChanged(event);
+    }
+
+    private int getCount(State state) {
+        int count = 0;
+        for (Peer peer : peers.values()) {
+            if (peer.state == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return state of the peer, null if it's not disconnected since it's started or stopped
+     */
+    public synchronized State getState(String streamId) {
+        Peer peer = peers.get(streamId);
+        return peer == null ? null : peer.state;
+    }
+
+    /**
+     * @return true if any peer is recovering
+     */
+    public synchronized boolean isRecovering() {
+        for (Peer peer : peers.values()) {
+            if (peer.state.isRecovering()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the last transitions, oldest first
+     */
+    public synchronized List<ReconnectionEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    /**
+     * @return number of the disconnection callbacks that are dropped since the peer was already recovering
+     */
+    public synchronized long getDeduplicatedCount() {
+        return deduplicatedCount;
+    }
+
+    public TieredRecovery getTieredRecovery() {
+        return tieredRecovery;
+    }
+}
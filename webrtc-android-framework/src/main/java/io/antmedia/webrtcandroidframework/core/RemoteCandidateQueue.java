@@ -0,0 +1,150 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.antmedia.webrtcandroidframework.utility.Clock;
+
+/**
+ * Remote ICE candidates of a peer connection.
+ *
+ * Candidates are buffered until both local and remote descriptions are set, then they are drained at once and
+ * later candidates are added directly. Identical candidates, e.g. the ones that are sent again after the websocket
+ * reconnects, are dropped. Methods are lock free, so they can be called from any thread and a candidate that is
+ * offered while the queue is drained is either drained or returned to be added directly.
+ */
+public class RemoteCandidateQueue {
+
+    private static class Entry {
+        private final IceCandidate candidate;
+        private final long queuedAtMs;
+
+        Entry(IceCandidate candidate, long queuedAtMs) {
+            this.candidate = candidate;
+            this.queuedAtMs = queuedAtMs;
+        }
+    }
+
+    private final Clock clock;
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final Set<String> receivedCandidates = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile boolean buffering = true;
+
+    private final AtomicLong drainedCount = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+    private final AtomicLong totalWaitMs = new AtomicLong();
+    private final AtomicLong maxWaitMs = new AtomicLong();
+
+    public RemoteCandidateQueue() {
+        this(Clock.SYSTEM);
+    }
+
+    public RemoteCandidateQueue(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if the same candidate is received before for this peer connection. Candidate is recorded
+     * as received otherwise
+     */
+    public boolean isDuplicate(IceCandidate candidate) {
+        if (receivedCandidates.add(candidate.sdpMid + "|" + candidate.sdpMLineIndex + "|" + candidate.sdp)) {
+            return false;
+        }
+        duplicateCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return true if the candidate is queued, false if descriptions are set and it should be added directly
+     */
+    public boolean offer(IceCandidate candidate) {
+        if (!buffering) {
+            return false;
+        }
+        Entry entry = new Entry(candidate, clock.nowMs());
+        queue.add(entry);
+        // queue may be drained after the check above. Entry is added directly if it's not drained
+        return buffering || !queue.remove(entry);
+    }
+
+    /**
+     * Stops buffering and returns the queued candidates in their arrival order
+     */
+    public List<IceCandidate> drain() {
+        buffering = false;
+        long now = clock.nowMs();
+        List<IceCandidate> candidates = new ArrayList<>(queue.size());
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            candidates.add(entry.candidate);
+            long waitMs = now - entry.queuedAtMs;
+            totalWaitMs.addAndGet(waitMs);
+            long max = maxWaitMs.get();
+            while (waitMs > max && !maxWaitMs.compareAndSet(max, waitMs)) {
+                max = maxWaitMs.get();
+            }
+        }
+        drainedCount.addAndGet(candidates.size());
+        return candidates;
+    }
+
+    /**
+     * Buffers again for a new peer connection. Candidates of the previous one are not duplicates anymore
+     */
+    public void reset() {
+        buffering = true;
+        queue.clear();
+        receivedCandidates.clear();
+    }
+
+    public boolean isBuffering() {
+        return buffering;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return copy of the queued candidates in their arrival order
+     */
+    public List<IceCandidate> getQueuedCandidates() {
+        List<IceCandidate> candidates = new ArrayList<>(queue.size());
+        for (Entry entry : queue) {
+            candidates.add(entry.candidate);
+        }
+        return candidates;
+    }
+
+    /**
+     * @return number of the candidates that were queued and drained
+     */
+    public long getDrainedCount() {
+        return drainedCount.get();
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount.get();
+    }
+
+    /**
+     * @return average time the drained candidates waited in the queue, 0 if none is drained
+     */
+    public long getAverageWaitMs() {
+        long count = drainedCount.get();
+        return count == 0 ? 0 : totalWaitMs.get() / count;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs.get();
+    }
+}
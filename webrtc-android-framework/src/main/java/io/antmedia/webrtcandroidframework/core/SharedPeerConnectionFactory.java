@@ -0,0 +1,242 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import android.util.Log;
+
+import org.webrtc.EglBase;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.audio.JavaAudioDeviceModule;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Executor;
+
+/**
+ * Process wide holder of the {@link EglBase} and {@link PeerConnectionFactory} that are shared by the clients.
+ *
+ * Creating a factory enumerates the codecs and creates the audio device module, and creating an EglBase sets up
+ * a new EGL context. Clients that use this holder create them once, e.g. a publisher and several players, or
+ * clients that are created again after a screen rotation.
+ *
+ * Resources are reference counted. When the last client releases them, they are kept for the keep alive time so
+ * a client that is created right after can use them again. Factories are separated by a key because clients with
+ * different codec options or field trials cannot use the same factory.
+ *
+ * Audio device module errors are reported to the client that created the factory.
+ *
+ * A new factory should be created on the thread that disposed the previous one, so resources that are disposed
+ * after the keep alive time are disposed on the dispose executor, i.e. the thread that creates the factories.
+ */
+public class SharedPeerConnectionFactory {
+
+    private static final String TAG = "SharedPCFactory";
+
+    public static final long DEFAULT_KEEP_ALIVE_MS = 5000;
+
+    public interface EglBaseCreator {
+        EglBase create();
+    }
+
+    /**
+     * Creates the factory if there is no factory with the same key
+     */
+    public interface FactoryCreator {
+        /**
+         * @param eglBase shared EglBase, it's null if EglBase is not acquired
+         */
+        SharedFactory create(EglBase eglBase);
+    }
+
+    public static class SharedFactory {
+        private final PeerConnectionFactory factory;
+        private final JavaAudioDeviceModule audioDeviceModule;
+        private int referenceCount;
+
+        public SharedFactory(PeerConnectionFactory factory, JavaAudioDeviceModule audioDeviceModule) {
+            this.factory = factory;
+            this.audioDeviceModule = audioDeviceModule;
+        }
+
+        public PeerConnectionFactory getFactory() {
+            return factory;
+        }
+
+        public JavaAudioDeviceModule getAudioDeviceModule() {
+            return audioDeviceModule;
+        }
+    }
+
+    private static SharedPeerConnectionFactory instance;
+
+    private final EglBaseCreator eglBaseCreator;
+
+    private EglBase eglBase;
+    private int eglReferenceCount;
+
+    /**
+     * factory key -> factory
+     */
+    private final Map<String, SharedFactory> factories = new HashMap<>();
+
+    private boolean initialized;
+
+    private Timer disposeTimer;
+    private TimerTask disposeTask;
+    private Executor disposeExecutor = Runnable::run;
+
+    public static synchronized SharedPeerConnectionFactory getInstance() {
+        if (instance == null) {
+            instance = new SharedPeerConnectionFactory(EglBase::create);
+        }
+        return instance;
+    }
+
+    public SharedPeerConnectionFactory(EglBaseCreator eglBaseCreator) {
+        this.eglBaseCreator = eglBaseCreator;
+    }
+
+    /**
+     * @param disposeExecutor runs the disposal of the resources after the keep alive time. It should run the tasks
+     *                        on the thread that the factories are created on
+     */
+    public synchronized void setDisposeExecutor(Executor disposeExecutor) {
+        this.disposeExecutor = disposeExecutor;
+    }
+
+    /**
+     * Runs the initialization of WebRTC once in the process, e.g. PeerConnectionFactory.initialize
+     */
+    public synchronized void initializeOnce(Runnable initializer) {
+        if (!initialized) {
+            initializer.run();
+            initialized = true;
+        }
+    }
+
+    public synchronized EglBase acquireEglBase() {
+        cancelDispose();
+        if (eglBase == null) {
+            Log.i(TAG, "Creating shared EglBase");
+            eglBase = eglBaseCreator.create();
+        }
+        eglReferenceCount++;
+        return eglBase;
+    }
+
+    /**
+     * @param keepAliveMs time to keep the resources after the last client releases them. 0 disposes them now
+     */
+    public synchronized void releaseEglBase(long keepAliveMs) {
+        if (eglReferenceCount <= 0) {
+            return;
+        }
+        eglReferenceCount--;
+        disposeIfIdle(keepAliveMs);
+    }
+
+    /**
+     * @param key options of the factory, clients with the same key use the same factory
+     * @param creator creates the factory if there is no factory for the key
+     * @return shared factory or null if creator returns null
+     */
+    public synchronized SharedFactory acquireFactory(String key, FactoryCreator creator) {
+        cancelDispose();
+        SharedFactory sharedFactory = factories.get(key);
+        if (sharedFactory == null) {
+            Log.i(TAG, "Creating shared peer connection factory for " + key);
+            sharedFactory = creator.create(eglBase);
+            if (sharedFactory == null) {
+                return null;
+            }
+            factories.put(key, sharedFactory);
+        }
+        sharedFactory.referenceCount++;
+        return sharedFactory;
+    }
+
+    /**
+     * @param keepAliveMs time to keep the resources after the last client releases them. 0 disposes them now
+     */
+    public synchronized void releaseFactory(String key, long keepAliveMs) {
+        SharedFactory sharedFactory = factories.get(key);
+        if (sharedFactory == null || sharedFactory.referenceCount <= 0) {
+            return;
+        }
+        sharedFactory.referenceCount--;
+        disposeIfIdle(keepAliveMs);
+    }
+
+    public synchronized int getEglReferenceCount() {
+        return eglReferenceCount;
+    }
+
+    /**
+     * @return number of the clients that use the factory of the key, -1 if there is no factory
+     */
+    public synchronized int getFactoryReferenceCount(String key) {
+        SharedFactory sharedFactory = factories.get(key);
+        return sharedFactory != null ? sharedFactory.referenceCount : -1;
+    }
+
+    private void disposeIfIdle(long keepAliveMs) {
+        if (keepAliveMs <= 0) {
+            disposeIdleResources();
+            return;
+        }
+        cancelDispose();
+        if (disposeTimer == null) {
+            disposeTimer = new Timer("SharedPCFactoryDispose", true);
+        }
+        disposeTask = new TimerTask() {
+            @Override
+            public void run() {
+                TimerTask task = this;
+                Executor executor;
+                synchronized (SharedPeerConnectionFactory.this) {
+                    executor = disposeExecutor;
+                }
+                executor.execute(() -> {
+                    synchronized (SharedPeerConnectionFactory.this) {
+                        //resources may be acquired again before the executor runs the disposal
+                        if (disposeTask == task) {
+                            disposeTask = null;
+                            disposeIdleResources();
+                        }
+                    }
+                });
+            }
+        };
+        disposeTimer.schedule(disposeTask, keepAliveMs);
+    }
+
+    private void cancelDispose() {
+        if (disposeTask != null) {
+            disposeTask.cancel();
+            disposeTask = null;
+        }
+    }
+
+    /**
+     * Disposes the factories that have no client, then the EglBase if it has no client.
+     * Factories are disposed first because hardware codecs use the EGL context
+     */
+    private void disposeIdleResources() {
+        Iterator<Map.Entry<String, SharedFactory>> iterator = factories.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, SharedFactory> entry = iterator.next();
+            if (entry.getValue().referenceCount <= 0) {
+                Log.i(TAG, "Disposing shared peer connection factory for " + entry.getKey());
+                entry.getValue().factory.dispose();
+                iterator.remove();
+            }
+        }
+
+        if (eglReferenceCount <= 0 && eglBase != null && factories.isEmpty()) {
+            Log.i(TAG, "Releasing shared EglBase");
+            eglBase.release();
+            eglBase = null;
+        }
+    }
+}
@@ -35,6 +35,8 @@ public class StatsCollector {
     public static final String FIR_COUNT = "firCount";
 
     public static final String FRAME_ENCODED = "framesEncoded";
+    public static final String INBOUND_RTP = "inbound-rtp";
+    public static final String FRAMES_DECODED = "framesDecoded";
 
     public static final String ROUND_TRIP_TIME = "roundTripTime";
     public static final String JITTER = "jitter";
@@ -0,0 +1,122 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Connection setup timeline of a publish or play session.
+ *
+ * Times are monotonic and they are kept as offsets from the publish or play call, so the timeline shows where
+ * the time goes until media is flowing. Only the first occurrence of an event is recorded, e.g. later candidates
+ * or a renegotiation do not change it. Methods are thread safe.
+ */
+public class StreamTimeline {
+
+    public enum Event {
+        /**
+         * publish or play is called, offset is always 0
+         */
+        ATTEMPT,
+        /**
+         * websocket is connected. It's the attempt time if websocket was already connected
+         */
+        WEBSOCKET_OPEN,
+        START_SENT,
+        TAKE_CONFIGURATION_RECEIVED,
+        LOCAL_DESCRIPTION_SET,
+        REMOTE_DESCRIPTION_SET,
+        FIRST_LOCAL_CANDIDATE,
+        FIRST_REMOTE_CANDIDATE,
+        ICE_CONNECTED,
+        CONNECTED,
+        /**
+         * first video frame is encoded, publish only
+         */
+        FIRST_ENCODED_FRAME,
+        /**
+         * first video frame is decoded, play only
+         */
+        FIRST_DECODED_FRAME,
+        /**
+         * first frame is rendered by the renderer of the stream. It's the local renderer for publish
+         */
+        FIRST_RENDERED_FRAME
+    }
+
+    private final String streamId;
+    private final WebRTCClient.Mode mode;
+    private final long startTimeMs;
+    private final Map<Event, Long> offsets = new EnumMap<>(Event.class);
+    private boolean completed;
+
+    public StreamTimeline(String streamId, WebRTCClient.Mode mode, long startTimeMs) {
+        this.streamId = streamId;
+        this.mode = mode;
+        this.startTimeMs = startTimeMs;
+        offsets.put(Event.ATTEMPT, 0L);
+    }
+
+    /**
+     * @param nowMs monotonic time of the event
+     * @return true if it's the first occurrence of the event
+     */
+    public synchronized boolean record(Event event, long nowMs) {
+        if (offsets.containsKey(event)) {
+            return false;
+        }
+        offsets.put(event, Math.max(0, nowMs - startTimeMs));
+        return true;
+    }
+
+    public synchronized boolean hasEvent(Event event) {
+        return offsets.containsKey(event);
+    }
+
+    /**
+     * @return time of the event in milliseconds after the attempt, null if event has not happened
+     */
+    public synchronized Long getOffsetMs(Event event) {
+        return offsets.get(event);
+    }
+
+    /**
+     * @return recorded events and their offsets in the event order
+     */
+    public synchronized Map<Event, Long> getOffsets() {
+        return Collections.unmodifiableMap(new EnumMap<>(offsets));
+    }
+
+    /**
+     * Marks the timeline as completed, so it's delivered once
+     * @return false if it's already completed
+     */
+    public synchronized boolean complete() {
+        if (completed) {
+            return false;
+        }
+        completed = true;
+        return true;
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public WebRTCClient.Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "StreamTimeline{" +
+                "streamId='" + streamId + '\'' +
+                ", mode=" + mode +
+                ", offsets=" + offsets +
+                '}';
+    }
+}
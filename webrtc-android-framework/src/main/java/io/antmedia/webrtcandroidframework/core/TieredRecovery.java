@@ -0,0 +1,178 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.antmedia.webrtcandroidframework.utility.Clock;
+
+/**
+ * Recovery state of the streams whose ICE connection is lost.
+ *
+ * Recovery starts with the cheapest tier and escalates to the next one if the tier does not reconnect the stream
+ * in its timeout:
+ * <ol>
+ *     <li>{@link Tier#ICE_RESTART} restarts ICE on the existing peer connection, so encoders and decoders keep
+ *     their state and no keyframe is waited</li>
+ *     <li>{@link Tier#SESSION_RESTORE} sends publish or play again without stopping the stream, so the server
+ *     restores its session and the existing peer connection is renegotiated</li>
+ *     <li>{@link Tier#REPUBLISH} stops the stream, closes the peer connection and publishes or plays again</li>
+ * </ol>
+ *
+ * Time spent in each tier and the recovery time of the tier that reconnected the stream are measured.
+ */
+public class TieredRecovery {
+
+    public enum Tier {
+        ICE_RESTART,
+        SESSION_RESTORE,
+        REPUBLISH
+    }
+
+    private static class Attempt {
+        private final long startedAtMs;
+        private Tier tier;
+        private long tierStartedAtMs;
+        private long sequence;
+
+        Attempt(long startedAtMs) {
+            this.startedAtMs = startedAtMs;
+        }
+    }
+
+    private final Clock clock;
+    private final Map<String, Attempt> attempts = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong[] recoveryCount = newCounters();
+    private final AtomicLong[] totalRecoveryMs = newCounters();
+    private final AtomicLong[] failureCount = newCounters();
+
+    public TieredRecovery() {
+        this(Clock.SYSTEM);
+    }
+
+    public TieredRecovery(Clock clock) {
+        this.clock = clock;
+    }
+
+    private static AtomicLong[] newCounters() {
+        AtomicLong[] counters = new AtomicLong[Tier.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new AtomicLong();
+        }
+        return counters;
+    }
+
+    /**
+     * Starts the recovery of the stream in the given tier
+     * @return sequence of the tier, -1 if the stream is already recovering
+     */
+    public synchronized long start(String streamId, Tier tier) {
+        if (attempts.containsKey(streamId)) {
+            return -1;
+        }
+        long now = clock.nowMs();
+        Attempt attempt = new Attempt(now);
+        enter(attempt, tier, now);
+        attempts.put(streamId, attempt);
+        return attempt.sequence;
+    }
+
+    /**
+     * Moves the recovery of the stream to the next tier. Current tier is counted as failed
+     * @return time spent in the current tier, -1 if the stream is not recovering
+     */
+    public synchronized long escalate(String streamId, Tier next) {
+        Attempt attempt = attempts.get(streamId);
+        if (attempt == null) {
+            return -1;
+        }
+        long now = clock.nowMs();
+        long tierDurationMs = now - attempt.tierStartedAtMs;
+        failureCount[attempt.tier.ordinal()].incrementAndGet();
+        enter(attempt, next, now);
+        return tierDurationMs;
+    }
+
+    /**
+     * Completes the recovery of the stream. Current tier is counted as the tier that recovered the stream
+     * @return time spent in the current tier, -1 if the stream is not recovering
+     */
+    public synchronized long complete(String streamId) {
+        Attempt attempt = attempts.remove(streamId);
+        if (attempt == null) {
+            return -1;
+        }
+        long now = clock.nowMs();
+        recoveryCount[attempt.tier.ordinal()].incrementAndGet();
+        totalRecoveryMs[attempt.tier.ordinal()].addAndGet(now - attempt.startedAtMs);
+        return now - attempt.tierStartedAtMs;
+    }
+
+    private void enter(Attempt attempt, Tier tier, long now) {
+        attempt.tier = tier;
+        attempt.tierStartedAtMs = now;
+        attempt.sequence = sequence.incrementAndGet();
+    }
+
+    /**
+     * Stops the recovery of the stream without counting it, e.g. stream is stopped by the user
+     */
+    public void cancel(String streamId) {
+        attempts.remove(streamId);
+    }
+
+    public void clear() {
+        attempts.clear();
+    }
+
+    /**
+     * @return current tier of the stream, null if it's not recovering
+     */
+    public Tier getTier(String streamId) {
+        Attempt attempt = attempts.get(streamId);
+        return attempt == null ? null : attempt.tier;
+    }
+
+    /**
+     * Sequence changes on each tier transition, so a timeout that is scheduled for a tier can check if
+     * the stream is still in that tier
+     * @return sequence of the current tier of the stream, -1 if it's not recovering
+     */
+    public synchronized long getSequence(String streamId) {
+        Attempt attempt = attempts.get(streamId);
+        return attempt == null ? -1 : attempt.sequence;
+    }
+
+    public boolean isRecovering(String streamId) {
+        return attempts.containsKey(streamId);
+    }
+
+    public boolean isRecovering() {
+        return !attempts.isEmpty();
+    }
+
+    /**
+     * @return number of the recoveries that are completed in the tier
+     */
+    public long getRecoveryCount(Tier tier) {
+        return recoveryCount[tier.ordinal()].get();
+    }
+
+    /**
+     * @return number of the times the tier did not recover the stream in its timeout
+     */
+    public long getFailureCount(Tier tier) {
+        return failureCount[tier.ordinal()].get();
+    }
+
+    /**
+     * @return average time from the start of the recovery to the reconnection for the recoveries that are
+     * completed in the tier, 0 if there is none
+     */
+    public long getAverageRecoveryMs(Tier tier) {
+        long count = recoveryCount[tier.ordinal()].get();
+        return count == 0 ? 0 : totalRecoveryMs[tier.ordinal()].get() / count;
+    }
+}
@@ -0,0 +1,87 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Percentiles of the timeline events over the last completed sessions.
+ *
+ * Each event keeps its own window of the last {@link #getMaxSamples()} offsets, so events that do not happen
+ * in every session, e.g. first rendered frame, have their own sample count. Methods are thread safe.
+ */
+public class TimelineStatistics {
+
+    public static final int DEFAULT_MAX_SAMPLES = 200;
+
+    private final int maxSamples;
+    private final Map<StreamTimeline.Event, ArrayDeque<Long>> samples = new EnumMap<>(StreamTimeline.Event.class);
+    private long sessionCount;
+
+    public TimelineStatistics() {
+        this(DEFAULT_MAX_SAMPLES);
+    }
+
+    public TimelineStatistics(int maxSamples) {
+        this.maxSamples = maxSamples;
+    }
+
+    public synchronized void add(StreamTimeline timeline) {
+        sessionCount++;
+        for (Map.Entry<StreamTimeline.Event, Long> entry : timeline.getOffsets().entrySet()) {
+            ArrayDeque<Long> window = samples.get(entry.getKey());
+            if (window == null) {
+                window = new ArrayDeque<>();
+                samples.put(entry.getKey(), window);
+            }
+            if (window.size() == maxSamples) {
+                window.pollFirst();
+            }
+            window.addLast(entry.getValue());
+        }
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 50 for median
+     * @return nearest rank percentile of the event offset in milliseconds, -1 if there is no sample
+     */
+    public synchronized long getPercentile(StreamTimeline.Event event, double percentile) {
+        ArrayDeque<Long> window = samples.get(event);
+        if (window == null || window.isEmpty()) {
+            return -1;
+        }
+        long[] sorted = new long[window.size()];
+        int i = 0;
+        for (Long value : window) {
+            sorted[i++] = value;
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+    }
+
+    /**
+     * @return number of the samples of the event in the window
+     */
+    public synchronized int getSampleCount(StreamTimeline.Event event) {
+        ArrayDeque<Long> window = samples.get(event);
+        return window != null ? window.size() : 0;
+    }
+
+    /**
+     * @return number of the sessions added since creation or the last reset
+     */
+    public synchronized long getSessionCount() {
+        return sessionCount;
+    }
+
+    public int getMaxSamples() {
+        return maxSamples;
+    }
+
+    public synchronized void reset() {
+        samples.clear();
+        sessionCount = 0;
+    }
+}
@@ -0,0 +1,182 @@
+package io.antmedia.webrtcandroidframework.core;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary data channel message of a {@link FileTransfer}.
+ *
+ * Each frame starts with a magic number, the frame type and the transfer id, so transfer frames can share the
+ * default data channel with the other messages. While a file transfer listener is set, binary messages on the
+ * default data channel that start with the magic number and a frame type are taken as transfer frames, so
+ * applications should not send such messages on it. Labeled data channels are not affected. A transfer is a START frame with the size, the chunk size and the name,
+ * CHUNK frames in order and an END frame with the CRC32 of the payload. A CANCEL frame aborts the transfer.
+ *
+ * <pre>
+ * START  | magic (4) | 1 | id (4) | size (8) | chunk size (4) | name length (2) | name (UTF-8) |
+ * CHUNK  | magic (4) | 2 | id (4) | index (4) | payload |
+ * END    | magic (4) | 3 | id (4) | crc32 (8) |
+ * CANCEL | magic (4) | 4 | id (4) |
+ * </pre>
+ */
+public class TransferFrame {
+
+    public static final int MAGIC = 0x414D4654;
+
+    public static final byte START = 1;
+    public static final byte CHUNK = 2;
+    public static final byte END = 3;
+    public static final byte CANCEL = 4;
+
+    public static final int HEADER_SIZE = 9;
+    public static final int CHUNK_HEADER_SIZE = HEADER_SIZE + 4;
+
+    private static final int MAX_NAME_LENGTH = 1024;
+
+    private final byte type;
+    private final int transferId;
+    private long size;
+    private int chunkSize;
+    private String name;
+    private int index;
+    private ByteBuffer payload;
+    private long checksum;
+
+    private TransferFrame(byte type, int transferId) {
+        this.type = type;
+        this.transferId = transferId;
+    }
+
+    /**
+     * @return true if the message is a transfer frame. Position of the data is not changed
+     */
+    public static boolean isFrame(ByteBuffer data) {
+        if (data.remaining() < HEADER_SIZE || data.getInt(data.position()) != MAGIC) {
+            return false;
+        }
+        byte type = data.get(data.position() + 4);
+        return type >= START && type <= CANCEL;
+    }
+
+    public static ByteBuffer start(int transferId, long size, int chunkSize, String name) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(nameBytes.length, MAX_NAME_LENGTH);
+        ByteBuffer frame = header(START, transferId, 8 + 4 + 2 + nameLength);
+        frame.putLong(size).putInt(chunkSize).putShort((short) nameLength).put(nameBytes, 0, nameLength);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Reads the chunk from the file channel directly into the frame
+     *
+     * @return frame with the remaining bytes of the file if there are less than length bytes
+     */
+    public static ByteBuffer chunk(int transferId, int index, FileChannel fileChannel, long position, int length) throws IOException {
+        ByteBuffer frame = header(CHUNK, transferId, 4 + length);
+        frame.putInt(index);
+        while (frame.hasRemaining()) {
+            int read = fileChannel.read(frame, position + frame.position() - CHUNK_HEADER_SIZE);
+            if (read < 0) {
+                break;
+            }
+        }
+        frame.flip();
+        return frame;
+    }
+
+    public static ByteBuffer end(int transferId, long checksum) {
+        ByteBuffer frame = header(END, transferId, 8);
+        frame.putLong(checksum);
+        frame.flip();
+        return frame;
+    }
+
+    public static ByteBuffer cancel(int transferId) {
+        ByteBuffer frame = header(CANCEL, transferId, 0);
+        frame.flip();
+        return frame;
+    }
+
+    private static ByteBuffer header(byte type, int transferId, int bodySize) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + bodySize);
+        frame.putInt(MAGIC).put(type).putInt(transferId);
+        return frame;
+    }
+
+    /**
+     * Payload of a CHUNK frame shares the content of the data. Position of the data is not changed
+     *
+     * @throws IllegalArgumentException if the data is not a valid frame
+     */
+    public static TransferFrame parse(ByteBuffer data) {
+        if (!isFrame(data)) {
+            throw new IllegalArgumentException("Not a transfer frame");
+        }
+        ByteBuffer frame = data.duplicate();
+        try {
+            frame.getInt();
+            TransferFrame transferFrame = new TransferFrame(frame.get(), frame.getInt());
+            switch (transferFrame.type) {
+                case START:
+                    transferFrame.size = frame.getLong();
+                    transferFrame.chunkSize = frame.getInt();
+                    int nameLength = frame.getShort() & 0xFFFF;
+                    byte[] nameBytes = new byte[nameLength];
+                    frame.get(nameBytes);
+                    transferFrame.name = new String(nameBytes, StandardCharsets.UTF_8);
+                    if (transferFrame.size < 0 || transferFrame.chunkSize <= 0) {
+                        throw new IllegalArgumentException("Invalid transfer size " + transferFrame.size + " or chunk size " + transferFrame.chunkSize);
+                    }
+                    break;
+                case CHUNK:
+                    transferFrame.index = frame.getInt();
+                    transferFrame.payload = frame.slice();
+                    break;
+                case END:
+                    transferFrame.checksum = frame.getLong();
+                    break;
+                default:
+                    break;
+            }
+            return transferFrame;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated transfer frame");
+        }
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public int getTransferId() {
+        return transferId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ByteBuffer getPayload() {
+        return payload;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+}
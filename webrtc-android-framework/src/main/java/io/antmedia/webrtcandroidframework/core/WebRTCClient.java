@@ -38,7 +38,9 @@ import org.webrtc.MediaStream;
 import org.webrtc.MediaStreamTrack;
 import org.webrtc.PeerConnection;
 import org.webrtc.PeerConnectionFactory;
+import org.webrtc.RTCStats;
 import org.webrtc.RTCStatsReport;
+import org.webrtc.RendererCommon;
 import org.webrtc.RtpParameters;
 import org.webrtc.RtpReceiver;
 import org.webrtc.RtpSender;
@@ -59,29 +61,38 @@ import org.webrtc.audio.AudioDeviceModule;
 import org.webrtc.audio.CustomWebRtcAudioRecord;
 import org.webrtc.audio.JavaAudioDeviceModule;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
+import io.antmedia.webrtcandroidframework.api.IDataChannelObserver;
+import io.antmedia.webrtcandroidframework.api.IFileTransferListener;
 import io.antmedia.webrtcandroidframework.api.IWebRTCClient;
 import io.antmedia.webrtcandroidframework.api.WebRTCClientConfig;
 import io.antmedia.webrtcandroidframework.apprtc.AppRTCAudioManager;
+import io.antmedia.webrtcandroidframework.sdp.MediaSection;
+import io.antmedia.webrtcandroidframework.sdp.SdpMungingRules;
+import io.antmedia.webrtcandroidframework.sdp.SdpRule;
+import io.antmedia.webrtcandroidframework.utility.Clock;
+import io.antmedia.webrtcandroidframework.utility.InitializationPipeline;
+import io.antmedia.webrtcandroidframework.utility.SerialLaneExecutor;
 import io.antmedia.webrtcandroidframework.websocket.AntMediaSignallingEvents;
 import io.antmedia.webrtcandroidframework.websocket.Broadcast;
+import io.antmedia.webrtcandroidframework.websocket.SignallingConnectionRegistry;
 import io.antmedia.webrtcandroidframework.websocket.WebSocketHandler;
 
 /**
@@ -96,7 +107,8 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         PUBLISH, PLAY, P2P, MULTI_TRACK_PLAY
     }
 
-    public static final String VIDEO_ROTATION_EXT_LINE = "a=extmap:3 urn:3gpp:video-orientation\r\n";
+    public static final String VIDEO_ROTATION_EXT_URI = "urn:3gpp:video-orientation";
+    public static final String VIDEO_ROTATION_EXT_LINE = "a=extmap:3 " + VIDEO_ROTATION_EXT_URI + "\r\n";
     public static final String USER_REVOKED_CAPTURE_SCREEN_PERMISSION = "User revoked permission to capture the screen.";
     public static int STAT_CALLBACK_PERIOD = 1000;
 
@@ -112,7 +124,6 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     private String errorString = null;
 
     private boolean streamStoppedByUser = false;
-    private boolean reconnectionInProgress = false;
 
     private boolean autoPlayTracks = false;
     private boolean waitingForPlay = false;
@@ -134,27 +145,71 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     private static final String VIDEO_CODEC_H264_HIGH = "H264 High";
     private static final String VIDEO_CODEC_AV1 = "AV1";
     private static final String AUDIO_CODEC_ISAC = "ISAC";
-    private static final String VIDEO_CODEC_PARAM_START_BITRATE = "x-google-start-bitrate";
     private static final String VIDEO_FLEXFEC_FIELDTRIAL =
             "WebRTC-FlexFEC-03-Advertised/Enabled/WebRTC-FlexFEC-03/Enabled/";
     private static final String VIDEO_VP8_INTEL_HW_ENCODER_FIELDTRIAL = "WebRTC-IntelVP8/Enabled/";
     private static final String DISABLE_WEBRTC_AGC_FIELDTRIAL =
             "WebRTC-Audio-MinimizeResamplingOnMobile/Enabled/";
-    private static final String AUDIO_CODEC_PARAM_BITRATE = "maxaveragebitrate";
     private static final String AUDIO_ECHO_CANCELLATION_CONSTRAINT = "googEchoCancellation";
     private static final String AUDIO_AUTO_GAIN_CONTROL_CONSTRAINT = "googAutoGainControl";
     private static final String AUDIO_HIGH_PASS_FILTER_CONSTRAINT = "googHighpassFilter";
     private static final String AUDIO_NOISE_SUPPRESSION_CONSTRAINT = "googNoiseSuppression";
     private static final int BPS_IN_KBPS = 1000;
 
-    // Executor thread is started once in private ctor and is used for all
-    // peer connection API calls to ensure new peer connection factory is
-    // created on the same thread as previously destroyed factory.
-    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Global lane of the executor runs on a single thread that is used for factory and local track calls
+    // to ensure new peer connection factory is created on the same thread as previously destroyed factory.
+    // Calls of a peer connection run on the lane of its streamId, so a slow peer does not block the others.
+    private static final int PEER_LANE_THREAD_COUNT = 4;
+
+    /**
+     * Stages of init that are reported by {@link io.antmedia.webrtcandroidframework.api.IWebRTCListener#onInitializationStageCompleted(String, long, long)}
+     */
+    public static final String INIT_STAGE_WEBSOCKET = "webSocket";
+    public static final String INIT_STAGE_RENDERERS = "renderers";
+    public static final String INIT_STAGE_PARAMETERS = "parameters";
+    public static final String INIT_STAGE_FACTORY = "peerConnectionFactory";
+    public static final String INIT_STAGE_VIDEO_CAPTURER = "videoCapturer";
+    public static final String INIT_STAGE_AUDIO_MANAGER = "audioManager";
+    /**
+     * Reported when all stages are completed, duration is the total time of init
+     */
+    public static final String INIT_STAGE_ALL = "all";
+
+    /**
+     * Period and maximum count of the stats polls that look for the first encoded or decoded frame after ICE is connected
+     */
+    private static final int FIRST_FRAME_POLL_PERIOD_MS = 100;
+    private static final int FIRST_FRAME_POLL_MAX_COUNT = 100;
+
+    /**
+     * Time to wait for the first rendered frame after the first decoded frame before delivering the timeline of a player
+     */
+    private static final int FIRST_RENDER_WAIT_MS = 2000;
+
+    private static final ConcurrentMap<Mode, TimelineStatistics> timelineStatistics = new ConcurrentHashMap<>();
+
+    private static final SerialLaneExecutor executor = new SerialLaneExecutor(PEER_LANE_THREAD_COUNT);
+
+    static {
+        //shared factory that is released with a keep alive time is disposed on the global lane as well
+        SharedPeerConnectionFactory.getInstance().setDisposeExecutor(executor::execute);
+    }
     private Timer statsTimer;
 
     @androidx.annotation.Nullable
     private PeerConnectionFactory factory;
+
+    private volatile InitializationPipeline initializationPipeline;
+
+    /**
+     * id of the remote video track -> streamId, so the rendered frames are matched to the stream
+     */
+    private final Map<String, String> remoteVideoTrackStreams = new ConcurrentHashMap<>();
+
+    /**
+     * Key of the shared factory if factory is acquired from {@link SharedPeerConnectionFactory}
+     */
+    private String sharedFactoryKey;
     private boolean requestExtendedRights = false;
 
     public static class PeerInfo {
@@ -169,11 +224,24 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         // Queued remote ICE candidates are consumed only after both local and
         // remote descriptions are set. Similarly local ICE candidates are sent to
         // remote peer after both local and remote description are set.
-        private List<IceCandidate> queuedRemoteCandidates = new ArrayList<>();
+        private final RemoteCandidateQueue remoteCandidateQueue = new RemoteCandidateQueue();
 
         public String id;
         public PeerConnection peerConnection;
         public DataChannel dataChannel;
+        /**
+         * Send queue of the data channel, see {@link DataChannelSender}
+         */
+        public DataChannelSender dataChannelSender;
+        /**
+         * Send queues of the labeled data channels by their labels, see {@link DataChannelOptions}
+         */
+        public final Map<String, DataChannelSender> labeledDataChannelSenders = new ConcurrentHashMap<>();
+        /**
+         * Batchers of the default and the labeled data channels that coalesce the sent messages, see {@link DataChannelBatcher}
+         */
+        public DataChannelBatcher dataChannelBatcher;
+        public final Map<String, DataChannelBatcher> labeledDataChannelBatchers = new ConcurrentHashMap<>();
         public Mode mode;
         public String token;
         public boolean videoCallEnabled;
@@ -185,6 +253,21 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         public String metaData;
         public boolean restartIce = false;
 
+        /**
+         * Sender of the shared local video track in this peer connection
+         */
+        public RtpSender videoSender;
+
+        /**
+         * Video bitrate cap of this peer in kbps, null means the cap of the client is used
+         */
+        public Integer maxVideoBitrateKbps;
+
+        /**
+         * Connection setup timeline of the last publish, play or join call
+         */
+        public StreamTimeline timeline;
+
         public SessionDescription getLocalDescription() {
             return localDescription;
         }
@@ -193,12 +276,33 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
             this.localDescription = localDescription;
         }
 
+        public RemoteCandidateQueue getRemoteCandidateQueue() {
+            return remoteCandidateQueue;
+        }
+
+        /**
+         * @deprecated use {@link #getRemoteCandidateQueue()}
+         * @return copy of the queued remote candidates, or null if they are drained
+         */
+        @Deprecated
         public List<IceCandidate> getQueuedRemoteCandidates() {
-            return queuedRemoteCandidates;
+            return remoteCandidateQueue.isBuffering() ? remoteCandidateQueue.getQueuedCandidates() : null;
         }
 
+        /**
+         * @deprecated use {@link #getRemoteCandidateQueue()}
+         * @param queuedRemoteCandidates candidates to buffer again, or null to stop buffering without adding them
+         */
+        @Deprecated
         public void setQueuedRemoteCandidates(List<IceCandidate> queuedRemoteCandidates) {
-            this.queuedRemoteCandidates = queuedRemoteCandidates;
+            if (queuedRemoteCandidates == null) {
+                remoteCandidateQueue.drain();
+                return;
+            }
+            remoteCandidateQueue.reset();
+            for (IceCandidate candidate : queuedRemoteCandidates) {
+                remoteCandidateQueue.offer(candidate);
+            }
         }
 
     }
@@ -230,156 +334,28 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     private WebRTCClientConfig config;
 
     private boolean removeVideoRotationExtension = true;
+    private volatile SdpMungingRules sdpMungingRules;
 
-    //reconnection parameters
-    private Handler peerReconnectionHandler = new Handler();
-    private Handler publishReconnectionHandler = new Handler();
-    private Handler playReconnectionHandler = new Handler();
+    /**
+     * Upper bound of the delay before the first republish of a disconnected peer. The delay is random and it
+     * starts after the ICE restart and session restore tiers time out, about 10 s after the disconnection with
+     * the default timeouts, see {@link io.antmedia.webrtcandroidframework.api.WebRTCClientBuilder#setReconnectionTierTimeouts(long, long)}
+     */
+    public static final long PEER_RECONNECTION_DELAY_MS = ReconnectionStateMachine.DEFAULT_BASE_DELAY_MS;
 
-    private Runnable peerReconnectorRunnable;
-    private Runnable publishReconnectorRunnable;
-    private Runnable playReconnectorRunnable;
+    /**
+     * @deprecated republish attempts time out after {@link ReconnectionStateMachine#DEFAULT_ATTEMPT_TIMEOUT_MS}
+     */
+    @Deprecated
+    public static final long PEER_RECONNECTION_RETRY_DELAY_MS = ReconnectionStateMachine.DEFAULT_ATTEMPT_TIMEOUT_MS;
 
-    public static final long PEER_RECONNECTION_DELAY_MS = 3000;
-    public static final long PEER_RECONNECTION_RETRY_DELAY_MS = 10000;
+    private volatile ReconnectionStateMachine reconnectionStateMachine;
+    private Handler peerReconnectionHandler;
 
     boolean released = false;
 
     String roomId;
 
-    public void createReconnectorRunnables() {
-        //only used in conference.
-        publishReconnectorRunnable = () -> {
-            if(released || streamStoppedByUser){
-                return;
-            }
-            publishReconnectionHandler.postDelayed(publishReconnectorRunnable, PEER_RECONNECTION_RETRY_DELAY_MS);
-
-            for (PeerInfo peerInfo : peers.values()) {
-                PeerConnection pc = peerInfo.peerConnection;
-                if (pc == null ||
-                        (pc.iceConnectionState() != PeerConnection.IceConnectionState.CHECKING
-                                && pc.iceConnectionState() != PeerConnection.IceConnectionState.CONNECTED
-                                && pc.iceConnectionState() != PeerConnection.IceConnectionState.COMPLETED)) {
-
-
-                    if (pc != null) {
-                        pc.close();
-                        /*
-                        This is a FIX of a reconnection bug.
-                        If dispose is used instead of close, in one of consequent reconnection attempts segmentation fault occurs.
-                        pc.dispose();
-                        */
-                    }
-
-                    config.webRTCListener.onReconnectionAttempt(peerInfo.id);
-                    if (peerInfo.mode.equals(Mode.PUBLISH)) {
-
-                        Log.d(TAG, "Reconnect attempt for publish");
-                        wsHandler.stop(peerInfo.id);
-                        wsHandler.startPublish(peerInfo.id, peerInfo.token, peerInfo.videoCallEnabled, peerInfo.audioCallEnabled, peerInfo.subscriberId, peerInfo.subscriberCode, peerInfo.streamName, peerInfo.mainTrackId);
-
-
-                    }
-                }
-            }
-        };
-        //only used in conference.
-        playReconnectorRunnable = () -> {
-            if(released || streamStoppedByUser){
-                return;
-            }
-            releaseRemoteRenderers();
-
-            playReconnectionHandler.postDelayed(playReconnectorRunnable, PEER_RECONNECTION_RETRY_DELAY_MS);
-
-            for (PeerInfo peerInfo : peers.values()) {
-                PeerConnection pc = peerInfo.peerConnection;
-                if (pc == null ||
-                        (pc.iceConnectionState() != PeerConnection.IceConnectionState.CHECKING
-                                && pc.iceConnectionState() != PeerConnection.IceConnectionState.CONNECTED
-                                && pc.iceConnectionState() != PeerConnection.IceConnectionState.COMPLETED)) {
-
-
-                    if (pc != null) {
-                        pc.close();
-                        /*
-                        This is a FIX of a reconnection bug.
-                        If dispose is used instead of close, in one of consequent reconnection attempts segmentation fault occurs.
-                        pc.dispose();
-                        */
-                    }
-
-                    config.webRTCListener.onReconnectionAttempt(peerInfo.id);
-                   if (peerInfo.mode.equals(Mode.PLAY)) {
-                        Log.d(TAG, "Reconnect attempt for play");
-
-                        play(peerInfo.id,
-                                peerInfo.token,
-                                null,
-                                peerInfo.subscriberId,
-                                peerInfo.subscriberCode,
-                                peerInfo.metaData
-                        );
-                    }
-                }
-            }
-        };
-
-        peerReconnectorRunnable = () -> {
-            if(released || streamStoppedByUser){
-                return;
-            }
-            peerReconnectionHandler.postDelayed(peerReconnectorRunnable, PEER_RECONNECTION_RETRY_DELAY_MS);
-
-            for (PeerInfo peerInfo : peers.values()) {
-                PeerConnection pc = peerInfo.peerConnection;
-                if (pc == null ||
-                        (pc.iceConnectionState() != PeerConnection.IceConnectionState.CHECKING
-                                && pc.iceConnectionState() != PeerConnection.IceConnectionState.CONNECTED
-                                && pc.iceConnectionState() != PeerConnection.IceConnectionState.COMPLETED)) {
-
-
-                    if (pc != null) {
-                        pc.close();
-                        /*
-                        This is a FIX of a reconnection bug.
-                        If dispose is used instead of close, in one of consequent reconnection attempts segmentation fault occurs.
-                        pc.dispose();
-                        */
-                    }
-
-                    config.webRTCListener.onReconnectionAttempt(peerInfo.id);
-                    if (peerInfo.mode.equals(Mode.PUBLISH)) {
-
-                            Log.d(TAG, "Reconnect attempt for publish");
-                            wsHandler.stop(peerInfo.id);
-                            wsHandler.startPublish(peerInfo.id, peerInfo.token, peerInfo.videoCallEnabled, peerInfo.audioCallEnabled, peerInfo.subscriberId, peerInfo.subscriberCode, peerInfo.streamName, peerInfo.mainTrackId);
-
-
-                    } else if (peerInfo.mode.equals(Mode.PLAY)) {
-                        releaseRemoteRenderers();
-                        Log.d(TAG, "Reconnect attempt for play");
-
-                        play(peerInfo.id,
-                                peerInfo.token,
-                                null,
-                                peerInfo.subscriberId,
-                                peerInfo.subscriberCode,
-                                peerInfo.metaData
-                        );
-                    } else if (peerInfo.mode.equals(Mode.P2P)) {
-                        Log.d(TAG, "Reconnect attempt for P2P");
-
-                        config.localVideoRenderer.setZOrderOnTop(true);
-                        join(peerInfo.id, peerInfo.token);
-                    }
-                }
-            }
-        };
-    }
-
-
     public WebRTCClient(WebRTCClientConfig config) {
         this.config = config;
         config.webRTCListener.setWebRTCClient(this);
@@ -446,6 +422,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     public void getRoomInfo(String roomId, String streamId) {
         handler.post(() -> {
             if (wsHandler != null) {
+                addSignallingRoute(roomId);
                 wsHandler.getRoomInfo(roomId, streamId);
             }
         });
@@ -463,11 +440,13 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
         @Override
         public void onIceCandidate(final IceCandidate candidate) {
-            executor.execute(() -> handler.post(() -> {
-                if (wsHandler != null) {
-                    wsHandler.sendLocalIceCandidate(streamId, candidate);
+            recordTimelineEvent(streamId, StreamTimeline.Event.FIRST_LOCAL_CANDIDATE);
+            executor.execute(streamId, () -> {
+                WebSocketHandler ws = wsHandler;
+                if (ws != null) {
+                    ws.queueLocalIceCandidate(streamId, candidate);
                 }
-            }));
+            });
         }
 
         @Override
@@ -479,9 +458,12 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
         @Override
         public void onIceCandidatesRemoved(final IceCandidate[] candidates) {
-            executor.execute(() -> {
-                //not implemented because there is no counterpart on AMS
-            });
+            //there is no counterpart on AMS, just forget them so they are sent again if they are gathered again
+            executor.execute(streamId, () -> handler.post(() -> {
+                if (wsHandler != null) {
+                    wsHandler.removeLocalIceCandidates(streamId, candidates);
+                }
+            }));
         }
 
         @Override
@@ -491,7 +473,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
         @Override
         public void onIceConnectionChange(final PeerConnection.IceConnectionState newState) {
-            executor.execute(() -> {
+            executor.execute(streamId, () -> {
                 Log.d(TAG, "IceConnectionState: " + newState);
                 if (newState == PeerConnection.IceConnectionState.CONNECTED) {
                     onIceConnected(streamId);
@@ -505,7 +487,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
         @Override
         public void onConnectionChange(final PeerConnection.PeerConnectionState newState) {
-            executor.execute(() -> {
+            executor.execute(streamId, () -> {
                 Log.d(TAG, "PeerConnectionState: " + newState);
                 if (newState == PeerConnection.PeerConnectionState.CONNECTED) {
                     onConnected(streamId);
@@ -548,10 +530,29 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
                 return;
 
             PeerInfo peerInfo = peers.get(streamId);
-            if (peerInfo != null && peerInfo.dataChannel == null) {
+            String label = dc.label();
+            DataChannelOptions options = getDataChannelOptions(label);
+            IDataChannelObserver channelObserver = options == null ? null : options.getObserver();
+            DataChannelSender sender = null;
+            if (peerInfo != null && options != null) {
+                if (!peerInfo.labeledDataChannelSenders.containsKey(label)) {
+                    sender = createDataChannelSender(dc, label, channelObserver);
+                    peerInfo.labeledDataChannelSenders.put(label, sender);
+                    if (options.isBatched()) {
+                        peerInfo.labeledDataChannelBatchers.put(label, createDataChannelBatcher(streamId, sender,
+                                options.getBatchIntervalMs(), options.getMaxBatchSize(), channelObserver));
+                    }
+                }
+            } else if (peerInfo != null && peerInfo.dataChannel == null) {
+                sender = createDataChannelSender(dc, label, null);
                 peerInfo.dataChannel = dc;
+                peerInfo.dataChannelSender = sender;
+                if (config.dataChannelBatchIntervalMs > 0) {
+                    peerInfo.dataChannelBatcher = createDataChannelBatcher(streamId, sender,
+                            config.dataChannelBatchIntervalMs, config.dataChannelMaxBatchSize, null);
+                }
             }
-            dc.registerObserver(new DataChannelInternalObserver(dc));
+            dc.registerObserver(new DataChannelInternalObserver(streamId, dc, sender, options));
         }
 
         @Override
@@ -578,6 +579,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
             if (addedTrack instanceof VideoTrack) {
                 VideoTrack videoTrack = (VideoTrack) addedTrack;
+                remoteVideoTrackStreams.put(videoTrack.id(), this.streamId);
                 config.webRTCListener.onNewVideoTrack(videoTrack, streamId);
             }
         }
@@ -602,7 +604,8 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
             ProxyVideoSink remoteVideoSink = new ProxyVideoSink();
             if (renderer != null) {
                 remoteVideoSink.setTarget(renderer);
-                renderer.init(eglBase.getEglBaseContext(), null);
+                String streamId = remoteVideoTrackStreams.get(videoTrack.id());
+                renderer.init(eglBase.getEglBaseContext(), streamId != null ? new FirstFrameRendererEvents(streamId) : null);
                 renderer.setScalingType(config.scalingType);
                 renderer.setEnableHardwareScaler(true);
                 renderer.setTag(renderer.getId(), remoteVideoSink);
@@ -623,22 +626,11 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
         @Override
         public void onCreateSuccess(final SessionDescription desc) {
-            String sdp = desc.description;
-            if (preferIsac) {
-                sdp = preferCodec(sdp, AUDIO_CODEC_ISAC, true);
-            }
-            if (config.videoCallEnabled) {
-                sdp = preferCodec(sdp, getSdpVideoCodecName(config.videoCodec), false);
-            }
-
-            if (removeVideoRotationExtension) {
-                sdp = sdp.replace(VIDEO_ROTATION_EXT_LINE, "");
-            }
-
-            final SessionDescription newDesc = new SessionDescription(desc.type, sdp);
+            final SessionDescription newDesc = new SessionDescription(desc.type, getSdpMungingRules().apply(desc.description, false,
+                    desc.type == SessionDescription.Type.OFFER));
             PeerInfo peerInfo = getPeerInfoFor(streamId);
             peerInfo.setLocalDescription(newDesc);
-            executor.execute(() -> {
+            executor.execute(streamId, () -> {
                 PeerConnection pc = peerInfo.peerConnection;
                 if (pc != null) {
                     Log.d(TAG, "Set local SDP from " + desc.type);
@@ -651,7 +643,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         public void onSetSuccess() {
             Log.i(TAG, "onSetSuccess: ");
 
-            executor.execute(() -> {
+            executor.execute(streamId, () -> {
                 PeerInfo peerInfo = getPeerInfoFor(streamId);
                 if (peerInfo == null) {
                     return;
@@ -664,29 +656,37 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
                 if (isInitiator) {
                     // For offering peer connection we first create offer and set
                     // local SDP, then after receiving answer set remote SDP.
-                    if (pc.getRemoteDescription() == null) {
+                    // remote description of the previous negotiation is kept when ICE is restarted
+                    if (pc.getRemoteDescription() == null
+                            || pc.signalingState() == PeerConnection.SignalingState.HAVE_LOCAL_OFFER) {
                         // We've just set our local SDP so time to send it.
                         Log.d(TAG, "Local SDP set succesfully");
+                        recordTimelineEvent(streamId, StreamTimeline.Event.LOCAL_DESCRIPTION_SET);
                         onLocalDescription(streamId, peerInfo.getLocalDescription());
                     } else {
                         // We've just set remote description, so drain remote
                         // and send local ICE candidates.
                         Log.d(TAG, "Remote SDP set succesfully");
+                        recordTimelineEvent(streamId, StreamTimeline.Event.REMOTE_DESCRIPTION_SET);
                         drainCandidates(streamId);
                     }
                 } else {
                     // For answering peer connection we set remote SDP and then
                     // create answer and set local SDP.
-                    if (pc.getLocalDescription() != null) {
+                    // local description of the previous negotiation is kept when the server renegotiates
+                    if (pc.getLocalDescription() != null
+                            && pc.signalingState() != PeerConnection.SignalingState.HAVE_REMOTE_OFFER) {
                         // We've just set our local SDP so time to send it, drain
                         // remote and send local ICE candidates.
                         Log.d(TAG, "Local SDP set succesfully");
+                        recordTimelineEvent(streamId, StreamTimeline.Event.LOCAL_DESCRIPTION_SET);
                         onLocalDescription(streamId, peerInfo.getLocalDescription());
                         drainCandidates(streamId);
                     } else {
                         // We've just set remote SDP - do nothing for now -
                         // answer will be created soon.
                         Log.d(TAG, "Remote SDP set succesfully");
+                        recordTimelineEvent(streamId, StreamTimeline.Event.REMOTE_DESCRIPTION_SET);
                     }
                 }
             });
@@ -709,24 +709,74 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
             return;
         }
 
-        if (config.reconnectionEnabled) {
-            createReconnectorRunnables();
-        }
-
-        initializeRenderers();
+        InitializationPipeline pipeline = createInitializationPipeline();
+        initializationPipeline = pipeline;
+        pipeline.start();
+        released = false;
+    }
 
-        initializeParameters();
+    /**
+     * Stages of init. Websocket is connected first so the handshake overlaps with the factory and capturer setup.
+     * Stages on the caller thread are completed when init returns, factory and media track stages complete on the
+     * executor and websocket stage completes when it's connected, or fails when it's disconnected before.
+     *
+     * Renderers, capturer and audio manager need the caller (main) thread, e.g. audio manager checks it, so the
+     * pipeline only orders and measures them. Their heavy parts already run on the executor.
+     *
+     * Factory stage is added before the capturer stage and its dependencies are a subset of the capturer's, so
+     * the factory is queued on the global lane before the tracks that use it.
+     */
+    private InitializationPipeline createInitializationPipeline() {
+        InitializationPipeline pipeline = new InitializationPipeline(Clock.SYSTEM, new InitializationPipeline.Listener() {
+            @Override
+            public void onStageCompleted(String stage, long startOffsetMs, long durationMs) {
+                Log.d(TAG, "Initialization stage " + stage + " completed in " + durationMs + "ms, started at " + startOffsetMs + "ms");
+                onInitializationStageCompleted(stage, startOffsetMs, durationMs);
+            }
 
-        initializePeerConnectionFactory();
+            @Override
+            public void onPipelineCompleted(long durationMs) {
+                Log.i(TAG, "Initialization completed in " + durationMs + "ms");
+                onInitializationStageCompleted(INIT_STAGE_ALL, 0, durationMs);
+            }
+        });
 
+        pipeline.addAsyncStage(INIT_STAGE_WEBSOCKET, InitializationPipeline.CALLER_THREAD, () -> {
+            connectWebSocket();
+            if (isWebSocketConnected()) {
+                pipeline.complete(INIT_STAGE_WEBSOCKET);
+            }
+        });
+        pipeline.addStage(INIT_STAGE_RENDERERS, InitializationPipeline.CALLER_THREAD, this::initializeRenderers);
+        pipeline.addStage(INIT_STAGE_PARAMETERS, InitializationPipeline.CALLER_THREAD, this::initializeParameters);
+        pipeline.addAsyncStage(INIT_STAGE_FACTORY, InitializationPipeline.CALLER_THREAD, () -> {
+            initializePeerConnectionFactory();
+            executor.execute(() -> pipeline.complete(INIT_STAGE_FACTORY));
+        }, INIT_STAGE_RENDERERS);
         if (config.videoCallEnabled) {
-            initializeVideoCapturer();
+            pipeline.addAsyncStage(INIT_STAGE_VIDEO_CAPTURER, InitializationPipeline.CALLER_THREAD, () -> {
+                initializeVideoCapturer();
+                executor.execute(() -> pipeline.complete(INIT_STAGE_VIDEO_CAPTURER));
+            }, INIT_STAGE_RENDERERS, INIT_STAGE_PARAMETERS);
         }
+        pipeline.addStage(INIT_STAGE_AUDIO_MANAGER, InitializationPipeline.CALLER_THREAD, this::initializeAudioManager);
+        return pipeline;
+    }
 
-        initializeAudioManager();
+    private void onInitializationStageCompleted(String stage, long startOffsetMs, long durationMs) {
+        this.handler.post(() -> {
+            if (config.webRTCListener != null) {
+                config.webRTCListener.onInitializationStageCompleted(stage, startOffsetMs, durationMs);
+            }
+        });
+    }
 
-        connectWebSocket();
-        released = false;
+    /**
+     * @return timings of the stages of the last init call, empty if init is not called
+     */
+    public Map<String, InitializationPipeline.StageTiming> getInitializationTimings() {
+        InitializationPipeline pipeline = initializationPipeline;
+        return pipeline != null ? pipeline.getTimings() : Collections.emptyMap();
     }
 
     public boolean checkPermissions(PermissionsHandler.PermissionCallback permissionCallback) {
@@ -744,12 +794,12 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
     public void initializeRenderers() {
         if (eglBase == null) {
-            eglBase = EglBase.create();
+            eglBase = config.sharedPeerConnectionFactory ? SharedPeerConnectionFactory.getInstance().acquireEglBase() : EglBase.create();
         }
 
         //init local renderer if available
         if (config.localVideoRenderer != null && localVideoSink.getTarget() == null) {
-            config.localVideoRenderer.init(eglBase.getEglBaseContext(), null);
+            config.localVideoRenderer.init(eglBase.getEglBaseContext(), new FirstFrameRendererEvents(null));
             config.localVideoRenderer.setScalingType(config.scalingType);
             config.localVideoRenderer.setZOrderMediaOverlay(true);
             config.localVideoRenderer.setEnableHardwareScaler(true /* enabled */);
@@ -765,14 +815,20 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         // Create peer connection client.
         Log.d(TAG, "Preferred video codec: " + getSdpVideoCodecName(config.videoCodec));
         final String fieldTrials = getFieldTrials(config.videoFlexfecEnabled, config.disableWebRtcAGCAndHPF);
-        executor.execute(() -> {
+        Runnable initializer = () -> {
             Log.d(TAG, "Initialize WebRTC. Field trials: " + fieldTrials);
             PeerConnectionFactory.initialize(
                     PeerConnectionFactory.InitializationOptions.builder(config.activity)
                             .setFieldTrials(fieldTrials)
                             .setEnableInternalTracer(true)
                             .createInitializationOptions());
-        });
+        };
+        if (config.sharedPeerConnectionFactory) {
+            executor.execute(() -> SharedPeerConnectionFactory.getInstance().initializeOnce(initializer));
+        }
+        else {
+            executor.execute(initializer);
+        }
 
 
         PeerConnectionFactory.Options options = new PeerConnectionFactory.Options();
@@ -814,13 +870,29 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     }
 
     public void connectWebSocket() {
-        if (wsHandler == null) {
+        if (wsHandler == null && config.sharedWebSocketConnection) {
+            Log.i(TAG, "Using the shared websocket connection of " + config.serverUrl);
+            wsHandler = SignallingConnectionRegistry.acquire(config.serverUrl, this, handler, this::configureWebSocketHandler);
+            for (String streamId : peers.keySet()) {
+                addSignallingRoute(streamId);
+            }
+            if (config.reconnectionEnabled) {
+                wsHandler.setupWsReconnection();
+            }
+            if (wsHandler.isConnected()) {
+                //connection is opened by another client
+                onWebSocketConnected();
+            }
+        } else if (wsHandler == null) {
             Log.i(TAG, "WebsocketHandler is null and creating a new instance");
             wsHandler = new WebSocketHandler(this, handler);
+            configureWebSocketHandler(wsHandler);
             wsHandler.connect(config.serverUrl);
             if (config.reconnectionEnabled) {
                 wsHandler.setupWsReconnection();
             }
+        } else if (config.sharedWebSocketConnection) {
+            Log.i(TAG, "Shared websocket connection is reconnected by its reconnector");
         } else if (!wsHandler.isConnected()) {
             Log.i(TAG, "WebSocketHandler already exists but not connected. Disconnecting and connect again.");
             wsHandler.disconnect(true);
@@ -828,6 +900,28 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         }
     }
 
+    private void configureWebSocketHandler(WebSocketHandler wsHandler) {
+        wsHandler.setIceCandidateDeduplication(config.iceCandidateDeduplicationEnabled);
+        wsHandler.setIceCandidatePipelining(config.iceCandidatePipeliningEnabled);
+        wsHandler.setOutboxCapacity(config.signallingOutboxCapacity);
+        wsHandler.setBinaryEncoding(config.binarySignallingEnabled, config.sdpCompressionEnabled);
+        if (config.wsReconnectionPolicy != null) {
+            wsHandler.setReconnectionPolicy(config.wsReconnectionPolicy);
+        }
+        if (config.signalingTransport != null) {
+            wsHandler.setSignalingTransport(config.signalingTransport);
+        }
+    }
+
+    /**
+     * Routes the incoming messages of the stream or room to this client if websocket connection is shared
+     */
+    private void addSignallingRoute(String id) {
+        if (wsHandler != null && wsHandler.getEventRouter() != null) {
+            wsHandler.getEventRouter().addRoute(id, this);
+        }
+    }
+
     public DisplayMetrics getDisplayMetrics() {
         DisplayMetrics displayMetrics = new DisplayMetrics();
         WindowManager windowManager = (WindowManager) config.activity.getSystemService(Activity.WINDOW_SERVICE);
@@ -908,6 +1002,9 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     public void stop(String streamId, boolean byUser) {
         Log.i(getClass().getSimpleName(), "Stopping stream");
         streamStoppedByUser = byUser;
+        if (reconnectionStateMachine != null) {
+            reconnectionStateMachine.stop(streamId);
+        }
 
         if (wsHandler != null && wsHandler.isConnected()) {
             wsHandler.stop(streamId);
@@ -934,6 +1031,13 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     @Override
     public void onWebSocketConnected() {
         Log.i(TAG, "WebSocket connected.");
+        InitializationPipeline pipeline = initializationPipeline;
+        if (pipeline != null) {
+            pipeline.complete(INIT_STAGE_WEBSOCKET);
+        }
+        for (PeerInfo peerInfo : peers.values()) {
+            recordTimelineEvent(peerInfo.id, StreamTimeline.Event.WEBSOCKET_OPEN);
+        }
 
         this.handler.post(() -> {
             if (config.webRTCListener != null) {
@@ -955,11 +1059,13 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
             if (peerMode == Mode.PUBLISH && peerInfo.peerConnection == null) {
                 Log.i(TAG, "Processing publish request for peer streamId: " + peerInfo.id);
                 wsHandler.startPublish(peerInfo.id, peerInfo.token, peerInfo.videoCallEnabled, peerInfo.audioCallEnabled, peerInfo.subscriberId, peerInfo.subscriberCode, peerInfo.streamName, peerInfo.mainTrackId);
+                recordTimelineEvent(peerInfo.id, StreamTimeline.Event.START_SENT);
             }
 
             if (peerMode == Mode.PLAY && peerInfo.peerConnection == null) {
                 Log.i(TAG, "Processing play request for peer streamId: " + peerInfo.id);
                 wsHandler.startPlay(peerInfo.id, peerInfo.token, null, peerInfo.subscriberId, peerInfo.subscriberCode, peerInfo.metaData);
+                recordTimelineEvent(peerInfo.id, StreamTimeline.Event.START_SENT);
             }
         }
     }
@@ -988,6 +1094,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         if (isWebSocketConnected()) {
             Log.i(TAG, "Publish request sent through ws for stream: " + streamId);
             wsHandler.startPublish(streamId, token, videoCallEnabled, audioCallEnabled, subscriberId, subscriberCode, streamName, mainTrackId);
+            recordTimelineEvent(streamId, StreamTimeline.Event.START_SENT);
         } else {
             Log.w(TAG, "Websocket is not connected. Set publish requested. It will be processed when ws is connected.");
         }
@@ -1004,7 +1111,9 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         peerInfo.streamName = streamName;
         peerInfo.mainTrackId = mainTrackId;
         peerInfo.metaData = metaData;
+        startTimeline(peerInfo);
         peers.put(streamId, peerInfo);
+        addSignallingRoute(streamId);
     }
 
     public void play(String streamId) {
@@ -1031,6 +1140,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         if (isWebSocketConnected()) {
             Log.i(TAG, "Play request sent through ws for stream: " + streamId);
             wsHandler.startPlay(streamId, token, tracks, subscriberId, subscriberCode, viewerInfo);
+            recordTimelineEvent(streamId, StreamTimeline.Event.START_SENT);
         } else {
             Log.w(TAG, "Websocket is not connected. Set play requested. It will be processed when ws is connected.");
         }
@@ -1046,14 +1156,18 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
         PeerInfo peerInfo = new PeerInfo(streamId, Mode.P2P);
         peerInfo.token = token;
+        startTimeline(peerInfo);
         peers.put(streamId, peerInfo);
 
         init();
+        addSignallingRoute(streamId);
         wsHandler.joinToPeer(streamId, token);
+        recordTimelineEvent(streamId, StreamTimeline.Event.START_SENT);
     }
 
     public void getTrackList(String streamId, String token) {
         init();
+        addSignallingRoute(streamId);
         wsHandler.getTrackList(streamId, token);
     }
 
@@ -1089,7 +1203,11 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         released = true;
         Log.i(getClass().getSimpleName(), "Releasing resources");
 
-        if (closeWebsocket && wsHandler != null) {
+        if (closeWebsocket && wsHandler != null && config.sharedWebSocketConnection) {
+            SignallingConnectionRegistry.release(config.serverUrl, this);
+            wsHandler = null;
+        }
+        else if (closeWebsocket && wsHandler != null) {
             wsHandler.disconnect(true);
             wsHandler.stopReconnector();
             wsHandler = null;
@@ -1236,6 +1354,11 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     public void onLocalDescription(String streamId, final SessionDescription sdp) {
         final long delta = System.currentTimeMillis() - callStartedTimeMs;
 
+        WebSocketHandler ws = wsHandler;
+        if (ws != null) {
+            //candidates of the new description are sent after it
+            ws.closeIceCandidatePass();
+        }
         this.handler.post(() -> {
             if (wsHandler != null) {
                 Log.d(TAG, "Sending " + sdp.type + ", delay=" + delta + "ms");
@@ -1246,7 +1369,12 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
                 }
             }
 
-            if (config.videoStartBitrate > 0) {
+            PeerInfo peerInfo = getPeerInfoFor(streamId);
+            if (peerInfo != null && peerInfo.maxVideoBitrateKbps != null) {
+                Log.d(TAG, "Set video maximum bitrate of " + streamId + ": " + peerInfo.maxVideoBitrateKbps);
+                setVideoMaxBitrate(streamId, peerInfo.maxVideoBitrateKbps);
+            }
+            else if (config.videoStartBitrate > 0) {
                 Log.d(TAG, "Set video maximum bitrate: " + config.videoStartBitrate);
                 setVideoMaxBitrate(config.videoStartBitrate);
             }
@@ -1255,6 +1383,9 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
     public void onIceConnected(String streamId) {
         final long delta = System.currentTimeMillis() - callStartedTimeMs;
+        if (recordTimelineEvent(streamId, StreamTimeline.Event.ICE_CONNECTED)) {
+            pollFirstFrame(streamId, 0);
+        }
         this.handler.post(() -> {
             Log.d(TAG, "ICE connected, delay=" + delta + "ms");
             PeerInfo peerInfo = getPeerInfoFor(streamId);
@@ -1267,21 +1398,6 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         });
     }
 
-    public void rePublishPlay() {
-        if (streamStoppedByUser || reconnectionInProgress) {
-            return;
-        }
-        reconnectionInProgress = true;
-
-        if(isConference()){
-            Log.i(TAG, "Conference! Will try to republish in  " + PEER_RECONNECTION_DELAY_MS + " ms.");
-            publishReconnectionHandler.postDelayed(publishReconnectorRunnable, PEER_RECONNECTION_DELAY_MS);
-        }else{
-            Log.i(TAG, "Peer was connected before. Will try to republish/replay in " + PEER_RECONNECTION_DELAY_MS + " ms.");
-            peerReconnectionHandler.postDelayed(peerReconnectorRunnable, PEER_RECONNECTION_DELAY_MS);
-        }
-    }
-
     public void onIceDisconnected(String streamId) {
 
         this.handler.post(() -> {
@@ -1296,7 +1412,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
             }
 
             if (config.reconnectionEnabled) {
-                rePublishPlay();
+                startRecovery(streamId);
             }
 
             if(isConference()){
@@ -1307,111 +1423,258 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         });
     }
 
-    private boolean isConference(){
-        return roomId != null;
+    /**
+     * Starts the recovery of a disconnected stream, see {@link ReconnectionStateMachine}
+     */
+    public void startRecovery(String streamId) {
+        if (streamStoppedByUser || getPeerInfoFor(streamId) == null) {
+            return;
+        }
+        getReconnectionStateMachine().onDisconnected(streamId);
     }
 
-    private boolean isAllPeersConnected() {
-        for (Map.Entry<String, PeerInfo> entry : peers.entrySet()) {
-            PeerConnection peerConnection = entry.getValue().peerConnection;
-            if(peerConnection == null){
-                return false;
-            }
-            PeerConnection.PeerConnectionState peerConnectionState = peerConnection.connectionState();
-            if(peerConnectionState != PeerConnection.PeerConnectionState.CONNECTED){
-               return false;
-            }
+    /**
+     * @deprecated use {@link #startRecovery(String)}. Starts the recovery of all streams
+     */
+    @Deprecated
+    public void rePublishPlay() {
+        for (String streamId : peers.keySet()) {
+            startRecovery(streamId);
         }
-        return true;
     }
 
-    public void onIceFailed(String streamId) {
-        PeerInfo peerInfo = getPeerInfoFor(streamId);
+    /**
+     * @deprecated reconnection is driven by {@link #getReconnectionStateMachine()}, which is created on first use
+     */
+    @Deprecated
+    public void createReconnectorRunnables() {
+        getReconnectionStateMachine();
+    }
+
+    private boolean isRecoveryTierApplicable(PeerInfo peerInfo, TieredRecovery.Tier tier) {
+        switch (tier) {
+            case ICE_RESTART:
+                // ICE is restarted with a new offer, server creates the offers of the play sessions
+                return config.iceRestartTimeoutMs > 0 && peerInfo.peerConnection != null
+                        && (peerInfo.mode == Mode.PUBLISH || (peerInfo.mode == Mode.P2P && isInitiator));
+            case SESSION_RESTORE:
+                // server does not keep the P2P sessions
+                return config.sessionRestoreTimeoutMs > 0 && peerInfo.peerConnection != null
+                        && (peerInfo.mode == Mode.PUBLISH || peerInfo.mode == Mode.PLAY);
+            default:
+                return true;
+        }
+    }
 
-        this.handler.post(() -> {
-            Log.d(TAG, "ICE failed");
-            peerInfo.restartIce = true;
-            PeerConnection peerConnection = getPeerConnectionFor(streamId);
-            if (peerConnection != null) {
-                Log.d(TAG, "Restarting ice.");
-                peerConnection.restartIce();
-            }
-        });
+    /**
+     * Creates an offer with new ICE credentials on the existing peer connection
+     */
+    private void restartIce(PeerInfo peerInfo) {
+        // candidates of the new ICE session are queued until the new descriptions are set
+        peerInfo.getRemoteCandidateQueue().reset();
+        peerInfo.restartIce = true;
+        createOffer(peerInfo.id);
     }
 
-    private boolean isPublishConnected(){
-        for (Map.Entry<String, PeerInfo> entry : peers.entrySet()) {
-            PeerConnection peerConnection = entry.getValue().peerConnection;
-            if(peerConnection == null){
-                return false;
-            }
-            PeerConnection.PeerConnectionState peerConnectionState = peerConnection.connectionState();
-            if(entry.getValue().mode == Mode.PUBLISH && peerConnectionState != PeerConnection.PeerConnectionState.CONNECTED){
-                return false;
-            }
+    /**
+     * Sends publish or play without stop, so the server restores the session in its restoration timeout.
+     * Publish is renegotiated in onStartStreaming and the offer of play is answered on the existing peer connection
+     */
+    private void restoreSession(PeerInfo peerInfo) {
+        if (wsHandler == null) {
+            return;
+        }
+        peerInfo.getRemoteCandidateQueue().reset();
+        if (peerInfo.mode == Mode.PUBLISH) {
+            wsHandler.startPublish(peerInfo.id, peerInfo.token, peerInfo.videoCallEnabled, peerInfo.audioCallEnabled, peerInfo.subscriberId, peerInfo.subscriberCode, peerInfo.streamName, peerInfo.mainTrackId);
+        } else {
+            wsHandler.startPlay(peerInfo.id, peerInfo.token, null, peerInfo.subscriberId, peerInfo.subscriberCode, peerInfo.metaData);
         }
-        return true;
     }
 
-    private boolean isPlayConnected(){
-        for (Map.Entry<String, PeerInfo> entry : peers.entrySet()) {
-            PeerConnection peerConnection = entry.getValue().peerConnection;
-            if(peerConnection == null){
-                return false;
-            }
-            PeerConnection.PeerConnectionState peerConnectionState = peerConnection.connectionState();
-            if(entry.getValue().mode == Mode.PLAY && peerConnectionState != PeerConnection.PeerConnectionState.CONNECTED){
-                return false;
+    /**
+     * Closes the peer connection and publishes, plays or joins again
+     */
+    private void republish(PeerInfo peerInfo) {
+        PeerConnection pc = peerInfo.peerConnection;
+        if (pc != null) {
+            PeerConnection.IceConnectionState iceConnectionState = pc.iceConnectionState();
+            if (iceConnectionState == PeerConnection.IceConnectionState.CHECKING
+                    || iceConnectionState == PeerConnection.IceConnectionState.CONNECTED
+                    || iceConnectionState == PeerConnection.IceConnectionState.COMPLETED) {
+                // next attempt is scheduled when this one times out
+                Log.d(TAG, "ICE of " + peerInfo.id + " is " + iceConnectionState + ". Republish is skipped");
+                return;
             }
+            pc.close();
+            /*
+            This is a FIX of a reconnection bug.
+            If dispose is used instead of close, in one of consequent reconnection attempts segmentation fault occurs.
+            pc.dispose();
+            */
+        }
+        // candidates of the new connection are queued until its descriptions are set
+        peerInfo.getRemoteCandidateQueue().reset();
+
+        config.webRTCListener.onReconnectionAttempt(peerInfo.id);
+        if (peerInfo.mode.equals(Mode.PUBLISH)) {
+            Log.d(TAG, "Reconnect attempt for publish");
+            wsHandler.stop(peerInfo.id);
+            wsHandler.startPublish(peerInfo.id, peerInfo.token, peerInfo.videoCallEnabled, peerInfo.audioCallEnabled, peerInfo.subscriberId, peerInfo.subscriberCode, peerInfo.streamName, peerInfo.mainTrackId);
+        } else if (peerInfo.mode.equals(Mode.PLAY)) {
+            releaseRemoteRenderers();
+            Log.d(TAG, "Reconnect attempt for play");
+            play(peerInfo.id,
+                    peerInfo.token,
+                    null,
+                    peerInfo.subscriberId,
+                    peerInfo.subscriberCode,
+                    peerInfo.metaData
+            );
+        } else if (peerInfo.mode.equals(Mode.P2P)) {
+            Log.d(TAG, "Reconnect attempt for P2P");
+            config.localVideoRenderer.setZOrderOnTop(true);
+            join(peerInfo.id, peerInfo.token);
         }
-        return true;
     }
 
-    public void onConnected(String streamId) {
-            Log.i(TAG, "Connected for streamId:" + streamId);
+    /**
+     * Reconnection state machine of the peers. It's created on first use with the reconnection settings of the config
+     */
+    public synchronized ReconnectionStateMachine getReconnectionStateMachine() {
+        if (reconnectionStateMachine == null) {
+            reconnectionStateMachine = new ReconnectionStateMachine(getPeerReconnectionHandler(), new ReconnectionStateMachine.Actions() {
+                @Override
+                public boolean isTierApplicable(String streamId, TieredRecovery.Tier tier) {
+                    PeerInfo peerInfo = getPeerInfoFor(streamId);
+                    return peerInfo != null && isRecoveryTierApplicable(peerInfo, tier);
+                }
 
-            if(config.reconnectionEnabled && reconnectionInProgress  && isConference() && isPublishConnected() && !isPlayConnected()){
-                Log.i(TAG,"Conference reconnection. Publish connected. Play not connected. Try to reconnect play.");
-                publishReconnectionHandler.removeCallbacksAndMessages(null);
-                playReconnectionHandler.postDelayed(playReconnectorRunnable, PEER_RECONNECTION_DELAY_MS);
-                return;
-            }
+                @Override
+                public void restartIce(String streamId) {
+                    PeerInfo peerInfo = getPeerInfoFor(streamId);
+                    if (peerInfo != null) {
+                        Log.d(TAG, "Restarting ICE for " + streamId);
+                        config.webRTCListener.onReconnectionAttempt(streamId);
+                        WebRTCClient.this.restartIce(peerInfo);
+                    }
+                }
 
-            if (config.reconnectionEnabled && reconnectionInProgress && isAllPeersConnected()) {
-                Log.i(TAG, "All peers reconnected. Reconnection completed successfully.");
-                reconnectionInProgress = false;
-                peerReconnectionHandler.removeCallbacksAndMessages(null);
-                publishReconnectionHandler.removeCallbacksAndMessages(null);
-                playReconnectionHandler.removeCallbacksAndMessages(null);
-                this.handler.post(() -> {
-                    if (config.webRTCListener != null) {
-                        config.webRTCListener.onReconnectionSuccess();
+                @Override
+                public void restoreSession(String streamId) {
+                    PeerInfo peerInfo = getPeerInfoFor(streamId);
+                    if (peerInfo != null) {
+                        Log.d(TAG, "Restoring session for " + streamId);
+                        config.webRTCListener.onReconnectionAttempt(streamId);
+                        WebRTCClient.this.restoreSession(peerInfo);
                     }
-                });
-            }
-    }
+                }
 
-    public void onPeerConnectionClosed() {
+                @Override
+                public void republish(String streamId) {
+                    PeerInfo peerInfo = getPeerInfoFor(streamId);
+                    if (peerInfo != null && !released && !streamStoppedByUser) {
+                        WebRTCClient.this.republish(peerInfo);
+                    }
+                }
+
+                @Override
+                public int getPriority(String streamId) {
+                    // published stream is back before the others are played in a conference
+                    PeerInfo peerInfo = getPeerInfoFor(streamId);
+                    return peerInfo != null && peerInfo.mode == Mode.PUBLISH ? 1 : 0;
+                }
+            }, new ReconnectionStateMachine.Listener() {
+                @Override
+                public void onStateChanged(ReconnectionEvent event) {
+                    handler.post(() -> {
+                        if (config.webRTCListener != null) {
+                            config.webRTCListener.onReconnectionStateChanged(event);
+                        }
+                    });
+                    if (event.getTo() == ReconnectionStateMachine.State.CONNECTED && !reconnectionStateMachine.isRecovering()) {
+                        Log.i(TAG, "All peers reconnected. Reconnection completed successfully.");
+                        handler.post(() -> {
+                            if (config.webRTCListener != null) {
+                                config.webRTCListener.onReconnectionSuccess();
+                            }
+                        });
+                    }
+                }
+
+                @Override
+                public void onTierCompleted(String streamId, TieredRecovery.Tier tier, boolean recovered, long durationMs) {
+                    Log.i(TAG, tier + (recovered ? " recovered " : " did not recover ") + streamId + " in " + durationMs + " ms");
+                    reportReconnectionTier(streamId, tier, recovered, durationMs);
+                }
+            })
+                    .setTierTimeouts(config.iceRestartTimeoutMs, config.sessionRestoreTimeoutMs)
+                    .setMaxConcurrentRepublishes(config.maxConcurrentReconnections);
+        }
+        return reconnectionStateMachine;
     }
 
-    public void onPeerConnectionStatsReady(RTCStatsReport report) {
+    private void reportReconnectionTier(String streamId, TieredRecovery.Tier tier, boolean recovered, long durationMs) {
         this.handler.post(() -> {
-                statsCollector.onStatsReport(report);
+            if (config.webRTCListener != null) {
+                config.webRTCListener.onReconnectionTierCompleted(streamId, tier, recovered, durationMs);
+            }
         });
     }
 
-    public boolean isStreaming(String streamId) {
-        PeerConnection pc = getPeerConnectionFor(streamId);
-        return pc != null && pc.iceConnectionState().equals(PeerConnection.IceConnectionState.CONNECTED);
+    private boolean isConference(){
+        return roomId != null;
     }
 
-    @Override
-    public void onTakeConfiguration(String streamId, SessionDescription sdp) {
+    public void onIceFailed(String streamId) {
+        PeerInfo peerInfo = getPeerInfoFor(streamId);
+
         this.handler.post(() -> {
-            if (sdp.type == SessionDescription.Type.OFFER) {
-                PeerConnection pc = getPeerConnectionFor(streamId);
-                if (pc == null) {
-                    createPeerConnection(streamId);
+            Log.d(TAG, "ICE failed");
+            if (config.reconnectionEnabled) {
+                // no-op if the recovery is already started by the disconnection
+                startRecovery(streamId);
+                return;
+            }
+            peerInfo.restartIce = true;
+            PeerConnection peerConnection = getPeerConnectionFor(streamId);
+            if (peerConnection != null) {
+                Log.d(TAG, "Restarting ice.");
+                peerConnection.restartIce();
+            }
+        });
+    }
+
+    public void onConnected(String streamId) {
+            Log.i(TAG, "Connected for streamId:" + streamId);
+            recordTimelineEvent(streamId, StreamTimeline.Event.CONNECTED);
+            if (config.reconnectionEnabled) {
+                this.handler.post(() -> getReconnectionStateMachine().onConnected(streamId));
+            }
+    }
+
+    public void onPeerConnectionClosed() {
+    }
+
+    public void onPeerConnectionStatsReady(RTCStatsReport report) {
+        this.handler.post(() -> {
+                statsCollector.onStatsReport(report);
+        });
+    }
+
+    public boolean isStreaming(String streamId) {
+        PeerConnection pc = getPeerConnectionFor(streamId);
+        return pc != null && pc.iceConnectionState().equals(PeerConnection.IceConnectionState.CONNECTED);
+    }
+
+    @Override
+    public void onTakeConfiguration(String streamId, SessionDescription sdp) {
+        recordTimelineEvent(streamId, StreamTimeline.Event.TAKE_CONFIGURATION_RECEIVED);
+        this.handler.post(() -> {
+            if (sdp.type == SessionDescription.Type.OFFER) {
+                PeerConnection pc = getPeerConnectionFor(streamId);
+                if (pc == null) {
+                    createPeerConnection(streamId);
                 }
 
                 setRemoteDescription(streamId, sdp);
@@ -1459,7 +1722,6 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     public void onPlayStarted(String streamId) {
         Log.d(TAG, "Play started.");
         streamStoppedByUser = false;
-        reconnectionInProgress = false;
         waitingForPlay = false;
 
         this.handler.post(() -> {
@@ -1472,6 +1734,13 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     @Override
     public void onStartStreaming(String streamId) {
         this.handler.post(() -> {
+            PeerInfo peerInfo = getPeerInfoFor(streamId);
+            if (peerInfo != null && peerInfo.peerConnection != null
+                    && getReconnectionStateMachine().getState(streamId) == ReconnectionStateMachine.State.SESSION_RESTORING) {
+                // server restored the session, existing peer connection is renegotiated
+                restartIce(peerInfo);
+                return;
+            }
             createPeerConnection(streamId);
         });
     }
@@ -1510,6 +1779,15 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         });
     }
 
+    @Override
+    public void onSignallingRttMeasured(long rttMs, long smoothedRttMs, long rttVariationMs) {
+        this.handler.post(() -> {
+            if (config.webRTCListener != null) {
+                config.webRTCListener.onSignallingRttMeasured(rttMs, smoothedRttMs, rttVariationMs);
+            }
+        });
+    }
+
     @Override
     public void onBroadcastObject(Broadcast broadcast) {
         this.handler.post(() -> {
@@ -1530,11 +1808,16 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
     @Override
     public void onRemoteIceCandidate(String streamId, IceCandidate candidate) {
-        this.handler.post(() -> addRemoteIceCandidate(streamId, candidate));
+        recordTimelineEvent(streamId, StreamTimeline.Event.FIRST_REMOTE_CANDIDATE);
+        addRemoteIceCandidate(streamId, candidate);
     }
 
     @Override
     public void onWebSocketDisconnected() {
+        InitializationPipeline pipeline = initializationPipeline;
+        if (pipeline != null) {
+            pipeline.fail(INIT_STAGE_WEBSOCKET);
+        }
         this.handler.post(() -> {
             if (config.webRTCListener != null) {
                 config.webRTCListener.onWebSocketDisconnected();
@@ -1627,21 +1910,52 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
     class DataChannelInternalObserver implements DataChannel.Observer {
 
+        private final String streamId;
         private final DataChannel dataChannel;
-
-        DataChannelInternalObserver(DataChannel dataChannel) {
+        @Nullable
+        private final DataChannelSender sender;
+        @Nullable
+        private final IDataChannelObserver channelObserver;
+        private final boolean batched;
+        private final boolean defaultChannel;
+        private String label;
+        private FileTransferReceiver fileTransferReceiver;
+
+        DataChannelInternalObserver(String streamId, DataChannel dataChannel, @Nullable DataChannelSender sender) {
+            this(streamId, dataChannel, sender, null);
+        }
+
+        /**
+         * @param options options of a labeled data channel, or null for the default data channel
+         */
+        DataChannelInternalObserver(String streamId, DataChannel dataChannel, @Nullable DataChannelSender sender,
+                                    @Nullable DataChannelOptions options) {
+            this.streamId = streamId;
             this.dataChannel = dataChannel;
+            this.sender = sender;
+            this.channelObserver = options == null ? null : options.getObserver();
+            this.batched = options == null ? config.dataChannelBatchIntervalMs > 0 : options.isBatched();
+            this.defaultChannel = options == null;
+        }
+
+        private IDataChannelObserver getObserver() {
+            return channelObserver != null ? channelObserver : config.dataChannelObserver;
         }
 
         @Override
         public void onBufferedAmountChange(long previousAmount) {
-            if (config.dataChannelObserver == null) return;
+            if (sender != null) {
+                //sending blocks until the signaling thread runs it, so queued messages are not sent on this thread
+                executor.execute(streamId, sender::onBufferedAmountChange);
+            }
+            IDataChannelObserver observer = getObserver();
+            if (observer == null) return;
                 handler.post(() ->
                 {
                     if(dataChannel != null){
                         Log.d(TAG, "Data channel buffered amount changed: " + dataChannel.label() + ": " + dataChannel.state());
                         try{
-                            config.dataChannelObserver.onBufferedAmountChange(previousAmount, dataChannel.label());
+                            observer.onBufferedAmountChange(previousAmount, dataChannel.label());
 
                         }catch (IllegalStateException e){
                             Log.e(TAG, "Data channel related error:" + e.getMessage());
@@ -1655,10 +1969,18 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
         @Override
         public void onStateChange() {
+            if (fileTransferReceiver != null) {
+                executor.execute(streamId, () -> {
+                    if (isClosed(dataChannel)) {
+                        fileTransferReceiver.close();
+                    }
+                });
+            }
             handler.post(() -> {
-                if (config.dataChannelObserver != null && dataChannel != null) {
+                IDataChannelObserver observer = getObserver();
+                if (observer != null && dataChannel != null) {
                     try{
-                        config.dataChannelObserver.onStateChange(dataChannel.state(), dataChannel.label());
+                        observer.onStateChange(dataChannel.state(), dataChannel.label());
                     }catch (IllegalStateException e){
                         Log.e(TAG, "Data channel related error:" + e.getMessage());
                     }
@@ -1668,53 +1990,310 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
         @Override
         public void onMessage(final DataChannel.Buffer buffer) {
-            ByteBuffer copyByteBuffer = ByteBuffer.allocate(buffer.data.capacity());
+            //transfers are sent on the default data channel, binary messages with the frame prefix are reserved on it
+            if (defaultChannel && buffer.binary && config.fileTransferListener != null && TransferFrame.isFrame(buffer.data)) {
+                ByteBuffer frame = ByteBuffer.allocate(buffer.data.remaining());
+                frame.put(buffer.data);
+                frame.flip();
+                executor.execute(streamId, () -> getFileTransferReceiver().onFrame(frame));
+                return;
+            }
+
+            IDataChannelObserver observer = getObserver();
+            if (observer == null) return;
+            String label = getLabel();
+            if (label == null) return;
+
+            if (batched && buffer.binary && DataChannelBatcher.isBatch(buffer.data)) {
+                //batch is copied once and its messages are delivered together
+                ByteBuffer batchCopy = ByteBuffer.allocate(buffer.data.remaining());
+                batchCopy.put(buffer.data);
+                batchCopy.flip();
+                List<DataChannel.Buffer> messages = new ArrayList<>();
+                try {
+                    DataChannelBatcher.unpack(batchCopy, messages);
+                } catch (IllegalArgumentException e) {
+                    Log.e(TAG, "Data channel batch is dropped: " + e.getMessage());
+                    return;
+                }
+                deliverDataChannelMessage(() -> {
+                    for (DataChannel.Buffer message : messages) {
+                        try {
+                            observer.onMessage(message, label);
+                        } catch (IllegalStateException e) {
+                            Log.e(TAG, "Data channel related error:" + e.getMessage());
+                        }
+                    }
+                });
+                return;
+            }
+
+            DataChannelBufferPool pool = config.dataChannelBufferPool;
+            if (pool != null) {
+                //buffer of the pool delivers itself, so nothing is allocated per message
+                DataChannelBufferPool.PooledBuffer pooledBuffer = pool.acquire(buffer.data, buffer.binary);
+                pooledBuffer.setDelivery(observer, label);
+                deliverDataChannelMessage(pooledBuffer);
+                return;
+            }
+
+            ByteBuffer copyByteBuffer = ByteBuffer.allocate(buffer.data.remaining());
             copyByteBuffer.put(buffer.data);
             copyByteBuffer.rewind();
 
-            boolean binary = buffer.binary;
-            DataChannel.Buffer bufferCopy = new DataChannel.Buffer(copyByteBuffer, binary);
-            handler.post(() -> {
-                if (config.dataChannelObserver == null || dataChannel == null) return;
+            DataChannel.Buffer bufferCopy = new DataChannel.Buffer(copyByteBuffer, buffer.binary);
+            deliverDataChannelMessage(() -> {
                 try{
-                    config.dataChannelObserver.onMessage(bufferCopy, dataChannel.label());
+                    observer.onMessage(bufferCopy, label);
                 }catch (IllegalStateException e) {
                     Log.e(TAG, "Data channel related error:" + e.getMessage());
                 }
-                });
+            });
+        }
+
+        private FileTransferReceiver getFileTransferReceiver() {
+            if (fileTransferReceiver == null) {
+                fileTransferReceiver = new FileTransferReceiver(createFileTransferListener(streamId));
+            }
+            return fileTransferReceiver;
+        }
+
+        /**
+         * Label does not change, so it's read once instead of calling the native method for each message
+         */
+        private String getLabel() {
+            if (label == null) {
+                try {
+                    label = dataChannel.label();
+                } catch (IllegalStateException e) {
+                    Log.e(TAG, "Data channel related error:" + e.getMessage());
+                }
+            }
+            return label;
+        }
+    }
+
+    /**
+     * Delivers the received data channel message on {@link WebRTCClientConfig#dataChannelMessageExecutor}
+     * if it's set, on the main thread otherwise
+     */
+    private void deliverDataChannelMessage(Runnable delivery) {
+        Executor messageExecutor = config.dataChannelMessageExecutor;
+        if (messageExecutor != null) {
+            messageExecutor.execute(delivery);
+        } else {
+            handler.post(delivery);
         }
     }
 
+    @Override
     public void sendMessageViaDataChannel(String streamId, DataChannel.Buffer buffer) {
+        sendMessageViaDataChannel(streamId, null, buffer);
+    }
+
+    @Override
+    public DataChannelSender.SendResult sendMessageViaDataChannelWithResult(String streamId, DataChannel.Buffer buffer) {
+        return sendMessageViaDataChannel(streamId, null, buffer);
+    }
+
+    /**
+     * @param label label of a data channel in {@link WebRTCClientConfig#dataChannels}, or null for the default data channel
+     */
+    @Override
+    public DataChannelSender.SendResult sendMessageViaDataChannel(String streamId, @Nullable String label, DataChannel.Buffer buffer) {
+        DataChannelSender.SendResult result = new DataChannelSender.SendResult(buffer, Clock.SYSTEM.nowMs());
         if (isDataChannelEnabled()) {
-            executor.execute(() -> {
-                try {
-                    PeerInfo peer = peers.get(streamId);
-                    if (peer == null || peer.dataChannel == null) {
-                        reportError(streamId, "Peer not found for sending message via Data Channel");
-                        return;
-                    }
-                    boolean success = peer.dataChannel.send(buffer);
-                    buffer.data.rewind();
-                    if (config.dataChannelObserver != null) {
-                        if (success) {
-                            handler.post(() -> config.dataChannelObserver.onMessageSent(buffer, true));
-                        } else {
-                            handler.post(() -> config.dataChannelObserver.onMessageSent(buffer, false));
-                            reportError(streamId, "Failed to send the message via Data Channel ");
-                        }
-                    }
-                } catch (Exception e) {
-                    reportError(streamId, "An error occurred when sending the message via Data Channel " + e.getMessage());
-                    if (config.dataChannelObserver != null) {
-                        buffer.data.rewind();
-                        handler.post(() -> config.dataChannelObserver.onMessageSent(buffer, false));
-                    }
+            DataChannelBatcher batcher = getDataChannelBatcher(streamId, label);
+            if (batcher != null) {
+                //batch reports the results of its messages together, see createDataChannelBatcher
+                return batcher.add(buffer);
+            }
+            DataChannelOptions options = label == null ? null : getDataChannelOptions(label);
+            IDataChannelObserver observer = options != null && options.getObserver() != null ? options.getObserver() : config.dataChannelObserver;
+            result.setCallback((sentBuffer, sent) -> {
+                if (!sent) {
+                    reportError(streamId, "Failed to send the message via Data Channel: " + result.getError());
+                }
+                if (observer != null) {
+                    handler.post(() -> observer.onMessageSent(sentBuffer, sent));
                 }
             });
+            executor.execute(streamId, () -> {
+                DataChannelSender sender = getDataChannelSender(streamId, label);
+                if (sender == null) {
+                    result.complete(false, "Peer not found for sending message via Data Channel " + (label == null ? streamId : label));
+                    return;
+                }
+                sender.send(result);
+            });
         } else {
             Log.w(TAG, "Data Channel is not ready for usage for ." + streamId);
+            result.complete(false, "Data channel is not enabled");
         }
+        return result;
+    }
+
+    /**
+     * @return false if the data channel of the stream is above its high watermark and the messages are queued
+     * until it drops to the low watermark, see {@link IDataChannelObserver#onWritabilityChanged(boolean, String)}
+     */
+    @Override
+    public boolean isDataChannelWritable(String streamId) {
+        DataChannelSender sender = getDataChannelSender(streamId);
+        return sender != null && sender.isWritable();
+    }
+
+    /**
+     * @return send queue of the data channel of the stream for its metrics, or null if there is no data channel
+     */
+    @Nullable
+    public DataChannelSender getDataChannelSender(String streamId) {
+        return getDataChannelSender(streamId, null);
+    }
+
+    /**
+     * @return send queue of the labeled data channel of the stream, or the default one if the label is null
+     */
+    @Nullable
+    public DataChannelSender getDataChannelSender(String streamId, @Nullable String label) {
+        PeerInfo peer = peers.get(streamId);
+        if (peer == null) {
+            return null;
+        }
+        return label == null ? peer.dataChannelSender : peer.labeledDataChannelSenders.get(label);
+    }
+
+    /**
+     * @return batcher of the labeled data channel of the stream, or the default one if the label is null.
+     * It's null if the messages of the data channel are not batched
+     */
+    @Nullable
+    public DataChannelBatcher getDataChannelBatcher(String streamId, @Nullable String label) {
+        PeerInfo peer = peers.get(streamId);
+        if (peer == null) {
+            return null;
+        }
+        return label == null ? peer.dataChannelBatcher : peer.labeledDataChannelBatchers.get(label);
+    }
+
+    @Nullable
+    private DataChannelOptions getDataChannelOptions(String label) {
+        for (DataChannelOptions options : config.dataChannels) {
+            if (options.getLabel().equals(label)) {
+                return options;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends the file in chunks via data channel. Chunks are read from the file while the data channel is
+     * writable, so the file is not loaded into memory. Progress and completion are reported to
+     * {@link WebRTCClientConfig#fileTransferListener} and the file channel is closed when the transfer is completed
+     *
+     * @return the transfer or null if the data channel is not ready
+     */
+    @Override
+    @Nullable
+    public FileTransfer sendFileViaDataChannel(String streamId, FileChannel fileChannel, String name) {
+        DataChannelSender sender = getDataChannelSender(streamId);
+        if (!isDataChannelEnabled() || sender == null) {
+            reportError(streamId, "Data channel is not ready for sending " + name);
+            return null;
+        }
+        try {
+            FileTransfer transfer = new FileTransfer(name, fileChannel, config.fileTransferChunkSize, sender,
+                    task -> executor.execute(streamId, task), Clock.SYSTEM, createFileTransferListener(streamId));
+            transfer.start();
+            return transfer;
+        } catch (IOException e) {
+            reportError(streamId, "Cannot send " + name + " via data channel: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Delivers the incoming transfer on the calling thread and the progress and completion on the main thread
+     */
+    private FileTransferReceiver.Listener createFileTransferListener(String streamId) {
+        return new FileTransferReceiver.Listener() {
+            @Override
+            public FileChannel onIncomingTransfer(FileTransfer transfer) {
+                IFileTransferListener listener = config.fileTransferListener;
+                return listener == null ? null : listener.onIncomingTransfer(streamId, transfer);
+            }
+
+            @Override
+            public void onProgress(FileTransfer transfer) {
+                handler.post(() -> {
+                    if (config.fileTransferListener != null) {
+                        config.fileTransferListener.onTransferProgress(streamId, transfer);
+                    }
+                });
+            }
+
+            @Override
+            public void onCompleted(FileTransfer transfer, boolean successful) {
+                if (!successful) {
+                    Log.w(TAG, "File transfer " + transfer.getName() + " failed: " + transfer.getError());
+                }
+                handler.post(() -> {
+                    if (config.fileTransferListener != null) {
+                        config.fileTransferListener.onTransferCompleted(streamId, transfer, successful);
+                    }
+                });
+            }
+        };
+    }
+
+    private static boolean isClosed(DataChannel dataChannel) {
+        try {
+            return dataChannel.state() == DataChannel.State.CLOSED;
+        } catch (IllegalStateException e) {
+            //disposed
+            return true;
+        }
+    }
+
+    DataChannelSender createDataChannelSender(DataChannel dataChannel, String label, @Nullable IDataChannelObserver channelObserver) {
+        DataChannelSender sender = new DataChannelSender(dataChannel, Clock.SYSTEM, config.dataChannelHighWatermark,
+                config.dataChannelLowWatermark, config.dataChannelMaxQueuedBytes);
+        sender.addWritabilityListener(writable -> handler.post(() -> {
+            IDataChannelObserver observer = channelObserver != null ? channelObserver : config.dataChannelObserver;
+            if (observer != null) {
+                observer.onWritabilityChanged(writable, label);
+            }
+        }));
+        return sender;
+    }
+
+    /**
+     * Batches are flushed on the lane of the stream. Sent results of a batch are delivered to the observer in one
+     * main thread task
+     */
+    DataChannelBatcher createDataChannelBatcher(String streamId, DataChannelSender sender, long flushIntervalMs,
+                                                int maxBatchSize, @Nullable IDataChannelObserver channelObserver) {
+        DataChannelBatcher.FlushScheduler flushScheduler = (batcher, delayMs) -> {
+            Runnable flush = () -> executor.execute(streamId, batcher::flush);
+            if (delayMs <= 0) {
+                flush.run();
+            } else {
+                handler.postDelayed(flush, delayMs);
+            }
+        };
+        return new DataChannelBatcher(sender, Clock.SYSTEM, flushIntervalMs, maxBatchSize, flushScheduler, (results, sent) -> {
+            if (!sent) {
+                reportError(streamId, "Failed to send " + results.size() + " messages via Data Channel: " + results.get(0).getError());
+            }
+            handler.post(() -> {
+                IDataChannelObserver observer = channelObserver != null ? channelObserver : config.dataChannelObserver;
+                if (observer != null) {
+                    for (DataChannelSender.SendResult result : results) {
+                        observer.onMessageSent(result.getBuffer(), sent);
+                    }
+                }
+            });
+        });
     }
 
     public void changeVideoCapturer(VideoCapturer newVideoCapturer) {
@@ -1730,8 +2309,8 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         localVideoTrack = null;
 
         MediaStreamTrack newTrack = createVideoTrack(videoCapturer);
-        if (localVideoSender != null) {
-            localVideoSender.setTrack(newTrack, true);
+        for (RtpSender sender : getVideoSenders()) {
+            sender.setTrack(newTrack, true);
         }
     }
 
@@ -1760,7 +2339,35 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     private void createPeerConnectionFactoryInternal(PeerConnectionFactory.Options options) {
         // Check if ISAC is used by default.
         preferIsac = config.audioCodec != null && config.audioCodec.equals(AUDIO_CODEC_ISAC);
+        sdpMungingRules = null;
+
+        if (config.sharedPeerConnectionFactory) {
+            String key = getSharedFactoryKey();
+            SharedPeerConnectionFactory.SharedFactory sharedFactory = SharedPeerConnectionFactory.getInstance().acquireFactory(key, sharedEglBase -> {
+                buildPeerConnectionFactory(options);
+                return new SharedPeerConnectionFactory.SharedFactory(factory, adm);
+            });
+            if (sharedFactory != null) {
+                sharedFactoryKey = key;
+                factory = sharedFactory.getFactory();
+                adm = sharedFactory.getAudioDeviceModule();
+            }
+            return;
+        }
+        buildPeerConnectionFactory(options);
+    }
 
+    /**
+     * Factory options of the client. Clients that have the same options use the same shared factory
+     */
+    public String getSharedFactoryKey() {
+        return getFieldTrials(config.videoFlexfecEnabled, config.disableWebRtcAGCAndHPF)
+                + "|hw=" + config.hwCodecAcceleration
+                + "|h264High=" + VIDEO_CODEC_H264_HIGH.equals(config.videoCodec)
+                + "|customAudio=" + config.customAudioFeed;
+    }
+
+    private void buildPeerConnectionFactory(PeerConnectionFactory.Options options) {
         adm = (JavaAudioDeviceModule) createJavaAudioDevice();
 
         // Create peer connection factory.
@@ -1875,7 +2482,8 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     }
 
     public JavaAudioDeviceModule.Builder getADMBuilder() {
-        return JavaAudioDeviceModule.builder(config.activity);
+        //shared module outlives the activity, so it should not keep a reference to it
+        return JavaAudioDeviceModule.builder(config.sharedPeerConnectionFactory ? config.activity.getApplicationContext() : config.activity);
     }
 
     public void createMediaConstraintsInternal() {
@@ -1930,6 +2538,10 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
             PeerInfo peer = peers.get(streamId);
             if (peer != null) {
                 peer.peerConnection = peerConnection;
+                if (!peer.getRemoteCandidateQueue().isBuffering()) {
+                    // queue is drained for a previous connection. Candidates that arrived for this one are kept
+                    peer.getRemoteCandidateQueue().reset();
+                }
             } else {
                 Log.e(TAG, "Peer not found for streamId: " + streamId);
             }
@@ -1960,6 +2572,23 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         }
     }
 
+    /**
+     * Gives the shared factory and EglBase back to the holder instead of disposing them
+     */
+    private void releaseSharedFactory() {
+        SharedPeerConnectionFactory sharedFactory = SharedPeerConnectionFactory.getInstance();
+        if (factory != null && sharedFactoryKey != null) {
+            sharedFactory.releaseFactory(sharedFactoryKey, config.sharedFactoryKeepAliveMs);
+            sharedFactoryKey = null;
+            factory = null;
+            adm = null;
+        }
+        if (eglBase != null) {
+            sharedFactory.releaseEglBase(config.sharedFactoryKeepAliveMs);
+            eglBase = null;
+        }
+    }
+
     public void setWebRTCLogLevel() {
         // Set INFO libjingle logging.
         // NOTE: this _must_ happen while `factory` is alive!
@@ -1984,8 +2613,17 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
             if (peer != null && peer.peerConnection != null) {
                 DataChannel dataChannel = peer.peerConnection.createDataChannel(streamId, init);
                 if (dataChannel != null) {
-                    dataChannel.registerObserver(new DataChannelInternalObserver(dataChannel));
+                    DataChannelSender sender = createDataChannelSender(dataChannel, streamId, null);
+                    dataChannel.registerObserver(new DataChannelInternalObserver(streamId, dataChannel, sender));
                     peer.dataChannel = dataChannel;
+                    peer.dataChannelSender = sender;
+                    if (config.dataChannelBatchIntervalMs > 0) {
+                        peer.dataChannelBatcher = createDataChannelBatcher(streamId, sender,
+                                config.dataChannelBatchIntervalMs, config.dataChannelMaxBatchSize, null);
+                    }
+                }
+                for (DataChannelOptions options : config.dataChannels) {
+                    createDataChannel(streamId, options);
                 }
             } else {
                 Log.e(TAG, "Peer not found for streamId: " + streamId);
@@ -1993,16 +2631,49 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         }
     }
 
+    /**
+     * Opens a labeled data channel in the peer connection of the stream. Channels in {@link WebRTCClientConfig#dataChannels}
+     * are opened with the default data channel. A channel that is not negotiated and opened after the offer is
+     * announced to the remote peer with the next offer
+     *
+     * @return false if there is no peer connection or a channel with the same label is already open
+     */
+    public boolean createDataChannel(String streamId, DataChannelOptions options) {
+        PeerInfo peer = peers.get(streamId);
+        if (peer == null || peer.peerConnection == null) {
+            Log.e(TAG, "Peer not found for data channel " + options.getLabel() + " of streamId: " + streamId);
+            return false;
+        }
+        if (peer.labeledDataChannelSenders.containsKey(options.getLabel())) {
+            return false;
+        }
+        DataChannel dataChannel = peer.peerConnection.createDataChannel(options.getLabel(), options.toInit());
+        if (dataChannel == null) {
+            Log.e(TAG, "Data channel " + options.getLabel() + " cannot be created for streamId: " + streamId);
+            return false;
+        }
+        DataChannelSender sender = createDataChannelSender(dataChannel, options.getLabel(), options.getObserver());
+        dataChannel.registerObserver(new DataChannelInternalObserver(streamId, dataChannel, sender, options));
+        peer.labeledDataChannelSenders.put(options.getLabel(), sender);
+        if (options.isBatched()) {
+            peer.labeledDataChannelBatchers.put(options.getLabel(), createDataChannelBatcher(streamId, sender,
+                    options.getBatchIntervalMs(), options.getMaxBatchSize(), options.getObserver()));
+        }
+        return true;
+    }
+
     public void setDegradationPreference(RtpParameters.DegradationPreference degradationPreference) {
         if (localVideoSender == null) {
             Log.w(TAG, "Sender is not ready.");
             return;
         }
         executor.execute(() -> {
-            RtpParameters newParameters = localVideoSender.getParameters();
-            if (newParameters != null) {
-                newParameters.degradationPreference = degradationPreference;
-                localVideoSender.setParameters(newParameters);
+            for (RtpSender sender : getVideoSenders()) {
+                RtpParameters newParameters = sender.getParameters();
+                if (newParameters != null) {
+                    newParameters.degradationPreference = degradationPreference;
+                    sender.setParameters(newParameters);
+                }
             }
         });
     }
@@ -2020,15 +2691,39 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
                 peerConnection.dispose();
                 entry.getValue().peerConnection = null;
             }
+            entry.getValue().videoSender = null;
 
             Log.d(TAG, "Closing data channels for " + entry.getValue().id);
+            DataChannelBatcher dataChannelBatcher = entry.getValue().dataChannelBatcher;
+            if (dataChannelBatcher != null) {
+                dataChannelBatcher.close();
+                entry.getValue().dataChannelBatcher = null;
+            }
+            for (DataChannelBatcher labeledBatcher : entry.getValue().labeledDataChannelBatchers.values()) {
+                labeledBatcher.close();
+            }
+            entry.getValue().labeledDataChannelBatchers.clear();
+            DataChannelSender dataChannelSender = entry.getValue().dataChannelSender;
+            if (dataChannelSender != null) {
+                dataChannelSender.close();
+                entry.getValue().dataChannelSender = null;
+            }
             DataChannel dataChannel = entry.getValue().dataChannel;
             if (dataChannel != null) {
                 dataChannel.dispose();
                 entry.getValue().dataChannel = null;
             }
+            for (DataChannelSender labeledSender : entry.getValue().labeledDataChannelSenders.values()) {
+                labeledSender.close();
+                labeledSender.getDataChannel().dispose();
+            }
+            entry.getValue().labeledDataChannelSenders.clear();
         }
         if (streamStoppedByUser) {
+            for (String streamId : peers.keySet()) {
+                //it runs on the global lane, so lanes of the peers are idle
+                executor.removeLane(streamId);
+            }
             peers.clear();
         }
 
@@ -2058,6 +2753,9 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         }
 
         Log.d(TAG, "Closing peer connection factory.");
+        if (config.sharedPeerConnectionFactory) {
+            releaseSharedFactory();
+        }
         if (factory != null) {
             factory.dispose();
             factory = null;
@@ -2074,10 +2772,9 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
 
         clearStatsCollector();
-        reconnectionInProgress = false;
-        peerReconnectionHandler.removeCallbacksAndMessages(null);
-        publishReconnectionHandler.removeCallbacksAndMessages(null);
-        playReconnectionHandler.removeCallbacksAndMessages(null);
+        if (reconnectionStateMachine != null) {
+            reconnectionStateMachine.clear();
+        }
     }
 
     private void clearStatsCollector(){
@@ -2092,6 +2789,173 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         }
     }
 
+    private void startTimeline(PeerInfo peerInfo) {
+        peerInfo.timeline = new StreamTimeline(peerInfo.id, peerInfo.mode, Clock.SYSTEM.nowMs());
+        if (isWebSocketConnected()) {
+            peerInfo.timeline.record(StreamTimeline.Event.WEBSOCKET_OPEN, Clock.SYSTEM.nowMs());
+        }
+    }
+
+    /**
+     * Records the event in the timeline of the stream and delivers the timeline if it's completed
+     * @return true if it's the first occurrence of the event
+     */
+    private boolean recordTimelineEvent(String streamId, StreamTimeline.Event event) {
+        PeerInfo peerInfo = streamId != null ? peers.get(streamId) : null;
+        StreamTimeline timeline = peerInfo != null ? peerInfo.timeline : null;
+        if (timeline == null || timeline.isCompleted() || !timeline.record(event, Clock.SYSTEM.nowMs())) {
+            return false;
+        }
+
+        if (timeline.getMode() == Mode.PUBLISH) {
+            //publisher's media is flowing when the first frame is encoded, or when it's connected if there is no video
+            if (event == StreamTimeline.Event.FIRST_ENCODED_FRAME
+                    || (event == StreamTimeline.Event.CONNECTED && !peerInfo.videoCallEnabled)) {
+                completeTimeline(timeline);
+            }
+        }
+        else if (event == StreamTimeline.Event.FIRST_RENDERED_FRAME && timeline.hasEvent(StreamTimeline.Event.FIRST_DECODED_FRAME)) {
+            completeTimeline(timeline);
+        }
+        else if (event == StreamTimeline.Event.FIRST_DECODED_FRAME) {
+            if (timeline.hasEvent(StreamTimeline.Event.FIRST_RENDERED_FRAME)) {
+                completeTimeline(timeline);
+            }
+            else {
+                //stream may have no renderer, deliver it without the rendered frame
+                handler.postDelayed(() -> completeTimeline(timeline), FIRST_RENDER_WAIT_MS);
+            }
+        }
+        return true;
+    }
+
+    private void completeTimeline(StreamTimeline timeline) {
+        if (!timeline.complete()) {
+            return;
+        }
+        Log.i(TAG, "Timeline completed " + timeline);
+        getTimelineStatistics(timeline.getMode()).add(timeline);
+        this.handler.post(() -> {
+            if (config.webRTCListener != null) {
+                config.webRTCListener.onStreamTimelineCompleted(timeline.getStreamId(), timeline);
+            }
+        });
+    }
+
+    /**
+     * Polls the stats of the peer until the first video frame is encoded or decoded. Timeline is delivered
+     * with the collected events if there is no frame, e.g. audio only play
+     */
+    private void pollFirstFrame(String streamId, int pollCount) {
+        PeerInfo peerInfo = peers.get(streamId);
+        StreamTimeline timeline = peerInfo != null ? peerInfo.timeline : null;
+        if (timeline == null || timeline.isCompleted() || released) {
+            return;
+        }
+        if (pollCount >= FIRST_FRAME_POLL_MAX_COUNT) {
+            completeTimeline(timeline);
+            return;
+        }
+        executor.execute(streamId, () -> {
+            PeerConnection pc = peerInfo.peerConnection;
+            if (pc == null) {
+                return;
+            }
+            pc.getStats(report -> {
+                onFirstFrameStatsReady(streamId, report);
+                StreamTimeline.Event frameEvent = timeline.getMode() == Mode.PUBLISH
+                        ? StreamTimeline.Event.FIRST_ENCODED_FRAME : StreamTimeline.Event.FIRST_DECODED_FRAME;
+                if (!timeline.hasEvent(frameEvent)) {
+                    handler.postDelayed(() -> pollFirstFrame(streamId, pollCount + 1), FIRST_FRAME_POLL_PERIOD_MS);
+                }
+            });
+        });
+    }
+
+    public void onFirstFrameStatsReady(String streamId, RTCStatsReport report) {
+        for (RTCStats stats : report.getStatsMap().values()) {
+            if (!StatsCollector.VIDEO.equals(stats.getMembers().get(StatsCollector.KIND))) {
+                continue;
+            }
+            if (StatsCollector.OUTBOUND_RTP.equals(stats.getType())
+                    && getStatsCount(stats, StatsCollector.FRAME_ENCODED) > 0) {
+                recordTimelineEvent(streamId, StreamTimeline.Event.FIRST_ENCODED_FRAME);
+            }
+            else if (StatsCollector.INBOUND_RTP.equals(stats.getType())
+                    && getStatsCount(stats, StatsCollector.FRAMES_DECODED) > 0) {
+                recordTimelineEvent(streamId, StreamTimeline.Event.FIRST_DECODED_FRAME);
+            }
+        }
+    }
+
+    private static long getStatsCount(RTCStats stats, String member) {
+        Object value = stats.getMembers().get(member);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    /**
+     * Records the first rendered frame of a renderer. Local renderer's frame is recorded for the publishers
+     */
+    private class FirstFrameRendererEvents implements RendererCommon.RendererEvents {
+        private final String streamId;
+
+        /**
+         * @param streamId stream of the renderer, null for the local renderer
+         */
+        FirstFrameRendererEvents(String streamId) {
+            this.streamId = streamId;
+        }
+
+        @Override
+        public void onFirstFrameRendered() {
+            if (streamId != null) {
+                recordTimelineEvent(streamId, StreamTimeline.Event.FIRST_RENDERED_FRAME);
+                return;
+            }
+            for (PeerInfo peerInfo : peers.values()) {
+                if (peerInfo.mode == Mode.PUBLISH) {
+                    recordTimelineEvent(peerInfo.id, StreamTimeline.Event.FIRST_RENDERED_FRAME);
+                }
+            }
+        }
+
+        @Override
+        public void onFrameResolutionChanged(int videoWidth, int videoHeight, int rotation) {
+            //not used
+        }
+    }
+
+    /**
+     * @return timeline of the last publish, play or join call of the stream, null if there is no such stream
+     */
+    public StreamTimeline getStreamTimeline(String streamId) {
+        PeerInfo peerInfo = peers.get(streamId);
+        return peerInfo != null ? peerInfo.timeline : null;
+    }
+
+    /**
+     * @return percentiles of the completed timelines of the mode, they are collected from all clients in the process
+     */
+    public static TimelineStatistics getTimelineStatistics(Mode mode) {
+        TimelineStatistics statistics = timelineStatistics.get(mode);
+        if (statistics == null) {
+            statistics = new TimelineStatistics();
+            TimelineStatistics previous = timelineStatistics.putIfAbsent(mode, statistics);
+            if (previous != null) {
+                statistics = previous;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * @return queue depth and wait time of the executor lanes, lanes are named by streamId
+     * and factory level calls are in {@link SerialLaneExecutor#GLOBAL_LANE}
+     */
+    public static Map<String, SerialLaneExecutor.LaneStats> getExecutorLaneStats() {
+        return executor.getAllLaneStats();
+    }
+
     public StatsCollector getStatsCollector() {
         return statsCollector;
 
@@ -2104,7 +2968,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
                 statsTimer.schedule(new TimerTask() {
                     @Override
                     public void run() {
-                        executor.execute(() -> getStats(streamId));
+                        executor.execute(streamId, () -> getStats(streamId));
                     }
                 }, 0, periodMs);
             } catch (Exception e) {
@@ -2132,6 +2996,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
     public void setVideoEnabled(final boolean enable) {
         config.videoCallEnabled = enable;
+        sdpMungingRules = null;
         executor.execute(() -> {
             renderVideo = enable;
             if (localVideoTrack != null) {
@@ -2147,7 +3012,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
     public void createOffer(String streamId) {
 
-        executor.execute(() -> {
+        executor.execute(streamId, () -> {
             Log.d(TAG, "Creating OFFER...");
             PeerConnection pc = getPeerConnectionFor(streamId);
             PeerInfo peerInfo = getPeerInfoFor(streamId);
@@ -2176,7 +3041,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     }
 
     public void createAnswer(String streamId) {
-        executor.execute(() -> {
+        executor.execute(streamId, () -> {
             PeerConnection pc = getPeerConnectionFor(streamId);
             if (pc != null) {
                 Log.d(TAG, "PC create ANSWER");
@@ -2186,36 +3051,33 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         });
     }
 
+    /**
+     * Queues the candidate until the descriptions are set or adds it on the lane of the peer. It does not block,
+     * so it's called on the signalling thread
+     */
     public void addRemoteIceCandidate(String streamId, final IceCandidate candidate) {
-        executor.execute(() -> {
-            PeerInfo peerInfo = getPeerInfoFor(streamId);
-            if (peerInfo == null) {
-                return;
-            }
+        PeerInfo peerInfo = getPeerInfoFor(streamId);
+        if (peerInfo == null) {
+            return;
+        }
+        RemoteCandidateQueue remoteCandidateQueue = peerInfo.getRemoteCandidateQueue();
+        if (remoteCandidateQueue.isDuplicate(candidate)) {
+            Log.d(TAG, "Duplicate remote candidate is ignored for " + streamId + ": " + candidate.sdp);
+            return;
+        }
+        if (remoteCandidateQueue.offer(candidate)) {
+            return;
+        }
+        executor.execute(streamId, () -> {
             PeerConnection pc = peerInfo.peerConnection;
             if (pc != null) {
-                List<IceCandidate> queuedRemoteCandidates = peerInfo.getQueuedRemoteCandidates();
-                if (queuedRemoteCandidates != null) {
-                    queuedRemoteCandidates.add(candidate);
-                } else {
-                    pc.addIceCandidate(candidate, new AddIceObserver() {
-                        @Override
-                        public void onAddSuccess() {
-                            Log.d(TAG, "Candidate " + candidate + " successfully added.");
-                        }
-
-                        @Override
-                        public void onAddFailure(String error) {
-                            Log.d(TAG, "Candidate " + candidate + " addition failed: " + error);
-                        }
-                    });
-                }
+                pc.addIceCandidate(candidate, new RemoteCandidatesObserver(streamId, 1));
             }
         });
     }
 
     public void removeRemoteIceCandidates(String streamId, final IceCandidate[] candidates) {
-        executor.execute(() -> {
+        executor.execute(streamId, () -> {
             PeerConnection pc = getPeerConnectionFor(streamId);
             if (pc != null) {
                 // Drain the queued remote candidates if there is any so that
@@ -2227,26 +3089,14 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
     }
 
     public void setRemoteDescription(String streamId, final SessionDescription desc) {
-        executor.execute(() -> {
+        executor.execute(streamId, () -> {
             PeerConnection pc = getPeerConnectionFor(streamId);
             if (pc == null) {
                 return;
             }
-            String sdp = desc.description;
-            if (preferIsac) {
-                sdp = preferCodec(sdp, AUDIO_CODEC_ISAC, true);
-            }
-            if (config.videoCallEnabled) {
-                sdp = preferCodec(sdp, getSdpVideoCodecName(config.videoCodec), false);
-            }
-            if (config.videoStartBitrate > 0) {
-                sdp = setStartBitrate(config.videoCodec, true, sdp, config.videoStartBitrate);
-            }
-            if (config.audioStartBitrate > 0) {
-                sdp = setStartBitrate(config.audioCodec, false, sdp, config.audioStartBitrate);
-            }
             Log.d(TAG, "Set remote SDP.");
-            SessionDescription sdpRemote = new SessionDescription(desc.type, sdp);
+            SessionDescription sdpRemote = new SessionDescription(desc.type, getSdpMungingRules().apply(desc.description, true,
+                    desc.type == SessionDescription.Type.OFFER));
             pc.setRemoteDescription(getSdpObserver(streamId), sdpRemote);
         });
     }
@@ -2271,6 +3121,10 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         }
     }
 
+    /**
+     * Sets the video bitrate cap of all publishing peers that don't have their own cap.
+     * See {@link #setVideoMaxBitrate(String, Integer)}
+     */
     public void setVideoMaxBitrate(@androidx.annotation.Nullable final Integer maxBitrateKbps) {
         if(released){
             return;
@@ -2280,27 +3134,86 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
                 return;
             }
             Log.d(TAG, "Requested max video bitrate: " + maxBitrateKbps);
-            if (localVideoSender == null) {
-                Log.w(TAG, "Sender is not ready.");
-                return;
+            for (RtpSender sender : getVideoSenders()) {
+                PeerInfo peerInfo = getPeerInfoForSender(sender);
+                if (peerInfo == null || peerInfo.maxVideoBitrateKbps == null) {
+                    applyVideoMaxBitrate(sender, maxBitrateKbps);
+                }
             }
+        });
+    }
 
-            RtpParameters parameters = localVideoSender.getParameters();
-            if (parameters.encodings.isEmpty()) {
-                Log.w(TAG, "RtpParameters are not ready.");
+    /**
+     * Sets the video bitrate cap of a single peer, e.g. when the same capture is published to
+     * several streams and each destination has a different bandwidth. Cap of the peer overrides the
+     * cap of the client and it's applied again when the peer renegotiates.
+     *
+     * @param streamId id of the peer
+     * @param maxBitrateKbps bitrate cap, null removes the cap of the peer
+     */
+    public void setVideoMaxBitrate(String streamId, @androidx.annotation.Nullable final Integer maxBitrateKbps) {
+        if(released){
+            return;
+        }
+        PeerInfo peerInfo = getPeerInfoFor(streamId);
+        if (peerInfo == null) {
+            Log.w(TAG, "Peer not found for streamId: " + streamId);
+            return;
+        }
+        peerInfo.maxVideoBitrateKbps = maxBitrateKbps;
+        executor.execute(streamId, () -> {
+            Log.d(TAG, "Requested max video bitrate: " + maxBitrateKbps + " for " + streamId);
+            if (peerInfo.videoSender == null) {
+                Log.w(TAG, "Sender is not ready for " + streamId);
                 return;
             }
+            applyVideoMaxBitrate(peerInfo.videoSender, maxBitrateKbps);
+        });
+    }
 
-            for (RtpParameters.Encoding encoding : parameters.encodings) {
-                // Null value means no limit.
-                encoding.maxBitrateBps = maxBitrateKbps == null ? null : maxBitrateKbps * BPS_IN_KBPS;
-                encoding.minBitrateBps = maxBitrateKbps == null ? null : maxBitrateKbps * BPS_IN_KBPS / 2;
+    private void applyVideoMaxBitrate(RtpSender sender, Integer maxBitrateKbps) {
+        RtpParameters parameters = sender.getParameters();
+        if (parameters.encodings.isEmpty()) {
+            Log.w(TAG, "RtpParameters are not ready.");
+            return;
+        }
+
+        for (RtpParameters.Encoding encoding : parameters.encodings) {
+            // Null value means no limit.
+            encoding.maxBitrateBps = maxBitrateKbps == null ? null : maxBitrateKbps * BPS_IN_KBPS;
+            encoding.minBitrateBps = maxBitrateKbps == null ? null : maxBitrateKbps * BPS_IN_KBPS / 2;
+        }
+        if (!sender.setParameters(parameters)) {
+            Log.e(TAG, "RtpSender.setParameters failed.");
+        }
+        Log.d(TAG, "Configured max video bitrate to: " + maxBitrateKbps);
+    }
+
+    /**
+     * @return video senders of all peers. They share the same local video track, so the capturer,
+     * video source and texture helper are not created for each peer
+     */
+    private Set<RtpSender> getVideoSenders() {
+        Set<RtpSender> senders = new LinkedHashSet<>();
+        if (localVideoSender != null) {
+            senders.add(localVideoSender);
+        }
+        for (PeerInfo peerInfo : peers.values()) {
+            if (peerInfo.videoSender != null) {
+                senders.add(peerInfo.videoSender);
             }
-            if (!localVideoSender.setParameters(parameters)) {
-                Log.e(TAG, "RtpSender.setParameters failed.");
+        }
+        return senders;
+    }
+
+    @androidx.annotation.Nullable
+    private PeerInfo getPeerInfoForSender(RtpSender sender) {
+        for (PeerInfo peerInfo : peers.values()) {
+            if (peerInfo.videoSender == sender) {
+                return peerInfo;
             }
-            Log.d(TAG, "Configured max video bitrate to: " + maxBitrateKbps);
-        });
+        }
+        return null;
     }
 
     @androidx.annotation.Nullable
@@ -2340,6 +3253,10 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
                     if (trackType.equals(VIDEO_TRACK_TYPE)) {
                         Log.d(TAG, "Found video sender.");
                         localVideoSender = sender;
+                        PeerInfo peerInfo = getPeerInfoFor(streamId);
+                        if (peerInfo != null) {
+                            peerInfo.videoSender = sender;
+                        }
                     }
                 }
             }
@@ -2376,175 +3293,89 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         return fieldTrials;
     }
 
-    @SuppressWarnings("StringSplitter")
-    private static String setStartBitrate(String codec, boolean isVideoCodec, String sdp, int bitrateKbps) {
-        String[] lines = sdp.split("\r\n");
-        int rtpmapLineIndex = -1;
-        boolean sdpFormatUpdated = false;
-        String codecRtpMap = null;
-        // Search for codec rtpmap in format
-        // a=rtpmap:<payload type> <encoding name>/<clock rate> [/<encoding parameters>]
-        String regex = "^a=rtpmap:(\\d+) " + codec + "(/\\d+)+''?$";
-        Pattern codecPattern = Pattern.compile(regex);
-        for (int i = 0; i < lines.length; i++) {
-            Matcher codecMatcher = codecPattern.matcher(lines[i]);
-            if (codecMatcher.matches()) {
-                codecRtpMap = codecMatcher.group(1);
-                rtpmapLineIndex = i;
-                break;
-            }
-        }
-        if (codecRtpMap == null) {
-            Log.w(TAG, "No rtpmap for " + codec + " codec");
-            return sdp;
-        }
-        Log.d(TAG, "Found " + codec + " rtpmap " + codecRtpMap + " at " + lines[rtpmapLineIndex]);
-
-        // Check if a=fmtp string already exist in remote SDP for this codec and
-        // update it with new bitrate parameter.
-        regex = "^a=fmtp:" + codecRtpMap + " \\w+=\\d+.*''?$";
-        codecPattern = Pattern.compile(regex);
-        for (int i = 0; i < lines.length; i++) {
-            Matcher codecMatcher = codecPattern.matcher(lines[i]);
-            if (codecMatcher.matches()) {
-                Log.d(TAG, "Found " + codec + " " + lines[i]);
-                if (isVideoCodec) {
-                    lines[i] += "; " + VIDEO_CODEC_PARAM_START_BITRATE + "=" + bitrateKbps;
-                } else {
-                    lines[i] += "; " + AUDIO_CODEC_PARAM_BITRATE + "=" + (bitrateKbps * 1000);
-                }
-                Log.d(TAG, "Update remote SDP line: " + lines[i]);
-                sdpFormatUpdated = true;
-                break;
-            }
-        }
-
-        StringBuilder newSdpDescription = new StringBuilder();
-        for (int i = 0; i < lines.length; i++) {
-            newSdpDescription.append(lines[i]).append("\r\n");
-            // Append new a=fmtp line if no such line exist for a codec.
-            if (!sdpFormatUpdated && i == rtpmapLineIndex) {
-                String bitrateSet;
-                if (isVideoCodec) {
-                    bitrateSet =
-                            "a=fmtp:" + codecRtpMap + " " + VIDEO_CODEC_PARAM_START_BITRATE + "=" + bitrateKbps;
-                } else {
-                    bitrateSet = "a=fmtp:" + codecRtpMap + " " + AUDIO_CODEC_PARAM_BITRATE + "="
-                            + (bitrateKbps * 1000);
-                }
-                Log.d(TAG, "Add remote SDP line: " + bitrateSet);
-                newSdpDescription.append(bitrateSet).append("\r\n");
-            }
-        }
-        return newSdpDescription.toString();
-    }
-
     /**
-     * Returns the line number containing "m=audio|video", or -1 if no such line exists.
+     * Rules of the codec, bitrate and extension settings followed by the rules of the config. They are built
+     * once and they are built again after one of the settings changes
      */
-    private static int findMediaDescriptionLine(boolean isAudio, String[] sdpLines) {
-        final String mediaDescription = isAudio ? "m=audio " : "m=video ";
-        for (int i = 0; i < sdpLines.length; ++i) {
-            if (sdpLines[i].startsWith(mediaDescription)) {
-                return i;
+    private SdpMungingRules getSdpMungingRules() {
+        SdpMungingRules rules = sdpMungingRules;
+        if (rules == null) {
+            SdpMungingRules.Builder builder = SdpMungingRules.builder();
+            if (preferIsac) {
+                builder.preferCodecs(MediaSection.AUDIO, AUDIO_CODEC_ISAC);
             }
+            if (config.videoCallEnabled) {
+                builder.preferCodecs(MediaSection.VIDEO, getSdpVideoCodecName(config.videoCodec));
+            }
+            if (config.videoStartBitrate > 0) {
+                builder.setVideoStartBitrate(getSdpVideoCodecName(config.videoCodec), config.videoStartBitrate);
+            }
+            if (config.audioStartBitrate > 0 && config.audioCodec != null) {
+                builder.setAudioMaxAverageBitrate(config.audioCodec, config.audioStartBitrate * BPS_IN_KBPS);
+            }
+            if (removeVideoRotationExtension) {
+                builder.removeHeaderExtension(SdpRule.Target.LOCAL, VIDEO_ROTATION_EXT_URI);
+            }
+            rules = builder.addRules(config.sdpMungingRules).build();
+            sdpMungingRules = rules;
         }
-        return -1;
+        return rules;
     }
 
-    private static String joinString(
-            Iterable<? extends CharSequence> s, String delimiter, boolean delimiterAtEnd) {
-        Iterator<? extends CharSequence> iter = s.iterator();
-        if (!iter.hasNext()) {
-            return "";
+    private void drainCandidates(String streamId) {
+        PeerInfo peerInfo = getPeerInfoFor(streamId);
+        if (peerInfo == null || !peerInfo.getRemoteCandidateQueue().isBuffering()) {
+            return;
         }
-        StringBuilder buffer = new StringBuilder(iter.next());
-        while (iter.hasNext()) {
-            buffer.append(delimiter).append(iter.next());
+        PeerConnection pc = peerInfo.peerConnection;
+        if (pc == null) {
+            return;
         }
-        if (delimiterAtEnd) {
-            buffer.append(delimiter);
+        RemoteCandidateQueue remoteCandidateQueue = peerInfo.getRemoteCandidateQueue();
+        List<IceCandidate> candidates = remoteCandidateQueue.drain();
+        Log.d(TAG, "Add " + candidates.size() + " remote candidates for " + streamId
+                + ". Average wait: " + remoteCandidateQueue.getAverageWaitMs() + "ms max wait: " + remoteCandidateQueue.getMaxWaitMs()
+                + "ms duplicates: " + remoteCandidateQueue.getDuplicateCount());
+        if (candidates.isEmpty()) {
+            return;
         }
-        return buffer.toString();
-    }
-
-    private static @androidx.annotation.Nullable String movePayloadTypesToFront(
-            List<String> preferredPayloadTypes, String mLine) {
-        // The format of the media description line should be: m=<media> <port> <proto> <fmt> ...
-        final List<String> origLineParts = Arrays.asList(mLine.split(" "));
-        if (origLineParts.size() <= 3) {
-            Log.e(TAG, "Wrong SDP media description format: " + mLine);
-            return null;
+        AddIceObserver observer = new RemoteCandidatesObserver(streamId, candidates.size());
+        for (IceCandidate candidate : candidates) {
+            pc.addIceCandidate(candidate, observer);
         }
-        final List<String> header = origLineParts.subList(0, 3);
-        final List<String> unpreferredPayloadTypes =
-                new ArrayList<>(origLineParts.subList(3, origLineParts.size()));
-        unpreferredPayloadTypes.removeAll(preferredPayloadTypes);
-        // Reconstruct the line with `preferredPayloadTypes` moved to the beginning of the payload
-        // types.
-        final List<String> newLineParts = new ArrayList<>();
-        newLineParts.addAll(header);
-        newLineParts.addAll(preferredPayloadTypes);
-        newLineParts.addAll(unpreferredPayloadTypes);
-        return joinString(newLineParts, " ", false /* delimiterAtEnd */);
     }
 
-    private static String preferCodec(String sdp, String codec, boolean isAudio) {
-        final String[] lines = sdp.split("\r\n");
-        final int mLineIndex = findMediaDescriptionLine(isAudio, lines);
-        if (mLineIndex == -1) {
-            Log.w(TAG, "No mediaDescription line, so can't prefer " + codec);
-            return sdp;
-        }
-        // A list with all the payload types with name `codec`. The payload types are integers in the
-        // range 96-127, but they are stored as strings here.
-        final List<String> codecPayloadTypes = new ArrayList<>();
-        // a=rtpmap:<payload type> <encoding name>/<clock rate> [/<encoding parameters>]
-        final Pattern codecPattern = Pattern.compile("^a=rtpmap:(\\d+) " + codec + "(/\\d+)+''?$");
-        for (String line : lines) {
-            Matcher codecMatcher = codecPattern.matcher(line);
-            if (codecMatcher.matches()) {
-                codecPayloadTypes.add(codecMatcher.group(1));
-            }
-        }
-        if (codecPayloadTypes.isEmpty()) {
-            Log.w(TAG, "No payload types with name " + codec);
-            return sdp;
+    /**
+     * Observer of the candidates that are added together. Result is logged once when all of them are completed
+     */
+    private static class RemoteCandidatesObserver implements AddIceObserver {
+        private final String streamId;
+        private final int count;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        RemoteCandidatesObserver(String streamId, int count) {
+            this.streamId = streamId;
+            this.count = count;
         }
 
-        final String newMLine = movePayloadTypesToFront(codecPayloadTypes, lines[mLineIndex]);
-        if (newMLine == null) {
-            return sdp;
+        @Override
+        public void onAddSuccess() {
+            onCompleted();
         }
-        Log.d(TAG, "Change media description from: " + lines[mLineIndex] + " to " + newMLine);
-        lines[mLineIndex] = newMLine;
-        return joinString(Arrays.asList(lines), "\r\n", true /* delimiterAtEnd */);
-    }
 
-    private void drainCandidates(String streamId) {
-        PeerInfo peerInfo = getPeerInfoFor(streamId);
-        if (peerInfo == null || peerInfo.getQueuedRemoteCandidates() == null) {
-            return;
+        @Override
+        public void onAddFailure(String error) {
+            failed.incrementAndGet();
+            Log.d(TAG, "Remote candidate addition failed for " + streamId + ": " + error);
+            onCompleted();
         }
-        List<IceCandidate> queuedRemoteCandidates = peerInfo.getQueuedRemoteCandidates();
-        Log.d(TAG, "Add " + queuedRemoteCandidates.size() + " remote candidates");
-        for (IceCandidate candidate : queuedRemoteCandidates) {
-            PeerConnection pc = getPeerConnectionFor(streamId);
-            if (pc != null) {
-                pc.addIceCandidate(candidate, new AddIceObserver() {
-                    @Override
-                    public void onAddSuccess() {
-                        Log.d(TAG, "Candidate " + candidate + " successfully added.");
-                    }
 
-                    @Override
-                    public void onAddFailure(String error) {
-                        Log.d(TAG, "Candidate " + candidate + " addition failed: " + error);
-                    }
-                });
+        private void onCompleted() {
+            if (completed.incrementAndGet() == count) {
+                Log.d(TAG, (count - failed.get()) + " of " + count + " remote candidates are added for " + streamId);
             }
         }
-        peerInfo.setQueuedRemoteCandidates(null);
     }
 
     private PeerConnection getPeerConnectionFor(String streamId) {
@@ -2624,8 +3455,32 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         this.autoPlayTracks = autoPlayTracks;
     }
 
+    /**
+     * @return recovery state of the streams and the recovery statistics of the tiers
+     */
+    public TieredRecovery getTieredRecovery() {
+        return getReconnectionStateMachine().getTieredRecovery();
+    }
+
+    /**
+     * @deprecated the reconnection state machine posts its attempts to this handler
+     */
+    @Deprecated
+    public Handler getPeerReconnectionHandler() {
+        return peerReconnectionHandler != null ? peerReconnectionHandler : handler;
+    }
+
+    /**
+     * @deprecated the handler is used by the reconnection state machine if it's set before the machine is created
+     */
+    @Deprecated
+    public void setPeerReconnectionHandler(Handler peerReconnectionHandler) {
+        this.peerReconnectionHandler = peerReconnectionHandler;
+    }
+
     public boolean isReconnectionInProgress() {
-        return reconnectionInProgress;
+        ReconnectionStateMachine stateMachine = reconnectionStateMachine;
+        return stateMachine != null && stateMachine.isRecovering();
     }
 
     public CustomWebRtcAudioRecord getAudioInput() {
@@ -2641,6 +3496,7 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
 
     public void setRemoveVideoRotationExtension(boolean removeVideoRotationExtension) {
         this.removeVideoRotationExtension = removeVideoRotationExtension;
+        sdpMungingRules = null;
     }
 
     public void setDataChannelEnabled(boolean dataChannelEnabled) {
@@ -2667,11 +3523,4 @@ public class WebRTCClient implements IWebRTCClient, AntMediaSignallingEvents {
         this.streamStoppedByUser = streamStoppedByUser;
     }
 
-    public Handler getPeerReconnectionHandler() {
-        return peerReconnectionHandler;
-    }
-
-    public void setPeerReconnectionHandler(Handler peerReconnectionHandler) {
-        this.peerReconnectionHandler = peerReconnectionHandler;
-    }
 }
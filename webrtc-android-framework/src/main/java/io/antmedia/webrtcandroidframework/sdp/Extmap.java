@@ -0,0 +1,76 @@
+package io.antmedia.webrtcandroidframework.sdp;
+
+/**
+ * a=extmap:&lt;id&gt;[/&lt;direction&gt;] &lt;uri&gt; [&lt;extension attributes&gt;]
+ */
+public class Extmap extends SdpLine {
+
+    static final String PREFIX = "a=extmap:";
+
+    private final int id;
+    private final String direction;
+    private final String uri;
+    private final String extensionAttributes;
+
+    public Extmap(int id, String uri) {
+        this(id, null, uri, null);
+    }
+
+    /**
+     * @param direction e.g. sendonly, null if there is none
+     * @param extensionAttributes null if there is none
+     */
+    public Extmap(int id, String direction, String uri, String extensionAttributes) {
+        this.id = id;
+        this.direction = direction;
+        this.uri = uri;
+        this.extensionAttributes = extensionAttributes;
+    }
+
+    static Extmap parseValue(String value) {
+        int space = value.indexOf(' ');
+        if (space <= 0) {
+            return null;
+        }
+        int slash = value.indexOf('/');
+        int idEnd = slash >= 0 && slash < space ? slash : space;
+        int uriEnd = value.indexOf(' ', space + 1);
+        try {
+            return new Extmap(Integer.parseInt(value.substring(0, idEnd)),
+                    idEnd == slash ? value.substring(slash + 1, space) : null,
+                    uriEnd < 0 ? value.substring(space + 1) : value.substring(space + 1, uriEnd),
+                    uriEnd < 0 ? null : value.substring(uriEnd + 1));
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String getExtensionAttributes() {
+        return extensionAttributes;
+    }
+
+    @Override
+    void write(StringBuilder builder) {
+        builder.append(PREFIX).append(id);
+        if (direction != null) {
+            builder.append('/').append(direction);
+        }
+        builder.append(' ').append(uri);
+        if (extensionAttributes != null) {
+            builder.append(' ').append(extensionAttributes);
+        }
+    }
+}
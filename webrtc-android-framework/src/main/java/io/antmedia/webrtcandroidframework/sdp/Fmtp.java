@@ -0,0 +1,104 @@
+package io.antmedia.webrtcandroidframework.sdp;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * a=fmtp:&lt;payload type&gt; &lt;parameters&gt;
+ *
+ * Parameters are kept in their order. A parameter without a value, e.g. 0-15 of telephone-event or 111/111
+ * of red, has a null value.
+ */
+public class Fmtp extends SdpLine {
+
+    static final String PREFIX = "a=fmtp:";
+
+    private final String payloadType;
+    private final Map<String, String> parameters = new LinkedHashMap<>();
+    /**
+     * parsed line is written as it is until a parameter is changed
+     */
+    private String line;
+
+    public Fmtp(String payloadType) {
+        this.payloadType = payloadType;
+    }
+
+    static Fmtp parseValue(String value) {
+        int space = value.indexOf(' ');
+        if (space <= 0) {
+            return null;
+        }
+        Fmtp fmtp = new Fmtp(value.substring(0, space));
+        fmtp.line = PREFIX + value;
+        int start = space + 1;
+        while (start < value.length()) {
+            int end = value.indexOf(';', start);
+            if (end < 0) {
+                end = value.length();
+            }
+            String parameter = value.substring(start, end).trim();
+            if (!parameter.isEmpty()) {
+                int equals = parameter.indexOf('=');
+                if (equals < 0) {
+                    fmtp.parameters.put(parameter, null);
+                }
+                else {
+                    fmtp.parameters.put(parameter.substring(0, equals), parameter.substring(equals + 1));
+                }
+            }
+            start = end + 1;
+        }
+        return fmtp;
+    }
+
+    public String getPayloadType() {
+        return payloadType;
+    }
+
+    public String getParameter(String name) {
+        return parameters.get(name);
+    }
+
+    public boolean hasParameter(String name) {
+        return parameters.containsKey(name);
+    }
+
+    /**
+     * Sets the value of the parameter. An existing parameter keeps its position
+     */
+    public void setParameter(String name, String value) {
+        parameters.put(name, value);
+        line = null;
+    }
+
+    public void removeParameter(String name) {
+        if (parameters.containsKey(name)) {
+            parameters.remove(name);
+            line = null;
+        }
+    }
+
+    public Map<String, String> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Override
+    void write(StringBuilder builder) {
+        if (line != null) {
+            builder.append(line);
+            return;
+        }
+        builder.append(PREFIX).append(payloadType);
+        boolean first = true;
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            builder.append(first ? ' ' : ';');
+            builder.append(parameter.getKey());
+            if (parameter.getValue() != null) {
+                builder.append('=').append(parameter.getValue());
+            }
+            first = false;
+        }
+    }
+}
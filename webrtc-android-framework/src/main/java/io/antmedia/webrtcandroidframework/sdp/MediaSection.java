@@ -0,0 +1,196 @@
+package io.antmedia.webrtcandroidframework.sdp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * m= line and the lines after it until the next m= line.
+ *
+ * m=&lt;media&gt; &lt;port&gt; &lt;proto&gt; &lt;fmt&gt; ...
+ */
+public class MediaSection {
+
+    static final String PREFIX = "m=";
+
+    public static final String AUDIO = "audio";
+    public static final String VIDEO = "video";
+    public static final String APPLICATION = "application";
+
+    private final String media;
+    /**
+     * m= line until the formats, i.e. media, port and protocol
+     */
+    private final String header;
+    private final List<String> formats = new ArrayList<>();
+    private final List<SdpLine> lines = new ArrayList<>();
+
+    MediaSection(String mLine) {
+        int mediaEnd = mLine.indexOf(' ');
+        media = mediaEnd < 0 ? mLine.substring(PREFIX.length()) : mLine.substring(PREFIX.length(), mediaEnd);
+
+        // formats start after the third space
+        int headerEnd = mediaEnd;
+        for (int i = 0; i < 2 && headerEnd >= 0; i++) {
+            headerEnd = mLine.indexOf(' ', headerEnd + 1);
+        }
+        if (headerEnd < 0) {
+            header = mLine;
+            return;
+        }
+        header = mLine.substring(0, headerEnd);
+        int start = headerEnd + 1;
+        while (start < mLine.length()) {
+            int end = mLine.indexOf(' ', start);
+            if (end < 0) {
+                end = mLine.length();
+            }
+            if (end > start) {
+                formats.add(mLine.substring(start, end));
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * @return audio, video or application
+     */
+    public String getMedia() {
+        return media;
+    }
+
+    /**
+     * @return payload types of the m= line in the preference order. The list can be changed
+     */
+    public List<String> getFormats() {
+        return formats;
+    }
+
+    /**
+     * @return lines after the m= line. The list can be changed
+     */
+    public List<SdpLine> getLines() {
+        return lines;
+    }
+
+    public List<RtpMap> getRtpMaps() {
+        List<RtpMap> rtpMaps = new ArrayList<>();
+        for (SdpLine line : lines) {
+            if (line instanceof RtpMap) {
+                rtpMaps.add((RtpMap) line);
+            }
+        }
+        return rtpMaps;
+    }
+
+    public RtpMap getRtpMap(String payloadType) {
+        for (SdpLine line : lines) {
+            if (line instanceof RtpMap && ((RtpMap) line).getPayloadType().equals(payloadType)) {
+                return (RtpMap) line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return payload types of the codec in the rtpmap order
+     */
+    public List<String> getPayloadTypes(String encodingName) {
+        List<String> payloadTypes = new ArrayList<>();
+        for (SdpLine line : lines) {
+            if (line instanceof RtpMap && ((RtpMap) line).isCodec(encodingName)) {
+                payloadTypes.add(((RtpMap) line).getPayloadType());
+            }
+        }
+        return payloadTypes;
+    }
+
+    public Fmtp getFmtp(String payloadType) {
+        for (SdpLine line : lines) {
+            if (line instanceof Fmtp && ((Fmtp) line).getPayloadType().equals(payloadType)) {
+                return (Fmtp) line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return fmtp of the payload type. It's added after the rtpmap of the payload type if there is none
+     */
+    public Fmtp getOrAddFmtp(String payloadType) {
+        Fmtp fmtp = getFmtp(payloadType);
+        if (fmtp == null) {
+            fmtp = new Fmtp(payloadType);
+            lines.add(indexAfter(getRtpMap(payloadType)), fmtp);
+        }
+        return fmtp;
+    }
+
+    public List<Extmap> getExtmaps() {
+        List<Extmap> extmaps = new ArrayList<>();
+        for (SdpLine line : lines) {
+            if (line instanceof Extmap) {
+                extmaps.add((Extmap) line);
+            }
+        }
+        return extmaps;
+    }
+
+    /**
+     * Adds the extmap after the last extmap of the section
+     */
+    public void addExtmap(Extmap extmap) {
+        List<Extmap> extmaps = getExtmaps();
+        lines.add(indexAfter(extmaps.isEmpty() ? null : extmaps.get(extmaps.size() - 1)), extmap);
+    }
+
+    /**
+     * @return number of the removed extmaps
+     */
+    public int removeExtmap(String uri) {
+        return removeExtmap(lines, uri);
+    }
+
+    static int removeExtmap(List<SdpLine> lines, String uri) {
+        int removed = 0;
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            SdpLine line = lines.get(i);
+            if (line instanceof Extmap && ((Extmap) line).getUri().equals(uri)) {
+                lines.remove(i);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Moves the payload types of the codec to the front of the m= line keeping their order
+     * @return false if there is no payload type of the codec
+     */
+    public boolean preferCodec(String encodingName) {
+        List<String> preferred = getPayloadTypes(encodingName);
+        preferred.retainAll(formats);
+        if (preferred.isEmpty()) {
+            return false;
+        }
+        formats.removeAll(preferred);
+        formats.addAll(0, preferred);
+        return true;
+    }
+
+    private int indexAfter(SdpLine line) {
+        int index = line == null ? -1 : lines.indexOf(line);
+        return index < 0 ? lines.size() : index + 1;
+    }
+
+    void write(StringBuilder builder, String lineTerminator) {
+        builder.append(header);
+        for (String format : formats) {
+            builder.append(' ').append(format);
+        }
+        builder.append(lineTerminator);
+        for (SdpLine line : lines) {
+            line.write(builder);
+            builder.append(lineTerminator);
+        }
+    }
+}
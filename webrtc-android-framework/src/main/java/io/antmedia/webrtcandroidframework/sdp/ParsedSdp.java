@@ -0,0 +1,103 @@
+package io.antmedia.webrtcandroidframework.sdp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Object model of an SDP, i.e. the session lines and the media sections.
+ *
+ * SDP is split into lines once and the changes are done on the model, so several changes cost a single parse
+ * and a single write. Lines are written in their original order with CRLF terminators. Not thread safe.
+ */
+public class ParsedSdp {
+
+    public static final String LINE_TERMINATOR = "\r\n";
+
+    private final List<SdpLine> sessionLines = new ArrayList<>();
+    private final List<MediaSection> mediaSections = new ArrayList<>();
+    private final int lengthHint;
+
+    private ParsedSdp(int lengthHint) {
+        this.lengthHint = lengthHint;
+    }
+
+    /**
+     * Parses LF or CRLF terminated lines. Empty lines are dropped
+     */
+    public static ParsedSdp parse(String sdp) {
+        ParsedSdp parsedSdp = new ParsedSdp(sdp.length());
+        MediaSection mediaSection = null;
+        int start = 0;
+        while (start < sdp.length()) {
+            int end = sdp.indexOf('\n', start);
+            if (end < 0) {
+                end = sdp.length();
+            }
+            int lineEnd = end > start && sdp.charAt(end - 1) == '\r' ? end - 1 : end;
+            if (lineEnd > start) {
+                String line = sdp.substring(start, lineEnd);
+                if (line.startsWith(MediaSection.PREFIX)) {
+                    mediaSection = new MediaSection(line);
+                    parsedSdp.mediaSections.add(mediaSection);
+                }
+                else if (mediaSection != null) {
+                    mediaSection.getLines().add(SdpLine.parse(line));
+                }
+                else {
+                    parsedSdp.sessionLines.add(SdpLine.parse(line));
+                }
+            }
+            start = end + 1;
+        }
+        return parsedSdp;
+    }
+
+    /**
+     * @return lines before the first m= line. The list can be changed
+     */
+    public List<SdpLine> getSessionLines() {
+        return sessionLines;
+    }
+
+    public List<MediaSection> getMediaSections() {
+        return mediaSections;
+    }
+
+    /**
+     * @param media audio, video or application
+     */
+    public List<MediaSection> getMediaSections(String media) {
+        List<MediaSection> sections = new ArrayList<>();
+        for (MediaSection mediaSection : mediaSections) {
+            if (mediaSection.getMedia().equals(media)) {
+                sections.add(mediaSection);
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * Removes the header extension from the session and from all media sections
+     * @return number of the removed extmaps
+     */
+    public int removeExtmap(String uri) {
+        int removed = MediaSection.removeExtmap(sessionLines, uri);
+        for (MediaSection mediaSection : mediaSections) {
+            removed += mediaSection.removeExtmap(uri);
+        }
+        return removed;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(lengthHint + 256);
+        for (SdpLine line : sessionLines) {
+            line.write(builder);
+            builder.append(LINE_TERMINATOR);
+        }
+        for (MediaSection mediaSection : mediaSections) {
+            mediaSection.write(builder, LINE_TERMINATOR);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package io.antmedia.webrtcandroidframework.sdp;
+
+/**
+ * a=rtpmap:&lt;payload type&gt; &lt;encoding name&gt;/&lt;clock rate&gt;[/&lt;encoding parameters&gt;]
+ */
+public class RtpMap extends SdpLine {
+
+    static final String PREFIX = "a=rtpmap:";
+
+    private final String payloadType;
+    private final String encodingName;
+    private final int clockRate;
+    private final String encodingParameters;
+
+    /**
+     * @param encodingParameters e.g. channel count of audio, null if there is none
+     */
+    public RtpMap(String payloadType, String encodingName, int clockRate, String encodingParameters) {
+        this.payloadType = payloadType;
+        this.encodingName = encodingName;
+        this.clockRate = clockRate;
+        this.encodingParameters = encodingParameters;
+    }
+
+    static RtpMap parseValue(String value) {
+        int space = value.indexOf(' ');
+        if (space <= 0) {
+            return null;
+        }
+        int slash = value.indexOf('/', space);
+        if (slash < 0) {
+            return null;
+        }
+        int parametersSlash = value.indexOf('/', slash + 1);
+        String clockRate = parametersSlash < 0 ? value.substring(slash + 1) : value.substring(slash + 1, parametersSlash);
+        try {
+            return new RtpMap(value.substring(0, space), value.substring(space + 1, slash), Integer.parseInt(clockRate),
+                    parametersSlash < 0 ? null : value.substring(parametersSlash + 1));
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String getPayloadType() {
+        return payloadType;
+    }
+
+    public String getEncodingName() {
+        return encodingName;
+    }
+
+    public int getClockRate() {
+        return clockRate;
+    }
+
+    public String getEncodingParameters() {
+        return encodingParameters;
+    }
+
+    /**
+     * Encoding names are case insensitive, e.g. opus and OPUS are the same codec
+     */
+    public boolean isCodec(String name) {
+        return encodingName.equalsIgnoreCase(name);
+    }
+
+    @Override
+    void write(StringBuilder builder) {
+        builder.append(PREFIX).append(payloadType).append(' ').append(encodingName).append('/').append(clockRate);
+        if (encodingParameters != null) {
+            builder.append('/').append(encodingParameters);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.antmedia.webrtcandroidframework.sdp;
+
+/**
+ * A line of an SDP without the line terminator.
+ *
+ * rtpmap, fmtp and extmap attributes are parsed to their own types, other lines are kept as they are, so
+ * writing an SDP that is not changed gives the same lines.
+ */
+public abstract class SdpLine {
+
+    static final String ATTRIBUTE_PREFIX = "a=";
+
+    /**
+     * @return parsed line, it's a plain line if the line is not a modelled attribute or it's malformed
+     */
+    public static SdpLine parse(String line) {
+        if (line.startsWith(ATTRIBUTE_PREFIX)) {
+            SdpLine attribute = null;
+            if (line.startsWith(RtpMap.PREFIX)) {
+                attribute = RtpMap.parseValue(line.substring(RtpMap.PREFIX.length()));
+            }
+            else if (line.startsWith(Fmtp.PREFIX)) {
+                attribute = Fmtp.parseValue(line.substring(Fmtp.PREFIX.length()));
+            }
+            else if (line.startsWith(Extmap.PREFIX)) {
+                attribute = Extmap.parseValue(line.substring(Extmap.PREFIX.length()));
+            }
+            if (attribute != null) {
+                return attribute;
+            }
+        }
+        return new PlainLine(line);
+    }
+
+    abstract void write(StringBuilder builder);
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        write(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Line that is not modelled, e.g. a=rtcp-fb:96 nack or c=IN IP4 0.0.0.0
+     */
+    public static class PlainLine extends SdpLine {
+        private final String line;
+
+        public PlainLine(String line) {
+            this.line = line;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        @Override
+        void write(StringBuilder builder) {
+            builder.append(line);
+        }
+    }
+}
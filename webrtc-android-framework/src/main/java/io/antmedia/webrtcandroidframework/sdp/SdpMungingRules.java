@@ -0,0 +1,323 @@
+package io.antmedia.webrtcandroidframework.sdp;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ordered list of SDP rules that is built once and applied to each offer and answer with a single parse and write.
+ *
+ * <pre>
+ * SdpMungingRules rules = SdpMungingRules.builder()
+ *         .preferCodecs(MediaSection.VIDEO, "H264", "VP8")
+ *         .setVideoStartBitrate("H264", 1500)
+ *         .setOpusDtx(true)
+ *         .enableOpusRed()
+ *         .build();
+ * </pre>
+ *
+ * Rules are applied in the order they are added. Instances are immutable and thread safe.
+ */
+public class SdpMungingRules {
+
+    public static final String OPUS = "opus";
+    public static final String RED = "red";
+    public static final String VIDEO_CODEC_PARAM_START_BITRATE = "x-google-start-bitrate";
+    public static final String AUDIO_CODEC_PARAM_BITRATE = "maxaveragebitrate";
+    public static final String OPUS_PARAM_DTX = "usedtx";
+    public static final String OPUS_PARAM_FEC = "useinbandfec";
+    public static final String OPUS_PARAM_STEREO = "stereo";
+    public static final String OPUS_PARAM_SPROP_STEREO = "sprop-stereo";
+
+    private static final int OPUS_CLOCK_RATE = 48000;
+    private static final String OPUS_CHANNELS = "2";
+    private static final int MIN_DYNAMIC_PAYLOAD_TYPE = 96;
+    private static final int MAX_DYNAMIC_PAYLOAD_TYPE = 127;
+    // lower dynamic range that is used when 96-127 is full
+    private static final int MIN_LOWER_DYNAMIC_PAYLOAD_TYPE = 35;
+    private static final int MAX_LOWER_DYNAMIC_PAYLOAD_TYPE = 63;
+    // one byte header extension ids, two byte ids are not used to keep the header small
+    private static final int MAX_ONE_BYTE_EXTENSION_ID = 14;
+
+    private final SdpRule[] localRules;
+    private final SdpRule[] remoteRules;
+
+    private SdpMungingRules(SdpRule[] localRules, SdpRule[] remoteRules) {
+        this.localRules = localRules;
+        this.remoteRules = remoteRules;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param remote true for the descriptions received from the server
+     * @param offer false for answers
+     */
+    public String apply(String sdp, boolean remote, boolean offer) {
+        SdpRule[] rules = remote ? remoteRules : localRules;
+        if (rules.length == 0) {
+            return sdp;
+        }
+        ParsedSdp parsedSdp = ParsedSdp.parse(sdp);
+        apply(parsedSdp, remote, offer);
+        return parsedSdp.toString();
+    }
+
+    public void apply(ParsedSdp sdp, boolean remote, boolean offer) {
+        for (SdpRule rule : remote ? remoteRules : localRules) {
+            rule.apply(sdp, offer);
+        }
+    }
+
+    public boolean isEmpty() {
+        return localRules.length == 0 && remoteRules.length == 0;
+    }
+
+    public static class Builder {
+        private final List<SdpRule> localRules = new ArrayList<>();
+        private final List<SdpRule> remoteRules = new ArrayList<>();
+
+        public Builder addRule(SdpRule.Target target, SdpRule rule) {
+            if (target.matches(false)) {
+                localRules.add(rule);
+            }
+            if (target.matches(true)) {
+                remoteRules.add(rule);
+            }
+            return this;
+        }
+
+        /**
+         * Appends the rules of another list, e.g. the rules of the config after the built-in ones
+         */
+        public Builder addRules(SdpMungingRules rules) {
+            if (rules != null) {
+                for (SdpRule rule : rules.localRules) {
+                    localRules.add(rule);
+                }
+                for (SdpRule rule : rules.remoteRules) {
+                    remoteRules.add(rule);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Moves the payload types of the codecs to the front of the sections, first codec is the most preferred.
+         * Codecs that are not in a section are skipped. Applied to both descriptions
+         */
+        public Builder preferCodecs(final String media, final String... codecs) {
+            return addRule(SdpRule.Target.BOTH, sdp -> {
+                for (MediaSection mediaSection : sdp.getMediaSections(media)) {
+                    for (int i = codecs.length - 1; i >= 0; i--) {
+                        mediaSection.preferCodec(codecs[i]);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Sets the fmtp parameter of all payload types of the codec. fmtp line is added if there is none
+         * @param value null for a parameter without value
+         */
+        public Builder setCodecParameter(SdpRule.Target target, final String media, final String codec,
+                                         final String name, final String value) {
+            return addRule(target, sdp -> {
+                for (MediaSection mediaSection : sdp.getMediaSections(media)) {
+                    for (String payloadType : mediaSection.getPayloadTypes(codec)) {
+                        mediaSection.getOrAddFmtp(payloadType).setParameter(name, value);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Start bitrate of the video encoder. It's set to the remote description, so it applies to what the
+         * client sends
+         */
+        public Builder setVideoStartBitrate(String codec, int bitrateKbps) {
+            return setCodecParameter(SdpRule.Target.REMOTE, MediaSection.VIDEO, codec,
+                    VIDEO_CODEC_PARAM_START_BITRATE, String.valueOf(bitrateKbps));
+        }
+
+        /**
+         * Maximum average bitrate of the audio encoder. It's set to the remote description, so it applies to
+         * what the client sends
+         */
+        public Builder setAudioMaxAverageBitrate(String codec, int bitrateBps) {
+            return setCodecParameter(SdpRule.Target.REMOTE, MediaSection.AUDIO, codec,
+                    AUDIO_CODEC_PARAM_BITRATE, String.valueOf(bitrateBps));
+        }
+
+        /**
+         * Discontinuous transmission, i.e. silence is not sent. Applied to both descriptions
+         */
+        public Builder setOpusDtx(boolean enabled) {
+            return setOpusParameter(OPUS_PARAM_DTX, enabled);
+        }
+
+        /**
+         * Opus in-band forward error correction. Applied to both descriptions
+         */
+        public Builder setOpusFec(boolean enabled) {
+            return setOpusParameter(OPUS_PARAM_FEC, enabled);
+        }
+
+        /**
+         * Stereo opus. Applied to both descriptions
+         */
+        public Builder setOpusStereo(boolean enabled) {
+            setOpusParameter(OPUS_PARAM_STEREO, enabled);
+            return setOpusParameter(OPUS_PARAM_SPROP_STEREO, enabled);
+        }
+
+        private Builder setOpusParameter(String name, boolean enabled) {
+            return setCodecParameter(SdpRule.Target.BOTH, MediaSection.AUDIO, OPUS, name, enabled ? "1" : "0");
+        }
+
+        /**
+         * Adds the header extension to the sections of the offers that don't have it with an unused id
+         * @param target the extension is negotiated only if the offer has it, so it's usually LOCAL
+         */
+        public Builder addHeaderExtension(SdpRule.Target target, final String media, final String uri) {
+            return addRule(target, offersOnly(sdp -> {
+                // bundled sections share the ids, so an id that is used for the extension is kept
+                int id = getExtmapId(sdp, uri);
+                if (id < 0) {
+                    Set<Integer> usedIds = getExtmapIds(sdp);
+                    id = 1;
+                    while (usedIds.contains(id)) {
+                        id++;
+                    }
+                    if (id > MAX_ONE_BYTE_EXTENSION_ID) {
+                        return;
+                    }
+                }
+                for (MediaSection mediaSection : sdp.getMediaSections(media)) {
+                    if (!hasExtmap(mediaSection, uri)) {
+                        mediaSection.addExtmap(new Extmap(id, uri));
+                    }
+                }
+            }));
+        }
+
+        public Builder removeHeaderExtension(SdpRule.Target target, final String uri) {
+            return addRule(target, sdp -> sdp.removeExtmap(uri));
+        }
+
+        /**
+         * Redundant audio (RFC 2198) with opus. red is preferred over opus in the audio sections that have it.
+         * It's added to the local offers that don't have it, e.g. offers of the older WebRTC versions. Local answers,
+         * e.g. in play mode, have red only if the offer of the server has it
+         */
+        public Builder enableOpusRed() {
+            addRule(SdpRule.Target.LOCAL, offersOnly(Builder::addOpusRed));
+            return preferCodecs(MediaSection.AUDIO, RED);
+        }
+
+        private static void addOpusRed(ParsedSdp sdp) {
+            for (MediaSection audio : sdp.getMediaSections(MediaSection.AUDIO)) {
+                List<String> opusPayloadTypes = audio.getPayloadTypes(OPUS);
+                if (opusPayloadTypes.isEmpty() || !audio.getPayloadTypes(RED).isEmpty()) {
+                    continue;
+                }
+                String payloadType = getUnusedPayloadType(sdp);
+                if (payloadType == null) {
+                    return;
+                }
+                String opus = opusPayloadTypes.get(0);
+                RtpMap opusRtpMap = audio.getRtpMap(opus);
+                audio.getLines().add(audio.getLines().indexOf(opusRtpMap) + 1,
+                        new RtpMap(payloadType, RED, OPUS_CLOCK_RATE, OPUS_CHANNELS));
+                audio.getOrAddFmtp(payloadType).setParameter(opus + "/" + opus, null);
+                audio.getFormats().add(payloadType);
+            }
+        }
+
+        public SdpMungingRules build() {
+            return new SdpMungingRules(localRules.toArray(new SdpRule[0]), remoteRules.toArray(new SdpRule[0]));
+        }
+    }
+
+    /**
+     * @return rule that is applied to the offers and skipped for the answers
+     */
+    private static SdpRule offersOnly(final SdpRule rule) {
+        return new SdpRule() {
+            @Override
+            public void apply(ParsedSdp sdp) {
+                rule.apply(sdp);
+            }
+
+            @Override
+            public void apply(ParsedSdp sdp, boolean offer) {
+                if (offer) {
+                    rule.apply(sdp);
+                }
+            }
+        };
+    }
+
+    private static boolean hasExtmap(MediaSection mediaSection, String uri) {
+        for (Extmap extmap : mediaSection.getExtmaps()) {
+            if (extmap.getUri().equals(uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return id of the extension in any section, -1 if it's not used
+     */
+    private static int getExtmapId(ParsedSdp sdp, String uri) {
+        for (MediaSection mediaSection : sdp.getMediaSections()) {
+            for (Extmap extmap : mediaSection.getExtmaps()) {
+                if (extmap.getUri().equals(uri)) {
+                    return extmap.getId();
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static Set<Integer> getExtmapIds(ParsedSdp sdp) {
+        Set<Integer> ids = new HashSet<>();
+        for (SdpLine line : sdp.getSessionLines()) {
+            if (line instanceof Extmap) {
+                ids.add(((Extmap) line).getId());
+            }
+        }
+        for (MediaSection mediaSection : sdp.getMediaSections()) {
+            for (Extmap extmap : mediaSection.getExtmaps()) {
+                ids.add(extmap.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Payload types are unique in the bundle, so the payload types of all sections are checked
+     * @return null if there is no unused dynamic payload type
+     */
+    private static String getUnusedPayloadType(ParsedSdp sdp) {
+        Set<String> used = new HashSet<>();
+        for (MediaSection mediaSection : sdp.getMediaSections()) {
+            used.addAll(mediaSection.getFormats());
+        }
+        for (int payloadType = MIN_DYNAMIC_PAYLOAD_TYPE; payloadType <= MAX_DYNAMIC_PAYLOAD_TYPE; payloadType++) {
+            if (!used.contains(String.valueOf(payloadType))) {
+                return String.valueOf(payloadType);
+            }
+        }
+        for (int payloadType = MIN_LOWER_DYNAMIC_PAYLOAD_TYPE; payloadType <= MAX_LOWER_DYNAMIC_PAYLOAD_TYPE; payloadType++) {
+            if (!used.contains(String.valueOf(payloadType))) {
+                return String.valueOf(payloadType);
+            }
+        }
+        return null;
+    }
+}
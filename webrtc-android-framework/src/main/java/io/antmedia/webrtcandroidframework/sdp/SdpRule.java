@@ -0,0 +1,38 @@
+package io.antmedia.webrtcandroidframework.sdp;
+
+/**
+ * A change on the parsed SDP, e.g. codec order or an fmtp parameter. Rules are created once and applied to
+ * every offer and answer, so they should not keep state between calls.
+ */
+public interface SdpRule {
+
+    /**
+     * Which descriptions the rule is applied to. Parameters in the remote description configure what the client
+     * sends, parameters in the local description configure what the client receives.
+     */
+    enum Target {
+        /**
+         * offers and answers created by the client
+         */
+        LOCAL,
+        /**
+         * offers and answers received from the server
+         */
+        REMOTE,
+        BOTH;
+
+        boolean matches(boolean remote) {
+            return this == BOTH || (this == REMOTE) == remote;
+        }
+    }
+
+    void apply(ParsedSdp sdp);
+
+    /**
+     * @param offer false for answers. An answer cannot have a codec or an extension that the offer does not
+     *              have, so rules that add them should only change offers
+     */
+    default void apply(ParsedSdp sdp, boolean offer) {
+        apply(sdp);
+    }
+}
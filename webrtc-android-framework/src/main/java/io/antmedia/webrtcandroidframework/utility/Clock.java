@@ -0,0 +1,15 @@
+package io.antmedia.webrtcandroidframework.utility;
+
+/**
+ * Monotonic time source. It's injected into the time dependent classes so that they can be
+ * driven by a fake clock in unit tests.
+ */
+public interface Clock {
+
+    Clock SYSTEM = () -> System.nanoTime() / 1000000;
+
+    /**
+     * @return monotonic time in milliseconds. It's only meaningful as a difference between two calls
+     */
+    long nowMs();
+}
@@ -0,0 +1,275 @@
+package io.antmedia.webrtcandroidframework.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the initialization stages as a dependency graph and measures them.
+ *
+ * A stage starts on its executor when all of its dependencies have completed, so stages that don't depend on
+ * each other run at the same time, e.g. websocket handshake and peer connection factory creation. Ready stages
+ * are started in the order they are added.
+ *
+ * A stage completes when its task returns. An async stage completes when {@link #complete(String)} is called
+ * for it, e.g. when the work it started on another thread or on the network has finished. An async stage that
+ * cannot finish is completed with {@link #fail(String)}, so the pipeline still completes.
+ *
+ * Dependencies should be added before the stage, so the graph cannot have a cycle.
+ */
+public class InitializationPipeline {
+
+    /**
+     * Direct executor, stage runs on the thread that starts it
+     */
+    public static final Executor CALLER_THREAD = Runnable::run;
+
+    public interface Listener {
+        /**
+         * @param stage name of the stage
+         * @param startOffsetMs start time of the stage relative to the start of the pipeline
+         * @param durationMs time from start to completion of the stage
+         */
+        void onStageCompleted(String stage, long startOffsetMs, long durationMs);
+
+        /**
+         * @param durationMs time from start of the pipeline to completion of the last stage
+         */
+        void onPipelineCompleted(long durationMs);
+    }
+
+    /**
+     * Timing of a stage, values are in milliseconds. Duration is -1 if stage is not completed
+     */
+    public static class StageTiming {
+        private final long startOffsetMs;
+        private final long durationMs;
+        private final boolean failed;
+
+        StageTiming(long startOffsetMs, long durationMs, boolean failed) {
+            this.startOffsetMs = startOffsetMs;
+            this.durationMs = durationMs;
+            this.failed = failed;
+        }
+
+        public long getStartOffsetMs() {
+            return startOffsetMs;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        /**
+         * @return true if the stage is completed with {@link #fail(String)}
+         */
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+
+    private enum State {
+        PENDING, RUNNING, COMPLETED
+    }
+
+    private static class Stage {
+        final String name;
+        final Executor executor;
+        final Runnable task;
+        final boolean async;
+        final List<String> dependencies;
+        State state = State.PENDING;
+        boolean failed;
+        long startTimeMs;
+        long endTimeMs;
+
+        Stage(String name, Executor executor, Runnable task, boolean async, List<String> dependencies) {
+            this.name = name;
+            this.executor = executor;
+            this.task = task;
+            this.async = async;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final Clock clock;
+    private final Listener listener;
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    private boolean started;
+    private long startTimeMs;
+    private int completedCount;
+
+    public InitializationPipeline(Clock clock, Listener listener) {
+        this.clock = clock;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a stage that completes when its task returns
+     */
+    public InitializationPipeline addStage(String name, Executor executor, Runnable task, String... dependencies) {
+        return add(name, executor, task, false, dependencies);
+    }
+
+    /**
+     * Adds a stage that completes when {@link #complete(String)} is called for it
+     */
+    public InitializationPipeline addAsyncStage(String name, Executor executor, Runnable task, String... dependencies) {
+        return add(name, executor, task, true, dependencies);
+    }
+
+    private synchronized InitializationPipeline add(String name, Executor executor, Runnable task, boolean async, String... dependencies) {
+        if (started) {
+            throw new IllegalStateException("Pipeline has already been started");
+        }
+        if (stages.containsKey(name)) {
+            throw new IllegalArgumentException("Stage already exists: " + name);
+        }
+        for (String dependency : dependencies) {
+            if (!stages.containsKey(dependency)) {
+                throw new IllegalArgumentException("Unknown dependency " + dependency + " of stage " + name);
+            }
+        }
+        stages.put(name, new Stage(name, executor, task, async, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    /**
+     * Starts the stages that have no dependency. Stages on the caller thread executor run before it returns
+     */
+    public void start() {
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            started = true;
+            startTimeMs = clock.nowMs();
+        }
+        startReadyStages();
+        notifyIfEmpty();
+    }
+
+    /**
+     * Completes the stage. It's ignored if the stage is not running, e.g. it's called again
+     */
+    public void complete(String name) {
+        finish(name, false);
+    }
+
+    /**
+     * Completes the stage as failed, e.g. when the connection that it waits for is closed. Its dependents are
+     * started like it's completed. It's ignored if the stage is not running
+     */
+    public void fail(String name) {
+        finish(name, true);
+    }
+
+    private void finish(String name, boolean failed) {
+        long startOffsetMs;
+        long durationMs;
+        boolean pipelineCompleted;
+        synchronized (this) {
+            Stage stage = stages.get(name);
+            if (stage == null || stage.state != State.RUNNING) {
+                return;
+            }
+            stage.state = State.COMPLETED;
+            stage.failed = failed;
+            stage.endTimeMs = clock.nowMs();
+            completedCount++;
+            startOffsetMs = stage.startTimeMs - startTimeMs;
+            durationMs = stage.endTimeMs - stage.startTimeMs;
+            pipelineCompleted = completedCount == stages.size();
+        }
+
+        if (listener != null) {
+            listener.onStageCompleted(name, startOffsetMs, durationMs);
+        }
+        startReadyStages();
+        if (pipelineCompleted && listener != null) {
+            listener.onPipelineCompleted(getDurationMs());
+        }
+    }
+
+    private void startReadyStages() {
+        List<Stage> ready = new ArrayList<>();
+        synchronized (this) {
+            for (Stage stage : stages.values()) {
+                if (stage.state == State.PENDING && dependenciesCompleted(stage)) {
+                    stage.state = State.RUNNING;
+                    stage.startTimeMs = clock.nowMs();
+                    ready.add(stage);
+                }
+            }
+        }
+        for (Stage stage : ready) {
+            stage.executor.execute(() -> {
+                stage.task.run();
+                if (!stage.async) {
+                    complete(stage.name);
+                }
+            });
+        }
+    }
+
+    private boolean dependenciesCompleted(Stage stage) {
+        for (String dependency : stage.dependencies) {
+            if (stages.get(dependency).state != State.COMPLETED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void notifyIfEmpty() {
+        boolean empty;
+        synchronized (this) {
+            empty = stages.isEmpty();
+        }
+        if (empty && listener != null) {
+            listener.onPipelineCompleted(0);
+        }
+    }
+
+    public synchronized boolean isCompleted() {
+        return started && completedCount == stages.size();
+    }
+
+    /**
+     * @return time from start to completion of the last stage, or to now if pipeline is not completed
+     */
+    public synchronized long getDurationMs() {
+        if (!started) {
+            return 0;
+        }
+        long endTimeMs = startTimeMs;
+        for (Stage stage : stages.values()) {
+            if (stage.state != State.COMPLETED) {
+                return clock.nowMs() - startTimeMs;
+            }
+            endTimeMs = Math.max(endTimeMs, stage.endTimeMs);
+        }
+        return endTimeMs - startTimeMs;
+    }
+
+    /**
+     * @return timings of the started stages in the order they are added
+     */
+    public synchronized Map<String, StageTiming> getTimings() {
+        Map<String, StageTiming> timings = new LinkedHashMap<>();
+        for (Stage stage : stages.values()) {
+            if (stage.state == State.PENDING) {
+                continue;
+            }
+            long durationMs = stage.state == State.COMPLETED ? stage.endTimeMs - stage.startTimeMs : -1;
+            timings.put(stage.name, new StageTiming(stage.startTimeMs - startTimeMs, durationMs, stage.failed));
+        }
+        return Collections.unmodifiableMap(timings);
+    }
+}
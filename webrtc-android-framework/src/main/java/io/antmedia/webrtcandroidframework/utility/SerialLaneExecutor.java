@@ -0,0 +1,266 @@
+package io.antmedia.webrtcandroidframework.utility;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks in serial lanes on a shared thread pool.
+ *
+ * Tasks of the same lane run one by one in the submission order. Tasks of different lanes can run at
+ * the same time, so a slow task of a peer does not delay the other peers. The global lane
+ * ({@link #execute(Runnable)}) is a barrier in both directions:
+ * <ul>
+ *     <li>a global task starts after all the tasks submitted before it have finished</li>
+ *     <li>a lane task starts after the global tasks submitted before it have finished</li>
+ * </ul>
+ * so factory level work keeps the ordering of a single thread executor against the peer work. Global tasks
+ * always run on the same dedicated thread.
+ *
+ * Queue depth and wait time (from submission to start) are measured for each lane.
+ */
+public class SerialLaneExecutor implements Executor {
+
+    public static final String GLOBAL_LANE = "global";
+
+    /**
+     * Statistics of a lane, values are in milliseconds
+     */
+    public static class LaneStats {
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final long executedCount;
+        private final long totalWaitTimeMs;
+        private final long maxWaitTimeMs;
+
+        LaneStats(int queueDepth, int maxQueueDepth, long executedCount, long totalWaitTimeMs, long maxWaitTimeMs) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.executedCount = executedCount;
+            this.totalWaitTimeMs = totalWaitTimeMs;
+            this.maxWaitTimeMs = maxWaitTimeMs;
+        }
+
+        /**
+         * @return number of the tasks waiting in the lane
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public long getExecutedCount() {
+            return executedCount;
+        }
+
+        public long getMaxWaitTimeMs() {
+            return maxWaitTimeMs;
+        }
+
+        public long getAverageWaitTimeMs() {
+            return executedCount > 0 ? totalWaitTimeMs / executedCount : 0;
+        }
+    }
+
+    private static class Task {
+        final long sequence;
+        final Runnable runnable;
+        final long submitTimeMs;
+
+        Task(long sequence, Runnable runnable, long submitTimeMs) {
+            this.sequence = sequence;
+            this.runnable = runnable;
+            this.submitTimeMs = submitTimeMs;
+        }
+    }
+
+    private static class Lane {
+        final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        boolean running;
+        int maxQueueDepth;
+        long executedCount;
+        long totalWaitTimeMs;
+        long maxWaitTimeMs;
+    }
+
+    private final ExecutorService globalThread;
+    private final ExecutorService laneThreads;
+    private final Clock clock;
+
+    private final Object lock = new Object();
+    private final Lane globalLane = new Lane();
+
+    /**
+     * lane name -> lane in the creation order. Global lane is not in the map
+     */
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+
+    private long nextSequence;
+    private int runningLaneCount;
+
+    /**
+     * @param laneThreadCount maximum number of the lanes that run at the same time
+     */
+    public SerialLaneExecutor(int laneThreadCount) {
+        this(Executors.newSingleThreadExecutor(), Executors.newFixedThreadPool(laneThreadCount, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "SerialLane-" + count.incrementAndGet());
+            }
+        }), Clock.SYSTEM);
+    }
+
+    /**
+     * @param globalThread single thread executor of the global lane
+     * @param laneThreads thread pool of the other lanes
+     */
+    public SerialLaneExecutor(ExecutorService globalThread, ExecutorService laneThreads, Clock clock) {
+        this.globalThread = globalThread;
+        this.laneThreads = laneThreads;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs the task on the global lane
+     */
+    @Override
+    public void execute(Runnable task) {
+        execute(null, task);
+    }
+
+    /**
+     * @param laneName lane of the task, e.g. streamId of a peer. Null runs it on the global lane
+     */
+    public void execute(String laneName, Runnable task) {
+        synchronized (lock) {
+            Lane lane = laneName == null || GLOBAL_LANE.equals(laneName) ? globalLane : lanes.get(laneName);
+            if (lane == null) {
+                lane = new Lane();
+                lanes.put(laneName, lane);
+            }
+            lane.tasks.addLast(new Task(nextSequence++, task, clock.nowMs()));
+            lane.maxQueueDepth = Math.max(lane.maxQueueDepth, lane.tasks.size());
+            dispatch();
+        }
+    }
+
+    /**
+     * Starts the tasks that are allowed to run. It's called with the lock
+     */
+    private void dispatch() {
+        Task globalHead = globalLane.tasks.peekFirst();
+        long globalSequence = globalHead != null ? globalHead.sequence : Long.MAX_VALUE;
+
+        boolean earlierLaneTaskWaiting = false;
+        if (!globalLane.running) {
+            for (Map.Entry<String, Lane> entry : lanes.entrySet()) {
+                Lane lane = entry.getValue();
+                Task head = lane.tasks.peekFirst();
+                if (head == null || head.sequence > globalSequence) {
+                    continue;
+                }
+                earlierLaneTaskWaiting = true;
+                if (!lane.running) {
+                    start(lane);
+                }
+            }
+        }
+
+        if (globalHead != null && !globalLane.running && runningLaneCount == 0 && !earlierLaneTaskWaiting) {
+            start(globalLane);
+        }
+    }
+
+    private void start(Lane lane) {
+        Task task = lane.tasks.pollFirst();
+        lane.running = true;
+        long waitTimeMs = clock.nowMs() - task.submitTimeMs;
+        lane.totalWaitTimeMs += waitTimeMs;
+        lane.maxWaitTimeMs = Math.max(lane.maxWaitTimeMs, waitTimeMs);
+        if (lane != globalLane) {
+            runningLaneCount++;
+        }
+        ExecutorService threads = lane == globalLane ? globalThread : laneThreads;
+        try {
+            threads.execute(() -> {
+                try {
+                    task.runnable.run();
+                }
+                finally {
+                    onFinished(lane);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            //threads are shut down, task is dropped
+            lane.running = false;
+            if (lane != globalLane) {
+                runningLaneCount--;
+            }
+        }
+    }
+
+    private void onFinished(Lane lane) {
+        synchronized (lock) {
+            lane.running = false;
+            lane.executedCount++;
+            if (lane != globalLane) {
+                runningLaneCount--;
+            }
+            dispatch();
+        }
+    }
+
+    /**
+     * @return statistics of the lane or null if lane does not exist
+     */
+    public LaneStats getLaneStats(String laneName) {
+        synchronized (lock) {
+            Lane lane = laneName == null || GLOBAL_LANE.equals(laneName) ? globalLane : lanes.get(laneName);
+            return lane != null ? toStats(lane) : null;
+        }
+    }
+
+    /**
+     * @return statistics of all lanes including the global lane
+     */
+    public Map<String, LaneStats> getAllLaneStats() {
+        synchronized (lock) {
+            Map<String, LaneStats> stats = new HashMap<>();
+            stats.put(GLOBAL_LANE, toStats(globalLane));
+            for (Map.Entry<String, Lane> entry : lanes.entrySet()) {
+                stats.put(entry.getKey(), toStats(entry.getValue()));
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Removes the lane and its statistics if it has no waiting or running task, e.g. when peer is closed.
+     * Lane is created again if a task is submitted later
+     */
+    public void removeLane(String laneName) {
+        synchronized (lock) {
+            Lane lane = lanes.get(laneName);
+            if (lane != null && !lane.running && lane.tasks.isEmpty()) {
+                lanes.remove(laneName);
+            }
+        }
+    }
+
+    private static LaneStats toStats(Lane lane) {
+        return new LaneStats(lane.tasks.size(), lane.maxQueueDepth, lane.executedCount, lane.totalWaitTimeMs, lane.maxWaitTimeMs);
+    }
+}
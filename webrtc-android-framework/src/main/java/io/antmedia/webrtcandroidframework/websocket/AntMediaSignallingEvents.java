@@ -133,4 +133,13 @@ public interface AntMediaSignallingEvents {
      * @param streamId
      */
     void onBroadcastObject(Broadcast broadcast);
+
+    /**
+     * It's called when pong reply of a ping is received
+     * @param rttMs round trip time of the ping
+     * @param smoothedRttMs smoothed round trip time
+     * @param rttVariationMs round trip time variation
+     */
+    default void onSignallingRttMeasured(long rttMs, long smoothedRttMs, long rttVariationMs) {
+    }
 }
\ No newline at end of file
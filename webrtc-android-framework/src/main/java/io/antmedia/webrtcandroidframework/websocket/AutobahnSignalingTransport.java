@@ -0,0 +1,45 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import java.net.URI;
+
+import de.tavendo.autobahn.WebSocket;
+import de.tavendo.autobahn.WebSocketConnection;
+import de.tavendo.autobahn.WebSocketException;
+
+/**
+ * Websocket transport on top of autobahn's {@link WebSocketConnection}.
+ * A new connection is created for each {@link #connect(URI, WebSocket.WebSocketConnectionObserver)}
+ * call. Events are delivered on the thread that calls connect, it should have a looper.
+ */
+public class AutobahnSignalingTransport implements SignalingTransport {
+
+    private WebSocketConnection ws;
+
+    @Override
+    public void connect(URI uri, WebSocket.WebSocketConnectionObserver observer) throws WebSocketException {
+        ws = new WebSocketConnection();
+        ws.connect(uri, observer);
+    }
+
+    @Override
+    public void disconnect() {
+        if (ws != null) {
+            ws.disconnect();
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return ws != null && ws.isConnected();
+    }
+
+    @Override
+    public void sendTextMessage(String message) {
+        ws.sendTextMessage(message);
+    }
+
+    @Override
+    public void sendBinaryMessage(byte[] message) {
+        ws.sendBinaryMessage(message);
+    }
+}
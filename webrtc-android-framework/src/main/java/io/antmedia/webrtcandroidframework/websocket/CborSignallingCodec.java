@@ -0,0 +1,363 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Converts the JSON signalling messages to CBOR (RFC 8949) and back.
+ *
+ * Both directions are streaming, objects and arrays are written with indefinite length so no JSON tree is
+ * created. If SDP compression is enabled, values of the sdp field longer than {@link #DEFLATE_THRESHOLD}
+ * are written as a byte string that contains the deflated UTF-8 text. Byte strings are always inflated
+ * back to text while decoding.
+ *
+ * Decoded messages are returned as JSON text, so binary messages go through the same parser and
+ * handlers with the text messages. Instances are not thread safe.
+ */
+public class CborSignallingCodec {
+
+    public static final String ENCODING_CBOR = "cbor";
+    public static final String ENCODING_CBOR_DEFLATE = "cbor-deflate";
+
+    public static final int DEFLATE_THRESHOLD = 128;
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_BYTES = 2;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_MAP = 5;
+    private static final int MAJOR_SIMPLE = 7;
+
+    private static final int INDEFINITE = 31;
+    private static final int BREAK = 0xFF;
+    private static final int FALSE = 0xF4;
+    private static final int TRUE = 0xF5;
+    private static final int NULL = 0xF6;
+    private static final int DOUBLE = 0xFB;
+
+    private final boolean deflateSdp;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Inflater inflater = new Inflater(true);
+    private final byte[] chunk = new byte[1024];
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+
+    /**
+     * @param deflateSdp compresses the long SDP values while encoding
+     */
+    public CborSignallingCodec(boolean deflateSdp) {
+        this.deflateSdp = deflateSdp;
+    }
+
+    public boolean isDeflateSdp() {
+        return deflateSdp;
+    }
+
+    /**
+     * @param json signalling message as JSON text
+     * @return CBOR encoded message
+     * @throws IOException if message is not a valid JSON
+     */
+    public byte[] encode(String json) throws IOException {
+        output.reset();
+        JsonReader reader = new JsonReader(new StringReader(json));
+        writeValue(reader, null);
+        return output.toByteArray();
+    }
+
+    /**
+     * @param cbor CBOR encoded message
+     * @return message as JSON text
+     * @throws IOException if message is not a valid CBOR data item or it has unsupported items
+     */
+    public String decode(byte[] cbor) throws IOException {
+        StringWriter text = new StringWriter(cbor.length * 2);
+        JsonWriter writer = new JsonWriter(text);
+        int end = readValue(cbor, 0, writer);
+        if (end != cbor.length) {
+            throw new IOException("Unexpected data after CBOR item at " + end);
+        }
+        writer.flush();
+        return text.toString();
+    }
+
+    private void writeValue(JsonReader reader, String name) throws IOException {
+        JsonToken token = reader.peek();
+        switch (token) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                output.write((MAJOR_MAP << 5) | INDEFINITE);
+                while (reader.hasNext()) {
+                    String fieldName = reader.nextName();
+                    writeText(fieldName);
+                    writeValue(reader, fieldName);
+                }
+                reader.endObject();
+                output.write(BREAK);
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                output.write((MAJOR_ARRAY << 5) | INDEFINITE);
+                while (reader.hasNext()) {
+                    writeValue(reader, null);
+                }
+                reader.endArray();
+                output.write(BREAK);
+                break;
+            case STRING:
+                String value = reader.nextString();
+                if (deflateSdp && WebSocketConstants.SDP.equals(name) && value.length() >= DEFLATE_THRESHOLD) {
+                    byte[] deflated = deflate(value.getBytes(StandardCharsets.UTF_8));
+                    writeHeader(MAJOR_BYTES, deflated.length);
+                    output.write(deflated, 0, deflated.length);
+                }
+                else {
+                    writeText(value);
+                }
+                break;
+            case NUMBER:
+                writeNumber(reader.nextString());
+                break;
+            case BOOLEAN:
+                output.write(reader.nextBoolean() ? TRUE : FALSE);
+                break;
+            case NULL:
+                reader.nextNull();
+                output.write(NULL);
+                break;
+            default:
+                throw new IOException("Unexpected JSON token " + token);
+        }
+    }
+
+    private void writeNumber(String number) {
+        try {
+            long value = Long.parseLong(number);
+            if (value >= 0) {
+                writeHeader(MAJOR_UNSIGNED, value);
+            }
+            else {
+                writeHeader(MAJOR_NEGATIVE, -1 - value);
+            }
+        }
+        catch (NumberFormatException e) {
+            long bits = Double.doubleToLongBits(Double.parseDouble(number));
+            output.write(DOUBLE);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                output.write((int) (bits >>> shift) & 0xFF);
+            }
+        }
+    }
+
+    private void writeText(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeHeader(MAJOR_TEXT, bytes.length);
+        output.write(bytes, 0, bytes.length);
+    }
+
+    private void writeHeader(int majorType, long value) {
+        int major = majorType << 5;
+        if (value < 24) {
+            output.write(major | (int) value);
+        }
+        else if (value <= 0xFF) {
+            output.write(major | 24);
+            output.write((int) value);
+        }
+        else if (value <= 0xFFFF) {
+            output.write(major | 25);
+            output.write((int) (value >> 8) & 0xFF);
+            output.write((int) value & 0xFF);
+        }
+        else if (value <= 0xFFFFFFFFL) {
+            output.write(major | 26);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                output.write((int) (value >> shift) & 0xFF);
+            }
+        }
+        else {
+            output.write(major | 27);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                output.write((int) (value >> shift) & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * @return position after the item
+     */
+    private int readValue(byte[] data, int position, JsonWriter writer) throws IOException {
+        checkAvailable(data, position, 1);
+        int initial = data[position++] & 0xFF;
+        int majorType = initial >> 5;
+        int info = initial & 0x1F;
+
+        if (majorType == MAJOR_SIMPLE) {
+            switch (initial) {
+                case FALSE:
+                    writer.value(false);
+                    return position;
+                case TRUE:
+                    writer.value(true);
+                    return position;
+                case NULL:
+                    writer.nullValue();
+                    return position;
+                case DOUBLE:
+                    checkAvailable(data, position, 8);
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) {
+                        bits = (bits << 8) | (data[position++] & 0xFF);
+                    }
+                    writer.value(Double.longBitsToDouble(bits));
+                    return position;
+                default:
+                    throw new IOException("Unsupported CBOR simple value " + initial);
+            }
+        }
+
+        long length = 0;
+        boolean indefinite = info == INDEFINITE;
+        if (!indefinite) {
+            int size = info < 24 ? 0 : info == 24 ? 1 : info == 25 ? 2 : info == 26 ? 4 : info == 27 ? 8 : -1;
+            if (size < 0) {
+                throw new IOException("Invalid CBOR additional info " + info);
+            }
+            if (size == 0) {
+                length = info;
+            }
+            else {
+                checkAvailable(data, position, size);
+                for (int i = 0; i < size; i++) {
+                    length = (length << 8) | (data[position++] & 0xFF);
+                }
+            }
+        }
+        else if (majorType != MAJOR_ARRAY && majorType != MAJOR_MAP) {
+            throw new IOException("Indefinite length is only supported for arrays and maps");
+        }
+
+        switch (majorType) {
+            case MAJOR_UNSIGNED:
+                writer.value(length);
+                return position;
+            case MAJOR_NEGATIVE:
+                writer.value(-1 - length);
+                return position;
+            case MAJOR_BYTES:
+                checkAvailable(data, position, length);
+                writer.value(inflate(data, position, (int) length));
+                return position + (int) length;
+            case MAJOR_TEXT:
+                checkAvailable(data, position, length);
+                writer.value(new String(data, position, (int) length, StandardCharsets.UTF_8));
+                return position + (int) length;
+            case MAJOR_ARRAY:
+                writer.beginArray();
+                for (long i = 0; indefinite || i < length; i++) {
+                    if (indefinite && isBreak(data, position)) {
+                        position++;
+                        break;
+                    }
+                    position = readValue(data, position, writer);
+                }
+                writer.endArray();
+                return position;
+            case MAJOR_MAP:
+                writer.beginObject();
+                for (long i = 0; indefinite || i < length; i++) {
+                    if (indefinite && isBreak(data, position)) {
+                        position++;
+                        break;
+                    }
+                    position = readName(data, position, writer);
+                    position = readValue(data, position, writer);
+                }
+                writer.endObject();
+                return position;
+            default:
+                throw new IOException("Unsupported CBOR major type " + majorType);
+        }
+    }
+
+    private int readName(byte[] data, int position, JsonWriter writer) throws IOException {
+        checkAvailable(data, position, 1);
+        int initial = data[position++] & 0xFF;
+        if (initial >> 5 != MAJOR_TEXT) {
+            throw new IOException("CBOR map keys should be text");
+        }
+        int info = initial & 0x1F;
+        int length;
+        if (info < 24) {
+            length = info;
+        }
+        else if (info == 24) {
+            checkAvailable(data, position, 1);
+            length = data[position++] & 0xFF;
+        }
+        else if (info == 25) {
+            checkAvailable(data, position, 2);
+            length = ((data[position] & 0xFF) << 8) | (data[position + 1] & 0xFF);
+            position += 2;
+        }
+        else {
+            throw new IOException("CBOR map key is too long");
+        }
+        checkAvailable(data, position, length);
+        writer.name(new String(data, position, length, StandardCharsets.UTF_8));
+        return position + length;
+    }
+
+    private static boolean isBreak(byte[] data, int position) throws IOException {
+        checkAvailable(data, position, 1);
+        return (data[position] & 0xFF) == BREAK;
+    }
+
+    private static void checkAvailable(byte[] data, int position, long length) throws IOException {
+        if (length < 0 || position + length > data.length) {
+            throw new IOException("Truncated CBOR message");
+        }
+    }
+
+    private byte[] deflate(byte[] input) {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(input.length / 2);
+        while (!deflater.finished()) {
+            int count = deflater.deflate(chunk);
+            compressed.write(chunk, 0, count);
+        }
+        return compressed.toByteArray();
+    }
+
+    private String inflate(byte[] data, int offset, int length) throws IOException {
+        inflater.reset();
+        inflater.setInput(data, offset, length);
+        ByteArrayOutputStream text = new ByteArrayOutputStream(length * 4);
+        try {
+            while (!inflater.finished()) {
+                int count = inflater.inflate(chunk);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated deflate data");
+                }
+                text.write(chunk, 0, count);
+            }
+        }
+        catch (DataFormatException e) {
+            throw new IOException("Invalid deflate data", e);
+        }
+        return new String(text.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
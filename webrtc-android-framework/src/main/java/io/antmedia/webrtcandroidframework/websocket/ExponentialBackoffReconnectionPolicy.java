@@ -0,0 +1,94 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with full jitter and a circuit breaker.
+ *
+ * Delay before the n'th attempt is a random value in [0, min(maxDelayMs, baseDelayMs * 2^n)).
+ * Randomizing the whole interval keeps clients that lost the connection at the same time
+ * (e.g. server restart) from reconnecting in lockstep.
+ *
+ * After {@code failureThreshold} attempts without a successful connection, circuit is opened and the next attempt
+ * is made after {@code openCircuitDelayMs}. That attempt is a half open trial, if it fails as well
+ * circuit is opened again. Successful connection closes the circuit and resets the backoff.
+ */
+public class ExponentialBackoffReconnectionPolicy implements ReconnectionPolicy {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public static final long DEFAULT_BASE_DELAY_MS = 1000;
+    public static final long DEFAULT_MAX_DELAY_MS = 30000;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 10;
+    public static final long DEFAULT_OPEN_CIRCUIT_DELAY_MS = 60000;
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int failureThreshold;
+    private final long openCircuitDelayMs;
+    private final Random random;
+
+    private int attempt = 0;
+    private State state = State.CLOSED;
+
+    public ExponentialBackoffReconnectionPolicy() {
+        this(DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_CIRCUIT_DELAY_MS, new Random());
+    }
+
+    public ExponentialBackoffReconnectionPolicy(long baseDelayMs, long maxDelayMs, int failureThreshold, long openCircuitDelayMs, Random random) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.failureThreshold = failureThreshold;
+        this.openCircuitDelayMs = openCircuitDelayMs;
+        this.random = random;
+    }
+
+    @Override
+    public synchronized long nextDelayMs() {
+        if (state == State.HALF_OPEN || attempt >= failureThreshold) {
+            state = State.OPEN;
+            return openCircuitDelayMs;
+        }
+        long cap = getBackoffCapMs(attempt++);
+        return (long) (random.nextDouble() * cap);
+    }
+
+    @Override
+    public synchronized void onAttempt() {
+        if (state == State.OPEN) {
+            state = State.HALF_OPEN;
+        }
+    }
+
+    @Override
+    public synchronized void onConnected() {
+        attempt = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * @return upper bound of the delay for the given attempt index
+     */
+    public long getBackoffCapMs(int attempt) {
+        //avoid overflow for large attempt counts
+        int shift = Math.min(attempt, 30);
+        long cap = baseDelayMs << shift;
+        if (cap <= 0 || cap > maxDelayMs) {
+            cap = maxDelayMs;
+        }
+        return cap;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return number of attempts scheduled since the last successful connection
+     */
+    public synchronized int getAttempt() {
+        return attempt;
+    }
+}
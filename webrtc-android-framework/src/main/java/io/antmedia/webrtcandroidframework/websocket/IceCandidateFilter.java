@@ -0,0 +1,110 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import android.util.Log;
+
+import org.webrtc.IceCandidate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops the local ICE candidates that are already sent to the server for the same stream.
+ *
+ * Candidates are sent as soon as they are gathered, Ant Media Server accepts one takeCandidate per frame so
+ * they are not delayed or merged. Only the last {@code maxRememberedCandidates} candidates of a stream are
+ * remembered, and the candidates that are removed by the peer connection are forgotten, so they are sent
+ * again if they are gathered again.
+ *
+ * All methods should be called on the signalling handler thread.
+ */
+public class IceCandidateFilter {
+    private static final String TAG = "IceCandidateFilter";
+
+    public static final int DEFAULT_MAX_REMEMBERED_CANDIDATES = 64;
+
+    public interface CandidateSender {
+        void send(String streamId, IceCandidate candidate);
+    }
+
+    private final CandidateSender sender;
+    private final int maxRememberedCandidates;
+
+    /**
+     * streamId -> keys of the sent candidates in the sending order
+     */
+    private final Map<String, LinkedHashMap<String, Boolean>> sentCandidates = new HashMap<>();
+
+    private final AtomicLong candidatesReceived = new AtomicLong();
+    private final AtomicLong candidatesSent = new AtomicLong();
+
+    public IceCandidateFilter(CandidateSender sender, int maxRememberedCandidates) {
+        this.sender = sender;
+        this.maxRememberedCandidates = Math.max(1, maxRememberedCandidates);
+    }
+
+    public void add(String streamId, IceCandidate candidate) {
+        candidatesReceived.incrementAndGet();
+        LinkedHashMap<String, Boolean> sent = sentCandidates.get(streamId);
+        if (sent == null) {
+            sent = new LinkedHashMap<String, Boolean>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > maxRememberedCandidates;
+                }
+            };
+            sentCandidates.put(streamId, sent);
+        }
+
+        if (sent.put(getKey(candidate), Boolean.TRUE) != null) {
+            Log.d(TAG, "Duplicate candidate is dropped for " + streamId);
+            return;
+        }
+        candidatesSent.incrementAndGet();
+        sender.send(streamId, candidate);
+    }
+
+    /**
+     * Forgets the candidates that are removed by the peer connection
+     */
+    public void remove(String streamId, IceCandidate[] candidates) {
+        Map<String, Boolean> sent = sentCandidates.get(streamId);
+        if (sent == null || candidates == null) {
+            return;
+        }
+        for (IceCandidate candidate : candidates) {
+            sent.remove(getKey(candidate));
+        }
+    }
+
+    /**
+     * Discards the state of the stream. It's called when stream is stopped.
+     */
+    public void clear(String streamId) {
+        sentCandidates.remove(streamId);
+    }
+
+    public void clearAll() {
+        sentCandidates.clear();
+    }
+
+    private static String getKey(IceCandidate candidate) {
+        return candidate.sdpMLineIndex + ":" + candidate.sdp;
+    }
+
+    public long getCandidatesReceived() {
+        return candidatesReceived.get();
+    }
+
+    public long getCandidatesSent() {
+        return candidatesSent.get();
+    }
+
+    /**
+     * @return number of websocket frames that are not sent because candidate is duplicate
+     */
+    public long getCandidatesDropped() {
+        return candidatesReceived.get() - candidatesSent.get();
+    }
+}
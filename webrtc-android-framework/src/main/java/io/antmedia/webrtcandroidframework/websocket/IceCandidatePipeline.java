@@ -0,0 +1,95 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the local ICE candidates to the server in passes on the signalling thread.
+ *
+ * First candidate posts a pass right away, so it's not delayed. Candidates that are gathered until the pass runs
+ * join it and their takeCandidate frames are sent back to back in one task instead of one task per candidate.
+ * Ant Media Server accepts one candidate per takeCandidate frame, so the number of frames is not reduced.
+ *
+ * {@link #closePass()} makes the next candidate start a new pass. It should be called before another message is
+ * posted to the signalling thread, e.g. the local description, so that the candidates gathered after it are not
+ * sent before it. Methods can be called from any thread.
+ */
+public class IceCandidatePipeline {
+
+    private static class Pass {
+        private final List<String> streamIds = new ArrayList<>();
+        private final List<IceCandidate> candidates = new ArrayList<>();
+    }
+
+    private final Executor signallingExecutor;
+    private final IceCandidateFilter.CandidateSender sender;
+
+    private Pass openPass;
+
+    private final AtomicLong passCount = new AtomicLong();
+    private final AtomicLong candidatesSent = new AtomicLong();
+
+    /**
+     * @param signallingExecutor runs the passes on the signalling thread
+     * @param sender sends a candidate on the signalling thread
+     */
+    public IceCandidatePipeline(Executor signallingExecutor, IceCandidateFilter.CandidateSender sender) {
+        this.signallingExecutor = signallingExecutor;
+        this.sender = sender;
+    }
+
+    public void offer(String streamId, IceCandidate candidate) {
+        Pass pass = null;
+        synchronized (this) {
+            if (openPass == null) {
+                openPass = new Pass();
+                pass = openPass;
+            }
+            openPass.streamIds.add(streamId);
+            openPass.candidates.add(candidate);
+        }
+        if (pass != null) {
+            Pass newPass = pass;
+            signallingExecutor.execute(() -> run(newPass));
+        }
+    }
+
+    /**
+     * Candidates that are offered after this call are sent in a new pass
+     */
+    public synchronized void closePass() {
+        openPass = null;
+    }
+
+    private void run(Pass pass) {
+        synchronized (this) {
+            if (openPass == pass) {
+                openPass = null;
+            }
+        }
+        passCount.incrementAndGet();
+        candidatesSent.addAndGet(pass.candidates.size());
+        for (int i = 0; i < pass.candidates.size(); i++) {
+            sender.send(pass.streamIds.get(i), pass.candidates.get(i));
+        }
+    }
+
+    public long getPassCount() {
+        return passCount.get();
+    }
+
+    public long getCandidatesSent() {
+        return candidatesSent.get();
+    }
+
+    /**
+     * @return number of candidates that are sent in the pass of an earlier candidate instead of their own task
+     */
+    public long getPipelinedCount() {
+        return candidatesSent.get() - passCount.get();
+    }
+}
@@ -0,0 +1,25 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+/**
+ * Decides when {@link WebSocketHandler} should try to reconnect after websocket connection is lost.
+ * You may implement this interface and set it through
+ * {@link io.antmedia.webrtcandroidframework.api.WebRTCClientConfig#wsReconnectionPolicy}
+ */
+public interface ReconnectionPolicy {
+
+    /**
+     * It's called when disconnection is detected and after each attempt that has not connected yet.
+     * @return delay in milliseconds before the next reconnection attempt
+     */
+    long nextDelayMs();
+
+    /**
+     * It's called right before a reconnection attempt is made
+     */
+    void onAttempt();
+
+    /**
+     * It's called when websocket is connected again
+     */
+    void onConnected();
+}
@@ -0,0 +1,107 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+/**
+ * Keeps the smoothed round trip time of the signalling connection and derives the keepalive
+ * parameters from it.
+ *
+ * Smoothing follows the retransmission timer of TCP (RFC 6298):
+ * SRTT = 7/8 SRTT + 1/8 R, RTTVAR = 3/4 RTTVAR + 1/4 |SRTT - R| and timeout = SRTT + 4 RTTVAR.
+ *
+ * Ping interval and dead peer timeout are derived from that timeout, so a good network detects
+ * a dead link faster and a bad network does not disconnect because of a few slow pongs.
+ * Until the first sample is received, the fixed values of the previous timer are used.
+ */
+public class RttEstimator {
+
+    public static final long DEFAULT_PING_INTERVAL_MS = 2000;
+    public static final long DEFAULT_DEAD_PEER_TIMEOUT_MS = 4000;
+
+    public static final long MIN_PING_INTERVAL_MS = 1000;
+    public static final long MAX_PING_INTERVAL_MS = 5000;
+    public static final long MIN_DEAD_PEER_TIMEOUT_MS = 2000;
+    public static final long MAX_DEAD_PEER_TIMEOUT_MS = 15000;
+
+    private long lastRttMs = -1;
+    private long smoothedRttMs = -1;
+    private long rttVariationMs = -1;
+    private long sampleCount = 0;
+
+    /**
+     * Adds a new round trip time sample
+     * @param rttMs time between sending a ping and receiving its pong
+     */
+    public synchronized void onSample(long rttMs) {
+        if (rttMs < 0) {
+            return;
+        }
+        lastRttMs = rttMs;
+        if (sampleCount == 0) {
+            smoothedRttMs = rttMs;
+            rttVariationMs = rttMs / 2;
+        }
+        else {
+            rttVariationMs = (3 * rttVariationMs + Math.abs(smoothedRttMs - rttMs)) / 4;
+            smoothedRttMs = (7 * smoothedRttMs + rttMs) / 8;
+        }
+        sampleCount++;
+    }
+
+    /**
+     * @return SRTT + 4 * RTTVAR or -1 if there is no sample yet
+     */
+    public synchronized long getRetransmissionTimeoutMs() {
+        if (sampleCount == 0) {
+            return -1;
+        }
+        return smoothedRttMs + 4 * rttVariationMs;
+    }
+
+    /**
+     * @return interval between two pings
+     */
+    public synchronized long getPingIntervalMs() {
+        if (sampleCount == 0) {
+            return DEFAULT_PING_INTERVAL_MS;
+        }
+        return clamp(getRetransmissionTimeoutMs(), MIN_PING_INTERVAL_MS, MAX_PING_INTERVAL_MS);
+    }
+
+    /**
+     * @return maximum time to wait for a pong before the connection is considered dead
+     */
+    public synchronized long getDeadPeerTimeoutMs() {
+        if (sampleCount == 0) {
+            return DEFAULT_DEAD_PEER_TIMEOUT_MS;
+        }
+        //at least two pings should be unanswered before the connection is closed
+        long timeout = Math.max(2 * getPingIntervalMs(), 2 * getRetransmissionTimeoutMs());
+        return clamp(timeout, MIN_DEAD_PEER_TIMEOUT_MS, MAX_DEAD_PEER_TIMEOUT_MS);
+    }
+
+    public synchronized void reset() {
+        lastRttMs = -1;
+        smoothedRttMs = -1;
+        rttVariationMs = -1;
+        sampleCount = 0;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public synchronized long getLastRttMs() {
+        return lastRttMs;
+    }
+
+    public synchronized long getSmoothedRttMs() {
+        return smoothedRttMs;
+    }
+
+    public synchronized long getRttVariationMs() {
+        return rttVariationMs;
+    }
+
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+}
@@ -0,0 +1,34 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import java.net.URI;
+
+import de.tavendo.autobahn.WebSocket;
+import de.tavendo.autobahn.WebSocketException;
+
+/**
+ * Carries the signalling messages between {@link WebSocketHandler} and the server.
+ *
+ * {@link AutobahnSignalingTransport} is the default implementation and connects to Ant Media Server
+ * over websocket. Tests use a loopback transport that answers in process so that the signalling path
+ * can be run without a server.
+ *
+ * Events are reported with autobahn's observer interface because {@link WebSocketHandler} and the
+ * listener API already use its close codes. The interface itself has no Android dependency.
+ */
+public interface SignalingTransport {
+
+    /**
+     * Opens a new connection. Previous connection, if there is, should not be used anymore.
+     * @param uri server address
+     * @param observer receives the connection events and the messages
+     */
+    void connect(URI uri, WebSocket.WebSocketConnectionObserver observer) throws WebSocketException;
+
+    void disconnect();
+
+    boolean isConnected();
+
+    void sendTextMessage(String message);
+
+    void sendBinaryMessage(byte[] message);
+}
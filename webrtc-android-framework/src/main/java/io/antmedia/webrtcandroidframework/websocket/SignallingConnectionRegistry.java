@@ -0,0 +1,110 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import android.os.Handler;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shares one {@link WebSocketHandler} between the clients that connect to the same server url.
+ *
+ * Connection is created and connected by the first client and it's disconnected when the last
+ * client releases it. Incoming messages are delivered to the clients by a {@link SignallingEventRouter},
+ * so each client should add a route for the streams and rooms it uses.
+ *
+ * Connection options (transport, reconnection, outbox, encoding) are set by the first client.
+ */
+public class SignallingConnectionRegistry {
+
+    private static final String TAG = "SignallingConnRegistry";
+
+    /**
+     * Configures a new shared connection before it's connected
+     */
+    public interface ConnectionInitializer {
+        void initialize(WebSocketHandler wsHandler);
+    }
+
+    private static class SharedConnection {
+        final WebSocketHandler wsHandler;
+        final SignallingEventRouter router;
+        final Handler handler;
+        int referenceCount;
+
+        SharedConnection(WebSocketHandler wsHandler, SignallingEventRouter router, Handler handler) {
+            this.wsHandler = wsHandler;
+            this.router = router;
+            this.handler = handler;
+        }
+    }
+
+    private static final Map<String, SharedConnection> connections = new HashMap<>();
+
+    private SignallingConnectionRegistry() {
+    }
+
+    /**
+     * Returns the shared connection of the server url and adds the client as a listener.
+     * It should be called on the thread of the handler like {@link WebSocketHandler#connect(String)}
+     *
+     * @param serverUrl websocket url
+     * @param client listener of the client
+     * @param handler handler of the connection if it's created
+     * @param initializer called if the connection is created, it can be null
+     */
+    public static synchronized WebSocketHandler acquire(String serverUrl, AntMediaSignallingEvents client,
+                                                        Handler handler, ConnectionInitializer initializer) {
+        SharedConnection connection = connections.get(serverUrl);
+        boolean created = connection == null;
+        if (created) {
+            SignallingEventRouter router = new SignallingEventRouter();
+            connection = new SharedConnection(new WebSocketHandler(router, handler), router, handler);
+            connections.put(serverUrl, connection);
+        }
+
+        if (!connection.router.hasListener(client)) {
+            connection.referenceCount++;
+            connection.router.addListener(client);
+        }
+
+        if (created) {
+            Log.i(TAG, "Creating shared websocket connection to " + serverUrl);
+            if (initializer != null) {
+                initializer.initialize(connection.wsHandler);
+            }
+            connection.wsHandler.connect(serverUrl);
+        }
+        return connection.wsHandler;
+    }
+
+    /**
+     * Removes the client from the shared connection. Connection is disconnected on the thread of its handler
+     * if it has no client, so the last client can release it from any thread
+     */
+    public static synchronized void release(String serverUrl, AntMediaSignallingEvents client) {
+        SharedConnection connection = connections.get(serverUrl);
+        if (connection == null || !connection.router.hasListener(client)) {
+            return;
+        }
+        connection.router.removeListener(client);
+        connection.referenceCount--;
+        if (connection.referenceCount <= 0) {
+            Log.i(TAG, "Closing shared websocket connection to " + serverUrl);
+            connections.remove(serverUrl);
+            WebSocketHandler wsHandler = connection.wsHandler;
+            connection.handler.post(() -> {
+                wsHandler.disconnect(true);
+                wsHandler.stopReconnector();
+            });
+        }
+    }
+
+    /**
+     * @return number of the clients that use the connection of the server url
+     */
+    public static synchronized int getReferenceCount(String serverUrl) {
+        SharedConnection connection = connections.get(serverUrl);
+        return connection != null ? connection.referenceCount : 0;
+    }
+}
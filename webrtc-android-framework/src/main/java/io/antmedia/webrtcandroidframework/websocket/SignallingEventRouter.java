@@ -0,0 +1,291 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import android.util.Log;
+
+import org.webrtc.IceCandidate;
+import org.webrtc.SessionDescription;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.antmedia.webrtcandroidframework.core.StreamInfo;
+
+/**
+ * Delivers the events of a shared {@link WebSocketHandler} to the clients that use it.
+ *
+ * Events of a stream are delivered to the listener that has a route for the streamId. Connection
+ * events (connected, disconnected, rtt) and the events of the messages that cannot be matched to
+ * a route, e.g. roomInformation without streamId, are delivered to all listeners.
+ * Events of an unknown streamId are dropped because they belong to none of the clients.
+ */
+public class SignallingEventRouter implements AntMediaSignallingEvents {
+
+    private static final String TAG = "SignallingEventRouter";
+
+    private final List<AntMediaSignallingEvents> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * streamId or roomId -> listener
+     */
+    private final Map<String, AntMediaSignallingEvents> routes = new ConcurrentHashMap<>();
+
+    public void addListener(AntMediaSignallingEvents listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes the listener and all of its routes
+     */
+    public void removeListener(AntMediaSignallingEvents listener) {
+        listeners.remove(listener);
+        removeRoutes(listener);
+    }
+
+    /**
+     * Removes the routes of the listener, listener still gets the connection events
+     */
+    public void removeRoutes(AntMediaSignallingEvents listener) {
+        Iterator<AntMediaSignallingEvents> iterator = routes.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == listener) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Routes the events of the id to the listener. Last listener wins if the same id is added again.
+     * Listener should be added before with {@link #addListener(AntMediaSignallingEvents)}
+     * @param id streamId or roomId
+     */
+    public void addRoute(String id, AntMediaSignallingEvents listener) {
+        if (id == null || id.isEmpty() || !listeners.contains(listener)) {
+            return;
+        }
+        routes.put(id, listener);
+    }
+
+    public void removeRoute(String id) {
+        if (id != null) {
+            routes.remove(id);
+        }
+    }
+
+    public boolean hasListener(AntMediaSignallingEvents listener) {
+        return listeners.contains(listener);
+    }
+
+    public int getListenerCount() {
+        return listeners.size();
+    }
+
+    public boolean hasRoutes() {
+        return !routes.isEmpty();
+    }
+
+    /**
+     * @param ids ids of the message in the matching order, they can be null
+     * @return listener of the first id that has a route. If there is no route, router itself is
+     * returned so stream events are dropped and the other events are delivered to all listeners
+     */
+    public AntMediaSignallingEvents getListener(String... ids) {
+        for (String id : ids) {
+            AntMediaSignallingEvents listener = id != null ? routes.get(id) : null;
+            if (listener != null) {
+                return listener;
+            }
+        }
+        return this;
+    }
+
+    private AntMediaSignallingEvents route(String streamId) {
+        AntMediaSignallingEvents listener = streamId != null ? routes.get(streamId) : null;
+        if (listener == null) {
+            Log.w(TAG, "No listener for the stream: " + streamId);
+        }
+        return listener;
+    }
+
+    @Override
+    public void onPublishStarted(String streamId) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onPublishStarted(streamId);
+        }
+    }
+
+    @Override
+    public void onRemoteIceCandidate(String streamId, IceCandidate candidate) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onRemoteIceCandidate(streamId, candidate);
+        }
+    }
+
+    @Override
+    public void onTakeConfiguration(String streamId, SessionDescription sdp) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onTakeConfiguration(streamId, sdp);
+        }
+    }
+
+    @Override
+    public void onPublishFinished(String streamId) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onPublishFinished(streamId);
+        }
+    }
+
+    @Override
+    public void onPlayStarted(String streamId) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onPlayStarted(streamId);
+        }
+    }
+
+    @Override
+    public void onPlayFinished(String streamId) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onPlayFinished(streamId);
+        }
+    }
+
+    @Override
+    public void noStreamExistsToPlay(String streamId) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.noStreamExistsToPlay(streamId);
+        }
+    }
+
+    @Override
+    public void streamIdInUse(String streamId) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.streamIdInUse(streamId);
+        }
+    }
+
+    @Override
+    public void onStartStreaming(String streamId) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onStartStreaming(streamId);
+        }
+    }
+
+    @Override
+    public void onJoinedTheRoom(String streamId, String[] streams) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onJoinedTheRoom(streamId, streams);
+        }
+    }
+
+    @Override
+    public void onBitrateMeasurement(String streamId, int targetBitrate, int videoBitrate, int audioBitrate) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onBitrateMeasurement(streamId, targetBitrate, videoBitrate, audioBitrate);
+        }
+    }
+
+    @Override
+    public void onStreamInfoList(String streamId, ArrayList<StreamInfo> streamInfoList) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onStreamInfoList(streamId, streamInfoList);
+        }
+    }
+
+    @Override
+    public void onError(String streamId, String definition) {
+        if (streamId == null) {
+            for (AntMediaSignallingEvents listener : listeners) {
+                listener.onError(null, definition);
+            }
+            return;
+        }
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onError(streamId, definition);
+        }
+    }
+
+    @Override
+    public void onSessionRestored(String streamId) {
+        AntMediaSignallingEvents listener = route(streamId);
+        if (listener != null) {
+            listener.onSessionRestored(streamId);
+        }
+    }
+
+    @Override
+    public void onRoomInformation(String[] streams) {
+        for (AntMediaSignallingEvents listener : listeners) {
+            listener.onRoomInformation(streams);
+        }
+    }
+
+    @Override
+    public void onTrackList(String[] tracks) {
+        for (AntMediaSignallingEvents listener : listeners) {
+            listener.onTrackList(tracks);
+        }
+    }
+
+    @Override
+    public void onLeftTheRoom(String roomId) {
+        AntMediaSignallingEvents routed = roomId != null ? routes.get(roomId) : null;
+        if (routed != null) {
+            routed.onLeftTheRoom(roomId);
+            return;
+        }
+        for (AntMediaSignallingEvents listener : listeners) {
+            listener.onLeftTheRoom(roomId);
+        }
+    }
+
+    @Override
+    public void onBroadcastObject(Broadcast broadcast) {
+        AntMediaSignallingEvents routed = broadcast.getStreamId() != null ? routes.get(broadcast.getStreamId()) : null;
+        if (routed != null) {
+            routed.onBroadcastObject(broadcast);
+            return;
+        }
+        for (AntMediaSignallingEvents listener : listeners) {
+            listener.onBroadcastObject(broadcast);
+        }
+    }
+
+    @Override
+    public void onWebSocketConnected() {
+        for (AntMediaSignallingEvents listener : listeners) {
+            listener.onWebSocketConnected();
+        }
+    }
+
+    @Override
+    public void onWebSocketDisconnected() {
+        for (AntMediaSignallingEvents listener : listeners) {
+            listener.onWebSocketDisconnected();
+        }
+    }
+
+    @Override
+    public void onSignallingRttMeasured(long rttMs, long smoothedRttMs, long rttVariationMs) {
+        for (AntMediaSignallingEvents listener : listeners) {
+            listener.onSignallingRttMeasured(rttMs, smoothedRttMs, rttVariationMs);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import java.util.ArrayList;
+
+import io.antmedia.webrtcandroidframework.core.StreamInfo;
+
+/**
+ * Flat holder for the fields of an incoming signalling message.
+ * It's filled by {@link SignallingMessageParser} in a single streaming pass and only the fields
+ * that are used by the handlers in {@link WebSocketHandler} are kept. Other fields are skipped
+ * without being materialized.
+ */
+public class SignallingMessage {
+
+    String command;
+    String streamId;
+    String definition;
+    String sdp;
+    String type;
+    String candidateId;
+    int candidateLabel = -1;
+    String candidateSdp;
+    String[] streams;
+    String[] trackList;
+    ArrayList<StreamInfo> streamInfoList;
+    String roomName;
+    Integer targetBitrate;
+    Integer videoBitrate;
+    Integer audioBitrate;
+    String broadcast;
+    String encoding;
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public String getDefinition() {
+        return definition;
+    }
+
+    public String getSdp() {
+        return sdp;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getCandidateId() {
+        return candidateId;
+    }
+
+    public int getCandidateLabel() {
+        return candidateLabel;
+    }
+
+    public String getCandidateSdp() {
+        return candidateSdp;
+    }
+
+    public String[] getStreams() {
+        return streams;
+    }
+
+    public String[] getTrackList() {
+        return trackList;
+    }
+
+    public ArrayList<StreamInfo> getStreamInfoList() {
+        return streamInfoList;
+    }
+
+    public String getRoomName() {
+        return roomName;
+    }
+
+    public Integer getTargetBitrate() {
+        return targetBitrate;
+    }
+
+    public Integer getVideoBitrate() {
+        return videoBitrate;
+    }
+
+    public Integer getAudioBitrate() {
+        return audioBitrate;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return broadcast object as JSON text, it's parsed to {@link Broadcast} by the handler
+     */
+    public String getBroadcast() {
+        return broadcast;
+    }
+}
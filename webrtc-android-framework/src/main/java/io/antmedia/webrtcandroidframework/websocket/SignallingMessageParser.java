@@ -0,0 +1,162 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import io.antmedia.webrtcandroidframework.core.StreamInfo;
+
+/**
+ * Streaming parser for the messages received from Ant Media Server.
+ * It walks the message once with Gson's {@link JsonReader} and fills a {@link SignallingMessage}.
+ * Unknown fields are skipped so no intermediate JSON tree is created for the message.
+ */
+public class SignallingMessageParser {
+
+    /**
+     * Parses the text message
+     * @param text message received from the websocket
+     * @return parsed message
+     * @throws IOException if message is not a valid JSON object
+     * @throws IllegalStateException if a field has unexpected type
+     */
+    public SignallingMessage parse(String text) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(text));
+        SignallingMessage message = new SignallingMessage();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case WebSocketConstants.COMMAND:
+                    message.command = reader.nextString();
+                    break;
+                case WebSocketConstants.STREAM_ID:
+                    message.streamId = reader.nextString();
+                    break;
+                case WebSocketConstants.DEFINITION:
+                    message.definition = reader.nextString();
+                    break;
+                case WebSocketConstants.SDP:
+                    message.sdp = reader.nextString();
+                    break;
+                case WebSocketConstants.TYPE:
+                    message.type = reader.nextString();
+                    break;
+                case WebSocketConstants.CANDIDATE_ID:
+                    message.candidateId = reader.nextString();
+                    break;
+                case WebSocketConstants.CANDIDATE_LABEL:
+                    message.candidateLabel = reader.nextInt();
+                    break;
+                case WebSocketConstants.CANDIDATE_SDP:
+                    message.candidateSdp = reader.nextString();
+                    break;
+                case WebSocketConstants.STREAMS_IN_ROOM:
+                    message.streams = readStringArray(reader);
+                    break;
+                case WebSocketConstants.TRACK_LIST:
+                    message.trackList = readStringArray(reader);
+                    break;
+                case WebSocketConstants.STREAM_INFO:
+                    message.streamInfoList = readStreamInfoList(reader);
+                    break;
+                case WebSocketConstants.ATTR_ROOM_NAME:
+                    message.roomName = reader.nextString();
+                    break;
+                case WebSocketConstants.TARGET_BITRATE:
+                    message.targetBitrate = reader.nextInt();
+                    break;
+                case WebSocketConstants.VIDEO_BITRATE:
+                    message.videoBitrate = reader.nextInt();
+                    break;
+                case WebSocketConstants.AUDIO_BITRATE:
+                    message.audioBitrate = reader.nextInt();
+                    break;
+                case WebSocketConstants.BROADCAST:
+                    message.broadcast = readRawValue(reader);
+                    break;
+                case WebSocketConstants.ENCODING:
+                    message.encoding = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return message;
+    }
+
+    private String[] readStringArray(JsonReader reader) throws IOException {
+        ArrayList<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                values.add(null);
+            } else {
+                values.add(reader.nextString());
+            }
+        }
+        reader.endArray();
+        return values.toArray(new String[0]);
+    }
+
+    private ArrayList<StreamInfo> readStreamInfoList(JsonReader reader) throws IOException {
+        ArrayList<StreamInfo> streamInfos = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            StreamInfo streamInfo = new StreamInfo();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case WebSocketConstants.STREAM_WIDTH:
+                        streamInfo.setWidth(reader.nextInt());
+                        break;
+                    case WebSocketConstants.STREAM_HEIGHT:
+                        streamInfo.setHeight(reader.nextInt());
+                        break;
+                    case WebSocketConstants.VIDEO_BITRATE:
+                        streamInfo.setVideoBitrate(reader.nextInt());
+                        break;
+                    case WebSocketConstants.AUDIO_BITRATE:
+                        streamInfo.setAudioBitrate(reader.nextInt());
+                        break;
+                    case WebSocketConstants.VIDEO_CODEC:
+                        streamInfo.setCodec(reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            streamInfos.add(streamInfo);
+        }
+        reader.endArray();
+        return streamInfos;
+    }
+
+    /**
+     * Server may send nested objects either as a JSON string or as an inline object.
+     * Both are returned as JSON text.
+     */
+    private String readRawValue(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+            return JsonParser.parseReader(reader).toString();
+        }
+        return reader.nextString();
+    }
+}
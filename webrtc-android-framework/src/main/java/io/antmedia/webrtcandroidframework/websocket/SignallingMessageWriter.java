@@ -0,0 +1,219 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+/**
+ * Writes the outgoing signalling messages into a reusable buffer.
+ *
+ * Messages have fixed shapes, so fields are appended directly instead of building a JSONObject
+ * and boxing the values. Output is the same with Android's JSONObject#toString for the same
+ * fields: fields are in insertion order, null values are omitted and strings are escaped like
+ * Android's JSONStringer does.
+ *
+ * Methods are synchronized because ping messages and candidates may be sent from other threads.
+ */
+public class SignallingMessageWriter {
+
+    public static final String PING_MESSAGE = "{\"" + WebSocketConstants.COMMAND + "\":\"" + WebSocketConstants.PING_COMMAND + "\"}";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+
+    private boolean firstField;
+
+    public synchronized String publish(String streamId, String token, boolean videoEnabled, boolean audioEnabled,
+                                       String subscriberId, String subscriberCode, String streamName, String mainTrackId) {
+        begin(WebSocketConstants.PUBLISH_COMMAND);
+        field(WebSocketConstants.STREAM_ID, streamId);
+        field(WebSocketConstants.TOKEN, token);
+        field(WebSocketConstants.SUBSCRIBER_ID, subscriberId);
+        field(WebSocketConstants.SUBSCRIBER_CODE, subscriberCode);
+        field(WebSocketConstants.STREAM_NAME, streamName);
+        field(WebSocketConstants.VIDEO, videoEnabled);
+        field(WebSocketConstants.AUDIO, audioEnabled);
+        field(WebSocketConstants.MAIN_TRACK, mainTrackId);
+        return end();
+    }
+
+    public synchronized String play(String streamId, String token, String[] tracks, String subscriberId,
+                                    String subscriberCode, String viewerInfo) {
+        begin(WebSocketConstants.PLAY_COMMAND);
+        field(WebSocketConstants.STREAM_ID, streamId);
+        field(WebSocketConstants.TOKEN, token);
+        field(WebSocketConstants.TRACK_LIST, tracks);
+        field(WebSocketConstants.SUBSCRIBER_ID, subscriberId);
+        field(WebSocketConstants.SUBSCRIBER_CODE, subscriberCode);
+        field(WebSocketConstants.VIEWER_INFO, viewerInfo);
+        return end();
+    }
+
+    public synchronized String takeConfiguration(String streamId, String type, String sdp) {
+        begin(WebSocketConstants.TAKE_CONFIGURATION_COMMAND);
+        field(WebSocketConstants.STREAM_ID, streamId);
+        field(WebSocketConstants.TYPE, type);
+        field(WebSocketConstants.SDP, sdp);
+        return end();
+    }
+
+    public synchronized String takeCandidate(String streamId, int label, String id, String candidate) {
+        begin(WebSocketConstants.TAKE_CANDIDATE_COMMAND);
+        field(WebSocketConstants.STREAM_ID, streamId);
+        field(WebSocketConstants.CANDIDATE_LABEL, label);
+        field(WebSocketConstants.CANDIDATE_ID, id);
+        field(WebSocketConstants.CANDIDATE_SDP, candidate);
+        return end();
+    }
+
+    /**
+     * @param command toggleAudio or enableTrack
+     */
+    public synchronized String enableTrack(String command, String streamId, String trackId, boolean enabled) {
+        begin(command);
+        field(WebSocketConstants.STREAM_ID, streamId);
+        field(WebSocketConstants.TRACK_ID, trackId);
+        field(WebSocketConstants.ENABLED, enabled);
+        return end();
+    }
+
+    /**
+     * Messages that only have command and streamId, e.g. stop, getStreamInfo
+     */
+    public synchronized String streamCommand(String command, String streamId) {
+        begin(command);
+        field(WebSocketConstants.STREAM_ID, streamId);
+        return end();
+    }
+
+    /**
+     * Messages that have command, streamId and token, e.g. join, getTrackList
+     */
+    public synchronized String streamCommand(String command, String streamId, String token) {
+        begin(command);
+        field(WebSocketConstants.STREAM_ID, streamId);
+        field(WebSocketConstants.TOKEN, token);
+        return end();
+    }
+
+    /**
+     * Room messages, streamId is omitted if it's null
+     */
+    public synchronized String roomCommand(String command, String roomName, String streamId) {
+        begin(command);
+        field(WebSocketConstants.ROOM, roomName);
+        field(WebSocketConstants.STREAM_ID, streamId);
+        return end();
+    }
+
+    public synchronized String forceStreamQuality(String streamId, int height) {
+        begin(WebSocketConstants.FORCE_STREAM_QUALITY);
+        field(WebSocketConstants.STREAM_ID, streamId);
+        field(WebSocketConstants.STREAM_HEIGHT, height);
+        return end();
+    }
+
+    public synchronized String signallingEncoding(String[] encodings) {
+        begin(WebSocketConstants.SIGNALLING_ENCODING_COMMAND);
+        field(WebSocketConstants.ENCODINGS, encodings);
+        return end();
+    }
+
+    private void begin(String command) {
+        buffer.setLength(0);
+        buffer.append('{');
+        firstField = true;
+        field(WebSocketConstants.COMMAND, command);
+    }
+
+    private String end() {
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    private void name(String name) {
+        if (!firstField) {
+            buffer.append(',');
+        }
+        firstField = false;
+        appendString(name);
+        buffer.append(':');
+    }
+
+    private void field(String name, String value) {
+        if (value == null) {
+            return;
+        }
+        name(name);
+        appendString(value);
+    }
+
+    private void field(String name, int value) {
+        name(name);
+        buffer.append(value);
+    }
+
+    private void field(String name, boolean value) {
+        name(name);
+        buffer.append(value);
+    }
+
+    /**
+     * Null array is written as an empty array like the previous implementation
+     */
+    private void field(String name, String[] values) {
+        name(name);
+        buffer.append('[');
+        if (values != null) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                if (values[i] == null) {
+                    buffer.append("null");
+                }
+                else {
+                    appendString(values[i]);
+                }
+            }
+        }
+        buffer.append(']');
+    }
+
+    private void appendString(String value) {
+        buffer.append('"');
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    buffer.append('\\').append(c);
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\b':
+                    buffer.append("\\b");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\f':
+                    buffer.append("\\f");
+                    break;
+                default:
+                    if (c <= 0x1F) {
+                        buffer.append("\\u00").append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+                    }
+                    else {
+                        buffer.append(c);
+                    }
+                    break;
+            }
+        }
+        buffer.append('"');
+    }
+}
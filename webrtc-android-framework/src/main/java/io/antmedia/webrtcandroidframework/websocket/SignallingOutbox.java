@@ -0,0 +1,232 @@
+package io.antmedia.webrtcandroidframework.websocket;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.antmedia.webrtcandroidframework.utility.Clock;
+
+/**
+ * Keeps the messages that cannot be sent while websocket is disconnected and replays them when
+ * it's connected again.
+ *
+ * Each command has a priority, a time to live and the fields that identify the message for coalescing.
+ * If a message with the same key is queued again, only the last one survives, e.g. only the last
+ * enableTrack for a trackId is sent. Only the control commands that can be sent again without harm are
+ * queued. Commands that are not in the rule table (publish, play, stop, ping, ...) are handled by the
+ * reconnection of the streams. takeConfiguration and takeCandidate belong to the session of the closed
+ * websocket, the server drops that session, so they are not queued and the streams negotiate again.
+ *
+ * Outbox is bounded. When it's full, the oldest message of the lowest priority is dropped.
+ * Messages are replayed by priority and in the queue order for the same priority.
+ *
+ * Messages are only parsed when they are queued, so sending while connected has no extra cost.
+ */
+public class SignallingOutbox {
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    static class Rule {
+        final Priority priority;
+        final long ttlMs;
+        final String[] keyFields;
+
+        Rule(Priority priority, long ttlMs, String... keyFields) {
+            this.priority = priority;
+            this.ttlMs = ttlMs;
+            this.keyFields = keyFields;
+        }
+    }
+
+    private static class Entry {
+        final String message;
+        final String streamId;
+        final Priority priority;
+        final long expireAtMs;
+
+        Entry(String message, String streamId, Priority priority, long expireAtMs) {
+            this.message = message;
+            this.streamId = streamId;
+            this.priority = priority;
+            this.expireAtMs = expireAtMs;
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private static final Map<String, Rule> RULES = new HashMap<>();
+
+    static {
+        //track states are visible to the other participants
+        RULES.put(WebSocketConstants.ENABLE_TRACK, new Rule(Priority.HIGH, 30000, WebSocketConstants.STREAM_ID, WebSocketConstants.TRACK_ID));
+        RULES.put(WebSocketConstants.TOGGLE_AUDIO_COMMAND, new Rule(Priority.HIGH, 30000, WebSocketConstants.STREAM_ID, WebSocketConstants.TRACK_ID));
+        RULES.put(WebSocketConstants.TOGGLE_VIDEO_COMMAND, new Rule(Priority.HIGH, 30000, WebSocketConstants.STREAM_ID, WebSocketConstants.TRACK_ID));
+        RULES.put(WebSocketConstants.FORCE_STREAM_QUALITY, new Rule(Priority.NORMAL, 30000, WebSocketConstants.STREAM_ID));
+        RULES.put(WebSocketConstants.GET_TRACK_LIST, new Rule(Priority.LOW, 10000, WebSocketConstants.STREAM_ID));
+        RULES.put(WebSocketConstants.GET_ROOM_INFO_COMMAND, new Rule(Priority.LOW, 10000, WebSocketConstants.ROOM, WebSocketConstants.STREAM_ID));
+        RULES.put(WebSocketConstants.GET_STREAM_INFO_COMMAND, new Rule(Priority.LOW, 10000, WebSocketConstants.STREAM_ID));
+        RULES.put(WebSocketConstants.GET_BROADCAST_OBJECT_COMMAND, new Rule(Priority.LOW, 10000, WebSocketConstants.STREAM_ID));
+    }
+
+    private final int capacity;
+    private final Clock clock;
+
+    /**
+     * key -> entry in the queue order. Coalesced message is moved to the end to keep the order with later messages
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    private long queuedCount;
+    private long coalescedCount;
+    private long droppedCount;
+    private long expiredCount;
+    private long replayedCount;
+
+    public SignallingOutbox(int capacity, Clock clock) {
+        this.capacity = capacity;
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if message is queued
+     */
+    public synchronized boolean offer(String message) {
+        JsonObject json;
+        try {
+            json = JsonParser.parseString(message).getAsJsonObject();
+        } catch (JsonSyntaxException | IllegalStateException e) {
+            return false;
+        }
+        String command = getString(json, WebSocketConstants.COMMAND);
+        Rule rule = command != null ? RULES.get(command) : null;
+        if (rule == null || capacity <= 0) {
+            return false;
+        }
+
+        long now = clock.nowMs();
+        removeExpired(now);
+
+        StringBuilder key = new StringBuilder(command);
+        for (String field : rule.keyFields) {
+            key.append('|').append(getString(json, field));
+        }
+        String keyText = key.toString();
+
+        if (entries.remove(keyText) != null) {
+            coalescedCount++;
+        }
+        else if (entries.size() >= capacity && !dropLowest(rule.priority)) {
+            droppedCount++;
+            return false;
+        }
+        entries.put(keyText, new Entry(message, getString(json, WebSocketConstants.STREAM_ID), rule.priority, now + rule.ttlMs));
+        queuedCount++;
+        return true;
+    }
+
+    /**
+     * Removes the messages that are still valid from the outbox
+     * @return messages in the replay order
+     */
+    public synchronized List<String> drain() {
+        removeExpired(clock.nowMs());
+        List<String> messages = new ArrayList<>(entries.size());
+        for (Priority priority : Priority.values()) {
+            for (Entry entry : entries.values()) {
+                if (entry.priority == priority) {
+                    messages.add(entry.message);
+                }
+            }
+        }
+        entries.clear();
+        replayedCount += messages.size();
+        return messages;
+    }
+
+    /**
+     * Removes the queued messages of the stream. It's called when stream is stopped
+     */
+    public synchronized void removeStream(String streamId) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (streamId != null && streamId.equals(entry.streamId)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops the oldest message with the lowest priority if it's not more important than the new message
+     */
+    private boolean dropLowest(Priority newPriority) {
+        Priority[] priorities = Priority.values();
+        for (int i = priorities.length - 1; i >= newPriority.ordinal(); i--) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().priority == priorities[i]) {
+                    iterator.remove();
+                    droppedCount++;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void removeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expireAtMs <= now) {
+                iterator.remove();
+                expiredCount++;
+            }
+        }
+    }
+
+    private static String getString(JsonObject json, String name) {
+        JsonElement element = json.get(name);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        return element.getAsString();
+    }
+
+    public synchronized long getQueuedCount() {
+        return queuedCount;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized long getExpiredCount() {
+        return expiredCount;
+    }
+
+    public synchronized long getReplayedCount() {
+        return replayedCount;
+    }
+}
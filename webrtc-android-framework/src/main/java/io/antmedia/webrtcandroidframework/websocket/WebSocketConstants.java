@@ -435,4 +435,20 @@ public class WebSocketConstants {
      */
     public static final String BROADCAST = "broadcast";
 
+    /**
+     * Command to negotiate the encoding of the signalling messages. Client sends the encodings it supports
+     * and server replies with the one it selects. Messages are JSON text until it's replied
+     */
+    public static final String SIGNALLING_ENCODING_COMMAND = "signallingEncoding";
+
+    /**
+     * encodings supported by the client in the order of preference
+     */
+    public static final String ENCODINGS = "encodings";
+
+    /**
+     * encoding selected by the server
+     */
+    public static final String ENCODING = "encoding";
+
 }
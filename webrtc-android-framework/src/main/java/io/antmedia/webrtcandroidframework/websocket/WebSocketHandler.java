@@ -4,25 +4,29 @@ import android.os.Build;
 import android.os.Handler;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.webrtc.IceCandidate;
 import org.webrtc.SessionDescription;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import de.tavendo.autobahn.WebSocket;
-import de.tavendo.autobahn.WebSocketConnection;
 import de.tavendo.autobahn.WebSocketException;
-import io.antmedia.webrtcandroidframework.core.StreamInfo;
+import io.antmedia.webrtcandroidframework.utility.Clock;
 
-import static io.antmedia.webrtcandroidframework.websocket.WebSocketConstants.DEFINITION;
 import static io.antmedia.webrtcandroidframework.websocket.WebSocketConstants.NOTIFICATION_COMMAND;
 
 import com.google.gson.Gson;
@@ -32,14 +36,21 @@ public class WebSocketHandler implements WebSocket.WebSocketConnectionObserver {
     private static final String TAG = "WebSocketHandler";
     private static final int CLOSE_TIMEOUT = 1000;
 
-    private WebSocketConnection ws;
+    private SignalingTransport transport = new AutobahnSignalingTransport();
     private final Handler handler;
     private String wsServerUrl;
     private final Object closeEventLock = new Object();
     private boolean closeEvent;
     private AntMediaSignallingEvents signallingListener;
+    private SignallingEventRouter eventRouter;
+
+    /**
+     * Streams whose publish has started, ping pong timer runs while there is at least one
+     */
+    private final Set<String> publishingStreams = new HashSet<>();
     public ScheduledExecutorService pingPongExecutor;
-    private int pingPongTimoutCount = 0;
+    private final ArrayDeque<Long> pendingPings = new ArrayDeque<>();
+    private final RttEstimator rttEstimator = new RttEstimator();
     public static final  long TIMER_DELAY  = 3000L;
     public static final  long TIMER_PERIOD = 2000L;
 
@@ -49,9 +60,57 @@ public class WebSocketHandler implements WebSocket.WebSocketConnectionObserver {
 
     private Handler wsReconnectionHandler = new Handler();
 
+    private IceCandidateFilter iceCandidateFilter;
+
+    private volatile IceCandidatePipeline iceCandidatePipeline;
+
+    private final AtomicLong iceCandidateFramesSent = new AtomicLong();
+
+    private ReconnectionPolicy reconnectionPolicy = new ExponentialBackoffReconnectionPolicy();
+
+    private Clock clock = Clock.SYSTEM;
+
+    private volatile int reconnectionAttemptCount = 0;
+
+    private volatile long disconnectedSinceMs = -1;
+
+    private volatile long totalDisconnectedTimeMs = 0;
+
+    private boolean binaryEncodingEnabled = false;
+
+    private boolean sdpCompressionEnabled = false;
+
+    /**
+     * Codec of the outgoing messages, it's null if messages are sent as JSON text
+     */
+    private volatile CborSignallingCodec outgoingCodec;
+
+    private final CborSignallingCodec incomingCodec = new CborSignallingCodec(false);
+
+    private SignallingOutbox outbox = new SignallingOutbox(SignallingOutbox.DEFAULT_CAPACITY, () -> clock.nowMs());
+
 
     Gson gson;
 
+    /**
+     * Handles a parsed incoming message
+     */
+    interface SignallingMessageHandler {
+        void handle(WebSocketHandler wsHandler, SignallingMessage message);
+    }
+
+    private static final Map<String, SignallingMessageHandler> COMMAND_HANDLERS = new HashMap<>();
+
+    private static final Map<String, SignallingMessageHandler> NOTIFICATION_HANDLERS = new HashMap<>();
+
+    static {
+        registerMessageHandlers();
+    }
+
+    private final SignallingMessageParser messageParser = new SignallingMessageParser();
+
+    private final SignallingMessageWriter messageWriter = new SignallingMessageWriter();
+
 
     public WebSocketHandler(AntMediaSignallingEvents signallingListener, Handler handler) {
         this.handler = handler;
@@ -61,13 +120,53 @@ public class WebSocketHandler implements WebSocket.WebSocketConnectionObserver {
         gson = builder.create();
     }
 
+    /**
+     * Creates a handler whose incoming messages are routed to the listeners by streamId
+     */
+    public WebSocketHandler(SignallingEventRouter eventRouter, Handler handler) {
+        this((AntMediaSignallingEvents) eventRouter, handler);
+        this.eventRouter = eventRouter;
+    }
+
+    /**
+     * @return router of the shared connection or null if connection has a single listener
+     */
+    public SignallingEventRouter getEventRouter() {
+        return eventRouter;
+    }
+
+    private AntMediaSignallingEvents listenerOf(SignallingMessage message) {
+        if (eventRouter == null) {
+            return signallingListener;
+        }
+        return eventRouter.getListener(message.getStreamId(), message.getRoomName());
+    }
+
+    /**
+     * Server stops the stream of the message. A shared connection is kept for the other clients, only the owner
+     * of the stream is notified as if its connection is closed. Connection is disconnected if it has no route left
+     */
+    private void onStopCommand(SignallingMessage message) {
+        if (eventRouter == null) {
+            disconnect(true);
+            return;
+        }
+        AntMediaSignallingEvents owner = listenerOf(message);
+        if (owner != eventRouter) {
+            eventRouter.removeRoutes(owner);
+            owner.onWebSocketDisconnected();
+        }
+        if (!eventRouter.hasRoutes()) {
+            disconnect(true);
+        }
+    }
+
     public void connect(final String wsUrl) {
         checkIfCalledOnValidThread();
         wsServerUrl = wsUrl;
         Log.d(TAG, "Connecting WebSocket to: " + wsUrl);
-        ws = new WebSocketConnection();
         try {
-            ws.connect(new URI(wsServerUrl), this);
+            transport.connect(new URI(wsServerUrl), this);
         } catch (WebSocketException e) {
             e.printStackTrace();
             disconnect(false);
@@ -78,18 +177,39 @@ public class WebSocketHandler implements WebSocket.WebSocketConnectionObserver {
     }
 
     public void sendTextMessage(String message) {
-        if (ws.isConnected()) {
-            ws.sendTextMessage(message);
-            Log.e(TAG, "sent websocket message:" + message);
+        if (transport.isConnected()) {
+            CborSignallingCodec codec = outgoingCodec;
+            if (codec == null || !sendBinaryMessage(codec, message)) {
+                transport.sendTextMessage(message);
+            }
+            if (Log.isLoggable(TAG, Log.VERBOSE)) {
+                Log.v(TAG, "sent websocket message:" + message);
+            }
+        } else if (outbox != null && outbox.offer(message)) {
+            Log.d(TAG, "Web Socket is not connected, message is queued to be sent after reconnection");
         } else {
             Log.d(TAG, "Web Socket is not connected");
         }
     }
 
+    private boolean sendBinaryMessage(CborSignallingCodec codec, String message) {
+        byte[] encoded;
+        synchronized (codec) {
+            try {
+                encoded = codec.encode(message);
+            } catch (IOException e) {
+                Log.e(TAG, "Message cannot be encoded, it's sent as text: " + e.getMessage());
+                return false;
+            }
+        }
+        transport.sendBinaryMessage(encoded);
+        return true;
+    }
+
     public void disconnect(boolean waitForComplete) {
         checkIfCalledOnValidThread();
         Log.d(TAG, "Disconnect WebSocket.");
-        ws.disconnect();
+        transport.disconnect();
         // Wait for websocket close event to prevent websocket library from
         // sending any pending messages to deleted looper thread.
         if (waitForComplete) {
@@ -117,6 +237,10 @@ public class WebSocketHandler implements WebSocket.WebSocketConnectionObserver {
     @Override
     public void onOpen() {
         Log.d(TAG, "WebSocket connection opened.");
+        onConnectionRecovered();
+        outgoingCodec = null;
+        requestBinaryEncoding();
+        flushOutbox();
         signallingListener.onWebSocketConnected();
     }
 
@@ -129,349 +253,426 @@ public class WebSocketHandler implements WebSocket.WebSocketConnectionObserver {
             closeEventLock.notify();
             stopPingPongTimer();
         }
+        synchronized (publishingStreams) {
+            publishingStreams.clear();
+        }
+        outgoingCodec = null;
+        onConnectionLost();
     }
 
     @Override
     public void onTextMessage(String msg) {
-        Log.e(TAG, "onTextMessage: "+msg);
+        if (Log.isLoggable(TAG, Log.VERBOSE)) {
+            Log.v(TAG, "onTextMessage: " + msg);
+        }
         if (!isConnected()) {
             Log.e(TAG, "Got WebSocket message in non registered state.");
             return;
         }
+        SignallingMessage message;
         try {
-            JSONObject json = new JSONObject(msg);
+            message = messageParser.parse(msg);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            Log.e(TAG, "WebSocket message JSON parsing error: " + e.toString());
+            return;
+        }
 
-            String commandText = json.getString(WebSocketConstants.COMMAND);
-            String streamId = null;
-            if (json.has(WebSocketConstants.STREAM_ID)) {
-                streamId = json.getString(WebSocketConstants.STREAM_ID);
+        String commandText = message.getCommand();
+        SignallingMessageHandler commandHandler = commandText != null ? COMMAND_HANDLERS.get(commandText) : null;
+        if (commandHandler != null) {
+            commandHandler.handle(this, message);
+        }
+        else {
+            Log.e(TAG, "Received offer for call receiver: " + msg);
+        }
+    }
+
+    /**
+     * Fills the command and notification tables used to dispatch incoming messages.
+     */
+    private static void registerMessageHandlers() {
+        COMMAND_HANDLERS.put(WebSocketConstants.START_COMMAND, (wsHandler, message) -> wsHandler.listenerOf(message).onStartStreaming(message.getStreamId()));
+
+        COMMAND_HANDLERS.put(WebSocketConstants.TAKE_CONFIGURATION_COMMAND, (wsHandler, message) -> {
+            if (message.getSdp() == null || message.getType() == null) {
+                Log.e(TAG, "takeConfiguration message does not have sdp or type");
+                return;
             }
-            if (commandText.equals(WebSocketConstants.START_COMMAND)) {
-                signallingListener.onStartStreaming(streamId);
+            SessionDescription.Type sdpType = SessionDescription.Type.fromCanonicalForm(message.getType());
+            SessionDescription sdp = new SessionDescription(sdpType, message.getSdp());
+
+            wsHandler.listenerOf(message).onTakeConfiguration(message.getStreamId(), sdp);
+        });
+
+        COMMAND_HANDLERS.put(WebSocketConstants.TAKE_CANDIDATE_COMMAND, (wsHandler, message) -> {
+            if (message.getCandidateId() == null || message.getCandidateSdp() == null || message.getCandidateLabel() < 0) {
+                Log.e(TAG, "takeCandidate message does not have id, label or candidate");
+                return;
             }
-            else if (commandText.equals(WebSocketConstants.TAKE_CONFIGURATION_COMMAND)) {
-                String description = json.getString(WebSocketConstants.SDP);
-                String type = json.getString(WebSocketConstants.TYPE);
-                SessionDescription.Type sdpType = SessionDescription.Type.fromCanonicalForm(type);
-                SessionDescription sdp = new SessionDescription(sdpType, description);
+            IceCandidate candidate = new IceCandidate(message.getCandidateId(), message.getCandidateLabel(), message.getCandidateSdp());
+            wsHandler.listenerOf(message).onRemoteIceCandidate(message.getStreamId(), candidate);
+        });
+
+        COMMAND_HANDLERS.put(WebSocketConstants.ROOM_INFORMATION_NOTIFICATION, (wsHandler, message) -> wsHandler.listenerOf(message).onRoomInformation(message.getStreams()));
 
-                signallingListener.onTakeConfiguration(streamId, sdp);
+        COMMAND_HANDLERS.put(WebSocketConstants.STREAM_INFORMATION_NOTIFICATION, (wsHandler, message) -> {
+            if (message.getStreamInfoList() == null) {
+                Log.e(TAG, "streamInformation message does not have streamInfo");
+                return;
             }
-            else if (commandText.equals(WebSocketConstants.TAKE_CANDIDATE_COMMAND)) {
-                String id = json.getString(WebSocketConstants.CANDIDATE_ID);
-                int label = json.getInt(WebSocketConstants.CANDIDATE_LABEL);
-                String sdp = json.getString(WebSocketConstants.CANDIDATE_SDP);
+            wsHandler.listenerOf(message).onStreamInfoList(message.getStreamId(), message.getStreamInfoList());
+        });
+
+        COMMAND_HANDLERS.put(NOTIFICATION_COMMAND, (wsHandler, message) -> {
+            String definition = message.getDefinition();
+            Log.d(TAG, "notification:   " + definition);
+            SignallingMessageHandler notificationHandler = definition != null ? NOTIFICATION_HANDLERS.get(definition) : null;
+            if (notificationHandler != null) {
+                notificationHandler.handle(wsHandler, message);
+            }
+        });
 
-                IceCandidate candidate = new IceCandidate(id, label, sdp);
-                signallingListener.onRemoteIceCandidate(streamId, candidate);
+        COMMAND_HANDLERS.put(WebSocketConstants.TRACK_LIST, (wsHandler, message) -> {
+            if (message.getTrackList() == null) {
+                Log.e(TAG, "trackList message does not have trackList");
+                return;
             }
-            else if (commandText.equals(WebSocketConstants.ROOM_INFORMATION_NOTIFICATION)) {
-                String[] streams = null;
-                if (json.has(WebSocketConstants.STREAMS_IN_ROOM) && !json.isNull(WebSocketConstants.STREAMS_IN_ROOM)) {
-                    JSONArray streamsArray = json.getJSONArray(WebSocketConstants.STREAMS_IN_ROOM);
-                    streams = new String[streamsArray.length()];
-                    for (int i = 0; i < streamsArray.length(); i++) {
-                        streams[i] = streamsArray.getString(i);
-                    }
-                }
-                signallingListener.onRoomInformation(streams);
+            wsHandler.listenerOf(message).onTrackList(message.getTrackList());
+        });
+
+        COMMAND_HANDLERS.put(WebSocketConstants.ERROR_COMMAND, (wsHandler, message) -> {
+            String definition = message.getDefinition();
+            Log.d(TAG, "error command received: "+ definition);
+            if (definition == null) {
+                return;
             }
-            else if (commandText.equals(WebSocketConstants.STREAM_INFORMATION_NOTIFICATION)) {
-                JSONArray jsonArray = json.getJSONArray(WebSocketConstants.STREAM_INFO);
-                ArrayList<StreamInfo> streamInfos = new ArrayList<>();
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    JSONObject streamJSON = (JSONObject) jsonArray.get(i);
-                    StreamInfo streamInfo = new StreamInfo();
-                    streamInfo.setWidth(streamJSON.getInt(WebSocketConstants.STREAM_WIDTH));
-                    streamInfo.setHeight(streamJSON.getInt(WebSocketConstants.STREAM_HEIGHT));
-                    streamInfo.setVideoBitrate(streamJSON.getInt(WebSocketConstants.VIDEO_BITRATE));
-                    streamInfo.setAudioBitrate(streamJSON.getInt(WebSocketConstants.AUDIO_BITRATE));
-                    streamInfo.setCodec(streamJSON.getString(WebSocketConstants.VIDEO_CODEC));
-
-                    streamInfos.add(streamInfo);
-                }
-                signallingListener.onStreamInfoList(streamId, streamInfos);
+            String streamId = message.getStreamId();
+            wsHandler.listenerOf(message).onError(streamId, definition);
+
+            if (definition.equals(WebSocketConstants.NO_STREAM_EXIST)) {
+                wsHandler.listenerOf(message).noStreamExistsToPlay(streamId);
+            }
+            if (definition.equals(WebSocketConstants.STREAM_ID_IN_USE)) {
+                wsHandler.listenerOf(message).streamIdInUse(streamId);
             }
-            else if (commandText.equals(NOTIFICATION_COMMAND)) {
+        });
 
-                String definition = json.getString(DEFINITION);
+        COMMAND_HANDLERS.put(WebSocketConstants.STOP_COMMAND, (wsHandler, message) -> wsHandler.onStopCommand(message));
 
-                Log.d(TAG, "notification:   " + definition);
-                if (definition.equals(WebSocketConstants.PUBLISH_STARTED)) {
-                    signallingListener.onPublishStarted(streamId);
-                    startPingPongTimer();
-                }
-                else if (definition.equals(WebSocketConstants.PUBLISH_FINISHED)) {
-                    signallingListener.onPublishFinished(streamId);
-                    stopPingPongTimer();
-                }
-                else if (definition.equals(WebSocketConstants.PLAY_STARTED)) {
-                    signallingListener.onPlayStarted(streamId);
+        COMMAND_HANDLERS.put(WebSocketConstants.SIGNALLING_ENCODING_COMMAND, (wsHandler, message) -> wsHandler.onSignallingEncodingSelected(message.getEncoding()));
 
-                }
-                else if (definition.equals(WebSocketConstants.PLAY_FINISHED)) {
-                    signallingListener.onPlayFinished(streamId);
-                }
-                else if (definition.equals(WebSocketConstants.SESSION_RESTORED_DESCRIPTION)) {
-                    signallingListener.onSessionRestored(streamId);
-                }
-                else if (definition.equals(WebSocketConstants.JOINED_THE_ROOM)) {
-                    String[] streams = null;
-                    if(json.has(WebSocketConstants.STREAMS_IN_ROOM) && !json.isNull(WebSocketConstants.STREAMS_IN_ROOM)) {
-                        JSONArray streamsArray = json.getJSONArray(WebSocketConstants.STREAMS_IN_ROOM);
-                        streams = new String[streamsArray.length()];
-                        for (int i = 0; i < streamsArray.length(); i++) {
-                            streams[i] = streamsArray.getString(i);
-                        }
-                    }
-                    signallingListener.onJoinedTheRoom(streamId, streams);
-                }
-                else if (definition.equals(WebSocketConstants.LEAVED_THE_ROOM)) {
-                    String roomId = null;
-                    if (json.has(WebSocketConstants.ATTR_ROOM_NAME)) {
-                        roomId = json.getString(WebSocketConstants.ATTR_ROOM_NAME);
-                    }
-                    signallingListener.onLeftTheRoom(roomId);
-                }
-                else if (definition.equals(WebSocketConstants.BITRATE_MEASUREMENT)) {
-                    int targetBitrate = json.getInt(WebSocketConstants.TARGET_BITRATE);
-                    int videoBitrate = json.getInt(WebSocketConstants.VIDEO_BITRATE);
-                    int audioBitrate = json.getInt(WebSocketConstants.AUDIO_BITRATE);
+        COMMAND_HANDLERS.put(WebSocketConstants.PONG_COMMAND, (wsHandler, message) -> {
+            wsHandler.onPongReceived();
+        });
 
-                    signallingListener.onBitrateMeasurement(streamId, targetBitrate, videoBitrate, audioBitrate);
-                }
-                else if (definition.equals(WebSocketConstants.BROADCAST_OBJECT_NOTIFICATION)) {
-                    String broadcastJson = json.getString(WebSocketConstants.BROADCAST);
-                    Broadcast broadcast = gson.fromJson(broadcastJson, Broadcast.class);
-                    signallingListener.onBroadcastObject(broadcast);
-                }
-            }
-            else if (commandText.equals(WebSocketConstants.TRACK_LIST)) {
-                JSONArray trackList = json.getJSONArray(WebSocketConstants.TRACK_LIST);
-                String[] tracks = new String[trackList.length()];
-                for (int i = 0; i < trackList.length(); i++) {
-                    tracks[i] = trackList.getString(i);
-                }
-                signallingListener.onTrackList(tracks);
+        NOTIFICATION_HANDLERS.put(WebSocketConstants.PUBLISH_STARTED, (wsHandler, message) -> {
+            wsHandler.listenerOf(message).onPublishStarted(message.getStreamId());
+            wsHandler.onPublishStarted(message.getStreamId());
+        });
 
-            }
-            else if (commandText.equals(WebSocketConstants.ERROR_COMMAND))
-            {
+        NOTIFICATION_HANDLERS.put(WebSocketConstants.PUBLISH_FINISHED, (wsHandler, message) -> {
+            wsHandler.listenerOf(message).onPublishFinished(message.getStreamId());
+            wsHandler.onPublishFinished(message.getStreamId());
+        });
 
-                String definition= json.getString(DEFINITION);
-                Log.d(TAG, "error command received: "+ definition);
-                //stopPingPongTimer();
+        NOTIFICATION_HANDLERS.put(WebSocketConstants.PLAY_STARTED, (wsHandler, message) -> wsHandler.listenerOf(message).onPlayStarted(message.getStreamId()));
 
-                signallingListener.onError(streamId, definition);
+        NOTIFICATION_HANDLERS.put(WebSocketConstants.PLAY_FINISHED, (wsHandler, message) -> wsHandler.listenerOf(message).onPlayFinished(message.getStreamId()));
 
-                if (definition.equals(WebSocketConstants.NO_STREAM_EXIST))
-                {
-                    signallingListener.noStreamExistsToPlay(streamId);
-                    //disconnect(true);
-                }
-                if(definition.equals(WebSocketConstants.STREAM_ID_IN_USE)){
-                    signallingListener.streamIdInUse(streamId);
-                   // disconnect(true);
-                }
-            }
-            else if (commandText.equals(WebSocketConstants.STOP_COMMAND)) {
-                disconnect(true);
-            }
-            else if (commandText.equals(WebSocketConstants.PONG_COMMAND))
-            {
-                pingPongTimoutCount = 0;
-                Log.i(TAG, "pong reply is received");
-            }
-            else {
-                Log.e(TAG, "Received offer for call receiver: " + msg);
-            }
+        NOTIFICATION_HANDLERS.put(WebSocketConstants.SESSION_RESTORED_DESCRIPTION, (wsHandler, message) -> wsHandler.listenerOf(message).onSessionRestored(message.getStreamId()));
 
+        NOTIFICATION_HANDLERS.put(WebSocketConstants.JOINED_THE_ROOM, (wsHandler, message) -> wsHandler.listenerOf(message).onJoinedTheRoom(message.getStreamId(), message.getStreams()));
 
-        } catch (JSONException e) {
-            Log.e(TAG, "WebSocket message JSON parsing error: " + e.toString());
-        }
+        NOTIFICATION_HANDLERS.put(WebSocketConstants.LEAVED_THE_ROOM, (wsHandler, message) -> wsHandler.listenerOf(message).onLeftTheRoom(message.getRoomName()));
+
+        NOTIFICATION_HANDLERS.put(WebSocketConstants.BITRATE_MEASUREMENT, (wsHandler, message) -> {
+            if (message.getTargetBitrate() == null || message.getVideoBitrate() == null || message.getAudioBitrate() == null) {
+                Log.e(TAG, "bitrateMeasurement message does not have bitrate fields");
+                return;
+            }
+            wsHandler.listenerOf(message).onBitrateMeasurement(message.getStreamId(), message.getTargetBitrate(), message.getVideoBitrate(), message.getAudioBitrate());
+        });
 
+        NOTIFICATION_HANDLERS.put(WebSocketConstants.BROADCAST_OBJECT_NOTIFICATION, (wsHandler, message) -> {
+            if (message.getBroadcast() == null) {
+                Log.e(TAG, "broadcastObject message does not have broadcast");
+                return;
+            }
+            Broadcast broadcast = wsHandler.gson.fromJson(message.getBroadcast(), Broadcast.class);
+            wsHandler.listenerOf(message).onBroadcastObject(broadcast);
+        });
     }
 
     @Override
     public void onRawTextMessage(byte[] bytes) {
-
+        onTextMessage(new String(bytes, StandardCharsets.UTF_8));
     }
 
     @Override
     public void onBinaryMessage(byte[] bytes) {
+        String message;
+        try {
+            message = incomingCodec.decode(bytes);
+        } catch (IOException e) {
+            Log.e(TAG, "WebSocket binary message decoding error: " + e.toString());
+            return;
+        }
+        onTextMessage(message);
+    }
 
+    /**
+     * Enables the negotiation of binary signalling. Encoding is requested when websocket is connected and
+     * messages are sent as JSON text until server selects an encoding. Servers that do not support it
+     * do not reply and JSON text is used.
+     * @param enabled requests CBOR encoding
+     * @param compressSdp requests deflate compression of the SDP values as well
+     */
+    public void setBinaryEncoding(boolean enabled, boolean compressSdp) {
+        this.binaryEncodingEnabled = enabled;
+        this.sdpCompressionEnabled = compressSdp;
     }
 
-    public void startPublish(String streamId, String token, boolean videoEnabled, boolean audioEnabled, String subscriberId, String subscriberCode, String streamName, String mainTrackId){
-        checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.PUBLISH_COMMAND);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            json.put(WebSocketConstants.TOKEN, token);
-            json.put(WebSocketConstants.SUBSCRIBER_ID, subscriberId);
-            json.put(WebSocketConstants.SUBSCRIBER_CODE, subscriberCode);
-            json.put(WebSocketConstants.STREAM_NAME, streamName);
-            json.put(WebSocketConstants.VIDEO, videoEnabled);
-            json.put(WebSocketConstants.AUDIO, audioEnabled);
-            json.put(WebSocketConstants.MAIN_TRACK, mainTrackId);
-
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
+    private void requestBinaryEncoding() {
+        if (!binaryEncodingEnabled) {
+            return;
         }
+        String[] encodings = sdpCompressionEnabled
+                ? new String[]{CborSignallingCodec.ENCODING_CBOR_DEFLATE, CborSignallingCodec.ENCODING_CBOR}
+                : new String[]{CborSignallingCodec.ENCODING_CBOR};
+        sendTextMessage(messageWriter.signallingEncoding(encodings));
     }
 
-    public void startPlay(String streamId, String token, String[] tracks, String subscriberId, String subscriberCode, String viewerInfo){
-        checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.PLAY_COMMAND);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            json.put(WebSocketConstants.TOKEN, token);
-
-            JSONArray jsonArray = new JSONArray();
-            if (tracks != null) {
-                for (String trackId : tracks) {
-                    jsonArray.put(trackId);
-                }
-            }
-
-            json.put(WebSocketConstants.TRACK_LIST, jsonArray);
-            json.put(WebSocketConstants.SUBSCRIBER_ID, subscriberId);
-            json.put(WebSocketConstants.SUBSCRIBER_CODE, subscriberCode);
-            json.put(WebSocketConstants.VIEWER_INFO, viewerInfo);
+    private void onSignallingEncodingSelected(String encoding) {
+        if (binaryEncodingEnabled && CborSignallingCodec.ENCODING_CBOR.equals(encoding)) {
+            outgoingCodec = new CborSignallingCodec(false);
+        }
+        else if (binaryEncodingEnabled && sdpCompressionEnabled && CborSignallingCodec.ENCODING_CBOR_DEFLATE.equals(encoding)) {
+            outgoingCodec = new CborSignallingCodec(true);
+        }
+        else {
+            outgoingCodec = null;
+        }
+        Log.i(TAG, "Signalling encoding is " + (outgoingCodec != null ? encoding : "json"));
+    }
 
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
+    /**
+     * @return encoding of the outgoing messages
+     */
+    public String getSignallingEncoding() {
+        CborSignallingCodec codec = outgoingCodec;
+        if (codec == null) {
+            return "json";
         }
+        return codec.isDeflateSdp() ? CborSignallingCodec.ENCODING_CBOR_DEFLATE : CborSignallingCodec.ENCODING_CBOR;
+    }
+
+    public void startPublish(String streamId, String token, boolean videoEnabled, boolean audioEnabled, String subscriberId, String subscriberCode, String streamName, String mainTrackId) {
+        checkIfCalledOnValidThread();
+        sendTextMessage(messageWriter.publish(streamId, token, videoEnabled, audioEnabled, subscriberId, subscriberCode, streamName, mainTrackId));
+    }
+
+    public void startPlay(String streamId, String token, String[] tracks, String subscriberId, String subscriberCode, String viewerInfo) {
+        checkIfCalledOnValidThread();
+        sendTextMessage(messageWriter.play(streamId, token, tracks, subscriberId, subscriberCode, viewerInfo));
     }
 
     public void joinToPeer(String streamId, String token) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.JOIN_COMMAND);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            json.put(WebSocketConstants.TOKEN, token);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
+        sendTextMessage(messageWriter.streamCommand(WebSocketConstants.JOIN_COMMAND, streamId, token));
     }
 
     public void stop(String streamId) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.STOP_COMMAND);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
+        if (iceCandidateFilter != null) {
+            iceCandidateFilter.clear(streamId);
+        }
+        if (outbox != null) {
+            outbox.removeStream(streamId);
         }
+        sendTextMessage(messageWriter.streamCommand(WebSocketConstants.STOP_COMMAND, streamId));
     }
 
     public void sendConfiguration(String streamId, final SessionDescription sdp, String type) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.TAKE_CONFIGURATION_COMMAND);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            json.put(WebSocketConstants.TYPE, type);
-            json.put(WebSocketConstants.SDP, sdp.description);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
+        sendTextMessage(messageWriter.takeConfiguration(streamId, type, sdp.description));
     }
 
     public void sendLocalIceCandidate(String streamId, final IceCandidate candidate) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.TAKE_CANDIDATE_COMMAND);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            json.put(WebSocketConstants.CANDIDATE_LABEL, candidate.sdpMLineIndex);
-            json.put(WebSocketConstants.CANDIDATE_ID, candidate.sdpMid);
-            json.put(WebSocketConstants.CANDIDATE_SDP, candidate.sdp);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
+        if (iceCandidateFilter != null) {
+            iceCandidateFilter.add(streamId, candidate);
+            return;
         }
+        sendIceCandidateMessage(streamId, candidate);
     }
 
+    /**
+     * Sends the local candidate on the signalling thread, it can be called from any thread. Candidates that are
+     * queued until the signalling thread sends the first one are sent with it, see {@link IceCandidatePipeline}
+     */
+    public void queueLocalIceCandidate(String streamId, final IceCandidate candidate) {
+        IceCandidatePipeline pipeline = iceCandidatePipeline;
+        if (pipeline != null) {
+            pipeline.offer(streamId, candidate);
+        } else {
+            handler.post(() -> sendLocalIceCandidate(streamId, candidate));
+        }
+    }
 
+    /**
+     * Candidates that are queued after this call are not sent before the messages that are posted to the
+     * signalling thread after this call. It can be called from any thread
+     */
+    public void closeIceCandidatePass() {
+        IceCandidatePipeline pipeline = iceCandidatePipeline;
+        if (pipeline != null) {
+            pipeline.closePass();
+        }
+    }
 
-    public void getTrackList(String streamId, String token) {
+    /**
+     * Forgets the removed local candidates, so they are sent again if they are gathered again
+     */
+    public void removeLocalIceCandidates(String streamId, final IceCandidate[] candidates) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.GET_TRACK_LIST);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            json.put(WebSocketConstants.TOKEN, token);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
+        if (iceCandidateFilter != null) {
+            iceCandidateFilter.remove(streamId, candidates);
         }
     }
 
+    /**
+     * Drops the local ICE candidates that are already sent for the same stream, see {@link IceCandidateFilter}
+     */
+    public void setIceCandidateDeduplication(boolean enabled) {
+        iceCandidateFilter = enabled ? new IceCandidateFilter(this::sendIceCandidateMessage,
+                IceCandidateFilter.DEFAULT_MAX_REMEMBERED_CANDIDATES) : null;
+    }
+
+    public IceCandidateFilter getIceCandidateFilter() {
+        return iceCandidateFilter;
+    }
+
+    /**
+     * Sends the queued local ICE candidates in one signalling thread pass, see {@link IceCandidatePipeline}
+     */
+    public void setIceCandidatePipelining(boolean enabled) {
+        iceCandidatePipeline = enabled ? new IceCandidatePipeline(handler::post, this::sendLocalIceCandidate) : null;
+    }
+
+    public IceCandidatePipeline getIceCandidatePipeline() {
+        return iceCandidatePipeline;
+    }
+
+    /**
+     * @return number of takeCandidate frames that are sent
+     */
+    public long getIceCandidateFramesSent() {
+        return iceCandidateFramesSent.get();
+    }
+
+    /**
+     * @return number of takeCandidate frames that are not sent because the candidate is a duplicate
+     */
+    public long getIceCandidateFramesSuppressed() {
+        return iceCandidateFilter != null ? iceCandidateFilter.getCandidatesDropped() : 0;
+    }
+
+    public void sendIceCandidateMessage(String streamId, final IceCandidate candidate) {
+        iceCandidateFramesSent.incrementAndGet();
+        sendTextMessage(messageWriter.takeCandidate(streamId, candidate.sdpMLineIndex, candidate.sdpMid, candidate.sdp));
+    }
+
+
+
+    public void getTrackList(String streamId, String token) {
+        checkIfCalledOnValidThread();
+        sendTextMessage(messageWriter.streamCommand(WebSocketConstants.GET_TRACK_LIST, streamId, token));
+    }
+
     public void enableAudioTrack(String streamId, boolean enabled) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.TOGGLE_AUDIO_COMMAND);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            json.put(WebSocketConstants.TRACK_ID, streamId);
-            json.put(WebSocketConstants.ENABLED, enabled);
-            sendTextMessage(json.toString());
-        }
-        catch (JSONException e) {
-            e.printStackTrace();
-        }
+        sendTextMessage(messageWriter.enableTrack(WebSocketConstants.TOGGLE_AUDIO_COMMAND, streamId, streamId, enabled));
     }
 
     public void enableTrack(String streamId, String trackId, boolean enabled) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.ENABLE_TRACK);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            json.put(WebSocketConstants.TRACK_ID, trackId);
-            json.put(WebSocketConstants.ENABLED, enabled);
-            sendTextMessage(json.toString());
+        sendTextMessage(messageWriter.enableTrack(WebSocketConstants.ENABLE_TRACK, streamId, trackId, enabled));
+    }
 
+
+    private void onPublishStarted(String streamId) {
+        boolean first;
+        synchronized (publishingStreams) {
+            first = publishingStreams.isEmpty();
+            publishingStreams.add(streamId);
         }
-        catch (JSONException e) {
-            e.printStackTrace();
+        if (first) {
+            startPingPongTimer();
         }
-
     }
 
+    private void onPublishFinished(String streamId) {
+        boolean last;
+        synchronized (publishingStreams) {
+            publishingStreams.remove(streamId);
+            last = publishingStreams.isEmpty();
+        }
+        if (last) {
+            stopPingPongTimer();
+        }
+    }
 
     public void startPingPongTimer(){
+        startPingPongTimer(Executors.newSingleThreadScheduledExecutor());
+    }
+
+    /**
+     * @param executor runs the ping timer, it's shut down when the timer is stopped
+     */
+    public void startPingPongTimer(ScheduledExecutorService executor){
         Log.d(TAG, "Ping Pong timer is started");
 
-        Runnable timerTask = new Runnable() {
-            @Override
-            public void run() {
-                Log.d(TAG, "Ping Pong timer is executed");
-                sendPingPongMessage();
-                if (pingPongTimoutCount == 2){
-                    Log.d(TAG, "Ping Pong websocket response not received for 4 seconds");
-                    stopPingPongTimer();
-                    disconnect(true);
-                }
-                pingPongTimoutCount++;
+        pingPongExecutor = executor;
+        schedulePing(pingPongExecutor, TIMER_DELAY);
+    }
 
-            }
-        };
+    private void schedulePing(ScheduledExecutorService executor, long delayMs) {
+        try {
+            executor.schedule(() -> onPingTimer(executor), delayMs, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e) {
+            Log.d(TAG, "Ping Pong timer is already stopped");
+        }
+    }
 
-        pingPongExecutor = Executors.newSingleThreadScheduledExecutor();
-        pingPongExecutor.scheduleAtFixedRate(timerTask, TIMER_DELAY, TIMER_PERIOD, TimeUnit.MILLISECONDS);
+    /**
+     * Sends the next ping or closes the connection if the oldest ping is not answered in the dead peer timeout.
+     * Interval and timeout are adapted to the measured round trip time by {@link RttEstimator}
+     */
+    private void onPingTimer(ScheduledExecutorService executor) {
+        Log.d(TAG, "Ping Pong timer is executed");
+        long deadPeerTimeoutMs = rttEstimator.getDeadPeerTimeoutMs();
+        Long oldestPingMs;
+        synchronized (pendingPings) {
+            oldestPingMs = pendingPings.peekFirst();
+        }
+        long now = clock.nowMs();
+        if (oldestPingMs != null && now - oldestPingMs >= deadPeerTimeoutMs) {
+            Log.d(TAG, "Ping Pong websocket response not received for " + (now - oldestPingMs) + "ms");
+            stopPingPongTimer();
+            //websocket methods should be called on the handler thread, reconnection starts when it's closed
+            handler.post(() -> disconnect(true));
+            return;
+        }
 
+        sendPingPongMessage();
+
+        long delayMs = rttEstimator.getPingIntervalMs();
+        if (oldestPingMs != null) {
+            //wake up at the deadline of the oldest ping if it comes before the next ping
+            delayMs = Math.max(0, Math.min(delayMs, oldestPingMs + deadPeerTimeoutMs - now));
+        }
+        schedulePing(executor, delayMs);
     }
 
     public void stopPingPongTimer(){
@@ -481,70 +682,74 @@ public class WebSocketHandler implements WebSocket.WebSocketConnectionObserver {
         if (pingPongExecutor != null) {
             pingPongExecutor.shutdown();
             pingPongExecutor = null;
-            pingPongTimoutCount = 0;
+            synchronized (pendingPings) {
+                pendingPings.clear();
+            }
         }
 
     }
 
     public void sendPingPongMessage() {
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.PING_COMMAND);
-            sendTextMessage(json.toString());
+        synchronized (pendingPings) {
+            pendingPings.addLast(clock.nowMs());
+        }
+        sendTextMessage(SignallingMessageWriter.PING_MESSAGE);
+    }
 
-        } catch (JSONException e) {
-            Log.e(TAG, "Ping/Pong message error " + json.toString());
+    /**
+     * Server replies pings in order, so the pong belongs to the oldest ping that is not answered
+     */
+    private void onPongReceived() {
+        Long sentAtMs;
+        synchronized (pendingPings) {
+            sentAtMs = pendingPings.pollFirst();
+        }
+        if (sentAtMs == null) {
+            Log.i(TAG, "pong reply is received without a ping");
+            return;
         }
+        long rttMs = clock.nowMs() - sentAtMs;
+        rttEstimator.onSample(rttMs);
+        Log.i(TAG, "pong reply is received rtt:" + rttMs + "ms smoothed rtt:" + rttEstimator.getSmoothedRttMs() + "ms");
+        signallingListener.onSignallingRttMeasured(rttMs, rttEstimator.getSmoothedRttMs(), rttEstimator.getRttVariationMs());
+    }
+
+    /**
+     * @return round trip time statistics of the signalling connection measured by ping/pong messages
+     */
+    public RttEstimator getRttEstimator() {
+        return rttEstimator;
     }
 
     public void joinToConferenceRoom(String roomName, String streamId) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.JOIN_ROOM_COMMAND);
-            json.put(WebSocketConstants.ROOM, roomName);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            Log.e(TAG, "Connect to conference room JSON error: " + e.getMessage());
-        }
+        sendTextMessage(messageWriter.roomCommand(WebSocketConstants.JOIN_ROOM_COMMAND, roomName, streamId));
     }
 
     public void leaveFromTheConferenceRoom(String roomName) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.LEAVE_THE_ROOM);
-            json.put(WebSocketConstants.ROOM, roomName);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            Log.e(TAG, "Leave from conference room JSON error: " + e.getMessage());
-        }
+        sendTextMessage(messageWriter.roomCommand(WebSocketConstants.LEAVE_THE_ROOM, roomName, null));
     }
 
     public void getRoomInfo(String roomName, String streamId) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.GET_ROOM_INFO_COMMAND);
-            json.put(WebSocketConstants.ROOM, roomName);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            Log.e(TAG, "Room Info conference room JSON error: " + e.getMessage());
-        }
+        sendTextMessage(messageWriter.roomCommand(WebSocketConstants.GET_ROOM_INFO_COMMAND, roomName, streamId));
     }
 
     public void getStreamInfoList(String streamId) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.GET_STREAM_INFO_COMMAND);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
+        sendTextMessage(messageWriter.streamCommand(WebSocketConstants.GET_STREAM_INFO_COMMAND, streamId));
+    }
+
+    /**
+     * Sets the transport that carries the signalling messages. It should be called before {@link #connect(String)}
+     */
+    public void setSignalingTransport(SignalingTransport transport) {
+        this.transport = transport;
+    }
+
+    public SignalingTransport getSignalingTransport() {
+        return transport;
     }
 
     public AntMediaSignallingEvents getSignallingListener() {
@@ -552,43 +757,51 @@ public class WebSocketHandler implements WebSocket.WebSocketConnectionObserver {
     }
 
     public boolean isConnected() {
-        return ws !=null && ws.isConnected();
+        return transport.isConnected();
     }
 
     public void forceStreamQuality(String streamId, int height) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.FORCE_STREAM_QUALITY);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            json.put(WebSocketConstants.STREAM_HEIGHT, height);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
+        sendTextMessage(messageWriter.forceStreamQuality(streamId, height));
     }
 
     public void getBroadcastObject(String streamId) {
         checkIfCalledOnValidThread();
-        JSONObject json = new JSONObject();
-        try {
-            json.put(WebSocketConstants.COMMAND, WebSocketConstants.GET_BROADCAST_OBJECT_COMMAND);
-            json.put(WebSocketConstants.STREAM_ID, streamId);
-            sendTextMessage(json.toString());
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
+        sendTextMessage(messageWriter.streamCommand(WebSocketConstants.GET_BROADCAST_OBJECT_COMMAND, streamId));
     }
 
+    /**
+     * Starts watching the websocket connection. While connected, connection is checked every
+     * {@link #WEBSOCKET_RECONNECTION_CONTROL_PERIOD_MS}. When it's lost, reconnection attempts are
+     * scheduled by the {@link ReconnectionPolicy}.
+     */
     public void setupWsReconnection() {
         if(wsReconnectorRunnable != null){
             return;
         }
         wsReconnectorRunnable = () -> {
-            wsReconnectionHandler.postDelayed(wsReconnectorRunnable, WEBSOCKET_RECONNECTION_CONTROL_PERIOD_MS);
-            if (!isConnected()) {
+            if (wsReconnectionHandler == null) {
+                return;
+            }
+            if (isConnected()) {
+                wsReconnectionHandler.postDelayed(wsReconnectorRunnable, WEBSOCKET_RECONNECTION_CONTROL_PERIOD_MS);
+                return;
+            }
+
+            if (disconnectedSinceMs < 0) {
+                //disconnection is just detected, first attempt is delayed by the policy as well
+                disconnectedSinceMs = clock.nowMs();
+                Log.i(TAG, "WebSocket disconnection is detected");
+            }
+            else {
+                reconnectionAttemptCount++;
+                Log.i(TAG, "WebSocket reconnection attempt " + reconnectionAttemptCount);
+                reconnectionPolicy.onAttempt();
                 connect(wsServerUrl);
             }
+            long delayMs = reconnectionPolicy.nextDelayMs();
+            Log.d(TAG, "Next websocket reconnection attempt in " + delayMs + "ms");
+            wsReconnectionHandler.postDelayed(wsReconnectorRunnable, delayMs);
         };
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
@@ -602,6 +815,89 @@ public class WebSocketHandler implements WebSocket.WebSocketConnectionObserver {
 
     }
 
+    /**
+     * Runs the reconnector now instead of waiting for the next control period. Failed reconnection attempts
+     * close the websocket as well, the next attempt of them is already scheduled by the policy
+     */
+    private void onConnectionLost() {
+        if (disconnectedSinceMs < 0 && wsReconnectorRunnable != null && wsReconnectionHandler != null) {
+            wsReconnectionHandler.removeCallbacks(wsReconnectorRunnable);
+            wsReconnectionHandler.post(wsReconnectorRunnable);
+        }
+    }
+
+    private void onConnectionRecovered() {
+        reconnectionPolicy.onConnected();
+        if (disconnectedSinceMs >= 0) {
+            long disconnectedMs = clock.nowMs() - disconnectedSinceMs;
+            totalDisconnectedTimeMs += disconnectedMs;
+            disconnectedSinceMs = -1;
+            Log.i(TAG, "WebSocket reconnected after " + disconnectedMs + "ms and " + reconnectionAttemptCount + " attempts in total");
+        }
+        if (wsReconnectorRunnable != null && wsReconnectionHandler != null) {
+            wsReconnectionHandler.removeCallbacks(wsReconnectorRunnable);
+            wsReconnectionHandler.postDelayed(wsReconnectorRunnable, WEBSOCKET_RECONNECTION_CONTROL_PERIOD_MS);
+        }
+    }
+
+    /**
+     * Sends the messages that are queued while websocket is disconnected
+     */
+    private void flushOutbox() {
+        if (outbox == null) {
+            return;
+        }
+        List<String> messages = outbox.drain();
+        if (!messages.isEmpty()) {
+            Log.i(TAG, "Replaying " + messages.size() + " messages queued while websocket is disconnected");
+        }
+        for (String message : messages) {
+            sendTextMessage(message);
+        }
+    }
+
+    /**
+     * @param capacity maximum number of messages kept while websocket is disconnected. Zero or negative value
+     *                 disables the outbox and messages are dropped
+     */
+    public void setOutboxCapacity(int capacity) {
+        outbox = capacity > 0 ? new SignallingOutbox(capacity, () -> clock.nowMs()) : null;
+    }
+
+    public SignallingOutbox getOutbox() {
+        return outbox;
+    }
+
+    public void setReconnectionPolicy(ReconnectionPolicy reconnectionPolicy) {
+        this.reconnectionPolicy = reconnectionPolicy;
+    }
+
+    public ReconnectionPolicy getReconnectionPolicy() {
+        return reconnectionPolicy;
+    }
+
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return total number of reconnection attempts
+     */
+    public int getReconnectionAttemptCount() {
+        return reconnectionAttemptCount;
+    }
+
+    /**
+     * @return total time spent disconnected in milliseconds including the ongoing disconnection if there is
+     */
+    public long getDisconnectedTimeMs() {
+        long disconnectedSince = disconnectedSinceMs;
+        if (disconnectedSince >= 0) {
+            return totalDisconnectedTimeMs + (clock.nowMs() - disconnectedSince);
+        }
+        return totalDisconnectedTimeMs;
+    }
+
     public void stopReconnector(){
         if(wsReconnectionHandler == null){
             return;
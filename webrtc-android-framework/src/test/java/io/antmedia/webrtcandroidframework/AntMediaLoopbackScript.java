@@ -0,0 +1,248 @@
+package io.antmedia.webrtcandroidframework;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.antmedia.webrtcandroidframework.websocket.CborSignallingCodec;
+import io.antmedia.webrtcandroidframework.websocket.WebSocketConstants;
+
+/**
+ * {@link LoopbackSignalingTransport.ServerScript} that replies like Ant Media Server for the commands
+ * sent by {@link io.antmedia.webrtcandroidframework.websocket.WebSocketHandler}. It's not a media server, SDP and candidates are canned values.
+ *
+ * <ul>
+ *     <li>publish: start, then answer and publish_started after the offer of the client</li>
+ *     <li>play: offer, then play_started after the answer of the client</li>
+ *     <li>stop: publish_finished or play_finished</li>
+ *     <li>ping: pong</li>
+ *     <li>joinRoom, getRoomInfo, getTrackList, getStreamInfo, getBroadcastObject: related notifications</li>
+ *     <li>signallingEncoding: selected encoding if binary encoding is supported, later replies are binary</li>
+ * </ul>
+ */
+public class AntMediaLoopbackScript implements LoopbackSignalingTransport.ServerScript {
+
+    public static final String SDP = "v=0\r\n"
+            + "o=- 4611731400430051336 2 IN IP4 127.0.0.1\r\n"
+            + "s=-\r\n"
+            + "t=0 0\r\n"
+            + "a=group:BUNDLE 0 1\r\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=mid:0\r\n"
+            + "a=rtpmap:111 opus/48000/2\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=mid:1\r\n"
+            + "a=rtpmap:96 VP8/90000\r\n";
+
+    private static final int CANDIDATE_COUNT = 2;
+
+    private final List<String> roomStreams;
+
+    /**
+     * streamId -> true if it's published, false if it's played
+     */
+    private final Map<String, Boolean> streams = new ConcurrentHashMap<>();
+
+    private boolean binaryEncodingSupported = false;
+
+    /**
+     * Codec of the replies, it's null if replies are JSON text. It's only used on the loopback thread
+     */
+    private CborSignallingCodec codec;
+
+    public AntMediaLoopbackScript() {
+        this(Collections.<String>emptyList());
+    }
+
+    /**
+     * @param roomStreams streams that are returned for room and track list queries
+     */
+    public AntMediaLoopbackScript(List<String> roomStreams) {
+        this.roomStreams = roomStreams;
+    }
+
+    /**
+     * Lets the script answer signallingEncoding requests like a server that supports binary signalling
+     */
+    public void setBinaryEncodingSupported(boolean binaryEncodingSupported) {
+        this.binaryEncodingSupported = binaryEncodingSupported;
+    }
+
+    @Override
+    public void onTextMessage(String message, LoopbackSignalingTransport.ServerConnection connection) {
+        JsonObject request;
+        try {
+            request = JsonParser.parseString(message).getAsJsonObject();
+        } catch (JsonSyntaxException | IllegalStateException e) {
+            return;
+        }
+        String command = getString(request, WebSocketConstants.COMMAND);
+        String streamId = getString(request, WebSocketConstants.STREAM_ID);
+        if (command == null) {
+            return;
+        }
+
+        switch (command) {
+            case WebSocketConstants.PING_COMMAND:
+                send(connection, command(WebSocketConstants.PONG_COMMAND, null));
+                break;
+            case WebSocketConstants.PUBLISH_COMMAND:
+                streams.put(streamId, true);
+                send(connection, command(WebSocketConstants.START_COMMAND, streamId));
+                break;
+            case WebSocketConstants.PLAY_COMMAND:
+                streams.put(streamId, false);
+                sendConfiguration(connection, streamId, "offer");
+                break;
+            case WebSocketConstants.TAKE_CONFIGURATION_COMMAND:
+                onTakeConfiguration(connection, streamId, getString(request, WebSocketConstants.TYPE));
+                break;
+            case WebSocketConstants.STOP_COMMAND:
+                Boolean publishing = streams.remove(streamId);
+                if (publishing != null) {
+                    send(connection, notification(publishing ? WebSocketConstants.PUBLISH_FINISHED : WebSocketConstants.PLAY_FINISHED, streamId));
+                }
+                break;
+            case WebSocketConstants.JOIN_ROOM_COMMAND:
+                JsonObject joined = notification(WebSocketConstants.JOINED_THE_ROOM, streamId);
+                joined.addProperty(WebSocketConstants.ATTR_ROOM_NAME, getString(request, WebSocketConstants.ROOM));
+                joined.add(WebSocketConstants.STREAMS_IN_ROOM, toJsonArray(roomStreams));
+                send(connection, joined);
+                break;
+            case WebSocketConstants.GET_ROOM_INFO_COMMAND:
+                JsonObject roomInfo = command(WebSocketConstants.ROOM_INFORMATION_NOTIFICATION, streamId);
+                roomInfo.addProperty(WebSocketConstants.ROOM, getString(request, WebSocketConstants.ROOM));
+                roomInfo.add(WebSocketConstants.STREAMS_IN_ROOM, toJsonArray(roomStreams));
+                send(connection, roomInfo);
+                break;
+            case WebSocketConstants.GET_TRACK_LIST:
+                JsonObject trackList = command(WebSocketConstants.TRACK_LIST, streamId);
+                trackList.add(WebSocketConstants.TRACK_LIST, toJsonArray(roomStreams));
+                send(connection, trackList);
+                break;
+            case WebSocketConstants.GET_STREAM_INFO_COMMAND:
+                JsonObject streamInformation = command(WebSocketConstants.STREAM_INFORMATION_NOTIFICATION, streamId);
+                JsonObject streamInfo = new JsonObject();
+                streamInfo.addProperty(WebSocketConstants.STREAM_WIDTH, 1280);
+                streamInfo.addProperty(WebSocketConstants.STREAM_HEIGHT, 720);
+                streamInfo.addProperty(WebSocketConstants.VIDEO_BITRATE, 1500000);
+                streamInfo.addProperty(WebSocketConstants.AUDIO_BITRATE, 64000);
+                streamInfo.addProperty(WebSocketConstants.VIDEO_CODEC, "VP8");
+                JsonArray streamInfoList = new JsonArray();
+                streamInfoList.add(streamInfo);
+                streamInformation.add(WebSocketConstants.STREAM_INFO, streamInfoList);
+                send(connection, streamInformation);
+                break;
+            case WebSocketConstants.GET_BROADCAST_OBJECT_COMMAND:
+                JsonObject broadcastObject = notification(WebSocketConstants.BROADCAST_OBJECT_NOTIFICATION, streamId);
+                JsonObject broadcast = new JsonObject();
+                broadcast.addProperty(WebSocketConstants.STREAM_ID, streamId);
+                broadcast.addProperty("status", "broadcasting");
+                broadcastObject.addProperty(WebSocketConstants.BROADCAST, broadcast.toString());
+                send(connection, broadcastObject);
+                break;
+            case WebSocketConstants.SIGNALLING_ENCODING_COMMAND:
+                onSignallingEncoding(connection, request);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onSignallingEncoding(LoopbackSignalingTransport.ServerConnection connection, JsonObject request) {
+        JsonElement encodings = request.get(WebSocketConstants.ENCODINGS);
+        if (!binaryEncodingSupported || encodings == null || !encodings.isJsonArray()) {
+            //servers without binary signalling ignore the command
+            return;
+        }
+        for (JsonElement element : encodings.getAsJsonArray()) {
+            String encoding = element.getAsString();
+            if (CborSignallingCodec.ENCODING_CBOR.equals(encoding) || CborSignallingCodec.ENCODING_CBOR_DEFLATE.equals(encoding)) {
+                JsonObject selected = command(WebSocketConstants.SIGNALLING_ENCODING_COMMAND, null);
+                selected.addProperty(WebSocketConstants.ENCODING, encoding);
+                //reply is text, client switches to binary after receiving it
+                connection.sendTextMessage(selected.toString());
+                codec = new CborSignallingCodec(CborSignallingCodec.ENCODING_CBOR_DEFLATE.equals(encoding));
+                return;
+            }
+        }
+    }
+
+    private void send(LoopbackSignalingTransport.ServerConnection connection, JsonObject message) {
+        if (codec != null) {
+            try {
+                connection.sendBinaryMessage(codec.encode(message.toString()));
+                return;
+            } catch (IOException e) {
+                //message is sent as text
+            }
+        }
+        connection.sendTextMessage(message.toString());
+    }
+
+    private void onTakeConfiguration(LoopbackSignalingTransport.ServerConnection connection, String streamId, String type) {
+        if ("offer".equals(type)) {
+            sendConfiguration(connection, streamId, "answer");
+            send(connection, notification(WebSocketConstants.PUBLISH_STARTED, streamId));
+        }
+        else if ("answer".equals(type)) {
+            send(connection, notification(WebSocketConstants.PLAY_STARTED, streamId));
+        }
+    }
+
+    private void sendConfiguration(LoopbackSignalingTransport.ServerConnection connection, String streamId, String type) {
+        JsonObject configuration = command(WebSocketConstants.TAKE_CONFIGURATION_COMMAND, streamId);
+        configuration.addProperty(WebSocketConstants.TYPE, type);
+        configuration.addProperty(WebSocketConstants.SDP, SDP);
+        send(connection, configuration);
+
+        for (int i = 0; i < CANDIDATE_COUNT; i++) {
+            JsonObject candidate = command(WebSocketConstants.TAKE_CANDIDATE_COMMAND, streamId);
+            candidate.addProperty(WebSocketConstants.CANDIDATE_LABEL, i);
+            candidate.addProperty(WebSocketConstants.CANDIDATE_ID, String.valueOf(i));
+            candidate.addProperty(WebSocketConstants.CANDIDATE_SDP, "candidate:" + (1000 + i) + " 1 udp 2122260223 127.0.0.1 " + (50000 + i) + " typ host generation 0");
+            send(connection, candidate);
+        }
+    }
+
+    private static JsonObject command(String command, String streamId) {
+        JsonObject json = new JsonObject();
+        json.addProperty(WebSocketConstants.COMMAND, command);
+        if (streamId != null) {
+            json.addProperty(WebSocketConstants.STREAM_ID, streamId);
+        }
+        return json;
+    }
+
+    private static JsonObject notification(String definition, String streamId) {
+        JsonObject json = command(WebSocketConstants.NOTIFICATION_COMMAND, streamId);
+        json.addProperty(WebSocketConstants.DEFINITION, definition);
+        return json;
+    }
+
+    private static JsonArray toJsonArray(List<String> values) {
+        JsonArray array = new JsonArray();
+        for (String value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    private static String getString(JsonObject json, String name) {
+        JsonElement element = json.get(name);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        return element.getAsString();
+    }
+}
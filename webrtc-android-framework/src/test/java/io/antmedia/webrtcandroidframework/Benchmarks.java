@@ -0,0 +1,27 @@
+package io.antmedia.webrtcandroidframework;
+
+import org.junit.Assume;
+
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks are skipped in the default test run because their results depend on the machine.
+ * They run with {@code ./gradlew test -Dantmedia.benchmark=true} and log their results.
+ */
+final class Benchmarks {
+
+    static final String PROPERTY = "antmedia.benchmark";
+
+    private static final Logger LOGGER = Logger.getLogger("Benchmark");
+
+    private Benchmarks() {
+    }
+
+    static void assumeEnabled() {
+        Assume.assumeTrue("Benchmark is enabled with -D" + PROPERTY + "=true", Boolean.getBoolean(PROPERTY));
+    }
+
+    static void report(String result) {
+        LOGGER.info(result);
+    }
+}
@@ -0,0 +1,95 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import io.antmedia.webrtcandroidframework.websocket.CborSignallingCodec;
+import io.antmedia.webrtcandroidframework.websocket.SignallingMessageWriter;
+import io.antmedia.webrtcandroidframework.websocket.WebSocketConstants;
+
+public class CborSignallingCodecTest {
+
+    private final SignallingMessageWriter writer = new SignallingMessageWriter();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        CborSignallingCodec codec = new CborSignallingCodec(false);
+        String[] messages = {
+                writer.publish("stream1", "token", true, false, "subscriber", null, "name \"ş\"", null),
+                writer.play("stream1", null, new String[]{"track1", null}, null, null, null),
+                writer.takeCandidate("stream1", 1, "1", "candidate:1 1 udp 2122260223 127.0.0.1 50000 typ host"),
+                writer.forceStreamQuality("stream1", 720),
+                "{\"command\":\"notification\",\"number\":-100000,\"big\":5000000000,\"ratio\":0.25,\"empty\":{},\"value\":null}",
+                SignallingMessageWriter.PING_MESSAGE
+        };
+        for (String message : messages) {
+            byte[] encoded = codec.encode(message);
+            assertEquals(JsonParser.parseString(message), JsonParser.parseString(codec.decode(encoded)));
+        }
+    }
+
+    @Test
+    public void testEncodingIsSmallerThanText() throws IOException {
+        String message = writer.takeCandidate("stream1", 1, "1", "candidate:1 1 udp 2122260223 127.0.0.1 50000 typ host");
+        byte[] encoded = new CborSignallingCodec(false).encode(message);
+        assertTrue(encoded.length < message.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void testSdpCompression() throws IOException {
+        String message = writer.takeConfiguration("stream1", "offer", AntMediaLoopbackScript.SDP + AntMediaLoopbackScript.SDP);
+
+        byte[] plain = new CborSignallingCodec(false).encode(message);
+        CborSignallingCodec deflateCodec = new CborSignallingCodec(true);
+        byte[] compressed = deflateCodec.encode(message);
+        assertTrue(compressed.length < plain.length);
+
+        //both are decoded by a codec that does not compress
+        CborSignallingCodec decoder = new CborSignallingCodec(false);
+        assertEquals(JsonParser.parseString(message), JsonParser.parseString(decoder.decode(compressed)));
+        assertEquals(JsonParser.parseString(message), JsonParser.parseString(decoder.decode(plain)));
+
+        //short sdp values are not compressed
+        String shortMessage = writer.takeConfiguration("stream1", "offer", "v=0");
+        assertTrue(Arrays.equals(new CborSignallingCodec(false).encode(shortMessage), deflateCodec.encode(shortMessage)));
+    }
+
+    @Test
+    public void testMalformedMessages() throws IOException {
+        CborSignallingCodec codec = new CborSignallingCodec(false);
+        byte[] encoded = codec.encode(writer.streamCommand(WebSocketConstants.STOP_COMMAND, "stream1"));
+
+        assertDecodeFails(codec, Arrays.copyOf(encoded, encoded.length - 2));
+        assertDecodeFails(codec, Arrays.copyOf(encoded, encoded.length + 1));
+        assertDecodeFails(codec, new byte[0]);
+        //map with an integer key
+        assertDecodeFails(codec, new byte[]{(byte) 0xA1, 0x01, 0x02});
+        //byte string that is not deflated
+        assertDecodeFails(codec, new byte[]{(byte) 0xA1, 0x63, 's', 'd', 'p', 0x43, 1, 2, 3});
+
+        try {
+            codec.encode("{\"command\":");
+            fail("invalid json should not be encoded");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+
+    private static void assertDecodeFails(CborSignallingCodec codec, byte[] data) {
+        try {
+            codec.decode(data);
+            fail("decoding should fail");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+}
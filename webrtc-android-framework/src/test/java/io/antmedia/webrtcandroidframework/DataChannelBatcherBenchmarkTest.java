@@ -0,0 +1,89 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.webrtc.DataChannel;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelBatcher;
+import io.antmedia.webrtcandroidframework.core.DataChannelSender;
+
+/**
+ * Measures how many small messages per second pass a loopback data channel with and without batching. Native
+ * PeerConnection cannot be created in unit tests, so each SCTP message is counted and the result is the
+ * framing, queueing and unpacking cost without the network. It only runs when benchmarks are enabled, see
+ * {@link Benchmarks}.
+ */
+public class DataChannelBatcherBenchmarkTest {
+
+    private static final int MESSAGE_COUNT = 500000;
+    private static final int MESSAGE_SIZE = 24;
+    private static final int[] BATCH_SIZES = {0, 1024, 16 * 1024};
+
+    @Test
+    public void testMessagesPerSecond() {
+        Benchmarks.assumeEnabled();
+        //warm up
+        send(BATCH_SIZES[1]);
+
+        for (int batchSize : BATCH_SIZES) {
+            long start = System.nanoTime();
+            int sctpMessages = send(batchSize);
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1000000);
+            Benchmarks.report((batchSize == 0 ? "no batching" : (batchSize / 1024) + " KB batches") + ": "
+                    + MESSAGE_COUNT + " messages in " + sctpMessages + " SCTP messages, " + elapsedMs + " ms, "
+                    + (MESSAGE_COUNT * 1000L / elapsedMs) + " messages/s");
+        }
+    }
+
+    /**
+     * @return number of messages passed to the data channel
+     */
+    private static int send(int batchSize) {
+        final int[] received = new int[2];
+        List<DataChannel.Buffer> unpacked = new ArrayList<>();
+        LoopbackDataChannel dataChannel = new LoopbackDataChannel(data -> {
+            received[0]++;
+            if (DataChannelBatcher.isBatch(data)) {
+                DataChannelBatcher.unpack(data, unpacked);
+                received[1] += unpacked.size();
+                unpacked.clear();
+            } else {
+                received[1]++;
+            }
+        });
+        DataChannelSender sender = new DataChannelSender(dataChannel);
+        dataChannel.setSender(sender);
+        DataChannelBatcher batcher = batchSize == 0 ? null : new DataChannelBatcher(sender, () -> System.nanoTime() / 1000000,
+                DataChannelBatcher.DEFAULT_FLUSH_INTERVAL_MS, batchSize,
+                (batch, delayMs) -> dataChannel.getExecutor().execute(batch::flush), (results, sent) -> {
+                    //not measured
+                });
+
+        byte[] payload = new byte[MESSAGE_SIZE];
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            DataChannel.Buffer buffer = new DataChannel.Buffer(ByteBuffer.wrap(payload), true);
+            if (batcher != null) {
+                batcher.add(buffer);
+            } else {
+                //each message is a task of the lane without batching
+                dataChannel.getExecutor().execute(() -> sender.send(buffer));
+            }
+            if (i % 1000 == 999) {
+                dataChannel.transmit();
+            }
+        }
+        if (batcher != null) {
+            batcher.flush();
+        }
+        while (dataChannel.transmit()) {
+            //transmit the remaining messages
+        }
+        assertEquals(MESSAGE_COUNT, received[1]);
+        return received[0];
+    }
+}
@@ -0,0 +1,149 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.webrtc.DataChannel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelBatcher;
+import io.antmedia.webrtcandroidframework.core.DataChannelSender;
+
+public class DataChannelBatcherTest {
+
+    private final List<DataChannel.Buffer> received = new ArrayList<>();
+    private final List<Long> scheduledDelays = new ArrayList<>();
+    private final List<DataChannelSender.SendResult> completed = new ArrayList<>();
+    private final LoopbackDataChannel dataChannel = new LoopbackDataChannel(data -> {
+        if (DataChannelBatcher.isBatch(data)) {
+            DataChannelBatcher.unpack(data, received);
+        } else {
+            received.add(new DataChannel.Buffer(data, true));
+        }
+    });
+    private final DataChannelSender sender = new DataChannelSender(dataChannel);
+
+    private DataChannelBatcher createBatcher(int maxBatchSize) {
+        dataChannel.setSender(sender);
+        return new DataChannelBatcher(sender, () -> 0, 20, maxBatchSize,
+                (batcher, delayMs) -> {
+                    scheduledDelays.add(delayMs);
+                    dataChannel.getExecutor().execute(batcher::flush);
+                },
+                (results, sent) -> completed.addAll(results));
+    }
+
+    private static DataChannel.Buffer text(String message) {
+        return new DataChannel.Buffer(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)), false);
+    }
+
+    @Test
+    public void testMessagesAreCoalescedAndUnpacked() {
+        DataChannelBatcher batcher = createBatcher(DataChannelBatcher.DEFAULT_MAX_BATCH_SIZE);
+
+        List<DataChannelSender.SendResult> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(batcher.add(text("cursor " + i)));
+        }
+        results.add(batcher.add(new DataChannel.Buffer(ByteBuffer.wrap(new byte[]{1, 2, 3}), true)));
+
+        //only the first message schedules the flush after the interval
+        assertEquals(1, scheduledDelays.size());
+        assertEquals(20L, (long) scheduledDelays.get(0));
+        assertFalse(results.get(0).isDone());
+
+        dataChannel.transmit();
+        assertEquals(1, batcher.getBatchCount());
+        assertEquals(11, batcher.getSentCount());
+        assertEquals(11, completed.size());
+        for (DataChannelSender.SendResult result : results) {
+            assertTrue(result.isSent());
+        }
+
+        assertEquals(11, received.size());
+        for (int i = 0; i < 10; i++) {
+            DataChannel.Buffer message = received.get(i);
+            assertFalse(message.binary);
+            byte[] bytes = new byte[message.data.remaining()];
+            message.data.get(bytes);
+            assertEquals("cursor " + i, new String(bytes, StandardCharsets.UTF_8));
+        }
+        DataChannel.Buffer binary = received.get(10);
+        assertTrue(binary.binary);
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3}), binary.data);
+    }
+
+    @Test
+    public void testBatchIsFlushedWhenItIsFull() {
+        int maxBatchSize = DataChannelBatcher.HEADER_SIZE + 4 * (DataChannelBatcher.MESSAGE_HEADER_SIZE + 8);
+        DataChannelBatcher batcher = createBatcher(maxBatchSize);
+
+        for (int i = 0; i < 10; i++) {
+            batcher.add(text("message" + i));
+        }
+        //large message is sent as it is, after the messages added before it
+        byte[] large = new byte[maxBatchSize];
+        batcher.add(new DataChannel.Buffer(ByteBuffer.wrap(large), true));
+
+        while (dataChannel.transmit()) {
+            //transmit all batches
+        }
+        assertEquals(11, received.size());
+        assertEquals(4, batcher.getBatchCount());
+        assertEquals(11, batcher.getSentCount());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(StandardCharsets.UTF_8.encode("message" + i), received.get(i).data);
+        }
+        assertEquals(maxBatchSize, received.get(10).data.remaining());
+    }
+
+    @Test
+    public void testOversizeMessageIsFramed() {
+        int maxBatchSize = DataChannelBatcher.HEADER_SIZE + 2 * (DataChannelBatcher.MESSAGE_HEADER_SIZE + 8);
+        DataChannelBatcher batcher = createBatcher(maxBatchSize);
+
+        //payload looks like a batch header, it's delivered as it is
+        ByteBuffer payload = ByteBuffer.allocate(maxBatchSize * 2);
+        payload.putInt(DataChannelBatcher.MAGIC).put(DataChannelBatcher.KIND_BATCH).put((byte) 1).putShort((short) 2);
+        payload.clear();
+        batcher.add(new DataChannel.Buffer(payload.duplicate(), true));
+        batcher.add(text("after"));
+
+        while (dataChannel.transmit()) {
+            //transmit all batches
+        }
+        assertEquals(2, received.size());
+        assertTrue(received.get(0).binary);
+        assertEquals(payload, received.get(0).data);
+        assertEquals(StandardCharsets.UTF_8.encode("after"), received.get(1).data);
+    }
+
+    @Test
+    public void testCloseFailsPendingMessages() {
+        DataChannelBatcher batcher = createBatcher(DataChannelBatcher.DEFAULT_MAX_BATCH_SIZE);
+
+        DataChannelSender.SendResult pending = batcher.add(text("pending"));
+        batcher.close();
+        assertTrue(pending.isDone());
+        assertFalse(pending.isSent());
+        assertFalse(batcher.add(text("late")).isSent());
+        assertEquals(2, batcher.getFailedCount());
+
+        dataChannel.transmit();
+        assertTrue(received.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedBatch() {
+        ByteBuffer batch = ByteBuffer.allocate(DataChannelBatcher.HEADER_SIZE + DataChannelBatcher.MESSAGE_HEADER_SIZE + 1);
+        batch.putInt(DataChannelBatcher.MAGIC).put(DataChannelBatcher.KIND_BATCH).put((byte) 1).putShort((short) 10);
+        batch.flip();
+        DataChannelBatcher.unpack(batch, new ArrayList<>());
+    }
+}
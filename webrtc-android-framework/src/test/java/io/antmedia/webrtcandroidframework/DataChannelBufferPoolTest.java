@@ -0,0 +1,96 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.webrtc.DataChannel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelBufferPool;
+
+public class DataChannelBufferPoolTest {
+
+    @Test
+    public void testAcquireAndRelease() {
+        DataChannelBufferPool pool = new DataChannelBufferPool(1024, 2);
+        ByteBuffer source = ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8));
+
+        DataChannelBufferPool.PooledBuffer buffer = pool.acquire(source, false);
+        assertFalse(buffer.binary);
+        assertEquals(0, buffer.data.position());
+        assertEquals(5, buffer.data.limit());
+        assertEquals(DataChannelBufferPool.MIN_BUFFER_SIZE, buffer.data.capacity());
+        assertEquals(source, buffer.data);
+        //source is not consumed
+        assertEquals(0, source.position());
+
+        assertTrue(buffer.release());
+        //already released
+        assertFalse(pool.release(buffer));
+        assertEquals(1, pool.getPooledCount());
+
+        DataChannelBufferPool.PooledBuffer reused = pool.acquire(ByteBuffer.wrap("hi".getBytes(StandardCharsets.UTF_8)), false);
+        assertSame(buffer, reused);
+        assertEquals(2, reused.data.remaining());
+
+        //binary and text buffers are pooled separately
+        assertNotSame(reused, pool.acquire(ByteBuffer.wrap("hi".getBytes(StandardCharsets.UTF_8)), true));
+        assertEquals(3, pool.getAcquireCount());
+        assertEquals(2, pool.getAllocationCount());
+    }
+
+    @Test
+    public void testSizes() {
+        DataChannelBufferPool pool = new DataChannelBufferPool(1000, 2);
+        assertEquals(1024, pool.getMaxBufferSize());
+
+        assertEquals(128, pool.acquire(ByteBuffer.allocate(65), true).data.capacity());
+        assertEquals(128, pool.acquire(ByteBuffer.allocate(128), true).data.capacity());
+        assertEquals(1024, pool.acquire(ByteBuffer.allocate(1024), true).data.capacity());
+
+        //larger messages are not pooled
+        DataChannelBufferPool.PooledBuffer large = pool.acquire(ByteBuffer.allocate(5000), true);
+        assertEquals(5000, large.data.capacity());
+        assertFalse(large.release());
+        assertEquals(0, pool.getPooledCount());
+
+        //only max buffers per size are kept
+        DataChannelBufferPool.PooledBuffer[] buffers = new DataChannelBufferPool.PooledBuffer[3];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = pool.acquire(ByteBuffer.allocate(10), true);
+        }
+        assertTrue(buffers[0].release());
+        assertTrue(buffers[1].release());
+        assertFalse(buffers[2].release());
+        assertEquals(2, pool.getPooledCount());
+        assertEquals(4, pool.getReleaseCount());
+
+        //buffers of other pools are ignored
+        assertFalse(new DataChannelBufferPool().release(pool.acquire(ByteBuffer.allocate(10), true)));
+        assertFalse(pool.release(new DataChannel.Buffer(ByteBuffer.allocate(10), true)));
+    }
+
+    @Test
+    public void testNoAllocationAfterWarmup() {
+        DataChannelBufferPool pool = new DataChannelBufferPool();
+        ByteBuffer[] messages = new ByteBuffer[8];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = ByteBuffer.allocate(20 + i * 100);
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            DataChannelBufferPool.PooledBuffer buffer = pool.acquire(messages[i % messages.length], true);
+            buffer.run();
+            buffer.release();
+        }
+        //one buffer for each size
+        assertEquals(5, pool.getAllocationCount());
+        assertEquals(10000, pool.getReleaseCount());
+    }
+}
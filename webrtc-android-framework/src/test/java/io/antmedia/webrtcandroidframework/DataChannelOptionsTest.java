@@ -0,0 +1,81 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.webrtc.DataChannel;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelOptions;
+
+public class DataChannelOptionsTest {
+
+    @Test
+    public void testDefaultsAreReliableAndOrdered() {
+        DataChannelOptions options = DataChannelOptions.builder("chat").build();
+
+        assertEquals("chat", options.getLabel());
+        assertTrue(options.isOrdered());
+        assertTrue(options.isReliable());
+        assertFalse(options.isNegotiated());
+        assertNull(options.getObserver());
+
+        DataChannel.Init init = options.toInit();
+        assertTrue(init.ordered);
+        assertEquals(-1, init.maxRetransmits);
+        assertEquals(-1, init.maxRetransmitTimeMs);
+        assertFalse(init.negotiated);
+        assertEquals(-1, init.id);
+        assertEquals("", init.protocol);
+    }
+
+    @Test
+    public void testPartialReliability() {
+        DataChannel.Init unreliable = DataChannelOptions.builder("telemetry")
+                .setOrdered(false)
+                .setMaxRetransmits(0)
+                .setNegotiatedId(5)
+                .setProtocol("json")
+                .build()
+                .toInit();
+        assertFalse(unreliable.ordered);
+        assertEquals(0, unreliable.maxRetransmits);
+        assertEquals(-1, unreliable.maxRetransmitTimeMs);
+        assertTrue(unreliable.negotiated);
+        assertEquals(5, unreliable.id);
+        assertEquals("json", unreliable.protocol);
+
+        DataChannelOptions timed = DataChannelOptions.builder("cursor").setMaxPacketLifeTime(200).build();
+        assertFalse(timed.isReliable());
+        assertEquals(-1, timed.getMaxRetransmits());
+        assertEquals(200, timed.toInit().maxRetransmitTimeMs);
+
+        DataChannelOptions batched = DataChannelOptions.builder("cursor").setBatching(10, 4096).build();
+        assertTrue(batched.isBatched());
+        assertEquals(10, batched.getBatchIntervalMs());
+        assertEquals(4096, batched.getMaxBatchSize());
+        assertFalse(timed.isBatched());
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertInvalid(() -> DataChannelOptions.builder(""));
+        assertInvalid(() -> DataChannelOptions.builder("a").setMaxRetransmits(-1));
+        assertInvalid(() -> DataChannelOptions.builder("a").setMaxPacketLifeTime(-1));
+        assertInvalid(() -> DataChannelOptions.builder("a").setNegotiatedId(DataChannelOptions.MAX_ID + 1));
+        assertInvalid(() -> DataChannelOptions.builder("a").setMaxRetransmits(1).setMaxPacketLifeTime(100).build());
+        assertInvalid(() -> DataChannelOptions.builder("a").setBatching(10, 4));
+    }
+
+    private static void assertInvalid(Runnable builder) {
+        try {
+            builder.run();
+            fail("Options should be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+}
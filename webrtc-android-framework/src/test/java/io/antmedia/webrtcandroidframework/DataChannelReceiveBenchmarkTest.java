@@ -0,0 +1,107 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.webrtc.DataChannel;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelBufferPool;
+
+/**
+ * Compares receiving data channel messages to the buffers of DataChannelBufferPool with copying them to new
+ * buffers as WebRTCClient does by default, for the small messages of a high rate telemetry channel. Allocated
+ * bytes are reported if the JVM supports thread allocation counters. It only runs when benchmarks are enabled,
+ * see {@link Benchmarks}.
+ */
+public class DataChannelReceiveBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int ITERATIONS = 200000;
+    private static final int[] MESSAGE_SIZES = {32, 200, 1000};
+
+    private interface Receiver {
+        int receive(DataChannel.Buffer buffer);
+    }
+
+    //keeps the delivered buffers reachable, so their allocations are not eliminated
+    private DataChannel.Buffer lastDelivered;
+
+    @Test
+    public void testPooledAgainstCopy() {
+        Benchmarks.assumeEnabled();
+        DataChannelBufferPool pool = new DataChannelBufferPool();
+
+        Receiver copy = buffer -> {
+            ByteBuffer copyByteBuffer = ByteBuffer.allocate(buffer.data.remaining());
+            copyByteBuffer.put(buffer.data);
+            copyByteBuffer.rewind();
+            buffer.data.rewind();
+            DataChannel.Buffer bufferCopy = new DataChannel.Buffer(copyByteBuffer, buffer.binary);
+            Runnable delivery = () -> lastDelivered = bufferCopy;
+            delivery.run();
+            return lastDelivered.data.remaining();
+        };
+        Receiver pooled = buffer -> {
+            DataChannelBufferPool.PooledBuffer pooledBuffer = pool.acquire(buffer.data, buffer.binary);
+            pooledBuffer.run();
+            lastDelivered = pooledBuffer;
+            int length = pooledBuffer.data.remaining();
+            pooledBuffer.release();
+            return length;
+        };
+
+        for (int size : MESSAGE_SIZES) {
+            DataChannel.Buffer message = new DataChannel.Buffer(ByteBuffer.allocate(size), true);
+
+            run(copy, message, WARMUP_ITERATIONS);
+            run(pooled, message, WARMUP_ITERATIONS);
+
+            long[] copyResult = measure(copy, message);
+            long[] pooledResult = measure(pooled, message);
+
+            Benchmarks.report(size + " bytes message, copy: " + copyResult[0] + " ns/message " + format(copyResult[1])
+                    + " | pooled: " + pooledResult[0] + " ns/message " + format(pooledResult[1]));
+        }
+    }
+
+    private static String format(long allocatedBytes) {
+        return allocatedBytes < 0 ? "(allocation counter is not available)" : allocatedBytes + " bytes/message";
+    }
+
+    /**
+     * @return ns per message and allocated bytes per message or -1 if it cannot be measured
+     */
+    private static long[] measure(Receiver receiver, DataChannel.Buffer message) {
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        long checksum = run(receiver, message, ITERATIONS);
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = getAllocatedBytes();
+        assertTrue(checksum > 0);
+
+        long allocated = allocatedBefore < 0 ? -1 : (allocatedAfter - allocatedBefore) / ITERATIONS;
+        return new long[]{elapsed / ITERATIONS, allocated};
+    }
+
+    private static long run(Receiver receiver, DataChannel.Buffer message, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += receiver.receive(message);
+        }
+        return checksum;
+    }
+
+    private static long getAllocatedBytes() {
+        try {
+            Class<?> managementFactory = Class.forName("java.lang.management.ManagementFactory");
+            Object threadMXBean = managementFactory.getMethod("getThreadMXBean").invoke(null);
+            Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+            return (long) method.invoke(threadMXBean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
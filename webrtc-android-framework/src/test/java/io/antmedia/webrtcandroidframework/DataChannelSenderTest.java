@@ -0,0 +1,173 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.webrtc.DataChannel;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelSender;
+
+public class DataChannelSenderTest {
+
+    /**
+     * Data channel that buffers the sent bytes until the test transmits them
+     */
+    private static class BufferingDataChannel extends DataChannel {
+        private final List<DataChannel.Buffer> sent = new ArrayList<>();
+        private long bufferedAmount;
+        private boolean accept = true;
+        private RuntimeException exception;
+
+        BufferingDataChannel() {
+            super(1);
+        }
+
+        @Override
+        public long bufferedAmount() {
+            return bufferedAmount;
+        }
+
+        @Override
+        public boolean send(DataChannel.Buffer buffer) {
+            if (exception != null) {
+                throw exception;
+            }
+            if (accept) {
+                sent.add(buffer);
+                bufferedAmount += buffer.data.remaining();
+            }
+            return accept;
+        }
+    }
+
+    private long now;
+
+    private static DataChannel.Buffer message(int size) {
+        return new DataChannel.Buffer(ByteBuffer.allocate(size), true);
+    }
+
+    @Test
+    public void testWatermarks() {
+        BufferingDataChannel dataChannel = new BufferingDataChannel();
+        DataChannelSender sender = new DataChannelSender(dataChannel, () -> now, 1000, 200, 5000);
+        List<Boolean> writabilityChanges = new ArrayList<>();
+        sender.addWritabilityListener(writabilityChanges::add);
+
+        List<DataChannelSender.SendResult> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(sender.send(message(300)));
+        }
+        //last message is queued after the buffered amount exceeds the high watermark
+        assertEquals(4, dataChannel.sent.size());
+        assertTrue(results.get(3).isSent());
+        assertFalse(results.get(4).isDone());
+        assertEquals(1, sender.getQueuedCount());
+        assertEquals(300, sender.getQueuedBytes());
+        assertFalse(sender.isWritable());
+
+        now = 40;
+        dataChannel.bufferedAmount = 500;
+        sender.onBufferedAmountChange();
+        assertFalse(results.get(4).isDone());
+
+        now = 100;
+        dataChannel.bufferedAmount = 100;
+        sender.onBufferedAmountChange();
+        assertTrue(results.get(4).isSent());
+        assertEquals(0, sender.getQueuedCount());
+        //buffered amount is above the low watermark after sending the queued message
+        assertFalse(sender.isWritable());
+
+        dataChannel.bufferedAmount = 150;
+        sender.onBufferedAmountChange();
+        assertTrue(sender.isWritable());
+
+        List<Boolean> expected = new ArrayList<>();
+        expected.add(false);
+        expected.add(true);
+        assertEquals(expected, writabilityChanges);
+
+        assertEquals(5, sender.getSentCount());
+        assertEquals(1500, sender.getSentBytes());
+        assertEquals(100, sender.getMaxQueueDelayMs());
+        assertEquals(20, sender.getAverageQueueDelayMs());
+        assertEquals(15000, sender.getThroughputBytesPerSecond());
+    }
+
+    @Test
+    public void testBurstIsNotDropped() {
+        BufferingDataChannel dataChannel = new BufferingDataChannel();
+        DataChannelSender sender = new DataChannelSender(dataChannel, () -> now, 1000, 200, 1000000);
+
+        List<DataChannel.Buffer> messages = new ArrayList<>();
+        List<DataChannelSender.SendResult> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            DataChannel.Buffer buffer = message(100);
+            messages.add(buffer);
+            results.add(sender.send(buffer));
+        }
+        assertEquals(10, dataChannel.sent.size());
+
+        //link transmits 300 bytes at each step
+        while (sender.getQueuedCount() > 0) {
+            now++;
+            dataChannel.bufferedAmount = Math.max(0, dataChannel.bufferedAmount - 300);
+            sender.onBufferedAmountChange();
+            assertTrue(dataChannel.bufferedAmount <= 1000);
+        }
+
+        assertEquals(messages, dataChannel.sent);
+        for (DataChannelSender.SendResult result : results) {
+            assertTrue(result.isSent());
+        }
+        assertEquals(0, sender.getFailedCount());
+        assertTrue(sender.getMaxQueueDelayMs() > 0);
+    }
+
+    @Test
+    public void testFailures() throws InterruptedException {
+        BufferingDataChannel dataChannel = new BufferingDataChannel();
+        DataChannelSender sender = new DataChannelSender(dataChannel, () -> now, 1000, 200, 500);
+
+        dataChannel.accept = false;
+        DataChannelSender.SendResult rejected = sender.send(message(10));
+        assertFalse(rejected.await(10));
+        assertNotNull(rejected.getError());
+
+        dataChannel.accept = true;
+        dataChannel.exception = new IllegalStateException("DataChannel has been disposed.");
+        assertEquals("DataChannel has been disposed.", sender.send(message(10)).getError());
+
+        dataChannel.exception = null;
+        dataChannel.bufferedAmount = 1000;
+        DataChannelSender.SendResult queued = sender.send(message(400));
+        //queue is full
+        DataChannelSender.SendResult overflow = sender.send(message(200));
+        assertTrue(overflow.isDone());
+        assertFalse(overflow.isSent());
+        assertEquals(1, sender.getQueuedCount());
+
+        List<DataChannel.Buffer> completed = new ArrayList<>();
+        queued.setCallback((buffer, sent) -> {
+            assertFalse(sent);
+            completed.add(buffer);
+        });
+        sender.close();
+        assertEquals(1, completed.size());
+        assertSame(queued.getBuffer(), completed.get(0));
+        assertFalse(sender.send(message(10)).isSent());
+        assertEquals(5, sender.getFailedCount());
+
+        //callback is called right away for a completed result
+        queued.setCallback((buffer, sent) -> completed.add(buffer));
+        assertEquals(2, completed.size());
+    }
+}
@@ -0,0 +1,75 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import io.antmedia.webrtcandroidframework.websocket.ExponentialBackoffReconnectionPolicy;
+
+public class ExponentialBackoffReconnectionPolicyTest {
+
+    /**
+     * Returns the upper bound of the interval so that the delays are deterministic
+     */
+    private static class MaxRandom extends Random {
+        @Override
+        public double nextDouble() {
+            return 0.999999;
+        }
+    }
+
+    @Test
+    public void testBackoffCap() {
+        ExponentialBackoffReconnectionPolicy policy = new ExponentialBackoffReconnectionPolicy(1000, 30000, 10, 60000, new Random());
+
+        assertEquals(1000, policy.getBackoffCapMs(0));
+        assertEquals(2000, policy.getBackoffCapMs(1));
+        assertEquals(16000, policy.getBackoffCapMs(4));
+        assertEquals(30000, policy.getBackoffCapMs(5));
+        assertEquals(30000, policy.getBackoffCapMs(100));
+    }
+
+    @Test
+    public void testDelayIsJittered() {
+        ExponentialBackoffReconnectionPolicy policy = new ExponentialBackoffReconnectionPolicy(1000, 30000, 10, 60000, new Random(42));
+
+        for (int i = 0; i < 10; i++) {
+            long cap = policy.getBackoffCapMs(i);
+            long delay = policy.nextDelayMs();
+            assertTrue(delay >= 0 && delay < cap);
+        }
+    }
+
+    @Test
+    public void testCircuitBreaker() {
+        ExponentialBackoffReconnectionPolicy policy = new ExponentialBackoffReconnectionPolicy(1000, 30000, 3, 60000, new MaxRandom());
+
+        assertEquals(999, policy.nextDelayMs());
+        policy.onAttempt();
+        assertEquals(1999, policy.nextDelayMs());
+        policy.onAttempt();
+        assertEquals(3999, policy.nextDelayMs());
+        policy.onAttempt();
+        assertEquals(ExponentialBackoffReconnectionPolicy.State.CLOSED, policy.getState());
+
+        //threshold is reached
+        assertEquals(60000, policy.nextDelayMs());
+        assertEquals(ExponentialBackoffReconnectionPolicy.State.OPEN, policy.getState());
+
+        //half open trial fails, circuit is opened again
+        policy.onAttempt();
+        assertEquals(ExponentialBackoffReconnectionPolicy.State.HALF_OPEN, policy.getState());
+        assertEquals(60000, policy.nextDelayMs());
+        assertEquals(ExponentialBackoffReconnectionPolicy.State.OPEN, policy.getState());
+
+        //half open trial succeeds
+        policy.onAttempt();
+        policy.onConnected();
+        assertEquals(ExponentialBackoffReconnectionPolicy.State.CLOSED, policy.getState());
+        assertEquals(0, policy.getAttempt());
+        assertEquals(999, policy.nextDelayMs());
+    }
+}
@@ -0,0 +1,105 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelSender;
+import io.antmedia.webrtcandroidframework.core.FileTransfer;
+import io.antmedia.webrtcandroidframework.core.FileTransferReceiver;
+
+/**
+ * Measures the throughput of sending a file between the two sides of a loopback data channel for different chunk
+ * sizes. Native PeerConnection cannot be created in unit tests, so the loopback channel buffers the frames like
+ * SCTP and the result is the framing, flow control and file I/O cost without the network. It only runs when
+ * benchmarks are enabled, see {@link Benchmarks}.
+ */
+public class FileTransferBenchmarkTest {
+
+    private static final int FILE_SIZE = 32 * 1024 * 1024;
+    private static final int[] CHUNK_SIZES = {16 * 1024, 64 * 1024, 256 * 1024};
+
+    @Test
+    public void testThroughput() throws IOException {
+        Benchmarks.assumeEnabled();
+        File source = File.createTempFile("benchmark", ".bin");
+        File destination = File.createTempFile("benchmark-received", ".bin");
+        try {
+            byte[] block = new byte[1024 * 1024];
+            new Random(1).nextBytes(block);
+            try (RandomAccessFile file = new RandomAccessFile(source, "rw")) {
+                for (int i = 0; i < FILE_SIZE / block.length; i++) {
+                    file.write(block);
+                }
+            }
+
+            //warm up
+            transfer(source, destination, CHUNK_SIZES[0]);
+
+            for (int chunkSize : CHUNK_SIZES) {
+                long start = System.nanoTime();
+                transfer(source, destination, chunkSize);
+                long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1000000);
+                assertEquals(FILE_SIZE, destination.length());
+                Benchmarks.report((chunkSize / 1024) + " KB chunks: " + (FILE_SIZE / 1024 / 1024) + " MB in " + elapsedMs
+                        + " ms, " + (FILE_SIZE / 1024 * 1000L / elapsedMs / 1024) + " MB/s");
+            }
+        } finally {
+            source.delete();
+            destination.delete();
+        }
+    }
+
+    private static void transfer(File source, File destination, int chunkSize) throws IOException {
+        final boolean[] successful = new boolean[2];
+        FileTransferReceiver receiver = new FileTransferReceiver(new FileTransferReceiver.Listener() {
+            @Override
+            public FileChannel onIncomingTransfer(FileTransfer transfer) {
+                try {
+                    return new RandomAccessFile(destination, "rw").getChannel();
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+
+            @Override
+            public void onProgress(FileTransfer transfer) {
+                //not measured
+            }
+
+            @Override
+            public void onCompleted(FileTransfer transfer, boolean result) {
+                successful[1] = result;
+            }
+        });
+        LoopbackDataChannel dataChannel = new LoopbackDataChannel(receiver::onFrame);
+        DataChannelSender sender = new DataChannelSender(dataChannel);
+        dataChannel.setSender(sender);
+
+        FileTransfer transfer = new FileTransfer(source.getName(), new RandomAccessFile(source, "r").getChannel(), chunkSize,
+                sender, dataChannel.getExecutor(), () -> System.nanoTime() / 1000000, new FileTransfer.Listener() {
+            @Override
+            public void onProgress(FileTransfer transfer) {
+                //not measured
+            }
+
+            @Override
+            public void onCompleted(FileTransfer transfer, boolean result) {
+                successful[0] = result;
+            }
+        });
+        transfer.start();
+        while (dataChannel.transmit()) {
+            //transmit until the transfer is completed
+        }
+        assertTrue(successful[0]);
+        assertTrue(successful[1]);
+    }
+}
@@ -0,0 +1,224 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelSender;
+import io.antmedia.webrtcandroidframework.core.FileTransfer;
+import io.antmedia.webrtcandroidframework.core.FileTransferReceiver;
+import io.antmedia.webrtcandroidframework.core.TransferFrame;
+
+public class FileTransferTest {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final long HIGH_WATERMARK = 64 * 1024;
+    private static final long LOW_WATERMARK = 16 * 1024;
+
+    private File source;
+    private File destination;
+    private byte[] content;
+
+    private final List<FileTransfer> receivedTransfers = new ArrayList<>();
+    private final List<Long> receivedProgress = new ArrayList<>();
+    private final List<Long> sentProgress = new ArrayList<>();
+    private FileTransfer completedSend;
+    private FileTransfer completedReceive;
+
+    private FileTransferReceiver receiver;
+    private LoopbackDataChannel dataChannel;
+    private DataChannelSender sender;
+
+    @Before
+    public void setUp() throws IOException {
+        source = File.createTempFile("transfer", ".bin");
+        destination = File.createTempFile("received", ".bin");
+        content = new byte[300 * 1024 + 123];
+        new Random(7).nextBytes(content);
+        Files.write(source.toPath(), content);
+
+        receiver = new FileTransferReceiver(() -> 0, new FileTransferReceiver.Listener() {
+            @Override
+            public FileChannel onIncomingTransfer(FileTransfer transfer) {
+                receivedTransfers.add(transfer);
+                try {
+                    return new RandomAccessFile(destination, "rw").getChannel();
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+
+            @Override
+            public void onProgress(FileTransfer transfer) {
+                receivedProgress.add(transfer.getTransferredBytes());
+            }
+
+            @Override
+            public void onCompleted(FileTransfer transfer, boolean successful) {
+                completedReceive = transfer;
+            }
+        });
+        dataChannel = new LoopbackDataChannel(receiver::onFrame);
+        sender = new DataChannelSender(dataChannel, () -> 0, HIGH_WATERMARK, LOW_WATERMARK, DataChannelSender.DEFAULT_MAX_QUEUED_BYTES);
+        dataChannel.setSender(sender);
+    }
+
+    @After
+    public void tearDown() {
+        source.delete();
+        destination.delete();
+    }
+
+    private FileTransfer startTransfer() throws IOException {
+        FileTransfer transfer = new FileTransfer("report.bin", new RandomAccessFile(source, "r").getChannel(), CHUNK_SIZE,
+                sender, dataChannel.getExecutor(), () -> 0, new FileTransfer.Listener() {
+            @Override
+            public void onProgress(FileTransfer transfer) {
+                sentProgress.add(transfer.getTransferredBytes());
+            }
+
+            @Override
+            public void onCompleted(FileTransfer transfer, boolean successful) {
+                completedSend = transfer;
+            }
+        });
+        transfer.start();
+        return transfer;
+    }
+
+    @Test
+    public void testTransfer() throws IOException {
+        FileTransfer transfer = startTransfer();
+        dataChannel.runTasks();
+        //reading the file is paused at the high watermark
+        long startFrameSize = TransferFrame.start(0, 0, 0, "report.bin").remaining();
+        assertEquals(startFrameSize + 4 * (CHUNK_SIZE + TransferFrame.CHUNK_HEADER_SIZE), dataChannel.bufferedAmount());
+        assertFalse(sender.isWritable());
+
+        int transmitCount = 0;
+        while (dataChannel.transmit()) {
+            transmitCount++;
+        }
+        assertTrue(transmitCount > 1);
+        assertTrue(dataChannel.getMaxBufferedAmount() < HIGH_WATERMARK + CHUNK_SIZE + TransferFrame.CHUNK_HEADER_SIZE);
+
+        assertTrue(transfer.isDone());
+        assertTrue(transfer.isSuccessful());
+        assertEquals(transfer, completedSend);
+        assertEquals(content.length, transfer.getTransferredBytes());
+        assertEquals(1.0, transfer.getProgress(), 0);
+
+        assertEquals(1, receivedTransfers.size());
+        FileTransfer received = receivedTransfers.get(0);
+        assertEquals("report.bin", received.getName());
+        assertEquals(content.length, received.getSize());
+        assertEquals(CHUNK_SIZE, received.getChunkSize());
+        assertTrue(received.isIncoming());
+        assertEquals(received, completedReceive);
+        assertTrue(received.isSuccessful());
+        assertNull(received.getError());
+        assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        assertEquals(0, receiver.getActiveTransferCount());
+
+        //one report for each chunk since chunks are larger than one percent
+        assertEquals(content.length / CHUNK_SIZE + 1, receivedProgress.size());
+        assertEquals(content.length, (long) receivedProgress.get(receivedProgress.size() - 1));
+        assertEquals(receivedProgress, sentProgress);
+    }
+
+    @Test
+    public void testChecksumMismatch() throws IOException {
+        startTransfer();
+        dataChannel.runTasks();
+        //corrupt the last byte of the first chunk
+        ByteBuffer firstChunk = (ByteBuffer) dataChannel.getWire().toArray()[1];
+        int last = firstChunk.limit() - 1;
+        firstChunk.put(last, (byte) (firstChunk.get(last) + 1));
+
+        while (dataChannel.transmit()) {
+            //transmit until the transfer is completed
+        }
+        assertTrue(completedSend.isSuccessful());
+        assertFalse(completedReceive.isSuccessful());
+        assertEquals("Checksum does not match", completedReceive.getError());
+    }
+
+    @Test
+    public void testCancel() throws IOException {
+        FileTransfer transfer = startTransfer();
+        dataChannel.transmit();
+        transfer.cancel();
+        while (dataChannel.transmit()) {
+            //cancel frame is queued after the chunks
+        }
+
+        assertFalse(transfer.isSuccessful());
+        assertFalse(completedReceive.isSuccessful());
+        assertEquals("Cancelled by the remote peer", completedReceive.getError());
+        assertTrue(completedReceive.getTransferredBytes() < content.length);
+
+        //data channel is closed while a transfer is in progress
+        completedReceive = null;
+        FileTransfer second = startTransfer();
+        dataChannel.transmit();
+        receiver.close();
+        sender.close();
+        dataChannel.runTasks();
+        assertFalse(completedReceive.isSuccessful());
+        assertTrue(second.isDone());
+        assertFalse(second.isSuccessful());
+    }
+
+    @Test
+    public void testFrames() throws IOException {
+        ByteBuffer start = TransferFrame.start(3, 1000, 100, "şarkı.mp3");
+        assertTrue(TransferFrame.isFrame(start));
+        TransferFrame frame = TransferFrame.parse(start);
+        assertEquals(TransferFrame.START, frame.getType());
+        assertEquals(3, frame.getTransferId());
+        assertEquals(1000, frame.getSize());
+        assertEquals(100, frame.getChunkSize());
+        assertEquals("şarkı.mp3", frame.getName());
+
+        FileChannel fileChannel = new RandomAccessFile(source, "r").getChannel();
+        //chunk at the end of the file is shorter
+        ByteBuffer chunk = TransferFrame.chunk(3, 7, fileChannel, content.length - 10, 100);
+        fileChannel.close();
+        frame = TransferFrame.parse(chunk);
+        assertEquals(7, frame.getIndex());
+        assertEquals(10, frame.getPayload().remaining());
+        assertEquals(content[content.length - 1], frame.getPayload().get(9));
+
+        assertEquals(42, TransferFrame.parse(TransferFrame.end(3, 42)).getChecksum());
+        assertEquals(TransferFrame.CANCEL, TransferFrame.parse(TransferFrame.cancel(3)).getType());
+
+        assertFalse(TransferFrame.isFrame(ByteBuffer.wrap("hello data channel".getBytes(StandardCharsets.UTF_8))));
+        //only the messages with a frame type after the prefix are reserved
+        ByteBuffer application = ByteBuffer.allocate(TransferFrame.HEADER_SIZE);
+        application.putInt(TransferFrame.MAGIC).put((byte) 0).putInt(1);
+        application.flip();
+        assertFalse(TransferFrame.isFrame(application));
+        ByteBuffer truncated = TransferFrame.end(3, 42);
+        truncated.limit(truncated.limit() - 1);
+        assertFalse(receiver.onFrame(truncated));
+        assertNotNull(TransferFrame.parse(TransferFrame.cancel(3)));
+    }
+}
@@ -0,0 +1,80 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.websocket.IceCandidateFilter;
+
+public class IceCandidateFilterTest {
+
+    private final List<String> sent = new ArrayList<>();
+    private IceCandidateFilter filter;
+
+    @Before
+    public void setUp() {
+        filter = new IceCandidateFilter((streamId, candidate) -> sent.add(streamId + " " + candidate.sdp), 3);
+    }
+
+    private IceCandidate candidate(int i) {
+        return new IceCandidate("0", 0, "candidate:" + i + " 1 udp 2122260223 192.168.1." + i + " 5000" + i + " typ host");
+    }
+
+    @Test
+    public void testCandidatesAreSentImmediately() {
+        filter.add("stream1", candidate(1));
+        assertEquals(1, sent.size());
+        filter.add("stream1", candidate(2));
+        assertEquals(2, sent.size());
+        assertEquals("stream1 " + candidate(2).sdp, sent.get(1));
+    }
+
+    @Test
+    public void testDuplicateCandidatesAreNotSent() {
+        filter.add("stream1", candidate(1));
+        filter.add("stream1", candidate(1));
+        filter.add("stream1", candidate(2));
+        filter.add("stream1", candidate(2));
+
+        assertEquals(2, sent.size());
+        assertEquals(4, filter.getCandidatesReceived());
+        assertEquals(2, filter.getCandidatesSent());
+        assertEquals(2, filter.getCandidatesDropped());
+    }
+
+    @Test
+    public void testRemovedCandidatesAreSentAgain() {
+        filter.add("stream1", candidate(1));
+        filter.remove("stream1", new IceCandidate[]{candidate(1)});
+        filter.add("stream1", candidate(1));
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    public void testOnlyLastCandidatesAreRemembered() {
+        for (int i = 1; i <= 4; i++) {
+            filter.add("stream1", candidate(i));
+        }
+        //first one is forgotten
+        filter.add("stream1", candidate(1));
+        filter.add("stream1", candidate(4));
+        assertEquals(5, sent.size());
+    }
+
+    @Test
+    public void testStreamsAreFilteredSeparately() {
+        filter.add("stream1", candidate(1));
+        filter.add("stream2", candidate(1));
+        assertEquals(2, sent.size());
+
+        filter.clear("stream2");
+        filter.add("stream2", candidate(1));
+        filter.add("stream1", candidate(1));
+        assertEquals(3, sent.size());
+    }
+}
@@ -0,0 +1,71 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.websocket.IceCandidatePipeline;
+
+public class IceCandidatePipelineTest {
+
+    private final List<Runnable> posted = new ArrayList<>();
+    private final List<String> sent = new ArrayList<>();
+    private final IceCandidatePipeline pipeline = new IceCandidatePipeline(posted::add,
+            (streamId, candidate) -> sent.add(streamId + " " + candidate.sdp));
+
+    private static IceCandidate candidate(int i) {
+        return new IceCandidate("0", 0, "candidate" + i);
+    }
+
+    private void runPosted() {
+        List<Runnable> tasks = new ArrayList<>(posted);
+        posted.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void testCandidatesJoinThePassOfTheFirstCandidate() {
+        pipeline.offer("stream1", candidate(1));
+        //first candidate is posted right away
+        assertEquals(1, posted.size());
+
+        pipeline.offer("stream1", candidate(2));
+        pipeline.offer("stream2", candidate(3));
+        assertEquals(1, posted.size());
+
+        runPosted();
+        assertEquals(Arrays.asList("stream1 candidate1", "stream1 candidate2", "stream2 candidate3"), sent);
+        assertEquals(1, pipeline.getPassCount());
+        assertEquals(3, pipeline.getCandidatesSent());
+        assertEquals(2, pipeline.getPipelinedCount());
+
+        //next candidate starts a new pass
+        pipeline.offer("stream1", candidate(4));
+        assertEquals(1, posted.size());
+        runPosted();
+        assertEquals(4, sent.size());
+        assertEquals(2, pipeline.getPassCount());
+        assertEquals(2, pipeline.getPipelinedCount());
+    }
+
+    @Test
+    public void testCandidatesAfterClosePassAreNotSentBeforeLaterMessages() {
+        pipeline.offer("stream1", candidate(1));
+        pipeline.closePass();
+        //e.g. local description is posted after the pass is closed
+        posted.add(() -> sent.add("offer"));
+        pipeline.offer("stream1", candidate(2));
+        assertEquals(3, posted.size());
+
+        runPosted();
+        assertEquals(Arrays.asList("stream1 candidate1", "offer", "stream1 candidate2"), sent);
+        assertEquals(0, pipeline.getPipelinedCount());
+    }
+}
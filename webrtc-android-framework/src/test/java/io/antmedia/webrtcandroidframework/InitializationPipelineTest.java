@@ -0,0 +1,165 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.antmedia.webrtcandroidframework.utility.Clock;
+import io.antmedia.webrtcandroidframework.utility.InitializationPipeline;
+
+public class InitializationPipelineTest {
+
+    private long now;
+    private final Clock clock = () -> now;
+
+    private List<String> completedStages;
+    private List<Long> pipelineDurations;
+    private InitializationPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        completedStages = Collections.synchronizedList(new ArrayList<>());
+        pipelineDurations = Collections.synchronizedList(new ArrayList<>());
+        pipeline = new InitializationPipeline(clock, new InitializationPipeline.Listener() {
+            @Override
+            public void onStageCompleted(String stage, long startOffsetMs, long durationMs) {
+                completedStages.add(stage);
+            }
+
+            @Override
+            public void onPipelineCompleted(long durationMs) {
+                pipelineDurations.add(durationMs);
+            }
+        });
+    }
+
+    @Test
+    public void testStagesRunInDependencyOrder() {
+        List<String> runOrder = new ArrayList<>();
+        pipeline.addStage("a", InitializationPipeline.CALLER_THREAD, () -> runOrder.add("a"));
+        pipeline.addStage("b", InitializationPipeline.CALLER_THREAD, () -> runOrder.add("b"), "a");
+        pipeline.addStage("c", InitializationPipeline.CALLER_THREAD, () -> runOrder.add("c"));
+        pipeline.addStage("d", InitializationPipeline.CALLER_THREAD, () -> runOrder.add("d"), "b", "c");
+
+        pipeline.start();
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), runOrder);
+        assertEquals(runOrder, completedStages);
+        assertTrue(pipeline.isCompleted());
+        assertEquals(1, pipelineDurations.size());
+    }
+
+    @Test
+    public void testAsyncStageTiming() {
+        List<String> runOrder = new ArrayList<>();
+        pipeline.addAsyncStage("network", InitializationPipeline.CALLER_THREAD, () -> runOrder.add("network"));
+        pipeline.addStage("local", InitializationPipeline.CALLER_THREAD, () -> {
+            now += 30;
+            runOrder.add("local");
+        });
+        pipeline.addStage("dependent", InitializationPipeline.CALLER_THREAD, () -> runOrder.add("dependent"), "network");
+
+        now = 1000;
+        pipeline.start();
+
+        //network stage is started but not completed, so its dependent waits
+        assertEquals(Arrays.asList("network", "local"), runOrder);
+        assertFalse(pipeline.isCompleted());
+        assertEquals(-1, pipeline.getTimings().get("network").getDurationMs());
+        assertFalse(pipeline.getTimings().containsKey("dependent"));
+
+        now += 70;
+        pipeline.complete("network");
+        //completing again is ignored
+        pipeline.complete("network");
+
+        assertEquals(Arrays.asList("network", "local", "dependent"), runOrder);
+        assertEquals(Arrays.asList("local", "network", "dependent"), completedStages);
+        assertTrue(pipeline.isCompleted());
+
+        Map<String, InitializationPipeline.StageTiming> timings = pipeline.getTimings();
+        assertEquals(0, timings.get("network").getStartOffsetMs());
+        assertEquals(100, timings.get("network").getDurationMs());
+        assertEquals(0, timings.get("local").getStartOffsetMs());
+        assertEquals(30, timings.get("local").getDurationMs());
+        assertEquals(100, timings.get("dependent").getStartOffsetMs());
+        assertEquals(0, timings.get("dependent").getDurationMs());
+        assertEquals(Collections.singletonList(100L), pipelineDurations);
+    }
+
+    @Test
+    public void testFailedStageCompletesPipeline() {
+        pipeline.addAsyncStage("network", InitializationPipeline.CALLER_THREAD, () -> {});
+        pipeline.addStage("local", InitializationPipeline.CALLER_THREAD, () -> {});
+
+        pipeline.start();
+        assertFalse(pipeline.isCompleted());
+
+        now += 50;
+        pipeline.fail("network");
+        //completing after failure is ignored
+        pipeline.complete("network");
+
+        assertTrue(pipeline.isCompleted());
+        assertEquals(Arrays.asList("local", "network"), completedStages);
+        assertEquals(Collections.singletonList(50L), pipelineDurations);
+        assertTrue(pipeline.getTimings().get("network").isFailed());
+        assertFalse(pipeline.getTimings().get("local").isFailed());
+    }
+
+    @Test
+    public void testIndependentStagesRunConcurrently() throws InterruptedException {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        Runnable waitForOther = () -> {
+            bothRunning.countDown();
+            try {
+                bothRunning.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        pipeline.addStage("factory", threads, waitForOther);
+        pipeline.addStage("webSocket", threads, waitForOther);
+        CountDownLatch completed = new CountDownLatch(1);
+        pipeline.addStage("publish", threads, completed::countDown, "factory", "webSocket");
+
+        pipeline.start();
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, bothRunning.getCount());
+        threads.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDependency() {
+        pipeline.addStage("a", InitializationPipeline.CALLER_THREAD, () -> {}, "b");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddAfterStart() {
+        pipeline.start();
+        pipeline.addStage("a", InitializationPipeline.CALLER_THREAD, () -> {});
+    }
+
+    @Test
+    public void testEmptyPipeline() {
+        pipeline.start();
+        assertTrue(pipeline.isCompleted());
+        assertEquals(Collections.singletonList(0L), pipelineDurations);
+    }
+}
@@ -0,0 +1,95 @@
+package io.antmedia.webrtcandroidframework;
+
+import org.webrtc.DataChannel;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import io.antmedia.webrtcandroidframework.core.DataChannelSender;
+
+/**
+ * Data channel that buffers the sent messages like SCTP until {@link #transmit()} delivers them to the remote side.
+ * Tasks of the executor are run by {@link #runTasks()}, so a test drives the sender and the link on its thread.
+ */
+class LoopbackDataChannel extends DataChannel {
+
+    interface Receiver {
+        void onMessage(ByteBuffer data);
+    }
+
+    private final Queue<ByteBuffer> wire = new ArrayDeque<>();
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Receiver receiver;
+    private DataChannelSender sender;
+    private long bufferedAmount;
+    private long maxBufferedAmount;
+
+    LoopbackDataChannel(Receiver receiver) {
+        super(1);
+        this.receiver = receiver;
+    }
+
+    void setSender(DataChannelSender sender) {
+        this.sender = sender;
+    }
+
+    Executor getExecutor() {
+        return tasks::add;
+    }
+
+    @Override
+    public long bufferedAmount() {
+        return bufferedAmount;
+    }
+
+    @Override
+    public boolean send(DataChannel.Buffer buffer) {
+        // native send copies the data
+        ByteBuffer copy = ByteBuffer.allocate(buffer.data.remaining());
+        copy.put(buffer.data);
+        copy.flip();
+        wire.add(copy);
+        bufferedAmount += copy.remaining();
+        maxBufferedAmount = Math.max(maxBufferedAmount, bufferedAmount);
+        return true;
+    }
+
+    long getMaxBufferedAmount() {
+        return maxBufferedAmount;
+    }
+
+    Queue<ByteBuffer> getWire() {
+        return wire;
+    }
+
+    void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Delivers the buffered messages and lets the sender send its queued messages
+     *
+     * @return false if nothing is delivered
+     */
+    boolean transmit() {
+        runTasks();
+        if (wire.isEmpty()) {
+            return false;
+        }
+        ByteBuffer message;
+        while ((message = wire.poll()) != null) {
+            bufferedAmount -= message.remaining();
+            receiver.onMessage(message);
+        }
+        if (sender != null) {
+            getExecutor().execute(sender::onBufferedAmountChange);
+        }
+        runTasks();
+        return true;
+    }
+}
@@ -0,0 +1,268 @@
+package io.antmedia.webrtcandroidframework;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.tavendo.autobahn.WebSocket;
+import de.tavendo.autobahn.WebSocketException;
+import io.antmedia.webrtcandroidframework.websocket.CborSignallingCodec;
+import io.antmedia.webrtcandroidframework.websocket.SignalingTransport;
+
+/**
+ * In process transport that answers the client with a {@link ServerScript} instead of a server.
+ *
+ * Messages in both directions are passed on a single thread in order and optionally delayed by
+ * a fixed one way latency. It does not depend on Android, so the signalling path can be benchmarked
+ * or many sessions can be simulated on a plain JVM.
+ *
+ * Events of the observer are delivered on the loopback thread unless a callback executor is set. A
+ * {@link io.antmedia.webrtcandroidframework.websocket.WebSocketHandler} checks that it's called on the thread
+ * of its handler, so the executor should post to that handler, e.g. {@code handler::post}, like a real
+ * websocket delivers its events on the thread that connects it.
+ *
+ * Number of messages and bytes in both directions are counted to measure the signalling overhead.
+ * Binary messages of the client are decoded with {@link CborSignallingCodec} before they are passed to
+ * the script, so scripts stay text based.
+ */
+public class LoopbackSignalingTransport implements SignalingTransport {
+
+    /**
+     * Server side of the loopback connection
+     */
+    public interface ServerConnection {
+        void sendTextMessage(String message);
+
+        void sendBinaryMessage(byte[] message);
+
+        /**
+         * Closes the connection from the server side
+         */
+        void close();
+    }
+
+    /**
+     * Scripted server behavior. It's called on the loopback thread for each message of the client.
+     */
+    public interface ServerScript {
+        void onTextMessage(String message, ServerConnection connection);
+    }
+
+    private final ServerScript script;
+    private final long latencyMs;
+    private ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private volatile Executor callbackExecutor = Runnable::run;
+    private volatile boolean released;
+    private final CborSignallingCodec codec = new CborSignallingCodec(false);
+
+    private WebSocket.WebSocketConnectionObserver observer;
+    private volatile boolean connected;
+
+    /**
+     * Each connect increases the generation, events of a previous connection are dropped
+     */
+    private volatile long generation;
+
+    private final AtomicLong sentMessageCount = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+    private final AtomicLong receivedMessageCount = new AtomicLong();
+    private final AtomicLong receivedBytes = new AtomicLong();
+
+    private final ServerConnection serverConnection = new ServerConnection() {
+        @Override
+        public void sendTextMessage(String message) {
+            long currentGeneration = generation;
+            deliverToClient(currentGeneration, () -> {
+                receivedMessageCount.incrementAndGet();
+                receivedBytes.addAndGet(message.getBytes(StandardCharsets.UTF_8).length);
+                observer.onTextMessage(message);
+            });
+        }
+
+        @Override
+        public void sendBinaryMessage(byte[] message) {
+            long currentGeneration = generation;
+            deliverToClient(currentGeneration, () -> {
+                receivedMessageCount.incrementAndGet();
+                receivedBytes.addAndGet(message.length);
+                observer.onBinaryMessage(message);
+            });
+        }
+
+        @Override
+        public void close() {
+            long currentGeneration = generation;
+            deliverToClient(currentGeneration, () -> {
+                connected = false;
+                observer.onClose(WebSocket.WebSocketConnectionObserver.WebSocketCloseNotification.CONNECTION_LOST, "Closed by loopback server");
+            });
+        }
+    };
+
+    public LoopbackSignalingTransport(ServerScript script) {
+        this(script, 0);
+    }
+
+    /**
+     * @param script server behavior
+     * @param latencyMs one way latency added to each message and event
+     */
+    public LoopbackSignalingTransport(ServerScript script, long latencyMs) {
+        this(script, latencyMs, null, true);
+    }
+
+    /**
+     * Uses the executor of a shared server so that many transports share a few threads
+     * @param executor single threaded executor, messages are delivered in order on it
+     */
+    public LoopbackSignalingTransport(ServerScript script, long latencyMs, ScheduledExecutorService executor) {
+        this(script, latencyMs, executor, false);
+    }
+
+    private LoopbackSignalingTransport(ServerScript script, long latencyMs, ScheduledExecutorService executor, boolean ownsExecutor) {
+        this.script = script;
+        this.latencyMs = latencyMs;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * @param callbackExecutor executor that the events of the observer are delivered on, in order
+     */
+    public void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    @Override
+    public synchronized void connect(URI uri, WebSocket.WebSocketConnectionObserver observer) throws WebSocketException {
+        if (released || (!ownsExecutor && executor.isShutdown())) {
+            throw new WebSocketException("Loopback transport is released");
+        }
+        if (ownsExecutor && (executor == null || executor.isShutdown())) {
+            executor = Executors.newSingleThreadScheduledExecutor();
+        }
+        this.observer = observer;
+        long currentGeneration = ++generation;
+        deliverToClient(currentGeneration, () -> {
+            connected = true;
+            observer.onOpen();
+        });
+    }
+
+    /**
+     * Closes the connection from the client side. Loopback thread of the transport is stopped after the
+     * pending events are delivered if it's not shared, and it's started again on the next connect
+     */
+    @Override
+    public synchronized void disconnect() {
+        long currentGeneration = generation;
+        deliverToClient(currentGeneration, () -> {
+            if (connected) {
+                connected = false;
+                observer.onClose(WebSocket.WebSocketConnectionObserver.WebSocketCloseNotification.NORMAL, "Closed by client");
+            }
+        });
+        if (ownsExecutor && executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void sendTextMessage(String message) {
+        sentMessageCount.incrementAndGet();
+        sentBytes.addAndGet(message.getBytes(StandardCharsets.UTF_8).length);
+        long currentGeneration = generation;
+        deliver(currentGeneration, () -> script.onTextMessage(message, serverConnection));
+    }
+
+    @Override
+    public void sendBinaryMessage(byte[] message) {
+        sentMessageCount.incrementAndGet();
+        sentBytes.addAndGet(message.length);
+        long currentGeneration = generation;
+        deliver(currentGeneration, () -> {
+            String text;
+            try {
+                text = codec.decode(message);
+            } catch (IOException e) {
+                //invalid messages are dropped like a server would do
+                return;
+            }
+            script.onTextMessage(text, serverConnection);
+        });
+    }
+
+    /**
+     * Stops the loopback thread if it's not shared. Transport cannot be connected again after that
+     * and the pending events are dropped.
+     */
+    public synchronized void release() {
+        released = true;
+        generation++;
+        if (ownsExecutor && executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Delivers the event to the observer on the callback executor after it passes the loopback thread
+     */
+    private void deliverToClient(long eventGeneration, Runnable event) {
+        deliver(eventGeneration, () -> callbackExecutor.execute(() -> {
+            if (eventGeneration == generation) {
+                event.run();
+            }
+        }));
+    }
+
+    private synchronized void deliver(long messageGeneration, Runnable event) {
+        if (executor == null) {
+            //not connected yet
+            return;
+        }
+        Runnable task = () -> {
+            if (messageGeneration == generation) {
+                event.run();
+            }
+        };
+        try {
+            if (latencyMs > 0) {
+                executor.schedule(task, latencyMs, TimeUnit.MILLISECONDS);
+            }
+            else {
+                executor.execute(task);
+            }
+        }
+        catch (RejectedExecutionException e) {
+            //transport is released
+        }
+    }
+
+    public long getSentMessageCount() {
+        return sentMessageCount.get();
+    }
+
+    public long getSentBytes() {
+        return sentBytes.get();
+    }
+
+    public long getReceivedMessageCount() {
+        return receivedMessageCount.get();
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes.get();
+    }
+}
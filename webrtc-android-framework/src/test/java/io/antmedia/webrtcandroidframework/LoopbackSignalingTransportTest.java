@@ -0,0 +1,194 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.tavendo.autobahn.WebSocket;
+import de.tavendo.autobahn.WebSocketException;
+
+public class LoopbackSignalingTransportTest {
+
+    private static class RecordingObserver implements WebSocket.WebSocketConnectionObserver {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final List<WebSocketCloseNotification> closeNotifications = new CopyOnWriteArrayList<>();
+        final List<String> threadNames = new CopyOnWriteArrayList<>();
+        volatile int openCount = 0;
+
+        @Override
+        public void onOpen() {
+            threadNames.add(Thread.currentThread().getName());
+            openCount++;
+        }
+
+        @Override
+        public void onClose(WebSocketCloseNotification webSocketCloseNotification, String s) {
+            closeNotifications.add(webSocketCloseNotification);
+        }
+
+        @Override
+        public void onTextMessage(String s) {
+            threadNames.add(Thread.currentThread().getName());
+            messages.add(s);
+        }
+
+        @Override
+        public void onRawTextMessage(byte[] bytes) {
+        }
+
+        @Override
+        public void onBinaryMessage(byte[] bytes) {
+        }
+    }
+
+    private LoopbackSignalingTransport transport;
+    private RecordingObserver observer;
+
+    @Before
+    public void setUp() throws Exception {
+        transport = new LoopbackSignalingTransport(new AntMediaLoopbackScript(Arrays.asList("stream2", "stream3")));
+        observer = new RecordingObserver();
+        transport.connect(new URI("ws://loopback/WebRTCAppEE/websocket"), observer);
+        Awaitility.await().until(() -> transport.isConnected());
+    }
+
+    @After
+    public void tearDown() {
+        transport.release();
+    }
+
+    @Test
+    public void testPublishFlow() {
+        transport.sendTextMessage("{\"command\":\"publish\",\"streamId\":\"stream1\"}");
+        Awaitility.await().until(() -> observer.messages.size() == 1);
+        assertEquals("{\"command\":\"start\",\"streamId\":\"stream1\"}", observer.messages.get(0));
+
+        transport.sendTextMessage("{\"command\":\"takeConfiguration\",\"streamId\":\"stream1\",\"type\":\"offer\",\"sdp\":\"v=0\"}");
+        //answer, 2 candidates and publish_started
+        Awaitility.await().until(() -> observer.messages.size() == 5);
+        assertTrue(observer.messages.get(1).contains("\"type\":\"answer\""));
+        assertTrue(observer.messages.get(2).contains("\"command\":\"takeCandidate\""));
+        assertTrue(observer.messages.get(4).contains("\"definition\":\"publish_started\""));
+
+        transport.sendTextMessage("{\"command\":\"stop\",\"streamId\":\"stream1\"}");
+        Awaitility.await().until(() -> observer.messages.size() == 6);
+        assertTrue(observer.messages.get(5).contains("\"definition\":\"publish_finished\""));
+
+        assertEquals(3, transport.getSentMessageCount());
+        assertEquals(6, transport.getReceivedMessageCount());
+        assertTrue(transport.getReceivedBytes() > transport.getSentBytes());
+    }
+
+    @Test
+    public void testPlayAndQueries() {
+        transport.sendTextMessage("{\"command\":\"play\",\"streamId\":\"room1\"}");
+        Awaitility.await().until(() -> observer.messages.size() == 3);
+        assertTrue(observer.messages.get(0).contains("\"type\":\"offer\""));
+
+        transport.sendTextMessage("{\"command\":\"takeConfiguration\",\"streamId\":\"room1\",\"type\":\"answer\",\"sdp\":\"v=0\"}");
+        transport.sendTextMessage("{\"command\":\"getTrackList\",\"streamId\":\"room1\"}");
+        transport.sendTextMessage("{\"command\":\"ping\"}");
+        transport.sendTextMessage("{\"command\":\"unknown\"}");
+        transport.sendTextMessage("not a json");
+        Awaitility.await().until(() -> observer.messages.size() == 6);
+
+        assertTrue(observer.messages.get(3).contains("\"definition\":\"play_started\""));
+        assertEquals("{\"command\":\"trackList\",\"streamId\":\"room1\",\"trackList\":[\"stream2\",\"stream3\"]}", observer.messages.get(4));
+        assertEquals("{\"command\":\"pong\"}", observer.messages.get(5));
+    }
+
+    @Test
+    public void testDisconnectAndReconnect() throws Exception {
+        transport.disconnect();
+        Awaitility.await().until(() -> observer.closeNotifications.size() == 1);
+        assertFalse(transport.isConnected());
+        assertEquals(WebSocket.WebSocketConnectionObserver.WebSocketCloseNotification.NORMAL, observer.closeNotifications.get(0));
+
+        transport.connect(new URI("ws://loopback/WebRTCAppEE/websocket"), observer);
+        Awaitility.await().until(() -> observer.openCount == 2);
+        assertTrue(transport.isConnected());
+    }
+
+    @Test
+    public void testEventsAreDeliveredOnCallbackExecutor() throws Exception {
+        ExecutorService callbackThread = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "callback"));
+        LoopbackSignalingTransport callbackTransport = new LoopbackSignalingTransport(new AntMediaLoopbackScript());
+        callbackTransport.setCallbackExecutor(callbackThread);
+        RecordingObserver callbackObserver = new RecordingObserver();
+        callbackTransport.connect(new URI("ws://loopback/WebRTCAppEE/websocket"), callbackObserver);
+        Awaitility.await().until(() -> callbackObserver.openCount == 1);
+
+        callbackTransport.sendTextMessage("{\"command\":\"ping\"}");
+        Awaitility.await().until(() -> callbackObserver.messages.size() == 1);
+        assertEquals(Arrays.asList("callback", "callback"), callbackObserver.threadNames);
+
+        callbackTransport.release();
+        callbackThread.shutdownNow();
+    }
+
+    @Test
+    public void testServerClose() throws Exception {
+        LoopbackSignalingTransport closingTransport = new LoopbackSignalingTransport((message, connection) -> connection.close(), 5);
+        RecordingObserver closingObserver = new RecordingObserver();
+        closingTransport.connect(new URI("ws://loopback/WebRTCAppEE/websocket"), closingObserver);
+        Awaitility.await().until(() -> closingTransport.isConnected());
+
+        closingTransport.sendTextMessage("{\"command\":\"ping\"}");
+        Awaitility.await().until(() -> closingObserver.closeNotifications.size() == 1);
+        assertEquals(WebSocket.WebSocketConnectionObserver.WebSocketCloseNotification.CONNECTION_LOST, closingObserver.closeNotifications.get(0));
+        assertFalse(closingTransport.isConnected());
+        closingTransport.release();
+    }
+
+    @Test
+    public void testMockServerSessions() throws Exception {
+        MockAntMediaServer server = new MockAntMediaServer(2, 0, Arrays.asList("stream2"), false);
+        List<LoopbackSignalingTransport> sessions = new ArrayList<>();
+        List<RecordingObserver> observers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            LoopbackSignalingTransport session = server.createTransport();
+            RecordingObserver sessionObserver = new RecordingObserver();
+            session.connect(new URI("ws://loopback/WebRTCAppEE/websocket"), sessionObserver);
+            sessions.add(session);
+            observers.add(sessionObserver);
+        }
+        Awaitility.await().until(() -> sessions.stream().allMatch(LoopbackSignalingTransport::isConnected));
+
+        for (int i = 0; i < sessions.size(); i++) {
+            sessions.get(i).sendTextMessage("{\"command\":\"publish\",\"streamId\":\"stream" + i + "\"}");
+            sessions.get(i).sendTextMessage("{\"command\":\"ping\"}");
+        }
+        Awaitility.await().until(() -> observers.stream().allMatch(o -> o.messages.size() == 2));
+
+        //replies of a session are in order and only delivered to its observer
+        for (int i = 0; i < observers.size(); i++) {
+            assertEquals("{\"command\":\"start\",\"streamId\":\"stream" + i + "\"}", observers.get(i).messages.get(0));
+            assertEquals("{\"command\":\"pong\"}", observers.get(i).messages.get(1));
+        }
+        assertEquals(5, server.getSessionCount());
+        assertEquals(10, server.getReceivedMessageCount());
+        assertEquals(10, server.getSentMessageCount());
+
+        server.release();
+        try {
+            sessions.get(0).connect(new URI("ws://loopback/WebRTCAppEE/websocket"), observer);
+            fail("released transport should not connect");
+        } catch (WebSocketException e) {
+            //expected
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.antmedia.webrtcandroidframework;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * In process stand-in for Ant Media Server that serves many signalling sessions on a plain JVM.
+ *
+ * Each session gets a {@link LoopbackSignalingTransport} with its own {@link AntMediaLoopbackScript}, so it
+ * speaks the same commands: publish, play, takeConfiguration, takeCandidate, stop, joinRoom, getRoomInfo,
+ * getTrackList, getStreamInfo, getBroadcastObject and ping. Sessions are spread over a fixed number of
+ * single threaded executors, messages of a session are always delivered in order on the same thread.
+ *
+ * It's used to measure the throughput and the latency of the signalling layer without a network.
+ */
+class MockAntMediaServer {
+
+    private final ScheduledExecutorService[] executors;
+    private final long latencyMs;
+    private final List<String> roomStreams;
+    private final boolean binaryEncodingSupported;
+    private final AtomicInteger nextExecutor = new AtomicInteger();
+    private final List<LoopbackSignalingTransport> transports = new CopyOnWriteArrayList<>();
+
+    public MockAntMediaServer() {
+        this(Runtime.getRuntime().availableProcessors(), 0, Collections.<String>emptyList(), false);
+    }
+
+    /**
+     * @param threadCount number of the threads that serve the sessions
+     * @param latencyMs one way latency added to each message
+     * @param roomStreams streams that are returned for room and track list queries
+     * @param binaryEncodingSupported lets the sessions negotiate binary signalling
+     */
+    public MockAntMediaServer(int threadCount, long latencyMs, List<String> roomStreams, boolean binaryEncodingSupported) {
+        this.executors = new ScheduledExecutorService[Math.max(1, threadCount)];
+        for (int i = 0; i < executors.length; i++) {
+            executors[i] = Executors.newSingleThreadScheduledExecutor();
+        }
+        this.latencyMs = latencyMs;
+        this.roomStreams = new ArrayList<>(roomStreams);
+        this.binaryEncodingSupported = binaryEncodingSupported;
+    }
+
+    /**
+     * @return transport of a new session, it should be set to a {@link io.antmedia.webrtcandroidframework.websocket.WebSocketHandler} before connecting
+     */
+    public LoopbackSignalingTransport createTransport() {
+        AntMediaLoopbackScript script = new AntMediaLoopbackScript(roomStreams);
+        script.setBinaryEncodingSupported(binaryEncodingSupported);
+        ScheduledExecutorService executor = executors[Math.abs(nextExecutor.getAndIncrement() % executors.length)];
+        LoopbackSignalingTransport transport = new LoopbackSignalingTransport(script, latencyMs, executor);
+        transports.add(transport);
+        return transport;
+    }
+
+    public int getSessionCount() {
+        return transports.size();
+    }
+
+    /**
+     * @return number of the messages received from the clients
+     */
+    public long getReceivedMessageCount() {
+        long count = 0;
+        for (LoopbackSignalingTransport transport : transports) {
+            count += transport.getSentMessageCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return number of the messages sent to the clients
+     */
+    public long getSentMessageCount() {
+        long count = 0;
+        for (LoopbackSignalingTransport transport : transports) {
+            count += transport.getReceivedMessageCount();
+        }
+        return count;
+    }
+
+    /**
+     * Releases the sessions and stops the threads
+     */
+    public void release() {
+        for (LoopbackSignalingTransport transport : transports) {
+            transport.release();
+        }
+        for (ScheduledExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+    }
+}
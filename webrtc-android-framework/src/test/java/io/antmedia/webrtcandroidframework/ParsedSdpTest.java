@@ -0,0 +1,140 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.sdp.Extmap;
+import io.antmedia.webrtcandroidframework.sdp.Fmtp;
+import io.antmedia.webrtcandroidframework.sdp.MediaSection;
+import io.antmedia.webrtcandroidframework.sdp.ParsedSdp;
+import io.antmedia.webrtcandroidframework.sdp.RtpMap;
+import io.antmedia.webrtcandroidframework.sdp.SdpLine;
+
+public class ParsedSdpTest {
+
+    public static final String SDP = "v=0\r\n"
+            + "o=- 4611731400430051336 2 IN IP4 127.0.0.1\r\n"
+            + "s=-\r\n"
+            + "t=0 0\r\n"
+            + "a=group:BUNDLE 0 1\r\n"
+            + "a=msid-semantic: WMS stream1\r\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111 103 9 126\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=mid:0\r\n"
+            + "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level\r\n"
+            + "a=sendrecv\r\n"
+            + "a=rtpmap:111 opus/48000/2\r\n"
+            + "a=rtcp-fb:111 transport-cc\r\n"
+            + "a=fmtp:111 minptime=10; useinbandfec=1\r\n"
+            + "a=rtpmap:103 ISAC/16000\r\n"
+            + "a=rtpmap:9 G722/8000\r\n"
+            + "a=rtpmap:126 telephone-event/8000\r\n"
+            + "a=fmtp:126 0-15\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 102\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=mid:1\r\n"
+            + "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n"
+            + "a=extmap:3 urn:3gpp:video-orientation\r\n"
+            + "a=extmap:4/sendonly urn:ietf:params:rtp-hdrext:toffset\r\n"
+            + "a=rtpmap:96 VP8/90000\r\n"
+            + "a=rtcp-fb:96 nack\r\n"
+            + "a=rtpmap:97 rtx/90000\r\n"
+            + "a=fmtp:97 apt=96\r\n"
+            + "a=rtpmap:98 H264/90000\r\n"
+            + "a=fmtp:98 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f\r\n"
+            + "a=rtpmap:99 rtx/90000\r\n"
+            + "a=fmtp:99 apt=98\r\n"
+            + "a=rtpmap:102 H264/90000\r\n";
+
+    @Test
+    public void testWriteWithoutChanges() {
+        assertEquals(SDP, ParsedSdp.parse(SDP).toString());
+
+        //LF terminated and unterminated last line are written with CRLF
+        assertEquals(SDP, ParsedSdp.parse(SDP.replace("\r\n", "\n")).toString());
+        assertEquals(SDP, ParsedSdp.parse(SDP.substring(0, SDP.length() - 2)).toString());
+    }
+
+    @Test
+    public void testModel() {
+        ParsedSdp parsedSdp = ParsedSdp.parse(SDP);
+        assertEquals(6, parsedSdp.getSessionLines().size());
+        assertEquals(2, parsedSdp.getMediaSections().size());
+
+        MediaSection audio = parsedSdp.getMediaSections(MediaSection.AUDIO).get(0);
+        assertEquals(Arrays.asList("111", "103", "9", "126"), audio.getFormats());
+        RtpMap opus = audio.getRtpMap("111");
+        assertEquals("opus", opus.getEncodingName());
+        assertEquals(48000, opus.getClockRate());
+        assertEquals("2", opus.getEncodingParameters());
+        assertNull(audio.getRtpMap("9").getEncodingParameters());
+
+        Fmtp opusFmtp = audio.getFmtp("111");
+        assertEquals("10", opusFmtp.getParameter("minptime"));
+        assertEquals("1", opusFmtp.getParameter("useinbandfec"));
+        Fmtp telephoneEvent = audio.getFmtp("126");
+        assertTrue(telephoneEvent.hasParameter("0-15"));
+        assertNull(telephoneEvent.getParameter("0-15"));
+        assertEquals("a=fmtp:126 0-15", telephoneEvent.toString());
+
+        MediaSection video = parsedSdp.getMediaSections(MediaSection.VIDEO).get(0);
+        assertEquals(Arrays.asList("98", "102"), video.getPayloadTypes("h264"));
+        List<Extmap> extmaps = video.getExtmaps();
+        assertEquals(3, extmaps.size());
+        assertEquals("sendonly", extmaps.get(2).getDirection());
+        assertEquals(4, extmaps.get(2).getId());
+        assertEquals("urn:ietf:params:rtp-hdrext:toffset", extmaps.get(2).getUri());
+        assertEquals("a=extmap:4/sendonly urn:ietf:params:rtp-hdrext:toffset", extmaps.get(2).toString());
+    }
+
+    @Test
+    public void testChanges() {
+        ParsedSdp parsedSdp = ParsedSdp.parse(SDP);
+        MediaSection audio = parsedSdp.getMediaSections(MediaSection.AUDIO).get(0);
+        MediaSection video = parsedSdp.getMediaSections(MediaSection.VIDEO).get(0);
+
+        assertTrue(audio.preferCodec("ISAC"));
+        assertTrue(video.preferCodec("H264"));
+        assertFalse(video.preferCodec("AV1"));
+        assertEquals(Arrays.asList("98", "102", "96", "97", "99"), video.getFormats());
+
+        audio.getOrAddFmtp("111").setParameter("stereo", "1");
+        video.getOrAddFmtp("102").setParameter("x-google-start-bitrate", "1000");
+
+        assertEquals(1, parsedSdp.removeExtmap("urn:3gpp:video-orientation"));
+        video.addExtmap(new Extmap(5, "http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01"));
+
+        String sdp = parsedSdp.toString();
+        assertTrue(sdp.contains("m=audio 9 UDP/TLS/RTP/SAVPF 103 111 9 126\r\n"));
+        assertTrue(sdp.contains("m=video 9 UDP/TLS/RTP/SAVPF 98 102 96 97 99\r\n"));
+        assertTrue(sdp.contains("a=fmtp:111 minptime=10;useinbandfec=1;stereo=1\r\n"));
+        assertTrue(sdp.contains("a=rtpmap:102 H264/90000\r\na=fmtp:102 x-google-start-bitrate=1000\r\n"));
+        assertFalse(sdp.contains("urn:3gpp:video-orientation"));
+        assertTrue(sdp.contains("a=extmap:4/sendonly urn:ietf:params:rtp-hdrext:toffset\r\n"
+                + "a=extmap:5 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n"));
+
+        //written SDP is parsed to the same model
+        assertEquals(sdp, ParsedSdp.parse(sdp).toString());
+    }
+
+    @Test
+    public void testMalformedLines() {
+        String sdp = "v=0\r\nsomething\r\na=rtpmap:96\r\na=extmap:x urn:a\r\nm=video\r\na=fmtp:96\r\n";
+        ParsedSdp parsedSdp = ParsedSdp.parse(sdp);
+        assertEquals(sdp, parsedSdp.toString());
+        for (SdpLine line : parsedSdp.getSessionLines()) {
+            assertTrue(line instanceof SdpLine.PlainLine);
+        }
+        MediaSection video = parsedSdp.getMediaSections().get(0);
+        assertEquals(MediaSection.VIDEO, video.getMedia());
+        assertTrue(video.getFormats().isEmpty());
+        assertTrue(video.getLines().get(0) instanceof SdpLine.PlainLine);
+    }
+}
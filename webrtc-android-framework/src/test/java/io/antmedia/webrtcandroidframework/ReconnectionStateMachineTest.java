@@ -0,0 +1,177 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.os.Handler;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Random;
+
+import io.antmedia.webrtcandroidframework.core.ReconnectionEvent;
+import io.antmedia.webrtcandroidframework.core.ReconnectionStateMachine;
+import io.antmedia.webrtcandroidframework.core.TieredRecovery;
+
+public class ReconnectionStateMachineTest {
+
+    private static final long ICE_RESTART_TIMEOUT_MS = 100;
+    private static final long SESSION_RESTORE_TIMEOUT_MS = 200;
+    private static final long BASE_DELAY_MS = 1000;
+    private static final long ATTEMPT_TIMEOUT_MS = 5000;
+
+    private Handler handler;
+    private ReconnectionStateMachine.Actions actions;
+    private ReconnectionStateMachine.Listener listener;
+    private ReconnectionStateMachine stateMachine;
+    private long now;
+
+    @Before
+    public void setUp() {
+        handler = mock(Handler.class);
+        actions = mock(ReconnectionStateMachine.Actions.class);
+        listener = mock(ReconnectionStateMachine.Listener.class);
+        //half of the backoff cap
+        Random random = new Random() {
+            @Override
+            public double nextDouble() {
+                return 0.5;
+            }
+        };
+        stateMachine = new ReconnectionStateMachine(handler, () -> now, random, actions, listener)
+                .setTierTimeouts(ICE_RESTART_TIMEOUT_MS, SESSION_RESTORE_TIMEOUT_MS)
+                .setBackoff(BASE_DELAY_MS, 10000, ATTEMPT_TIMEOUT_MS)
+                .setMaxConcurrentRepublishes(2);
+    }
+
+    private Runnable lastScheduled(long delayMs, int count) {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(handler, times(count)).postDelayed(captor.capture(), eq(delayMs));
+        List<Runnable> runnables = captor.getAllValues();
+        return runnables.get(runnables.size() - 1);
+    }
+
+    @Test
+    public void testTiers() {
+        when(actions.isTierApplicable(anyString(), any(TieredRecovery.Tier.class))).thenReturn(true);
+
+        now = 0;
+        stateMachine.onDisconnected("stream1");
+        assertEquals(ReconnectionStateMachine.State.ICE_RESTARTING, stateMachine.getState("stream1"));
+        verify(actions).restartIce("stream1");
+
+        now = 100;
+        lastScheduled(ICE_RESTART_TIMEOUT_MS, 1).run();
+        assertEquals(ReconnectionStateMachine.State.SESSION_RESTORING, stateMachine.getState("stream1"));
+        verify(actions).restoreSession("stream1");
+        verify(listener).onTierCompleted("stream1", TieredRecovery.Tier.ICE_RESTART, false, 100);
+
+        now = 300;
+        lastScheduled(SESSION_RESTORE_TIMEOUT_MS, 1).run();
+        assertEquals(ReconnectionStateMachine.State.BACKOFF, stateMachine.getState("stream1"));
+        verify(actions, never()).republish(anyString());
+
+        lastScheduled(BASE_DELAY_MS / 2, 1).run();
+        assertEquals(ReconnectionStateMachine.State.REPUBLISHING, stateMachine.getState("stream1"));
+        verify(actions).republish("stream1");
+
+        now = 2000;
+        stateMachine.onConnected("stream1");
+        assertEquals(ReconnectionStateMachine.State.CONNECTED, stateMachine.getState("stream1"));
+        verify(listener).onTierCompleted("stream1", TieredRecovery.Tier.REPUBLISH, true, 1700);
+        assertFalse(stateMachine.isRecovering());
+
+        List<ReconnectionEvent> events = stateMachine.getEvents();
+        assertEquals(6, events.size());
+        assertEquals(ReconnectionStateMachine.State.CONNECTED, events.get(0).getFrom());
+        assertEquals(ReconnectionStateMachine.State.QUEUED, events.get(3).getTo());
+        assertEquals(1, events.get(4).getAttempt());
+        assertEquals("2000,stream1,REPUBLISHING,CONNECTED,1,connected", events.get(5).toCsv());
+        verify(listener, times(6)).onStateChanged(any(ReconnectionEvent.class));
+    }
+
+    @Test
+    public void testBoundedConcurrency() {
+        when(actions.getPriority("publish")).thenReturn(1);
+
+        String[] streamIds = {"play1", "play2", "play3", "publish"};
+        for (String streamId : streamIds) {
+            stateMachine.onDisconnected(streamId);
+        }
+        //backoff delays expire in the disconnection order
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(handler, times(streamIds.length)).postDelayed(captor.capture(), eq(BASE_DELAY_MS / 2));
+        for (Runnable runnable : captor.getAllValues()) {
+            runnable.run();
+        }
+
+        verify(actions).republish("play1");
+        verify(actions).republish("play2");
+        verify(actions, times(2)).republish(anyString());
+        assertEquals(ReconnectionStateMachine.State.QUEUED, stateMachine.getState("play3"));
+        assertEquals(ReconnectionStateMachine.State.QUEUED, stateMachine.getState("publish"));
+
+        //publish has priority over the play that is queued before it
+        stateMachine.onConnected("play1");
+        verify(actions).republish("publish");
+        verify(actions, never()).republish("play3");
+
+        stateMachine.onConnected("publish");
+        verify(actions).republish("play3");
+    }
+
+    @Test
+    public void testAttemptTimeoutBacksOff() {
+        stateMachine.onDisconnected("stream1");
+        lastScheduled(BASE_DELAY_MS / 2, 1).run();
+        verify(actions).republish("stream1");
+
+        lastScheduled(ATTEMPT_TIMEOUT_MS, 1).run();
+        assertEquals(ReconnectionStateMachine.State.BACKOFF, stateMachine.getState("stream1"));
+
+        //delay cap doubles after each attempt
+        lastScheduled(BASE_DELAY_MS, 1).run();
+        verify(actions, times(2)).republish("stream1");
+        assertEquals(2, stateMachine.getEvents().get(stateMachine.getEvents().size() - 1).getAttempt());
+    }
+
+    @Test
+    public void testDeduplicationAndStop() {
+        when(actions.isTierApplicable(anyString(), any(TieredRecovery.Tier.class))).thenReturn(true);
+
+        stateMachine.onDisconnected("stream1");
+        stateMachine.onDisconnected("stream1");
+        verify(actions, times(1)).restartIce("stream1");
+        assertEquals(1, stateMachine.getDeduplicatedCount());
+
+        Runnable iceRestartTimeout = lastScheduled(ICE_RESTART_TIMEOUT_MS, 1);
+        stateMachine.onConnected("stream1");
+        verify(listener).onTierCompleted(eq("stream1"), eq(TieredRecovery.Tier.ICE_RESTART), eq(true), anyLong());
+
+        //timeout of the previous state is ignored
+        iceRestartTimeout.run();
+        assertEquals(ReconnectionStateMachine.State.CONNECTED, stateMachine.getState("stream1"));
+        verify(actions, never()).restoreSession(anyString());
+
+        stateMachine.onDisconnected("stream1");
+        assertTrue(stateMachine.isRecovering());
+        stateMachine.stop("stream1");
+        assertNull(stateMachine.getState("stream1"));
+        assertFalse(stateMachine.isRecovering());
+        assertEquals(ReconnectionStateMachine.State.STOPPED, stateMachine.getEvents().get(stateMachine.getEvents().size() - 1).getTo());
+    }
+}
@@ -0,0 +1,110 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.antmedia.webrtcandroidframework.core.RemoteCandidateQueue;
+
+public class RemoteCandidateQueueTest {
+
+    private long now;
+
+    private static IceCandidate candidate(int i) {
+        return new IceCandidate("0", 0, "candidate:" + i + " 1 udp 2122260223 192.168.1.10 " + (50000 + i) + " typ host");
+    }
+
+    @Test
+    public void testQueueAndDrain() {
+        RemoteCandidateQueue queue = new RemoteCandidateQueue(() -> now);
+
+        now = 1000;
+        assertTrue(queue.offer(candidate(1)));
+        now = 1100;
+        assertTrue(queue.offer(candidate(2)));
+        assertEquals(2, queue.size());
+        assertEquals(Arrays.asList(candidate(1).sdp, candidate(2).sdp), sdps(queue.getQueuedCandidates()));
+
+        now = 1300;
+        assertEquals(Arrays.asList(candidate(1).sdp, candidate(2).sdp), sdps(queue.drain()));
+        assertFalse(queue.isBuffering());
+        assertEquals(2, queue.getDrainedCount());
+        assertEquals(250, queue.getAverageWaitMs());
+        assertEquals(300, queue.getMaxWaitMs());
+
+        //candidates are added directly after drain
+        assertFalse(queue.offer(candidate(3)));
+        assertEquals(0, queue.size());
+        assertTrue(queue.drain().isEmpty());
+
+        queue.reset();
+        assertTrue(queue.isBuffering());
+        assertTrue(queue.offer(candidate(3)));
+    }
+
+    @Test
+    public void testDuplicates() {
+        RemoteCandidateQueue queue = new RemoteCandidateQueue(() -> now);
+
+        assertFalse(queue.isDuplicate(candidate(1)));
+        assertTrue(queue.isDuplicate(candidate(1)));
+        //same candidate in another m-line is not a duplicate
+        assertFalse(queue.isDuplicate(new IceCandidate("1", 1, candidate(1).sdp)));
+        assertFalse(queue.isDuplicate(candidate(2)));
+        assertEquals(1, queue.getDuplicateCount());
+
+        //candidates of the previous connection are not duplicates after reset
+        queue.reset();
+        assertFalse(queue.isDuplicate(candidate(1)));
+    }
+
+    @Test
+    public void testNoCandidateIsLostWhileDraining() throws InterruptedException {
+        final int producerCount = 4;
+        final int candidatesPerProducer = 5000;
+        RemoteCandidateQueue queue = new RemoteCandidateQueue();
+        List<IceCandidate> addedDirectly = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService producers = Executors.newFixedThreadPool(producerCount);
+        CountDownLatch started = new CountDownLatch(producerCount);
+
+        for (int p = 0; p < producerCount; p++) {
+            final int producer = p;
+            producers.execute(() -> {
+                started.countDown();
+                for (int i = 0; i < candidatesPerProducer; i++) {
+                    IceCandidate candidate = candidate(producer * candidatesPerProducer + i);
+                    if (!queue.isDuplicate(candidate) && !queue.offer(candidate)) {
+                        addedDirectly.add(candidate);
+                    }
+                }
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        List<IceCandidate> drained = queue.drain();
+        producers.shutdown();
+        assertTrue(producers.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(producerCount * candidatesPerProducer, drained.size() + addedDirectly.size());
+        assertEquals(0, queue.size());
+    }
+
+    private static List<String> sdps(List<IceCandidate> candidates) {
+        List<String> sdps = new ArrayList<>();
+        for (IceCandidate candidate : candidates) {
+            sdps.add(candidate.sdp);
+        }
+        return sdps;
+    }
+}
@@ -0,0 +1,67 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import io.antmedia.webrtcandroidframework.websocket.RttEstimator;
+
+public class RttEstimatorTest {
+
+    @Test
+    public void testDefaultsBeforeFirstSample() {
+        RttEstimator estimator = new RttEstimator();
+
+        assertEquals(-1, estimator.getRetransmissionTimeoutMs());
+        assertEquals(RttEstimator.DEFAULT_PING_INTERVAL_MS, estimator.getPingIntervalMs());
+        assertEquals(RttEstimator.DEFAULT_DEAD_PEER_TIMEOUT_MS, estimator.getDeadPeerTimeoutMs());
+    }
+
+    @Test
+    public void testSmoothing() {
+        RttEstimator estimator = new RttEstimator();
+
+        estimator.onSample(200);
+        assertEquals(200, estimator.getSmoothedRttMs());
+        assertEquals(100, estimator.getRttVariationMs());
+
+        estimator.onSample(600);
+        assertEquals(600, estimator.getLastRttMs());
+        assertEquals(250, estimator.getSmoothedRttMs());
+        assertEquals(175, estimator.getRttVariationMs());
+        assertEquals(950, estimator.getRetransmissionTimeoutMs());
+
+        //negative samples are ignored
+        estimator.onSample(-5);
+        assertEquals(2, estimator.getSampleCount());
+
+        estimator.reset();
+        assertEquals(0, estimator.getSampleCount());
+        assertEquals(-1, estimator.getSmoothedRttMs());
+    }
+
+    @Test
+    public void testGoodNetworkDetectsDeadLinkFaster() {
+        RttEstimator estimator = new RttEstimator();
+        for (int i = 0; i < 20; i++) {
+            estimator.onSample(30);
+        }
+
+        assertEquals(RttEstimator.MIN_PING_INTERVAL_MS, estimator.getPingIntervalMs());
+        assertEquals(RttEstimator.MIN_DEAD_PEER_TIMEOUT_MS, estimator.getDeadPeerTimeoutMs());
+    }
+
+    @Test
+    public void testBadNetworkWaitsLonger() {
+        RttEstimator estimator = new RttEstimator();
+        long[] samples = {800, 2500, 1200, 3000, 900, 2800};
+        for (long sample : samples) {
+            estimator.onSample(sample);
+        }
+
+        long rto = estimator.getRetransmissionTimeoutMs();
+        assertEquals(Math.min(rto, RttEstimator.MAX_PING_INTERVAL_MS), estimator.getPingIntervalMs());
+        assertEquals(Math.min(2 * rto, RttEstimator.MAX_DEAD_PEER_TIMEOUT_MS), estimator.getDeadPeerTimeoutMs());
+        assertEquals(true, estimator.getDeadPeerTimeoutMs() > RttEstimator.DEFAULT_DEAD_PEER_TIMEOUT_MS);
+    }
+}
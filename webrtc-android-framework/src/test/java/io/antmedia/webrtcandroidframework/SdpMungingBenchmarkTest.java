@@ -0,0 +1,298 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.antmedia.webrtcandroidframework.sdp.MediaSection;
+import io.antmedia.webrtcandroidframework.sdp.ParsedSdp;
+
+/**
+ * Compares the ParsedSdp based munging with the regex based munging that was used in WebRTCClient on the SDPs
+ * of the conference play, which has an audio and a video section for each track. Timing is only measured when
+ * benchmarks are enabled, see {@link Benchmarks}.
+ */
+public class SdpMungingBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 5000;
+
+    private static final String VIDEO_CODEC = "VP8";
+    private static final String AUDIO_CODEC = "opus";
+    private static final String VIDEO_ROTATION_EXT_URI = "urn:3gpp:video-orientation";
+    private static final String VIDEO_ROTATION_EXT_LINE = "a=extmap:3 " + VIDEO_ROTATION_EXT_URI + "\r\n";
+    private static final int VIDEO_START_BITRATE = 1700;
+    private static final int AUDIO_START_BITRATE = 32;
+
+    @Test
+    public void testSameResultForSingleTrack() {
+        String sdp = createSdp(1);
+        assertEquals(regexMunging(sdp).replace("; ", ";"), parsedSdpMunging(sdp));
+    }
+
+    @Test
+    public void testParsedSdpAgainstRegex() throws Exception {
+        Benchmarks.assumeEnabled();
+        for (int trackCount : new int[]{1, 5, 20, 50}) {
+            final String sdp = createSdp(trackCount);
+
+            run(() -> regexMunging(sdp), WARMUP_ITERATIONS);
+            run(() -> parsedSdpMunging(sdp), WARMUP_ITERATIONS);
+
+            long regexResult = measure(() -> regexMunging(sdp));
+            long parsedSdpResult = measure(() -> parsedSdpMunging(sdp));
+
+            Benchmarks.report(trackCount + " tracks, " + sdp.length() + " chars SDP, regex: " + regexResult
+                    + " ns/SDP | parsed SDP: " + parsedSdpResult + " ns/SDP");
+        }
+    }
+
+    private static String parsedSdpMunging(String sdp) {
+        ParsedSdp parsedSdp = ParsedSdp.parse(sdp);
+        for (MediaSection video : parsedSdp.getMediaSections(MediaSection.VIDEO)) {
+            video.preferCodec(VIDEO_CODEC);
+            for (String payloadType : video.getPayloadTypes(VIDEO_CODEC)) {
+                video.getOrAddFmtp(payloadType).setParameter("x-google-start-bitrate", String.valueOf(VIDEO_START_BITRATE));
+            }
+        }
+        for (MediaSection audio : parsedSdp.getMediaSections(MediaSection.AUDIO)) {
+            for (String payloadType : audio.getPayloadTypes(AUDIO_CODEC)) {
+                audio.getOrAddFmtp(payloadType).setParameter("maxaveragebitrate", String.valueOf(AUDIO_START_BITRATE * 1000));
+            }
+        }
+        parsedSdp.removeExtmap(VIDEO_ROTATION_EXT_URI);
+        return parsedSdp.toString();
+    }
+
+    /**
+     * Regex based munging only changes the first section of each media type
+     */
+    private static String regexMunging(String sdp) {
+        sdp = preferCodec(sdp, VIDEO_CODEC, false);
+        sdp = setStartBitrate(VIDEO_CODEC, true, sdp, VIDEO_START_BITRATE);
+        sdp = setStartBitrate(AUDIO_CODEC, false, sdp, AUDIO_START_BITRATE);
+        return sdp.replace(VIDEO_ROTATION_EXT_LINE, "");
+    }
+
+    /**
+     * @return SDP of a conference play with an audio and a video section for each track
+     */
+    static String createSdp(int trackCount) {
+        StringBuilder sdp = new StringBuilder();
+        sdp.append("v=0\r\no=- 4611731400430051336 2 IN IP4 127.0.0.1\r\ns=-\r\nt=0 0\r\na=group:BUNDLE");
+        for (int i = 0; i < trackCount * 2; i++) {
+            sdp.append(' ').append(i);
+        }
+        sdp.append("\r\na=extmap-allow-mixed\r\na=msid-semantic: WMS");
+        for (int i = 0; i < trackCount; i++) {
+            sdp.append(" track").append(i);
+        }
+        sdp.append("\r\n");
+        for (int i = 0; i < trackCount; i++) {
+            int mid = i * 2;
+            sdp.append("m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126\r\n")
+                    .append("c=IN IP4 0.0.0.0\r\na=rtcp:9 IN IP4 0.0.0.0\r\n")
+                    .append("a=ice-ufrag:Wr3x\r\na=ice-pwd:2Hc+rFbD6r8s/3DPpN1tDxkM\r\na=ice-options:trickle\r\n")
+                    .append("a=fingerprint:sha-256 5B:3E:8C:2A:11:7E:0A:72:BB:1F:54:0E:27:9D:CC:08:31:6A:2F:43:92:00:E5:60:71:5D:3C:8B:A4:19:F6:10\r\n")
+                    .append("a=setup:actpass\r\na=mid:").append(mid).append("\r\n")
+                    .append("a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level\r\n")
+                    .append("a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n")
+                    .append("a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n")
+                    .append("a=sendonly\r\na=msid:track").append(i).append(" audio").append(i).append("\r\n")
+                    .append("a=rtcp-mux\r\na=rtpmap:111 opus/48000/2\r\na=rtcp-fb:111 transport-cc\r\n")
+                    .append("a=fmtp:111 minptime=10;useinbandfec=1\r\n")
+                    .append("a=rtpmap:63 red/48000/2\r\na=fmtp:63 111/111\r\na=rtpmap:9 G722/8000\r\n")
+                    .append("a=rtpmap:0 PCMU/8000\r\na=rtpmap:8 PCMA/8000\r\na=rtpmap:13 CN/8000\r\n")
+                    .append("a=rtpmap:110 telephone-event/48000\r\na=rtpmap:126 telephone-event/8000\r\n")
+                    .append("a=ssrc:").append(1000 + mid).append(" cname:stream\r\n")
+                    .append("a=ssrc:").append(1000 + mid).append(" msid:track").append(i).append(" audio").append(i).append("\r\n");
+
+            sdp.append("m=video 9 UDP/TLS/RTP/SAVPF 96 97 102 103 104 105 106 107 108 109 127 125 39 40 45 46 98 99 100 101 114 115 116\r\n")
+                    .append("c=IN IP4 0.0.0.0\r\na=rtcp:9 IN IP4 0.0.0.0\r\n")
+                    .append("a=ice-ufrag:Wr3x\r\na=ice-pwd:2Hc+rFbD6r8s/3DPpN1tDxkM\r\na=ice-options:trickle\r\n")
+                    .append("a=fingerprint:sha-256 5B:3E:8C:2A:11:7E:0A:72:BB:1F:54:0E:27:9D:CC:08:31:6A:2F:43:92:00:E5:60:71:5D:3C:8B:A4:19:F6:10\r\n")
+                    .append("a=setup:actpass\r\na=mid:").append(mid + 1).append("\r\n")
+                    .append("a=extmap:14 urn:ietf:params:rtp-hdrext:toffset\r\n")
+                    .append("a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n")
+                    .append(VIDEO_ROTATION_EXT_LINE)
+                    .append("a=extmap:5 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n")
+                    .append("a=extmap:6 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay\r\n")
+                    .append("a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n")
+                    .append("a=sendonly\r\na=msid:track").append(i).append(" video").append(i).append("\r\n")
+                    .append("a=rtcp-mux\r\na=rtcp-rsize\r\n");
+            appendVideoCodec(sdp, "96", "97", "VP8", null);
+            appendVideoCodec(sdp, "102", "103", "H264", "level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f");
+            appendVideoCodec(sdp, "104", "105", "H264", "level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=42001f");
+            appendVideoCodec(sdp, "106", "107", "H264", "level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f");
+            appendVideoCodec(sdp, "108", "109", "H264", "level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=42e01f");
+            appendVideoCodec(sdp, "127", "125", "H264", "level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=4d001f");
+            appendVideoCodec(sdp, "39", "40", "H264", "level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=4d001f");
+            appendVideoCodec(sdp, "45", "46", "AV1", "level-idx=5;profile=0;tier=0");
+            appendVideoCodec(sdp, "98", "99", "VP9", "profile-id=0");
+            appendVideoCodec(sdp, "100", "101", "VP9", "profile-id=2");
+            sdp.append("a=rtpmap:114 red/90000\r\na=rtpmap:115 rtx/90000\r\na=fmtp:115 apt=114\r\n")
+                    .append("a=rtpmap:116 ulpfec/90000\r\n")
+                    .append("a=ssrc-group:FID ").append(2000 + mid).append(' ').append(3000 + mid).append("\r\n")
+                    .append("a=ssrc:").append(2000 + mid).append(" cname:stream\r\n")
+                    .append("a=ssrc:").append(2000 + mid).append(" msid:track").append(i).append(" video").append(i).append("\r\n")
+                    .append("a=ssrc:").append(3000 + mid).append(" cname:stream\r\n")
+                    .append("a=ssrc:").append(3000 + mid).append(" msid:track").append(i).append(" video").append(i).append("\r\n");
+        }
+        return sdp.toString();
+    }
+
+    private static void appendVideoCodec(StringBuilder sdp, String payloadType, String rtxPayloadType, String codec, String fmtp) {
+        sdp.append("a=rtpmap:").append(payloadType).append(' ').append(codec).append("/90000\r\n");
+        for (String feedback : new String[]{"goog-remb", "transport-cc", "ccm fir", "nack", "nack pli"}) {
+            sdp.append("a=rtcp-fb:").append(payloadType).append(' ').append(feedback).append("\r\n");
+        }
+        if (fmtp != null) {
+            sdp.append("a=fmtp:").append(payloadType).append(' ').append(fmtp).append("\r\n");
+        }
+        sdp.append("a=rtpmap:").append(rtxPayloadType).append(" rtx/90000\r\n")
+                .append("a=fmtp:").append(rtxPayloadType).append(" apt=").append(payloadType).append("\r\n");
+    }
+
+    private static long measure(Callable<String> munging) throws Exception {
+        long start = System.nanoTime();
+        int checksum = run(munging, ITERATIONS);
+        long elapsed = System.nanoTime() - start;
+        assertTrue(checksum > 0);
+        return elapsed / ITERATIONS;
+    }
+
+    private static int run(Callable<String> munging, int iterations) throws Exception {
+        int checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += munging.call().length();
+        }
+        return checksum;
+    }
+
+    // Regex based munging that was used in WebRTCClient. Its rtpmap and fmtp patterns ended with ''? which
+    // requires a quote at the end of the line, so they never matched. They end with [\r]? here as intended.
+
+    private static String setStartBitrate(String codec, boolean isVideoCodec, String sdp, int bitrateKbps) {
+        String[] lines = sdp.split("\r\n");
+        int rtpmapLineIndex = -1;
+        boolean sdpFormatUpdated = false;
+        String codecRtpMap = null;
+        String regex = "^a=rtpmap:(\\d+) " + codec + "(/\\d+)+[\\r]?$";
+        Pattern codecPattern = Pattern.compile(regex);
+        for (int i = 0; i < lines.length; i++) {
+            Matcher codecMatcher = codecPattern.matcher(lines[i]);
+            if (codecMatcher.matches()) {
+                codecRtpMap = codecMatcher.group(1);
+                rtpmapLineIndex = i;
+                break;
+            }
+        }
+        if (codecRtpMap == null) {
+            return sdp;
+        }
+
+        regex = "^a=fmtp:" + codecRtpMap + " \\w+=\\d+.*[\\r]?$";
+        codecPattern = Pattern.compile(regex);
+        for (int i = 0; i < lines.length; i++) {
+            Matcher codecMatcher = codecPattern.matcher(lines[i]);
+            if (codecMatcher.matches()) {
+                if (isVideoCodec) {
+                    lines[i] += "; x-google-start-bitrate=" + bitrateKbps;
+                } else {
+                    lines[i] += "; maxaveragebitrate=" + (bitrateKbps * 1000);
+                }
+                sdpFormatUpdated = true;
+                break;
+            }
+        }
+
+        StringBuilder newSdpDescription = new StringBuilder();
+        for (int i = 0; i < lines.length; i++) {
+            newSdpDescription.append(lines[i]).append("\r\n");
+            if (!sdpFormatUpdated && i == rtpmapLineIndex) {
+                String bitrateSet;
+                if (isVideoCodec) {
+                    bitrateSet = "a=fmtp:" + codecRtpMap + " x-google-start-bitrate=" + bitrateKbps;
+                } else {
+                    bitrateSet = "a=fmtp:" + codecRtpMap + " maxaveragebitrate=" + (bitrateKbps * 1000);
+                }
+                newSdpDescription.append(bitrateSet).append("\r\n");
+            }
+        }
+        return newSdpDescription.toString();
+    }
+
+    private static int findMediaDescriptionLine(boolean isAudio, String[] sdpLines) {
+        final String mediaDescription = isAudio ? "m=audio " : "m=video ";
+        for (int i = 0; i < sdpLines.length; ++i) {
+            if (sdpLines[i].startsWith(mediaDescription)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String joinString(Iterable<? extends CharSequence> s, String delimiter, boolean delimiterAtEnd) {
+        Iterator<? extends CharSequence> iter = s.iterator();
+        if (!iter.hasNext()) {
+            return "";
+        }
+        StringBuilder buffer = new StringBuilder(iter.next());
+        while (iter.hasNext()) {
+            buffer.append(delimiter).append(iter.next());
+        }
+        if (delimiterAtEnd) {
+            buffer.append(delimiter);
+        }
+        return buffer.toString();
+    }
+
+    private static String movePayloadTypesToFront(List<String> preferredPayloadTypes, String mLine) {
+        final List<String> origLineParts = Arrays.asList(mLine.split(" "));
+        if (origLineParts.size() <= 3) {
+            return null;
+        }
+        final List<String> header = origLineParts.subList(0, 3);
+        final List<String> unpreferredPayloadTypes = new ArrayList<>(origLineParts.subList(3, origLineParts.size()));
+        unpreferredPayloadTypes.removeAll(preferredPayloadTypes);
+        final List<String> newLineParts = new ArrayList<>();
+        newLineParts.addAll(header);
+        newLineParts.addAll(preferredPayloadTypes);
+        newLineParts.addAll(unpreferredPayloadTypes);
+        return joinString(newLineParts, " ", false);
+    }
+
+    private static String preferCodec(String sdp, String codec, boolean isAudio) {
+        final String[] lines = sdp.split("\r\n");
+        final int mLineIndex = findMediaDescriptionLine(isAudio, lines);
+        if (mLineIndex == -1) {
+            return sdp;
+        }
+        final List<String> codecPayloadTypes = new ArrayList<>();
+        final Pattern codecPattern = Pattern.compile("^a=rtpmap:(\\d+) " + codec + "(/\\d+)+[\\r]?$");
+        for (String line : lines) {
+            Matcher codecMatcher = codecPattern.matcher(line);
+            if (codecMatcher.matches()) {
+                codecPayloadTypes.add(codecMatcher.group(1));
+            }
+        }
+        if (codecPayloadTypes.isEmpty()) {
+            return sdp;
+        }
+        final String newMLine = movePayloadTypesToFront(codecPayloadTypes, lines[mLineIndex]);
+        if (newMLine == null) {
+            return sdp;
+        }
+        lines[mLineIndex] = newMLine;
+        return joinString(Arrays.asList(lines), "\r\n", true);
+    }
+}
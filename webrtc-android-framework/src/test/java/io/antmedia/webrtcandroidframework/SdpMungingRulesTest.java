@@ -0,0 +1,151 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.sdp.Extmap;
+import io.antmedia.webrtcandroidframework.sdp.Fmtp;
+import io.antmedia.webrtcandroidframework.sdp.MediaSection;
+import io.antmedia.webrtcandroidframework.sdp.ParsedSdp;
+import io.antmedia.webrtcandroidframework.sdp.SdpMungingRules;
+import io.antmedia.webrtcandroidframework.sdp.SdpRule;
+
+public class SdpMungingRulesTest {
+
+    private static final String TRANSPORT_CC_URI = "http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01";
+    private static final String VIDEO_ORIENTATION_URI = "urn:3gpp:video-orientation";
+
+    private static MediaSection getSection(String sdp, String media) {
+        return ParsedSdp.parse(sdp).getMediaSections(media).get(0);
+    }
+
+    @Test
+    public void testNoRules() {
+        SdpMungingRules rules = SdpMungingRules.builder().build();
+        assertTrue(rules.isEmpty());
+        assertSame(ParsedSdpTest.SDP, rules.apply(ParsedSdpTest.SDP, false, true));
+    }
+
+    @Test
+    public void testCodecOrderAndTargets() {
+        SdpMungingRules rules = SdpMungingRules.builder()
+                .preferCodecs(MediaSection.VIDEO, "H264", "rtx", "VP8")
+                .setVideoStartBitrate("H264", 1500)
+                .setAudioMaxAverageBitrate("OPUS", 64000)
+                .build();
+
+        String local = rules.apply(ParsedSdpTest.SDP, false, true);
+        String remote = rules.apply(ParsedSdpTest.SDP, true, true);
+
+        assertEquals(Arrays.asList("98", "102", "97", "99", "96"), getSection(local, MediaSection.VIDEO).getFormats());
+        assertEquals(Arrays.asList("98", "102", "97", "99", "96"), getSection(remote, MediaSection.VIDEO).getFormats());
+
+        //bitrates are only set to the remote description
+        assertFalse(local.contains(SdpMungingRules.VIDEO_CODEC_PARAM_START_BITRATE));
+        MediaSection video = getSection(remote, MediaSection.VIDEO);
+        assertEquals("1500", video.getFmtp("98").getParameter(SdpMungingRules.VIDEO_CODEC_PARAM_START_BITRATE));
+        assertEquals("1500", video.getFmtp("102").getParameter(SdpMungingRules.VIDEO_CODEC_PARAM_START_BITRATE));
+        assertNull(video.getFmtp("96"));
+        assertEquals("64000", getSection(remote, MediaSection.AUDIO).getFmtp("111").getParameter(SdpMungingRules.AUDIO_CODEC_PARAM_BITRATE));
+    }
+
+    @Test
+    public void testOpusParameters() {
+        SdpMungingRules rules = SdpMungingRules.builder()
+                .setOpusDtx(true)
+                .setOpusFec(false)
+                .setOpusStereo(true)
+                .build();
+
+        for (boolean remote : new boolean[]{false, true}) {
+            Fmtp opus = getSection(rules.apply(ParsedSdpTest.SDP, remote, true), MediaSection.AUDIO).getFmtp("111");
+            assertEquals("10", opus.getParameter("minptime"));
+            assertEquals("1", opus.getParameter(SdpMungingRules.OPUS_PARAM_DTX));
+            assertEquals("0", opus.getParameter(SdpMungingRules.OPUS_PARAM_FEC));
+            assertEquals("1", opus.getParameter(SdpMungingRules.OPUS_PARAM_STEREO));
+            assertEquals("1", opus.getParameter(SdpMungingRules.OPUS_PARAM_SPROP_STEREO));
+        }
+    }
+
+    @Test
+    public void testHeaderExtensions() {
+        SdpMungingRules rules = SdpMungingRules.builder()
+                .removeHeaderExtension(SdpRule.Target.BOTH, VIDEO_ORIENTATION_URI)
+                .addHeaderExtension(SdpRule.Target.LOCAL, MediaSection.VIDEO, TRANSPORT_CC_URI)
+                .addHeaderExtension(SdpRule.Target.LOCAL, MediaSection.AUDIO, TRANSPORT_CC_URI)
+                .build();
+
+        String local = rules.apply(ParsedSdpTest.SDP, false, true);
+        assertFalse(local.contains(VIDEO_ORIENTATION_URI));
+
+        //id of the removed extension is reused and the same id is used in the bundled sections
+        List<Extmap> videoExtmaps = getSection(local, MediaSection.VIDEO).getExtmaps();
+        assertEquals(TRANSPORT_CC_URI, videoExtmaps.get(videoExtmaps.size() - 1).getUri());
+        assertEquals(3, videoExtmaps.get(videoExtmaps.size() - 1).getId());
+        List<Extmap> audioExtmaps = getSection(local, MediaSection.AUDIO).getExtmaps();
+        assertEquals(TRANSPORT_CC_URI, audioExtmaps.get(audioExtmaps.size() - 1).getUri());
+        assertEquals(3, audioExtmaps.get(audioExtmaps.size() - 1).getId());
+
+        //adding it again does not duplicate it
+        assertEquals(local, rules.apply(local, false, true));
+
+        String remote = rules.apply(ParsedSdpTest.SDP, true, true);
+        assertFalse(remote.contains(VIDEO_ORIENTATION_URI));
+        assertFalse(remote.contains(TRANSPORT_CC_URI));
+    }
+
+    @Test
+    public void testOpusRed() {
+        SdpMungingRules rules = SdpMungingRules.builder().enableOpusRed().build();
+
+        MediaSection audio = getSection(rules.apply(ParsedSdpTest.SDP, false, true), MediaSection.AUDIO);
+        //96 is used by the video section
+        assertEquals(Arrays.asList("100"), audio.getPayloadTypes(SdpMungingRules.RED));
+        assertEquals(Arrays.asList("100", "111", "103", "9", "126"), audio.getFormats());
+        assertEquals("a=rtpmap:100 red/48000/2", audio.getRtpMap("100").toString());
+        assertTrue(audio.getFmtp("100").hasParameter("111/111"));
+
+        //red is not added to the local answer, the offer of the server does not have it
+        audio = getSection(rules.apply(ParsedSdpTest.SDP, false, false), MediaSection.AUDIO);
+        assertTrue(audio.getPayloadTypes(SdpMungingRules.RED).isEmpty());
+        assertEquals(Arrays.asList("111", "103", "9", "126"), audio.getFormats());
+
+        //red is not added to the remote description
+        audio = getSection(rules.apply(ParsedSdpTest.SDP, true, true), MediaSection.AUDIO);
+        assertTrue(audio.getPayloadTypes(SdpMungingRules.RED).isEmpty());
+
+        //red that is already in the remote description is preferred
+        String sdpWithRed = ParsedSdpTest.SDP.replace("111 103 9 126", "111 63 103 9 126")
+                .replace("a=rtpmap:103 ISAC/16000\r\n", "a=rtpmap:63 red/48000/2\r\na=fmtp:63 111/111\r\na=rtpmap:103 ISAC/16000\r\n");
+        audio = getSection(rules.apply(sdpWithRed, true, true), MediaSection.AUDIO);
+        assertEquals(Arrays.asList("63", "111", "103", "9", "126"), audio.getFormats());
+
+        //red of the local answer is preferred if the offer has it
+        audio = getSection(rules.apply(sdpWithRed, false, false), MediaSection.AUDIO);
+        assertEquals(Arrays.asList("63", "111", "103", "9", "126"), audio.getFormats());
+        assertEquals(Arrays.asList("63"), audio.getPayloadTypes(SdpMungingRules.RED));
+    }
+
+    @Test
+    public void testAddRules() {
+        SdpMungingRules configRules = SdpMungingRules.builder()
+                .preferCodecs(MediaSection.VIDEO, "VP8")
+                .build();
+        SdpMungingRules rules = SdpMungingRules.builder()
+                .preferCodecs(MediaSection.VIDEO, "H264")
+                .addRules(configRules)
+                .addRules(null)
+                .build();
+
+        //rules are applied in order, so the later rule wins
+        assertEquals("96", getSection(rules.apply(ParsedSdpTest.SDP, false, true), MediaSection.VIDEO).getFormats().get(0));
+    }
+}
@@ -0,0 +1,137 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.antmedia.webrtcandroidframework.utility.SerialLaneExecutor;
+
+public class SerialLaneExecutorTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private ExecutorService globalThread;
+    private ExecutorService laneThreads;
+    private SerialLaneExecutor executor;
+
+    @Before
+    public void setUp() {
+        globalThread = Executors.newSingleThreadExecutor();
+        laneThreads = Executors.newFixedThreadPool(4);
+        executor = new SerialLaneExecutor(globalThread, laneThreads, now::get);
+    }
+
+    @After
+    public void tearDown() {
+        globalThread.shutdownNow();
+        laneThreads.shutdownNow();
+    }
+
+    @Test
+    public void testSlowLaneDoesNotBlockOtherLanes() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherLaneDone = new CountDownLatch(1);
+
+        executor.execute("stream1", () -> await(release));
+        executor.execute("stream2", otherLaneDone::countDown);
+
+        assertTrue(otherLaneDone.await(1, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void testLaneOrder() throws InterruptedException {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            executor.execute("stream1", () -> order.add(value));
+        }
+        executor.execute("stream1", done::countDown);
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    @Test
+    public void testGlobalLaneIsBarrier() throws InterruptedException {
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute("stream1", () -> {
+            await(release);
+            order.add("stream1-first");
+        });
+        executor.execute(() -> order.add("global"));
+        executor.execute("stream2", () -> order.add("stream2"));
+        executor.execute("stream1", () -> {
+            order.add("stream1-second");
+            done.countDown();
+        });
+
+        Thread.sleep(100);
+        //global task waits for stream1 and stream2 waits for the global task
+        assertTrue(order.isEmpty());
+
+        release.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals("stream1-first", order.get(0));
+        assertEquals("global", order.get(1));
+        assertTrue(order.subList(2, 4).containsAll(Arrays.asList("stream2", "stream1-second")));
+    }
+
+    @Test
+    public void testLaneStats() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute("stream1", () -> await(release));
+        executor.execute("stream1", () -> { });
+        executor.execute("stream1", done::countDown);
+
+        SerialLaneExecutor.LaneStats stats = executor.getLaneStats("stream1");
+        //first task is running, others are waiting
+        assertEquals(2, stats.getQueueDepth());
+        assertEquals(2, stats.getMaxQueueDepth());
+
+        now.addAndGet(50);
+        release.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        stats = executor.getLaneStats("stream1");
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(3, stats.getExecutedCount());
+        assertEquals(50, stats.getMaxWaitTimeMs());
+        assertEquals(100 / 3, stats.getAverageWaitTimeMs());
+
+        assertNotNull(executor.getAllLaneStats().get(SerialLaneExecutor.GLOBAL_LANE));
+        executor.removeLane("stream1");
+        assertNull(executor.getLaneStats("stream1"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.awaitility.Awaitility;
+import org.junit.Before;
+import org.junit.Test;
+import org.webrtc.EglBase;
+import org.webrtc.PeerConnectionFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.antmedia.webrtcandroidframework.core.SharedPeerConnectionFactory;
+
+public class SharedPeerConnectionFactoryTest {
+
+    private static final String KEY = "key1";
+
+    private SharedPeerConnectionFactory holder;
+    private EglBase eglBase;
+    private AtomicInteger eglCreateCount;
+    private AtomicInteger factoryCreateCount;
+
+    @Before
+    public void setUp() {
+        eglBase = mock(EglBase.class);
+        eglCreateCount = new AtomicInteger();
+        factoryCreateCount = new AtomicInteger();
+        holder = new SharedPeerConnectionFactory(() -> {
+            eglCreateCount.incrementAndGet();
+            return eglBase;
+        });
+    }
+
+    private SharedPeerConnectionFactory.SharedFactory acquire(String key, PeerConnectionFactory factory) {
+        return holder.acquireFactory(key, sharedEglBase -> {
+            factoryCreateCount.incrementAndGet();
+            return new SharedPeerConnectionFactory.SharedFactory(factory, null);
+        });
+    }
+
+    @Test
+    public void testEglBaseIsShared() {
+        assertSame(eglBase, holder.acquireEglBase());
+        assertSame(eglBase, holder.acquireEglBase());
+        assertEquals(1, eglCreateCount.get());
+        assertEquals(2, holder.getEglReferenceCount());
+
+        holder.releaseEglBase(0);
+        verify(eglBase, never()).release();
+
+        holder.releaseEglBase(0);
+        verify(eglBase, times(1)).release();
+        assertEquals(0, holder.getEglReferenceCount());
+
+        //extra release is ignored
+        holder.releaseEglBase(0);
+        verify(eglBase, times(1)).release();
+    }
+
+    @Test
+    public void testFactoryIsSharedByKey() {
+        PeerConnectionFactory factory1 = mock(PeerConnectionFactory.class);
+        PeerConnectionFactory factory2 = mock(PeerConnectionFactory.class);
+
+        SharedPeerConnectionFactory.SharedFactory first = acquire(KEY, factory1);
+        SharedPeerConnectionFactory.SharedFactory second = acquire(KEY, factory2);
+        assertSame(first, second);
+        assertSame(factory1, second.getFactory());
+        assertEquals(1, factoryCreateCount.get());
+        assertEquals(2, holder.getFactoryReferenceCount(KEY));
+
+        SharedPeerConnectionFactory.SharedFactory other = acquire("key2", factory2);
+        assertNotSame(first, other);
+        assertEquals(2, factoryCreateCount.get());
+
+        holder.releaseFactory(KEY, 0);
+        verify(factory1, never()).dispose();
+        holder.releaseFactory(KEY, 0);
+        verify(factory1, times(1)).dispose();
+        assertEquals(-1, holder.getFactoryReferenceCount(KEY));
+        verify(factory2, never()).dispose();
+    }
+
+    @Test
+    public void testEglBaseIsReleasedAfterFactories() {
+        PeerConnectionFactory factory = mock(PeerConnectionFactory.class);
+        holder.acquireEglBase();
+        acquire(KEY, factory);
+
+        holder.releaseEglBase(0);
+        //factory may still use the EGL context
+        verify(eglBase, never()).release();
+
+        holder.releaseFactory(KEY, 0);
+        verify(factory, times(1)).dispose();
+        verify(eglBase, times(1)).release();
+    }
+
+    @Test
+    public void testResourcesAreKeptAlive() {
+        PeerConnectionFactory factory = mock(PeerConnectionFactory.class);
+        holder.acquireEglBase();
+        acquire(KEY, factory);
+
+        holder.releaseFactory(KEY, 300);
+        holder.releaseEglBase(300);
+
+        //client created again before keep alive time uses the same resources
+        assertSame(eglBase, holder.acquireEglBase());
+        acquire(KEY, factory);
+        assertEquals(1, eglCreateCount.get());
+        assertEquals(1, factoryCreateCount.get());
+
+        holder.releaseFactory(KEY, 300);
+        holder.releaseEglBase(300);
+        verify(factory, never()).dispose();
+
+        Awaitility.await().atMost(Duration.ofSeconds(3)).untilAsserted(() -> {
+            verify(factory, times(1)).dispose();
+            verify(eglBase, times(1)).release();
+        });
+        assertEquals(-1, holder.getFactoryReferenceCount(KEY));
+    }
+
+    @Test
+    public void testKeptAliveResourcesAreDisposedOnDisposeExecutor() throws InterruptedException {
+        ExecutorService disposeThread = Executors.newSingleThreadExecutor();
+        try {
+            Thread[] thread = new Thread[2];
+            disposeThread.submit(() -> thread[0] = Thread.currentThread()).get();
+            holder.setDisposeExecutor(disposeThread);
+            PeerConnectionFactory factory = mock(PeerConnectionFactory.class);
+            doAnswer(invocation -> {
+                thread[1] = Thread.currentThread();
+                return null;
+            }).when(factory).dispose();
+
+            acquire(KEY, factory);
+            holder.releaseFactory(KEY, 100);
+
+            Awaitility.await().atMost(Duration.ofSeconds(3)).untilAsserted(() -> verify(factory, times(1)).dispose());
+            assertSame(thread[0], thread[1]);
+        } catch (ExecutionException e) {
+            throw new AssertionError(e);
+        } finally {
+            disposeThread.shutdown();
+        }
+    }
+
+    @Test
+    public void testInitializeOnce() {
+        AtomicInteger count = new AtomicInteger();
+        holder.initializeOnce(count::incrementAndGet);
+        holder.initializeOnce(count::incrementAndGet);
+        assertEquals(1, count.get());
+    }
+}
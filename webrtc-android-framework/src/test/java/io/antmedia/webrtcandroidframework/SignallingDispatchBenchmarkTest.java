@@ -0,0 +1,122 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.websocket.SignallingMessage;
+import io.antmedia.webrtcandroidframework.websocket.SignallingMessageParser;
+import io.antmedia.webrtcandroidframework.websocket.WebSocketConstants;
+
+/**
+ * Compares the streaming parser with the JSONObject based parsing that was used in
+ * WebSocketHandler.onTextMessage. It runs on the recorded message trace in test resources.
+ * Timing is only measured when benchmarks are enabled, see {@link Benchmarks}.
+ */
+public class SignallingDispatchBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 1000;
+
+    @Test
+    public void testStreamingParserMatchesJSONObject() throws IOException, JSONException {
+        List<String> trace = Files.readAllLines(Paths.get(SignallingMessageParserTest.TRACE_FILE), StandardCharsets.UTF_8);
+        SignallingMessageParser parser = new SignallingMessageParser();
+
+        //both paths should see the same commands and stream ids
+        for (String line : trace) {
+            SignallingMessage message = parser.parse(line);
+            JSONObject json = new JSONObject(line);
+            assertEquals(json.getString(WebSocketConstants.COMMAND), message.getCommand());
+            assertEquals(json.optString(WebSocketConstants.STREAM_ID, null), message.getStreamId());
+        }
+    }
+
+    @Test
+    public void testStreamingParserAgainstJSONObject() throws IOException, JSONException {
+        Benchmarks.assumeEnabled();
+        List<String> trace = Files.readAllLines(Paths.get(SignallingMessageParserTest.TRACE_FILE), StandardCharsets.UTF_8);
+        SignallingMessageParser parser = new SignallingMessageParser();
+
+        int checksum = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            checksum += runJSONObject(trace) + runStreaming(parser, trace);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += runJSONObject(trace);
+        }
+        long jsonObjectNs = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += runStreaming(parser, trace);
+        }
+        long streamingNs = System.nanoTime() - start;
+
+        long messageCount = (long) ITERATIONS * trace.size();
+        Benchmarks.report("JSONObject parsing: " + (jsonObjectNs / messageCount) + " ns/message");
+        Benchmarks.report("Streaming parsing: " + (streamingNs / messageCount) + " ns/message");
+        assertTrue(checksum > 0);
+    }
+
+    private int runStreaming(SignallingMessageParser parser, List<String> trace) throws IOException {
+        int fieldCount = 0;
+        for (String line : trace) {
+            SignallingMessage message = parser.parse(line);
+            if (message.getSdp() != null) {
+                fieldCount++;
+            }
+            if (message.getCandidateSdp() != null) {
+                fieldCount++;
+            }
+        }
+        return fieldCount;
+    }
+
+    /**
+     * Same field access pattern with the previous implementation of WebSocketHandler.onTextMessage
+     */
+    private int runJSONObject(List<String> trace) throws JSONException {
+        int fieldCount = 0;
+        for (String line : trace) {
+            JSONObject json = new JSONObject(line);
+            String commandText = json.getString(WebSocketConstants.COMMAND);
+            if (json.has(WebSocketConstants.STREAM_ID)) {
+                json.getString(WebSocketConstants.STREAM_ID);
+            }
+            if (commandText.equals(WebSocketConstants.TAKE_CONFIGURATION_COMMAND)) {
+                json.getString(WebSocketConstants.SDP);
+                json.getString(WebSocketConstants.TYPE);
+                fieldCount++;
+            }
+            else if (commandText.equals(WebSocketConstants.TAKE_CANDIDATE_COMMAND)) {
+                json.getString(WebSocketConstants.CANDIDATE_ID);
+                json.getInt(WebSocketConstants.CANDIDATE_LABEL);
+                json.getString(WebSocketConstants.CANDIDATE_SDP);
+                fieldCount++;
+            }
+            else if (commandText.equals(WebSocketConstants.TRACK_LIST)) {
+                JSONArray trackList = json.getJSONArray(WebSocketConstants.TRACK_LIST);
+                for (int i = 0; i < trackList.length(); i++) {
+                    trackList.getString(i);
+                }
+            }
+            else if (commandText.equals(WebSocketConstants.NOTIFICATION_COMMAND)) {
+                json.getString(WebSocketConstants.DEFINITION);
+            }
+        }
+        return fieldCount;
+    }
+}
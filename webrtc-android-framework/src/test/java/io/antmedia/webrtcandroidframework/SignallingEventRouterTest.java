@@ -0,0 +1,108 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.antmedia.webrtcandroidframework.websocket.AntMediaSignallingEvents;
+import io.antmedia.webrtcandroidframework.websocket.SignallingEventRouter;
+
+public class SignallingEventRouterTest {
+
+    private SignallingEventRouter router;
+    private AntMediaSignallingEvents publisher;
+    private AntMediaSignallingEvents player;
+
+    @Before
+    public void setUp() {
+        router = new SignallingEventRouter();
+        publisher = mock(AntMediaSignallingEvents.class);
+        player = mock(AntMediaSignallingEvents.class);
+        router.addListener(publisher);
+        router.addListener(player);
+        router.addRoute("stream1", publisher);
+        router.addRoute("stream2", player);
+        router.addRoute("room1", player);
+    }
+
+    @Test
+    public void testStreamEventsAreRouted() {
+        router.onPublishStarted("stream1");
+        router.onPlayStarted("stream2");
+        router.onError("stream2", "no_stream_exist");
+
+        verify(publisher).onPublishStarted("stream1");
+        verify(player, never()).onPublishStarted("stream1");
+        verify(player).onPlayStarted("stream2");
+        verify(player).onError("stream2", "no_stream_exist");
+        verify(publisher, never()).onError("stream2", "no_stream_exist");
+
+        //unknown streams are dropped
+        router.onPlayFinished("stream3");
+        verify(publisher, never()).onPlayFinished("stream3");
+        verify(player, never()).onPlayFinished("stream3");
+    }
+
+    @Test
+    public void testConnectionEventsAreBroadcast() {
+        router.onWebSocketConnected();
+        router.onSignallingRttMeasured(10, 12, 3);
+        router.onRoomInformation(new String[]{"stream2"});
+
+        verify(publisher).onWebSocketConnected();
+        verify(player).onWebSocketConnected();
+        verify(publisher).onSignallingRttMeasured(10, 12, 3);
+        verify(player).onSignallingRttMeasured(10, 12, 3);
+        verify(publisher).onRoomInformation(new String[]{"stream2"});
+        verify(player).onRoomInformation(new String[]{"stream2"});
+    }
+
+    @Test
+    public void testGetListener() {
+        assertSame(publisher, router.getListener("stream1", null));
+        assertSame(player, router.getListener(null, "room1"));
+        assertSame(player, router.getListener("unknown", "room1"));
+        assertSame(router, router.getListener("unknown", null));
+    }
+
+    @Test
+    public void testRemoveListener() {
+        assertEquals(2, router.getListenerCount());
+        router.removeListener(player);
+        assertEquals(1, router.getListenerCount());
+        assertFalse(router.hasListener(player));
+        assertTrue(router.hasListener(publisher));
+        assertSame(router, router.getListener("stream2", "room1"));
+
+        router.onWebSocketDisconnected();
+        verify(publisher).onWebSocketDisconnected();
+        verifyZeroInteractions(player);
+
+        //routes are only added for the listeners
+        router.addRoute("stream4", player);
+        assertSame(router, router.getListener("stream4"));
+    }
+
+    @Test
+    public void testRemoveRoutes() {
+        router.removeRoutes(player);
+        assertTrue(router.hasListener(player));
+        assertSame(router, router.getListener("stream2", "room1"));
+        assertTrue(router.hasRoutes());
+
+        router.removeRoutes(publisher);
+        assertFalse(router.hasRoutes());
+
+        router.onWebSocketConnected();
+        verify(publisher).onWebSocketConnected();
+        verify(player).onWebSocketConnected();
+    }
+}
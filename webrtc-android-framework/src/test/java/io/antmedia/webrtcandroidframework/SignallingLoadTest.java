@@ -0,0 +1,252 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Handler;
+
+import org.junit.Test;
+import org.webrtc.IceCandidate;
+import org.webrtc.SessionDescription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.antmedia.webrtcandroidframework.core.StreamInfo;
+import io.antmedia.webrtcandroidframework.websocket.AntMediaSignallingEvents;
+import io.antmedia.webrtcandroidframework.websocket.Broadcast;
+import io.antmedia.webrtcandroidframework.websocket.WebSocketHandler;
+
+/**
+ * Runs many {@link WebSocketHandler} sessions against {@link MockAntMediaServer} and reports the
+ * signalling throughput, publish/play setup latency percentiles and heap usage per session.
+ *
+ * It only runs when benchmarks are enabled, see {@link Benchmarks}. Number of sessions and server threads
+ * can be changed with -Dsignalling.load.sessions and -Dsignalling.load.threads system properties.
+ */
+public class SignallingLoadTest {
+
+    private static final int SESSIONS = Integer.getInteger("signalling.load.sessions", 200);
+    private static final int SERVER_THREADS = Integer.getInteger("signalling.load.threads", 4);
+    private static final long TIMEOUT_SECONDS = 60;
+
+    /**
+     * Publishes a stream, plays another one, queries stream info and stops both of them
+     */
+    private static class Session implements AntMediaSignallingEvents {
+        final String publishStreamId;
+        final String playStreamId;
+        final WebSocketHandler wsHandler;
+        final CountDownLatch connected;
+        final CountDownLatch finished;
+        final ConcurrentLinkedQueue<Long> publishLatencies;
+        final ConcurrentLinkedQueue<Long> playLatencies;
+        final AtomicInteger errors;
+        volatile long publishRequestNs;
+        volatile long playRequestNs;
+        int finishedStreams = 0;
+
+        Session(int index, MockAntMediaServer server, CountDownLatch connected, CountDownLatch finished,
+                ConcurrentLinkedQueue<Long> publishLatencies, ConcurrentLinkedQueue<Long> playLatencies, AtomicInteger errors) {
+            this.publishStreamId = "publish" + index;
+            this.playStreamId = "play" + index;
+            this.connected = connected;
+            this.finished = finished;
+            this.publishLatencies = publishLatencies;
+            this.playLatencies = playLatencies;
+            this.errors = errors;
+            this.wsHandler = new WebSocketHandler(this, new Handler()) {
+                @Override
+                public void checkIfCalledOnValidThread() {
+                    //sessions are driven from the server threads
+                }
+            };
+            wsHandler.setSignalingTransport(server.createTransport());
+        }
+
+        void start() {
+            publishRequestNs = System.nanoTime();
+            wsHandler.startPublish(publishStreamId, "", true, true, "", "", "", "");
+            playRequestNs = System.nanoTime();
+            wsHandler.startPlay(playStreamId, "", null, "", "", "");
+        }
+
+        @Override
+        public void onWebSocketConnected() {
+            connected.countDown();
+        }
+
+        @Override
+        public void onStartStreaming(String streamId) {
+            wsHandler.sendConfiguration(streamId, new SessionDescription(SessionDescription.Type.OFFER, "v=0"), "offer");
+        }
+
+        @Override
+        public void onTakeConfiguration(String streamId, SessionDescription sdp) {
+            if (sdp.type == SessionDescription.Type.OFFER) {
+                wsHandler.sendConfiguration(streamId, new SessionDescription(SessionDescription.Type.ANSWER, "v=0"), "answer");
+            }
+        }
+
+        @Override
+        public void onPublishStarted(String streamId) {
+            publishLatencies.add(System.nanoTime() - publishRequestNs);
+            wsHandler.getStreamInfoList(streamId);
+        }
+
+        @Override
+        public void onPlayStarted(String streamId) {
+            playLatencies.add(System.nanoTime() - playRequestNs);
+            wsHandler.getTrackList(streamId, "");
+        }
+
+        @Override
+        public void onStreamInfoList(String streamId, ArrayList<StreamInfo> streamInfoList) {
+            wsHandler.stop(publishStreamId);
+        }
+
+        @Override
+        public void onTrackList(String[] tracks) {
+            wsHandler.stop(playStreamId);
+        }
+
+        @Override
+        public void onPublishFinished(String streamId) {
+            onStreamFinished();
+        }
+
+        @Override
+        public void onPlayFinished(String streamId) {
+            onStreamFinished();
+        }
+
+        private void onStreamFinished() {
+            //events of a session are delivered on the same server thread
+            finishedStreams++;
+            if (finishedStreams == 2) {
+                finished.countDown();
+            }
+        }
+
+        @Override
+        public void onError(String streamId, String definition) {
+            errors.incrementAndGet();
+        }
+
+        @Override
+        public void onRemoteIceCandidate(String streamId, IceCandidate candidate) {
+        }
+
+        @Override
+        public void noStreamExistsToPlay(String streamId) {
+            errors.incrementAndGet();
+        }
+
+        @Override
+        public void streamIdInUse(String streamId) {
+            errors.incrementAndGet();
+        }
+
+        @Override
+        public void onJoinedTheRoom(String streamId, String[] streams) {
+        }
+
+        @Override
+        public void onRoomInformation(String[] streams) {
+        }
+
+        @Override
+        public void onWebSocketDisconnected() {
+        }
+
+        @Override
+        public void onBitrateMeasurement(String streamId, int targetBitrate, int videoBitrate, int audioBitrate) {
+        }
+
+        @Override
+        public void onLeftTheRoom(String roomId) {
+        }
+
+        @Override
+        public void onSessionRestored(String streamId) {
+        }
+
+        @Override
+        public void onBroadcastObject(Broadcast broadcast) {
+        }
+
+        @Override
+        public void onSignallingRttMeasured(long rttMs, long smoothedRttMs, long rttVariationMs) {
+        }
+    }
+
+    @Test
+    public void testSessionsAgainstMockServer() throws InterruptedException {
+        Benchmarks.assumeEnabled();
+        MockAntMediaServer server = new MockAntMediaServer(SERVER_THREADS, 0, Collections.singletonList("play0"), false);
+        CountDownLatch connected = new CountDownLatch(SESSIONS);
+        CountDownLatch finished = new CountDownLatch(SESSIONS);
+        ConcurrentLinkedQueue<Long> publishLatencies = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> playLatencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+
+        long heapBefore = usedHeap();
+        List<Session> sessions = new ArrayList<>(SESSIONS);
+        for (int i = 0; i < SESSIONS; i++) {
+            Session session = new Session(i, server, connected, finished, publishLatencies, playLatencies, errors);
+            session.wsHandler.connect("ws://loopback/WebRTCAppEE/websocket");
+            sessions.add(session);
+        }
+        assertTrue(connected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        long heapPerSession = (usedHeap() - heapBefore) / SESSIONS;
+
+        long messagesBefore = server.getReceivedMessageCount() + server.getSentMessageCount();
+        long start = System.nanoTime();
+        for (Session session : sessions) {
+            session.start();
+        }
+        assertTrue(finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        long elapsedNs = System.nanoTime() - start;
+        long messages = server.getReceivedMessageCount() + server.getSentMessageCount() - messagesBefore;
+
+        for (Session session : sessions) {
+            session.wsHandler.disconnect(false);
+        }
+        server.release();
+
+        assertEquals(0, errors.get());
+        assertEquals(SESSIONS, publishLatencies.size());
+        assertEquals(SESSIONS, playLatencies.size());
+        assertEquals(SESSIONS, server.getSessionCount());
+
+        Benchmarks.report("Signalling load: " + SESSIONS + " sessions on " + SERVER_THREADS + " server threads");
+        Benchmarks.report("Throughput: " + (messages * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNs)) + " messages/s, "
+                + messages + " messages in " + TimeUnit.NANOSECONDS.toMillis(elapsedNs) + " ms");
+        Benchmarks.report("Publish setup latency: " + percentiles(publishLatencies));
+        Benchmarks.report("Play setup latency: " + percentiles(playLatencies));
+        Benchmarks.report("Heap per connected session: " + heapPerSession + " bytes");
+    }
+
+    private static String percentiles(ConcurrentLinkedQueue<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return "p50=" + micros(sorted, 0.50) + "us p95=" + micros(sorted, 0.95)
+                + "us p99=" + micros(sorted, 0.99) + "us max=" + micros(sorted, 1.0) + "us";
+    }
+
+    private static long micros(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(sorted.get(Math.max(0, index)));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,105 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.websocket.SignallingMessage;
+import io.antmedia.webrtcandroidframework.websocket.SignallingMessageParser;
+import io.antmedia.webrtcandroidframework.websocket.WebSocketConstants;
+
+public class SignallingMessageParserTest {
+
+    public static final String TRACE_FILE = "src/test/resources/signalling-trace.txt";
+
+    private final SignallingMessageParser parser = new SignallingMessageParser();
+
+    @Test
+    public void testParseCandidate() throws IOException {
+        String text = "{\"command\":\"takeCandidate\",\"streamId\":\"stream1\",\"label\":1,\"id\":\"1\",\"candidate\":\"candidate:1 1 udp 2122260223 192.168.1.10 50000 typ host\"}";
+
+        SignallingMessage message = parser.parse(text);
+
+        assertEquals(WebSocketConstants.TAKE_CANDIDATE_COMMAND, message.getCommand());
+        assertEquals("stream1", message.getStreamId());
+        assertEquals(1, message.getCandidateLabel());
+        assertEquals("1", message.getCandidateId());
+        assertEquals("candidate:1 1 udp 2122260223 192.168.1.10 50000 typ host", message.getCandidateSdp());
+        assertNull(message.getSdp());
+    }
+
+    @Test
+    public void testParseSkipsUnknownFields() throws IOException {
+        String text = "{\"streamList\":[{\"streamId\":\"s2\",\"meta\":{\"a\":[1,2,3]}}],\"maxTrackCount\":6,"
+                + "\"command\":\"notification\",\"definition\":\"joinedTheRoom\",\"streamId\":\"s1\",\"streams\":[\"s2\",\"s3\"]}";
+
+        SignallingMessage message = parser.parse(text);
+
+        assertEquals(WebSocketConstants.NOTIFICATION_COMMAND, message.getCommand());
+        assertEquals(WebSocketConstants.JOINED_THE_ROOM, message.getDefinition());
+        assertEquals("s1", message.getStreamId());
+        assertArrayEquals(new String[]{"s2", "s3"}, message.getStreams());
+    }
+
+    @Test
+    public void testParseNullValues() throws IOException {
+        String text = "{\"command\":\"roomInformation\",\"streamId\":null,\"streams\":null}";
+
+        SignallingMessage message = parser.parse(text);
+
+        assertEquals(WebSocketConstants.ROOM_INFORMATION_NOTIFICATION, message.getCommand());
+        assertNull(message.getStreamId());
+        assertNull(message.getStreams());
+    }
+
+    @Test
+    public void testParseStreamInfo() throws IOException {
+        String text = "{\"command\":\"streamInformation\",\"streamId\":\"s1\",\"streamInfo\":[{\"streamWidth\":1280,\"streamHeight\":720,"
+                + "\"videoBitrate\":1500000,\"audioBitrate\":64000,\"videoCodec\":\"VP8\",\"extra\":true}]}";
+
+        SignallingMessage message = parser.parse(text);
+
+        assertEquals(1, message.getStreamInfoList().size());
+        assertEquals(1280, message.getStreamInfoList().get(0).getWidth());
+        assertEquals(720, message.getStreamInfoList().get(0).getHeight());
+        assertEquals(1500000, message.getStreamInfoList().get(0).getVideoBitrate());
+        assertEquals(64000, message.getStreamInfoList().get(0).getAudioBitrate());
+        assertEquals("VP8", message.getStreamInfoList().get(0).getCodec());
+    }
+
+    @Test
+    public void testParseBroadcastAsStringOrObject() throws IOException {
+        SignallingMessage message = parser.parse("{\"command\":\"notification\",\"broadcast\":\"{\\\"streamId\\\":\\\"s1\\\"}\"}");
+        assertEquals("{\"streamId\":\"s1\"}", message.getBroadcast());
+
+        message = parser.parse("{\"command\":\"notification\",\"broadcast\":{\"streamId\":\"s1\"}}");
+        assertEquals("{\"streamId\":\"s1\"}", message.getBroadcast());
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseMalformedMessage() throws IOException {
+        parser.parse("{\"command\":\"start\",");
+    }
+
+    @Test
+    public void testParseTrace() throws IOException {
+        List<String> trace = Files.readAllLines(Paths.get(TRACE_FILE), StandardCharsets.UTF_8);
+        for (String line : trace) {
+            SignallingMessage message = parser.parse(line);
+            assertNotNull(message.getCommand());
+            if (WebSocketConstants.TAKE_CONFIGURATION_COMMAND.equals(message.getCommand())) {
+                assertNotNull(message.getSdp());
+                assertEquals(true, message.getSdp().startsWith("v=0\r\n"));
+            }
+        }
+    }
+}
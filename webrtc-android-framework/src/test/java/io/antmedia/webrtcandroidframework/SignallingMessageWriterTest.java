@@ -0,0 +1,64 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import io.antmedia.webrtcandroidframework.websocket.SignallingMessageWriter;
+import io.antmedia.webrtcandroidframework.websocket.WebSocketConstants;
+
+/**
+ * Expected values are the output of Android's JSONObject#toString for the same fields
+ */
+public class SignallingMessageWriterTest {
+
+    private final SignallingMessageWriter writer = new SignallingMessageWriter();
+
+    @Test
+    public void testPublish() {
+        assertEquals("{\"command\":\"publish\",\"streamId\":\"stream1\",\"token\":\"\",\"subscriberId\":\"\",\"subscriberCode\":\"\","
+                        + "\"streamName\":\"name\",\"video\":true,\"audio\":false,\"mainTrack\":\"room1\"}",
+                writer.publish("stream1", "", true, false, "", "", "name", "room1"));
+
+        //null values are omitted like JSONObject#put does
+        assertEquals("{\"command\":\"publish\",\"streamId\":\"stream1\",\"video\":true,\"audio\":true}",
+                writer.publish("stream1", null, true, true, null, null, null, null));
+    }
+
+    @Test
+    public void testPlay() {
+        assertEquals("{\"command\":\"play\",\"streamId\":\"room1\",\"token\":\"t\",\"trackList\":[\"s1\",\"s2\"],\"viewerInfo\":\"v\"}",
+                writer.play("room1", "t", new String[]{"s1", "s2"}, null, null, "v"));
+
+        assertEquals("{\"command\":\"play\",\"streamId\":\"room1\",\"trackList\":[]}",
+                writer.play("room1", null, null, null, null, null));
+    }
+
+    @Test
+    public void testTakeConfigurationEscapesSdp() {
+        String sdp = "v=0\r\no=- 1 2 IN IP4 127.0.0.1\r\na=fmtp:111 minptime=10;useinbandfec=1\r\na=msid:\"x\" \\y/z\t\u0001\r\n";
+
+        assertEquals("{\"command\":\"takeConfiguration\",\"streamId\":\"stream1\",\"type\":\"offer\","
+                        + "\"sdp\":\"v=0\\r\\no=- 1 2 IN IP4 127.0.0.1\\r\\na=fmtp:111 minptime=10;useinbandfec=1\\r\\na=msid:\\\"x\\\" \\\\y\\/z\\t\\u0001\\r\\n\"}",
+                writer.takeConfiguration("stream1", "offer", sdp));
+    }
+
+    @Test
+    public void testTakeCandidate() {
+        assertEquals("{\"command\":\"takeCandidate\",\"streamId\":\"stream1\",\"label\":1,\"id\":\"1\","
+                        + "\"candidate\":\"candidate:1 1 udp 2122260223 192.168.1.10 50000 typ host\"}",
+                writer.takeCandidate("stream1", 1, "1", "candidate:1 1 udp 2122260223 192.168.1.10 50000 typ host"));
+    }
+
+    @Test
+    public void testOtherCommands() {
+        assertEquals("{\"command\":\"stop\",\"streamId\":\"stream1\"}", writer.streamCommand(WebSocketConstants.STOP_COMMAND, "stream1"));
+        assertEquals("{\"command\":\"join\",\"streamId\":\"stream1\",\"token\":\"t\"}", writer.streamCommand(WebSocketConstants.JOIN_COMMAND, "stream1", "t"));
+        assertEquals("{\"command\":\"enableTrack\",\"streamId\":\"room1\",\"trackId\":\"s1\",\"enabled\":false}",
+                writer.enableTrack(WebSocketConstants.ENABLE_TRACK, "room1", "s1", false));
+        assertEquals("{\"command\":\"leaveFromRoom\",\"room\":\"room1\"}", writer.roomCommand(WebSocketConstants.LEAVE_THE_ROOM, "room1", null));
+        assertEquals("{\"command\":\"joinRoom\",\"room\":\"room1\",\"streamId\":\"stream1\"}", writer.roomCommand(WebSocketConstants.JOIN_ROOM_COMMAND, "room1", "stream1"));
+        assertEquals("{\"command\":\"forceStreamQuality\",\"streamId\":\"stream1\",\"streamHeight\":360}", writer.forceStreamQuality("stream1", 360));
+        assertEquals("{\"command\":\"ping\"}", SignallingMessageWriter.PING_MESSAGE);
+    }
+}
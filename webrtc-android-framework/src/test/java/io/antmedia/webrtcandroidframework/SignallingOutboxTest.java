@@ -0,0 +1,104 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.antmedia.webrtcandroidframework.websocket.SignallingMessageWriter;
+import io.antmedia.webrtcandroidframework.websocket.SignallingOutbox;
+import io.antmedia.webrtcandroidframework.websocket.WebSocketConstants;
+
+public class SignallingOutboxTest {
+
+    private long now = 1000;
+    private final SignallingMessageWriter writer = new SignallingMessageWriter();
+
+    @Test
+    public void testCoalescingAndOrder() {
+        SignallingOutbox outbox = new SignallingOutbox(10, () -> now);
+
+        String trackOff = writer.enableTrack(WebSocketConstants.ENABLE_TRACK, "room1", "stream2", false);
+        String trackOn = writer.enableTrack(WebSocketConstants.ENABLE_TRACK, "room1", "stream2", true);
+        String otherTrack = writer.enableTrack(WebSocketConstants.ENABLE_TRACK, "room1", "stream3", false);
+        String quality = writer.forceStreamQuality("stream1", 360);
+        String trackList = writer.streamCommand(WebSocketConstants.GET_TRACK_LIST, "room1", null);
+
+        assertTrue(outbox.offer(trackList));
+        assertTrue(outbox.offer(quality));
+        assertTrue(outbox.offer(trackOff));
+        assertTrue(outbox.offer(otherTrack));
+        assertTrue(outbox.offer(trackOn));
+        assertTrue(outbox.offer(quality));
+
+        //publish and ping are not queued
+        assertFalse(outbox.offer(writer.publish("stream1", null, true, true, null, null, null, null)));
+        //negotiation messages belong to the session of the closed websocket
+        assertFalse(outbox.offer(writer.takeCandidate("stream1", 0, "0", "candidate:1 1 udp 1 127.0.0.1 5000 typ host")));
+        assertFalse(outbox.offer(writer.takeConfiguration("stream1", "offer", "v=0")));
+        assertFalse(outbox.offer(SignallingMessageWriter.PING_MESSAGE));
+        assertFalse(outbox.offer("not a json"));
+
+        assertEquals(2, outbox.getCoalescedCount());
+        List<String> messages = outbox.drain();
+        assertEquals(Arrays.asList(otherTrack, trackOn, quality, trackList), messages);
+        assertEquals(0, outbox.size());
+        assertEquals(4, outbox.getReplayedCount());
+    }
+
+    @Test
+    public void testExpiration() {
+        SignallingOutbox outbox = new SignallingOutbox(10, () -> now);
+
+        String trackList = writer.streamCommand(WebSocketConstants.GET_TRACK_LIST, "room1", null);
+        String quality = writer.forceStreamQuality("stream1", 360);
+        outbox.offer(trackList);
+        outbox.offer(quality);
+
+        now += 15000;
+        assertEquals(Arrays.asList(quality), outbox.drain());
+        assertEquals(1, outbox.getExpiredCount());
+    }
+
+    @Test
+    public void testCapacity() {
+        SignallingOutbox outbox = new SignallingOutbox(2, () -> now);
+
+        String trackList = writer.streamCommand(WebSocketConstants.GET_TRACK_LIST, "room1", null);
+        String quality = writer.forceStreamQuality("stream1", 360);
+        String track1 = writer.enableTrack(WebSocketConstants.ENABLE_TRACK, "room1", "stream1", false);
+        String track2 = writer.enableTrack(WebSocketConstants.ENABLE_TRACK, "room1", "stream2", false);
+        String track3 = writer.enableTrack(WebSocketConstants.ENABLE_TRACK, "room1", "stream3", false);
+
+        outbox.offer(trackList);
+        outbox.offer(quality);
+        //low priority message is dropped
+        assertTrue(outbox.offer(track1));
+        //normal priority message is dropped
+        assertTrue(outbox.offer(track2));
+        //nothing has lower priority
+        assertFalse(outbox.offer(trackList));
+        //oldest message of the same priority is dropped
+        assertTrue(outbox.offer(track3));
+
+        assertEquals(4, outbox.getDroppedCount());
+        assertEquals(Arrays.asList(track2, track3), outbox.drain());
+    }
+
+    @Test
+    public void testRemoveStream() {
+        SignallingOutbox outbox = new SignallingOutbox(10, () -> now);
+
+        String quality1 = writer.forceStreamQuality("stream1", 360);
+        String quality2 = writer.forceStreamQuality("stream2", 360);
+        outbox.offer(quality1);
+        outbox.offer(quality2);
+
+        outbox.removeStream("stream1");
+        assertEquals(Arrays.asList(quality2), outbox.drain());
+    }
+}
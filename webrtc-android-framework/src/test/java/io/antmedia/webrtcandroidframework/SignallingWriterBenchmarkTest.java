@@ -0,0 +1,181 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import io.antmedia.webrtcandroidframework.websocket.SignallingMessageWriter;
+import io.antmedia.webrtcandroidframework.websocket.WebSocketConstants;
+
+/**
+ * Compares SignallingMessageWriter with the JSONObject based serialization that was used in
+ * WebSocketHandler for each outgoing message type. Allocated bytes are reported if the JVM supports
+ * thread allocation counters. Timing is only measured when benchmarks are enabled, see {@link Benchmarks}.
+ */
+public class SignallingWriterBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int ITERATIONS = 100000;
+
+    private static final String STREAM_ID = "stream1";
+    private static final String SDP = "v=0\r\no=- 4611731400430051336 2 IN IP4 127.0.0.1\r\ns=-\r\nt=0 0\r\na=group:BUNDLE 0 1\r\n"
+            + "a=extmap-allow-mixed\r\na=msid-semantic: WMS stream1\r\nm=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126\r\n"
+            + "c=IN IP4 0.0.0.0\r\na=rtcp:9 IN IP4 0.0.0.0\r\na=ice-ufrag:Wr3x\r\na=ice-pwd:2Hc+rFbD6r8s/3DPpN1tDxkM\r\n"
+            + "a=fingerprint:sha-256 5B:3E:8C:2A:11:7E:0A:72:BB:1F:54:0E:27:9D:CC:08:31:6A:2F:43:92:00:E5:60:71:5D:3C:8B:A4:19:F6:10\r\n"
+            + "a=setup:actpass\r\na=mid:0\r\na=sendrecv\r\na=rtcp-mux\r\na=rtpmap:111 opus/48000/2\r\na=fmtp:111 minptime=10;useinbandfec=1\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101\r\nc=IN IP4 0.0.0.0\r\na=mid:1\r\na=sendrecv\r\na=rtcp-mux\r\na=rtcp-rsize\r\n"
+            + "a=rtpmap:96 VP8/90000\r\na=rtcp-fb:96 goog-remb\r\na=rtcp-fb:96 transport-cc\r\na=rtcp-fb:96 ccm fir\r\na=rtcp-fb:96 nack\r\n";
+    private static final String CANDIDATE = "candidate:1000 1 udp 2122260223 192.168.1.10 50000 typ host generation 0 ufrag Wr3x network-id 1 network-cost 10";
+    private static final String[] TRACKS = {"stream2", "stream3", "stream4"};
+
+    private final Map<String, Callable<String>> jsonObjectMessages = new LinkedHashMap<>();
+    private final Map<String, Callable<String>> writerMessages = new LinkedHashMap<>();
+
+    @Before
+    public void setUp() {
+        SignallingMessageWriter writer = new SignallingMessageWriter();
+
+        jsonObjectMessages.put("publish", () -> {
+            JSONObject json = new JSONObject();
+            json.put(WebSocketConstants.COMMAND, WebSocketConstants.PUBLISH_COMMAND);
+            json.put(WebSocketConstants.STREAM_ID, STREAM_ID);
+            json.put(WebSocketConstants.TOKEN, "");
+            json.put(WebSocketConstants.SUBSCRIBER_ID, "");
+            json.put(WebSocketConstants.SUBSCRIBER_CODE, "");
+            json.put(WebSocketConstants.STREAM_NAME, "");
+            json.put(WebSocketConstants.VIDEO, true);
+            json.put(WebSocketConstants.AUDIO, true);
+            json.put(WebSocketConstants.MAIN_TRACK, "");
+            return json.toString();
+        });
+        writerMessages.put("publish", () -> writer.publish(STREAM_ID, "", true, true, "", "", "", ""));
+
+        jsonObjectMessages.put("play", () -> {
+            JSONObject json = new JSONObject();
+            json.put(WebSocketConstants.COMMAND, WebSocketConstants.PLAY_COMMAND);
+            json.put(WebSocketConstants.STREAM_ID, STREAM_ID);
+            json.put(WebSocketConstants.TOKEN, "");
+            JSONArray jsonArray = new JSONArray();
+            for (String trackId : TRACKS) {
+                jsonArray.put(trackId);
+            }
+            json.put(WebSocketConstants.TRACK_LIST, jsonArray);
+            json.put(WebSocketConstants.SUBSCRIBER_ID, "");
+            json.put(WebSocketConstants.SUBSCRIBER_CODE, "");
+            json.put(WebSocketConstants.VIEWER_INFO, "");
+            return json.toString();
+        });
+        writerMessages.put("play", () -> writer.play(STREAM_ID, "", TRACKS, "", "", ""));
+
+        jsonObjectMessages.put("takeConfiguration", () -> {
+            JSONObject json = new JSONObject();
+            json.put(WebSocketConstants.COMMAND, WebSocketConstants.TAKE_CONFIGURATION_COMMAND);
+            json.put(WebSocketConstants.STREAM_ID, STREAM_ID);
+            json.put(WebSocketConstants.TYPE, "offer");
+            json.put(WebSocketConstants.SDP, SDP);
+            return json.toString();
+        });
+        writerMessages.put("takeConfiguration", () -> writer.takeConfiguration(STREAM_ID, "offer", SDP));
+
+        jsonObjectMessages.put("takeCandidate", () -> {
+            JSONObject json = new JSONObject();
+            json.put(WebSocketConstants.COMMAND, WebSocketConstants.TAKE_CANDIDATE_COMMAND);
+            json.put(WebSocketConstants.STREAM_ID, STREAM_ID);
+            json.put(WebSocketConstants.CANDIDATE_LABEL, 0);
+            json.put(WebSocketConstants.CANDIDATE_ID, "0");
+            json.put(WebSocketConstants.CANDIDATE_SDP, CANDIDATE);
+            return json.toString();
+        });
+        writerMessages.put("takeCandidate", () -> writer.takeCandidate(STREAM_ID, 0, "0", CANDIDATE));
+
+        jsonObjectMessages.put("enableTrack", () -> {
+            JSONObject json = new JSONObject();
+            json.put(WebSocketConstants.COMMAND, WebSocketConstants.ENABLE_TRACK);
+            json.put(WebSocketConstants.STREAM_ID, STREAM_ID);
+            json.put(WebSocketConstants.TRACK_ID, "stream2");
+            json.put(WebSocketConstants.ENABLED, true);
+            return json.toString();
+        });
+        writerMessages.put("enableTrack", () -> writer.enableTrack(WebSocketConstants.ENABLE_TRACK, STREAM_ID, "stream2", true));
+
+        jsonObjectMessages.put("ping", () -> {
+            JSONObject json = new JSONObject();
+            json.put(WebSocketConstants.COMMAND, WebSocketConstants.PING_COMMAND);
+            return json.toString();
+        });
+        writerMessages.put("ping", () -> SignallingMessageWriter.PING_MESSAGE);
+    }
+
+    @Test
+    public void testWriterMatchesJSONObject() throws Exception {
+        for (String type : jsonObjectMessages.keySet()) {
+            String expected = jsonObjectMessages.get(type).call();
+            String actual = writerMessages.get(type).call();
+            assertTrue(type + " expected:" + expected + " actual:" + actual, new JSONObject(expected).similar(new JSONObject(actual)));
+        }
+    }
+
+    @Test
+    public void testWriterAgainstJSONObject() throws Exception {
+        Benchmarks.assumeEnabled();
+        for (String type : jsonObjectMessages.keySet()) {
+            run(jsonObjectMessages.get(type), WARMUP_ITERATIONS);
+            run(writerMessages.get(type), WARMUP_ITERATIONS);
+
+            long[] jsonObjectResult = measure(jsonObjectMessages.get(type));
+            long[] writerResult = measure(writerMessages.get(type));
+
+            Benchmarks.report(type + " JSONObject: " + jsonObjectResult[0] + " ns/message " + format(jsonObjectResult[1])
+                    + " | writer: " + writerResult[0] + " ns/message " + format(writerResult[1]));
+        }
+    }
+
+    private static String format(long allocatedBytes) {
+        return allocatedBytes < 0 ? "(allocation counter is not available)" : allocatedBytes + " bytes/message";
+    }
+
+    /**
+     * @return ns per message and allocated bytes per message or -1 if it cannot be measured
+     */
+    private static long[] measure(Callable<String> message) throws Exception {
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        int checksum = run(message, ITERATIONS);
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = getAllocatedBytes();
+        assertTrue(checksum > 0);
+
+        long allocated = allocatedBefore < 0 ? -1 : (allocatedAfter - allocatedBefore) / ITERATIONS;
+        return new long[]{elapsed / ITERATIONS, allocated};
+    }
+
+    private static int run(Callable<String> message, int iterations) throws Exception {
+        int checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += message.call().length();
+        }
+        return checksum;
+    }
+
+    /**
+     * java.lang.management is not in android.jar, so HotSpot's counter is accessed with reflection
+     */
+    private static long getAllocatedBytes() {
+        try {
+            Class<?> managementFactory = Class.forName("java.lang.management.ManagementFactory");
+            Object threadMXBean = managementFactory.getMethod("getThreadMXBean").invoke(null);
+            Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+            return (long) method.invoke(threadMXBean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import io.antmedia.webrtcandroidframework.core.StreamTimeline;
+import io.antmedia.webrtcandroidframework.core.TimelineStatistics;
+import io.antmedia.webrtcandroidframework.core.WebRTCClient;
+
+public class StreamTimelineTest {
+
+    @Test
+    public void testFirstOccurrenceIsRecorded() {
+        StreamTimeline timeline = new StreamTimeline("stream1", WebRTCClient.Mode.PUBLISH, 1000);
+
+        assertEquals(Long.valueOf(0), timeline.getOffsetMs(StreamTimeline.Event.ATTEMPT));
+        assertNull(timeline.getOffsetMs(StreamTimeline.Event.ICE_CONNECTED));
+
+        assertTrue(timeline.record(StreamTimeline.Event.FIRST_LOCAL_CANDIDATE, 1250));
+        assertFalse(timeline.record(StreamTimeline.Event.FIRST_LOCAL_CANDIDATE, 1300));
+        assertTrue(timeline.record(StreamTimeline.Event.START_SENT, 1010));
+
+        assertEquals(Long.valueOf(250), timeline.getOffsetMs(StreamTimeline.Event.FIRST_LOCAL_CANDIDATE));
+
+        //offsets are in event order, not in recording order
+        Map<StreamTimeline.Event, Long> offsets = timeline.getOffsets();
+        assertEquals(Arrays.asList(StreamTimeline.Event.ATTEMPT, StreamTimeline.Event.START_SENT, StreamTimeline.Event.FIRST_LOCAL_CANDIDATE),
+                Arrays.asList(offsets.keySet().toArray()));
+
+        assertTrue(timeline.complete());
+        assertFalse(timeline.complete());
+        assertTrue(timeline.isCompleted());
+    }
+
+    @Test
+    public void testPercentiles() {
+        TimelineStatistics statistics = new TimelineStatistics();
+        assertEquals(-1, statistics.getPercentile(StreamTimeline.Event.CONNECTED, 50));
+
+        for (int i = 1; i <= 100; i++) {
+            StreamTimeline timeline = new StreamTimeline("stream" + i, WebRTCClient.Mode.PLAY, 0);
+            timeline.record(StreamTimeline.Event.CONNECTED, i * 10L);
+            if (i % 2 == 0) {
+                timeline.record(StreamTimeline.Event.FIRST_RENDERED_FRAME, i * 20L);
+            }
+            statistics.add(timeline);
+        }
+
+        assertEquals(100, statistics.getSessionCount());
+        assertEquals(100, statistics.getSampleCount(StreamTimeline.Event.CONNECTED));
+        assertEquals(50, statistics.getSampleCount(StreamTimeline.Event.FIRST_RENDERED_FRAME));
+
+        assertEquals(500, statistics.getPercentile(StreamTimeline.Event.CONNECTED, 50));
+        assertEquals(950, statistics.getPercentile(StreamTimeline.Event.CONNECTED, 95));
+        assertEquals(1000, statistics.getPercentile(StreamTimeline.Event.CONNECTED, 100));
+        assertEquals(10, statistics.getPercentile(StreamTimeline.Event.CONNECTED, 0));
+        assertEquals(1000, statistics.getPercentile(StreamTimeline.Event.FIRST_RENDERED_FRAME, 50));
+
+        statistics.reset();
+        assertEquals(0, statistics.getSessionCount());
+        assertEquals(-1, statistics.getPercentile(StreamTimeline.Event.CONNECTED, 50));
+    }
+
+    @Test
+    public void testSampleWindow() {
+        TimelineStatistics statistics = new TimelineStatistics(10);
+        for (int i = 1; i <= 20; i++) {
+            StreamTimeline timeline = new StreamTimeline("stream" + i, WebRTCClient.Mode.PUBLISH, 0);
+            timeline.record(StreamTimeline.Event.CONNECTED, i);
+            statistics.add(timeline);
+        }
+        //only the last 10 sessions are kept
+        assertEquals(10, statistics.getSampleCount(StreamTimeline.Event.CONNECTED));
+        assertEquals(11, statistics.getPercentile(StreamTimeline.Event.CONNECTED, 0));
+        assertEquals(20, statistics.getSessionCount());
+    }
+}
@@ -0,0 +1,64 @@
+package io.antmedia.webrtcandroidframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.antmedia.webrtcandroidframework.core.TieredRecovery;
+
+public class TieredRecoveryTest {
+
+    private long now;
+
+    @Test
+    public void testEscalateAndComplete() {
+        TieredRecovery recovery = new TieredRecovery(() -> now);
+
+        now = 1000;
+        long sequence = recovery.start("stream1", TieredRecovery.Tier.ICE_RESTART);
+        assertTrue(sequence >= 0);
+        //already recovering
+        assertEquals(-1, recovery.start("stream1", TieredRecovery.Tier.REPUBLISH));
+        assertEquals(TieredRecovery.Tier.ICE_RESTART, recovery.getTier("stream1"));
+
+        now = 1500;
+        assertEquals(500, recovery.escalate("stream1", TieredRecovery.Tier.SESSION_RESTORE));
+        assertNotEquals(sequence, recovery.getSequence("stream1"));
+        assertEquals(TieredRecovery.Tier.SESSION_RESTORE, recovery.getTier("stream1"));
+
+        now = 1800;
+        assertEquals(300, recovery.complete("stream1"));
+        assertFalse(recovery.isRecovering("stream1"));
+        assertNull(recovery.getTier("stream1"));
+        assertEquals(-1, recovery.getSequence("stream1"));
+        assertEquals(-1, recovery.complete("stream1"));
+
+        assertEquals(1, recovery.getFailureCount(TieredRecovery.Tier.ICE_RESTART));
+        assertEquals(0, recovery.getRecoveryCount(TieredRecovery.Tier.ICE_RESTART));
+        assertEquals(1, recovery.getRecoveryCount(TieredRecovery.Tier.SESSION_RESTORE));
+        //recovery time is measured from the start of the recovery
+        assertEquals(800, recovery.getAverageRecoveryMs(TieredRecovery.Tier.SESSION_RESTORE));
+        assertEquals(0, recovery.getAverageRecoveryMs(TieredRecovery.Tier.REPUBLISH));
+    }
+
+    @Test
+    public void testCancel() {
+        TieredRecovery recovery = new TieredRecovery(() -> now);
+
+        recovery.start("stream1", TieredRecovery.Tier.ICE_RESTART);
+        recovery.start("stream2", TieredRecovery.Tier.REPUBLISH);
+        assertTrue(recovery.isRecovering());
+
+        recovery.cancel("stream1");
+        assertEquals(-1, recovery.escalate("stream1", TieredRecovery.Tier.SESSION_RESTORE));
+        assertTrue(recovery.isRecovering());
+
+        recovery.clear();
+        assertFalse(recovery.isRecovering());
+        assertEquals(0, recovery.getRecoveryCount(TieredRecovery.Tier.REPUBLISH));
+    }
+}
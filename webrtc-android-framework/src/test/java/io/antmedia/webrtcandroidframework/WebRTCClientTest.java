@@ -3,6 +3,7 @@ package io.antmedia.webrtcandroidframework;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
@@ -10,6 +11,7 @@ import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
@@ -34,6 +36,7 @@ import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.mockito.stubbing.Answer;
@@ -45,6 +48,8 @@ import org.webrtc.MediaStream;
 import org.webrtc.MediaStreamTrack;
 import org.webrtc.PeerConnection;
 import org.webrtc.PeerConnectionFactory;
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
 import org.webrtc.RtpParameters;
 import org.webrtc.RtpReceiver;
 import org.webrtc.RtpSender;
@@ -60,21 +65,37 @@ import org.webrtc.audio.JavaAudioDeviceModule;
 
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import io.antmedia.webrtcandroidframework.api.IDataChannelObserver;
+import io.antmedia.webrtcandroidframework.api.IFileTransferListener;
 import io.antmedia.webrtcandroidframework.api.IWebRTCClient;
 import io.antmedia.webrtcandroidframework.api.IWebRTCListener;
 import io.antmedia.webrtcandroidframework.apprtc.AppRTCAudioManager;
+import io.antmedia.webrtcandroidframework.core.DataChannelBatcher;
+import io.antmedia.webrtcandroidframework.core.DataChannelBufferPool;
+import io.antmedia.webrtcandroidframework.core.DataChannelOptions;
+import io.antmedia.webrtcandroidframework.core.DataChannelSender;
+import io.antmedia.webrtcandroidframework.core.FileTransfer;
 import io.antmedia.webrtcandroidframework.core.PermissionsHandler;
 import io.antmedia.webrtcandroidframework.core.ProxyVideoSink;
+import io.antmedia.webrtcandroidframework.core.ReconnectionEvent;
+import io.antmedia.webrtcandroidframework.core.ReconnectionStateMachine;
+import io.antmedia.webrtcandroidframework.core.StatsCollector;
 import io.antmedia.webrtcandroidframework.core.StreamInfo;
+import io.antmedia.webrtcandroidframework.core.StreamTimeline;
+import io.antmedia.webrtcandroidframework.core.TieredRecovery;
+import io.antmedia.webrtcandroidframework.core.TransferFrame;
 import io.antmedia.webrtcandroidframework.core.WebRTCClient;
+import io.antmedia.webrtcandroidframework.sdp.SdpMungingRules;
 import io.antmedia.webrtcandroidframework.websocket.Broadcast;
 import io.antmedia.webrtcandroidframework.websocket.WebSocketConstants;
 import io.antmedia.webrtcandroidframework.websocket.WebSocketHandler;
@@ -453,6 +474,44 @@ public class WebRTCClientTest {
         assertTrue(webRTCClient.isDataChannelEnabled());
     }
 
+    @Test
+    public void testInitializationStages() {
+        mockMethodsInInit();
+        Mockito.doReturn(true).when(webRTCClient).checkPermissions(any());
+
+        webRTCClient.init();
+
+        //websocket handshake is started before the local setup
+        InOrder inOrder = Mockito.inOrder(webRTCClient);
+        inOrder.verify(webRTCClient).connectWebSocket();
+        inOrder.verify(webRTCClient).initializeRenderers();
+        inOrder.verify(webRTCClient).initializePeerConnectionFactory();
+
+        verify(listener, timeout(1000)).onInitializationStageCompleted(eq(WebRTCClient.INIT_STAGE_WEBSOCKET), anyLong(), anyLong());
+        verify(listener, timeout(1000)).onInitializationStageCompleted(eq(WebRTCClient.INIT_STAGE_RENDERERS), anyLong(), anyLong());
+        verify(listener, timeout(1000)).onInitializationStageCompleted(eq(WebRTCClient.INIT_STAGE_FACTORY), anyLong(), anyLong());
+        verify(listener, timeout(1000)).onInitializationStageCompleted(eq(WebRTCClient.INIT_STAGE_VIDEO_CAPTURER), anyLong(), anyLong());
+        verify(listener, timeout(1000)).onInitializationStageCompleted(eq(WebRTCClient.INIT_STAGE_AUDIO_MANAGER), anyLong(), anyLong());
+        verify(listener, timeout(1000)).onInitializationStageCompleted(eq(WebRTCClient.INIT_STAGE_ALL), eq(0L), anyLong());
+
+        assertEquals(6, webRTCClient.getInitializationTimings().size());
+    }
+
+    @Test
+    public void testInitializationCompletesWhenWebSocketFails() {
+        mockMethodsInInit();
+        Mockito.doReturn(true).when(webRTCClient).checkPermissions(any());
+        Mockito.doReturn(false).when(webRTCClient).isWebSocketConnected();
+
+        webRTCClient.init();
+        verify(listener, timeout(1000)).onInitializationStageCompleted(eq(WebRTCClient.INIT_STAGE_AUDIO_MANAGER), anyLong(), anyLong());
+        verify(listener, never()).onInitializationStageCompleted(eq(WebRTCClient.INIT_STAGE_ALL), anyLong(), anyLong());
+
+        webRTCClient.onWebSocketDisconnected();
+        verify(listener, timeout(1000)).onInitializationStageCompleted(eq(WebRTCClient.INIT_STAGE_ALL), eq(0L), anyLong());
+        assertTrue(webRTCClient.getInitializationTimings().get(WebRTCClient.INIT_STAGE_WEBSOCKET).isFailed());
+    }
+
 
     @Test
     public void testInitilizeVideoCapturer() {
@@ -508,7 +567,7 @@ public class WebRTCClientTest {
 
         IceCandidate iceCandidate = mock(IceCandidate.class);
         pcObserver.onIceCandidate(iceCandidate);
-        verify(wsHandler, timeout(1000)).sendLocalIceCandidate(streamId, iceCandidate);
+        verify(wsHandler, timeout(1000)).queueLocalIceCandidate(streamId, iceCandidate);
 
         pcObserver.onIceCandidateError(new IceCandidateErrorEvent("address", 5090, "url", 5, "errorText"));
         pcObserver.onSignalingChange(PeerConnection.SignalingState.CLOSED);
@@ -645,10 +704,6 @@ public class WebRTCClientTest {
 
     @Test
     public void testReconnection() {
-        webRTCClient.createReconnectorRunnables();
-
-        final Handler handler = getMockHandler();
-        webRTCClient.setPeerReconnectionHandler(handler);
         webRTCClient.getConfig().reconnectionEnabled = true;
 
         doNothing().when(webRTCClient).init();
@@ -665,7 +720,16 @@ public class WebRTCClientTest {
         verify(listener, timeout(1000)).onIceDisconnected(playStreamId);
         verify(listener, timeout(1000)).onIceDisconnected(publishStreamId);
 
-        verify(webRTCClient,times(2)).rePublishPlay();
+        //peers without peer connection skip ICE restart and session restore, they are republished after the backoff
+        assertTrue(webRTCClient.isReconnectionInProgress());
+        verify(listener, atLeast(2)).onReconnectionStateChanged(any(ReconnectionEvent.class));
+        List<ReconnectionEvent> events = webRTCClient.getReconnectionStateMachine().getEvents();
+        assertEquals(ReconnectionStateMachine.State.BACKOFF, events.get(0).getTo());
+        assertEquals(ReconnectionStateMachine.State.BACKOFF, events.get(1).getTo());
+
+        //repeated disconnection does not start another attempt
+        webRTCClient.onIceDisconnected(publishStreamId);
+        assertEquals(1, webRTCClient.getReconnectionStateMachine().getDeduplicatedCount());
 
         verify(webRTCClient, timeout(WebRTCClient.PEER_RECONNECTION_DELAY_MS + 1000).atLeast(2)).play(anyString(), anyString(), any(), anyString(), anyString(), anyString());
 
@@ -673,6 +737,56 @@ public class WebRTCClientTest {
 
     }
 
+    @Test
+    public void testDeprecatedRePublishPlayStartsRecovery() {
+        webRTCClient.getConfig().reconnectionEnabled = true;
+        doNothing().when(webRTCClient).init();
+
+        String streamId = "publishStreamId";
+        webRTCClient.publish(streamId, "", true, true, "","", "", "");
+
+        webRTCClient.rePublishPlay();
+
+        assertTrue(webRTCClient.isReconnectionInProgress());
+        assertEquals(ReconnectionStateMachine.State.BACKOFF, webRTCClient.getReconnectionStateMachine().getState(streamId));
+    }
+
+    @Test
+    public void testTieredRecovery() {
+        webRTCClient.getConfig().reconnectionEnabled = true;
+        webRTCClient.getConfig().iceRestartTimeoutMs = 200;
+        webRTCClient.getConfig().sessionRestoreTimeoutMs = 10000;
+
+        doNothing().when(webRTCClient).init();
+
+        String streamId = "stream1";
+        webRTCClient.publish(streamId, "", true, true, "", "", "", "");
+        PeerConnection pc = mock(PeerConnection.class);
+        WebRTCClient.PeerInfo peerInfo = webRTCClient.getPeersForTest().get(streamId);
+        peerInfo.peerConnection = pc;
+
+        webRTCClient.onIceDisconnected(streamId);
+
+        //ICE is restarted on the existing peer connection first
+        assertTrue(peerInfo.restartIce);
+        verify(pc, timeout(1000)).createOffer(any(), any());
+
+        //session is restored without stopping the stream after ICE restart times out
+        verify(listener, timeout(1000)).onReconnectionTierCompleted(eq(streamId), eq(TieredRecovery.Tier.ICE_RESTART), eq(false), anyLong());
+        assertEquals(TieredRecovery.Tier.SESSION_RESTORE, webRTCClient.getTieredRecovery().getTier(streamId));
+        verify(wsHandler, timeout(1000).times(2)).startPublish(eq(streamId), anyString(), anyBoolean(), anyBoolean(), anyString(), anyString(), anyString(), anyString());
+        verify(wsHandler, never()).stop(streamId);
+        verify(pc, never()).close();
+
+        webRTCClient.onConnected(streamId);
+
+        verify(listener, timeout(1000)).onReconnectionTierCompleted(eq(streamId), eq(TieredRecovery.Tier.SESSION_RESTORE), eq(true), anyLong());
+        verify(listener, timeout(1000)).onReconnectionSuccess();
+        assertFalse(webRTCClient.getTieredRecovery().isRecovering(streamId));
+        assertEquals(1, webRTCClient.getTieredRecovery().getRecoveryCount(TieredRecovery.Tier.SESSION_RESTORE));
+        assertEquals(ReconnectionStateMachine.State.CONNECTED, webRTCClient.getReconnectionStateMachine().getState(streamId));
+    }
+
     @Test
     public void testWSAndListenerMessages() {
         String streamId = "stream1";
@@ -735,6 +849,9 @@ public class WebRTCClientTest {
 
         webRTCClient.onBitrateMeasurement(streamId, 1000, 500, 100);
         verify(listener, timeout(1000)).onBitrateMeasurement(streamId, 1000, 500, 100);
+
+        webRTCClient.onSignallingRttMeasured(120, 100, 20);
+        verify(listener, timeout(1000)).onSignallingRttMeasured(120, 100, 20);
     }
 
     @Test
@@ -859,6 +976,211 @@ public class WebRTCClientTest {
         webRTCClient.setDataChannelEnabled(false);
         webRTCClient.sendMessageViaDataChannel(streamId, buffer);
         verify(dcObserver, timeout(1000).times(2)).onMessageSent(buffer, false);
+
+        DataChannelSender.SendResult result = webRTCClient.sendMessageViaDataChannelWithResult(streamId, buffer);
+        assertTrue(result.isDone());
+        assertFalse(result.isSent());
+    }
+
+    @Test
+    public void testFileTransferViaDataChannel() {
+        String streamId = "stream1";
+        doNothing().when(webRTCClient).reportError(anyString(), anyString());
+        assertNull(webRTCClient.sendFileViaDataChannel(streamId, mock(FileChannel.class), "file.txt"));
+
+        WebRTCClient.PeerInfo peerInfo =  new WebRTCClient.PeerInfo(streamId, WebRTCClient.Mode.PUBLISH);
+        PeerConnection pc = mock(PeerConnection.class);
+        DataChannel dc = mock(DataChannel.class);
+        when(pc.createDataChannel(anyString(), any())).thenReturn(dc);
+        peerInfo.peerConnection = pc;
+        webRTCClient.getPeersForTest().put(streamId, peerInfo);
+        webRTCClient.setDataChannelEnabled(true);
+
+        IDataChannelObserver dcObserver = mock(IDataChannelObserver.class);
+        IFileTransferListener transferListener = mock(IFileTransferListener.class);
+        webRTCClient.getConfig().dataChannelObserver = dcObserver;
+        webRTCClient.getConfig().fileTransferListener = transferListener;
+
+        webRTCClient.initDataChannel(streamId);
+        ArgumentCaptor<DataChannel.Observer> observerCaptor = ArgumentCaptor.forClass(DataChannel.Observer.class);
+        verify(dc).registerObserver(observerCaptor.capture());
+
+        //transfer frames are not delivered as messages
+        observerCaptor.getValue().onMessage(new DataChannel.Buffer(TransferFrame.start(1, 10, 5, "file.txt"), true));
+        ArgumentCaptor<FileTransfer> transferCaptor = ArgumentCaptor.forClass(FileTransfer.class);
+        verify(transferListener, timeout(1000)).onIncomingTransfer(eq(streamId), transferCaptor.capture());
+        assertEquals("file.txt", transferCaptor.getValue().getName());
+        assertEquals(10, transferCaptor.getValue().getSize());
+        verify(dcObserver, never()).onMessage(any(), anyString());
+
+        //application message that starts with the magic number but not with a frame type is delivered
+        when(dc.label()).thenReturn(streamId);
+        webRTCClient.getConfig().dataChannelMessageExecutor = Runnable::run;
+        ByteBuffer message = ByteBuffer.allocate(TransferFrame.HEADER_SIZE + 4);
+        message.putInt(TransferFrame.MAGIC).put((byte) 0).putInt(1).putInt(2);
+        message.flip();
+        observerCaptor.getValue().onMessage(new DataChannel.Buffer(message, true));
+        verify(dcObserver, timeout(1000)).onMessage(any(), eq(streamId));
+        verify(transferListener, times(1)).onIncomingTransfer(anyString(), any());
+    }
+
+    @Test
+    public void testDataChannelPooledReceive() {
+        String streamId = "stream1";
+
+        WebRTCClient.PeerInfo peerInfo =  new WebRTCClient.PeerInfo(streamId, WebRTCClient.Mode.PUBLISH);
+        PeerConnection pc = mock(PeerConnection.class);
+        DataChannel dc = mock(DataChannel.class);
+        when(dc.label()).thenReturn(streamId);
+        when(pc.createDataChannel(anyString(), any())).thenReturn(dc);
+        peerInfo.peerConnection = pc;
+        webRTCClient.getPeersForTest().put(streamId, peerInfo);
+        webRTCClient.setDataChannelEnabled(true);
+
+        IDataChannelObserver dcObserver = mock(IDataChannelObserver.class);
+        DataChannelBufferPool pool = new DataChannelBufferPool();
+        webRTCClient.getConfig().dataChannelObserver = dcObserver;
+        webRTCClient.getConfig().dataChannelBufferPool = pool;
+        //deliver on the calling thread
+        webRTCClient.getConfig().dataChannelMessageExecutor = Runnable::run;
+
+        webRTCClient.initDataChannel(streamId);
+        ArgumentCaptor<DataChannel.Observer> observerCaptor = ArgumentCaptor.forClass(DataChannel.Observer.class);
+        verify(dc).registerObserver(observerCaptor.capture());
+        DataChannel.Observer dcInternalObserver = observerCaptor.getValue();
+
+        ArgumentCaptor<DataChannel.Buffer> bufferCaptor = ArgumentCaptor.forClass(DataChannel.Buffer.class);
+        for (int i = 0; i < 100; i++) {
+            ByteBuffer message = ByteBuffer.wrap(("telemetry " + i).getBytes());
+            dcInternalObserver.onMessage(new DataChannel.Buffer(message, true));
+
+            verify(dcObserver, times(i + 1)).onMessage(bufferCaptor.capture(), eq(streamId));
+            DataChannel.Buffer received = bufferCaptor.getValue();
+            assertTrue(received instanceof DataChannelBufferPool.PooledBuffer);
+            assertTrue(received.binary);
+            assertEquals(message.capacity(), received.data.remaining());
+            assertEquals(message, received.data);
+            assertTrue(pool.release(received));
+        }
+
+        //same buffer is reused for all messages and the label is read once
+        assertEquals(100, pool.getAcquireCount());
+        assertEquals(1, pool.getAllocationCount());
+        verify(dc, times(1)).label();
+    }
+
+    @Test
+    public void testLabeledDataChannel() {
+        String streamId = "stream1";
+
+        WebRTCClient.PeerInfo peerInfo =  new WebRTCClient.PeerInfo(streamId, WebRTCClient.Mode.PUBLISH);
+        PeerConnection pc = mock(PeerConnection.class);
+        DataChannel dc = mock(DataChannel.class);
+        DataChannel telemetryDc = mock(DataChannel.class);
+        when(dc.label()).thenReturn(streamId);
+        when(telemetryDc.label()).thenReturn("telemetry");
+        when(pc.createDataChannel(eq(streamId), any())).thenReturn(dc);
+        when(pc.createDataChannel(eq("telemetry"), any())).thenReturn(telemetryDc);
+        peerInfo.peerConnection = pc;
+        webRTCClient.getPeersForTest().put(streamId, peerInfo);
+        webRTCClient.setDataChannelEnabled(true);
+        doNothing().when(webRTCClient).reportError(anyString(), anyString());
+
+        IDataChannelObserver dcObserver = mock(IDataChannelObserver.class);
+        IDataChannelObserver telemetryObserver = mock(IDataChannelObserver.class);
+        webRTCClient.getConfig().dataChannelObserver = dcObserver;
+        webRTCClient.getConfig().dataChannelMessageExecutor = Runnable::run;
+        webRTCClient.getConfig().dataChannels.add(DataChannelOptions.builder("telemetry")
+                .setOrdered(false)
+                .setMaxRetransmits(0)
+                .setObserver(telemetryObserver)
+                .build());
+
+        webRTCClient.initDataChannel(streamId);
+        assertEquals(dc, peerInfo.dataChannel);
+        ArgumentCaptor<DataChannel.Init> initCaptor = ArgumentCaptor.forClass(DataChannel.Init.class);
+        verify(pc).createDataChannel(eq("telemetry"), initCaptor.capture());
+        assertFalse(initCaptor.getValue().ordered);
+        assertEquals(0, initCaptor.getValue().maxRetransmits);
+        assertEquals(telemetryDc, webRTCClient.getDataChannelSender(streamId, "telemetry").getDataChannel());
+
+        //same label is not opened twice
+        assertFalse(webRTCClient.createDataChannel(streamId, DataChannelOptions.builder("telemetry").build()));
+
+        //messages of the labeled channel are delivered to its own observer
+        ArgumentCaptor<DataChannel.Observer> observerCaptor = ArgumentCaptor.forClass(DataChannel.Observer.class);
+        verify(telemetryDc).registerObserver(observerCaptor.capture());
+        observerCaptor.getValue().onMessage(new DataChannel.Buffer(ByteBuffer.wrap("position".getBytes()), false));
+        verify(telemetryObserver).onMessage(any(), eq("telemetry"));
+        verify(dcObserver, never()).onMessage(any(), anyString());
+
+        ByteBuffer bb = ByteBuffer.allocate(10);
+        DataChannel.Buffer buffer = new DataChannel.Buffer(bb, true);
+        when(telemetryDc.send(buffer)).thenReturn(true);
+        webRTCClient.sendMessageViaDataChannel(streamId, "telemetry", buffer);
+        verify(telemetryObserver, timeout(1000)).onMessageSent(buffer, true);
+        verify(telemetryDc).send(buffer);
+        verify(dc, never()).send(any());
+
+        DataChannel.Buffer unknown = new DataChannel.Buffer(ByteBuffer.allocate(1), true);
+        webRTCClient.sendMessageViaDataChannel(streamId, "unknown", unknown);
+        verify(dcObserver, timeout(1000)).onMessageSent(unknown, false);
+
+        webRTCClient.closeInternal();
+        verify(telemetryDc).dispose();
+        assertTrue(peerInfo.labeledDataChannelSenders.isEmpty());
+    }
+
+    @Test
+    public void testBatchedDataChannel() {
+        String streamId = "stream1";
+
+        WebRTCClient.PeerInfo peerInfo =  new WebRTCClient.PeerInfo(streamId, WebRTCClient.Mode.PUBLISH);
+        PeerConnection pc = mock(PeerConnection.class);
+        DataChannel dc = mock(DataChannel.class);
+        when(dc.label()).thenReturn(streamId);
+        when(dc.send(any())).thenReturn(true);
+        when(pc.createDataChannel(anyString(), any())).thenReturn(dc);
+        peerInfo.peerConnection = pc;
+        webRTCClient.getPeersForTest().put(streamId, peerInfo);
+        webRTCClient.setDataChannelEnabled(true);
+
+        IDataChannelObserver dcObserver = mock(IDataChannelObserver.class);
+        webRTCClient.getConfig().dataChannelObserver = dcObserver;
+        webRTCClient.getConfig().dataChannelMessageExecutor = Runnable::run;
+        webRTCClient.getConfig().dataChannelBatchIntervalMs = 20;
+        //two messages fill a batch
+        webRTCClient.getConfig().dataChannelMaxBatchSize = DataChannelBatcher.HEADER_SIZE + 2 * (DataChannelBatcher.MESSAGE_HEADER_SIZE + 4);
+
+        webRTCClient.initDataChannel(streamId);
+        assertNotNull(peerInfo.dataChannelBatcher);
+
+        DataChannel.Buffer first = new DataChannel.Buffer(ByteBuffer.wrap("msg1".getBytes()), false);
+        DataChannel.Buffer second = new DataChannel.Buffer(ByteBuffer.wrap("msg2".getBytes()), false);
+        DataChannel.Buffer third = new DataChannel.Buffer(ByteBuffer.wrap("msg3".getBytes()), false);
+        webRTCClient.sendMessageViaDataChannel(streamId, first);
+        webRTCClient.sendMessageViaDataChannel(streamId, second);
+        webRTCClient.sendMessageViaDataChannel(streamId, third);
+
+        //batch is flushed when the third message does not fit, so three messages are sent in two messages
+        ArgumentCaptor<DataChannel.Buffer> sentCaptor = ArgumentCaptor.forClass(DataChannel.Buffer.class);
+        verify(dc, timeout(1000).times(2)).send(sentCaptor.capture());
+        verify(dcObserver, timeout(1000)).onMessageSent(first, true);
+        verify(dcObserver, timeout(1000)).onMessageSent(second, true);
+        verify(dcObserver, timeout(1000)).onMessageSent(third, true);
+
+        //batch is unpacked to the original messages on the receiving side
+        ArgumentCaptor<DataChannel.Observer> observerCaptor = ArgumentCaptor.forClass(DataChannel.Observer.class);
+        verify(dc).registerObserver(observerCaptor.capture());
+        observerCaptor.getValue().onMessage(sentCaptor.getAllValues().get(0));
+        ArgumentCaptor<DataChannel.Buffer> receivedCaptor = ArgumentCaptor.forClass(DataChannel.Buffer.class);
+        verify(dcObserver, times(2)).onMessage(receivedCaptor.capture(), eq(streamId));
+        assertEquals(ByteBuffer.wrap("msg1".getBytes()), receivedCaptor.getAllValues().get(0).data);
+        assertEquals(ByteBuffer.wrap("msg2".getBytes()), receivedCaptor.getAllValues().get(1).data);
+        assertFalse(receivedCaptor.getAllValues().get(0).binary);
+
+        webRTCClient.closeInternal();
+        assertNull(peerInfo.dataChannelBatcher);
     }
 
 
@@ -1026,22 +1348,32 @@ public class WebRTCClientTest {
         PeerConnection pc = mock(PeerConnection.class);
         peerInfo.peerConnection = pc;
 
-        IceCandidate iceCandidate = mock(IceCandidate.class);
+        IceCandidate iceCandidate = new IceCandidate("0", 0, "candidate:1 1 udp 2122260223 192.168.1.10 50000 typ host");
+        IceCandidate iceCandidate2 = new IceCandidate("0", 0, "candidate:2 1 udp 2122260223 192.168.1.11 50000 typ host");
 
-        peerInfo.setQueuedRemoteCandidates(null);
+        //candidates are queued until the descriptions are set
         webRTCClient.addRemoteIceCandidate(streamId, iceCandidate);
-        verify(pc, timeout(1000).times(1)).addIceCandidate(any(), any());
+        assertEquals(1, peerInfo.getRemoteCandidateQueue().size());
+        verify(pc, never()).addIceCandidate(any(), any());
 
-        List<IceCandidate> iceCandidatesQ = new ArrayList<>();
-        peerInfo.setQueuedRemoteCandidates(iceCandidatesQ);
-        webRTCClient.addRemoteIceCandidate(streamId, iceCandidate);
-        Awaitility.await().until(() -> iceCandidatesQ.size() == 1);
-        assertEquals(iceCandidate, iceCandidatesQ.get(0));
+        //same candidate is ignored
+        webRTCClient.addRemoteIceCandidate(streamId, new IceCandidate("0", 0, iceCandidate.sdp));
+        assertEquals(1, peerInfo.getRemoteCandidateQueue().size());
+        assertEquals(1, peerInfo.getRemoteCandidateQueue().getDuplicateCount());
 
         IceCandidate[] iceCandidatesTorRemove = new IceCandidate[1];
         iceCandidatesTorRemove[0] = iceCandidate;
         webRTCClient.removeRemoteIceCandidates(streamId, iceCandidatesTorRemove);
 
+        //queued candidates are drained before removal
+        verify(pc, timeout(1000).times(1)).addIceCandidate(eq(iceCandidate), any());
+        assertEquals(1, peerInfo.getRemoteCandidateQueue().getDrainedCount());
+
+        //candidates are added directly after the queue is drained
+        webRTCClient.addRemoteIceCandidate(streamId, iceCandidate2);
+        verify(pc, timeout(1000).times(1)).addIceCandidate(eq(iceCandidate2), any());
+        assertEquals(0, peerInfo.getRemoteCandidateQueue().size());
+
         verify(pc, timeout(1000).times(1)).removeIceCandidates(any());
     }
 
@@ -1106,6 +1438,123 @@ public class WebRTCClientTest {
         webRTCClient.setVideoMaxBitrate(3000);
         verify(sender, timeout(1000).times(1)).setParameters(parameters);
     }
+
+    @Test
+    public void testSdpMungingRulesOfConfig() {
+        String streamId = "stream1";
+
+        WebRTCClient.PeerInfo peerInfo = new WebRTCClient.PeerInfo(streamId, WebRTCClient.Mode.PUBLISH);
+        webRTCClient.getPeersForTest().put(streamId, peerInfo);
+        webRTCClient.getConfig().sdpMungingRules = SdpMungingRules.builder().setOpusDtx(true).build();
+
+        String fakeSdp = "v=0\r\n" +
+                "m=audio 9 UDP/TLS/RTP/SAVPF 111\r\n" +
+                "a=rtpmap:111 opus/48000/2\r\n" +
+                "a=fmtp:111 minptime=10;useinbandfec=1\r\n" +
+                "m=video 9 UDP/TLS/RTP/SAVPF 96\r\n" +
+                WebRTCClient.VIDEO_ROTATION_EXT_LINE +
+                "a=rtpmap:96 VP8/90000\r\n";
+
+        webRTCClient.getSdpObserver(streamId).onCreateSuccess(new SessionDescription(SessionDescription.Type.OFFER, fakeSdp));
+
+        //rules of the config are applied after the video rotation setting
+        String sdp = peerInfo.getLocalDescription().description;
+        assertTrue(sdp.contains("a=fmtp:111 minptime=10;useinbandfec=1;usedtx=1\r\n"));
+        assertFalse(sdp.contains(WebRTCClient.VIDEO_ROTATION_EXT_LINE));
+    }
+
+    @Test
+    public void testPublishTimeline() {
+        String streamId = "timelineStream";
+        doNothing().when(webRTCClient).init();
+        doNothing().when(webRTCClient).createPeerConnection(streamId);
+        doNothing().when(webRTCClient).setRemoteDescription(eq(streamId), any());
+        doNothing().when(webRTCClient).addRemoteIceCandidate(eq(streamId), any());
+
+        long publishedSessions = WebRTCClient.getTimelineStatistics(WebRTCClient.Mode.PUBLISH).getSessionCount();
+
+        webRTCClient.publish(streamId);
+        StreamTimeline timeline = webRTCClient.getStreamTimeline(streamId);
+        assertNotNull(timeline);
+        //websocket is already connected
+        assertTrue(timeline.hasEvent(StreamTimeline.Event.WEBSOCKET_OPEN));
+        assertTrue(timeline.hasEvent(StreamTimeline.Event.START_SENT));
+
+        webRTCClient.onTakeConfiguration(streamId, new SessionDescription(SessionDescription.Type.ANSWER, "sdp"));
+        webRTCClient.onRemoteIceCandidate(streamId, new IceCandidate("0", 0, "candidate"));
+        webRTCClient.onConnected(streamId);
+        assertTrue(timeline.hasEvent(StreamTimeline.Event.TAKE_CONFIGURATION_RECEIVED));
+        assertTrue(timeline.hasEvent(StreamTimeline.Event.FIRST_REMOTE_CANDIDATE));
+        assertTrue(timeline.hasEvent(StreamTimeline.Event.CONNECTED));
+        assertFalse(timeline.isCompleted());
+
+        RTCStatsReport report = mock(RTCStatsReport.class);
+        RTCStats stats = mock(RTCStats.class);
+        Map<String, RTCStats> statsMap = new HashMap<>();
+        statsMap.put("outbound", stats);
+        Map<String, Object> members = new HashMap<>();
+        members.put(StatsCollector.KIND, StatsCollector.VIDEO);
+        members.put(StatsCollector.FRAME_ENCODED, 0L);
+        when(report.getStatsMap()).thenReturn(statsMap);
+        when(stats.getType()).thenReturn(StatsCollector.OUTBOUND_RTP);
+        when(stats.getMembers()).thenReturn(members);
+
+        //no frame is encoded yet
+        webRTCClient.onFirstFrameStatsReady(streamId, report);
+        assertFalse(timeline.isCompleted());
+
+        members.put(StatsCollector.FRAME_ENCODED, 3L);
+        webRTCClient.onFirstFrameStatsReady(streamId, report);
+        assertTrue(timeline.hasEvent(StreamTimeline.Event.FIRST_ENCODED_FRAME));
+        assertTrue(timeline.isCompleted());
+
+        verify(listener, timeout(1000)).onStreamTimelineCompleted(streamId, timeline);
+        assertEquals(publishedSessions + 1, WebRTCClient.getTimelineStatistics(WebRTCClient.Mode.PUBLISH).getSessionCount());
+    }
+
+    @Test
+    public void testSetVideoMaxBitrateForMultiplePublishers() throws NoSuchFieldException, IllegalAccessException, InterruptedException {
+        String streamId1 = "publisher1";
+        String streamId2 = "publisher2";
+
+        RtpSender sender1 = mock(RtpSender.class);
+        RtpSender sender2 = mock(RtpSender.class);
+
+        Field field = RtpParameters.class.getDeclaredField("encodings");
+        field.setAccessible(true);
+
+        RtpParameters parameters1 = mock(RtpParameters.class);
+        field.set(parameters1, new ArrayList<>(Collections.singletonList(mock(RtpParameters.Encoding.class))));
+        when(sender1.getParameters()).thenReturn(parameters1);
+
+        RtpParameters parameters2 = mock(RtpParameters.class);
+        field.set(parameters2, new ArrayList<>(Collections.singletonList(mock(RtpParameters.Encoding.class))));
+        when(sender2.getParameters()).thenReturn(parameters2);
+
+        WebRTCClient.PeerInfo peerInfo1 = new WebRTCClient.PeerInfo(streamId1, WebRTCClient.Mode.PUBLISH);
+        peerInfo1.videoSender = sender1;
+        webRTCClient.getPeersForTest().put(streamId1, peerInfo1);
+
+        WebRTCClient.PeerInfo peerInfo2 = new WebRTCClient.PeerInfo(streamId2, WebRTCClient.Mode.PUBLISH);
+        peerInfo2.videoSender = sender2;
+        webRTCClient.getPeersForTest().put(streamId2, peerInfo2);
+        webRTCClient.localVideoSender = sender2;
+
+        //cap of a peer is only applied to its sender
+        webRTCClient.setVideoMaxBitrate(streamId1, 500);
+        verify(sender1, timeout(1000).times(1)).setParameters(parameters1);
+        verify(sender2, never()).setParameters(any());
+        assertEquals(Integer.valueOf(500), peerInfo1.maxVideoBitrateKbps);
+
+        //cap of the client is not applied to the peers that have their own cap
+        webRTCClient.setVideoMaxBitrate(2000);
+        verify(sender2, timeout(1000).times(1)).setParameters(parameters2);
+
+        //unknown peer is ignored
+        webRTCClient.setVideoMaxBitrate("unknown", 100);
+        Thread.sleep(500);
+        verify(sender1, times(1)).setParameters(parameters1);
+    }
     @Test
     public void tesHandlePublishPlayRequestWhenWSNotConnected() {
         doNothing().when(webRTCClient).init();
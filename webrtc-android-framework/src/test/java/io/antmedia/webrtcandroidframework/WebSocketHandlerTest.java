@@ -13,16 +13,33 @@ import org.mockito.MockitoAnnotations;
 import org.webrtc.IceCandidate;
 import org.webrtc.SessionDescription;
 
+import org.awaitility.Awaitility;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import de.tavendo.autobahn.WebSocketConnection;
+import io.antmedia.webrtcandroidframework.core.StreamInfo;
+import io.antmedia.webrtcandroidframework.utility.Clock;
 import io.antmedia.webrtcandroidframework.websocket.AntMediaSignallingEvents;
 import io.antmedia.webrtcandroidframework.websocket.Broadcast;
+import io.antmedia.webrtcandroidframework.websocket.CborSignallingCodec;
+import io.antmedia.webrtcandroidframework.websocket.ReconnectionPolicy;
+import io.antmedia.webrtcandroidframework.websocket.SignalingTransport;
+import io.antmedia.webrtcandroidframework.websocket.SignallingEventRouter;
 import io.antmedia.webrtcandroidframework.websocket.WebSocketConstants;
 import io.antmedia.webrtcandroidframework.websocket.WebSocketHandler;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 import com.google.gson.Gson;
@@ -133,7 +150,7 @@ public class WebSocketHandlerTest {
     }
 
     @Test
-    public void testStartPublish() {
+    public void testStartPublish() throws JSONException {
         String streamId = "stream123";
         String token = "token123";
         boolean videoEnabled = true;
@@ -163,7 +180,7 @@ public class WebSocketHandlerTest {
             e.printStackTrace();
         }
 
-        assertEquals(json.toString(), jsonCaptor.getValue());
+        assertJsonEquals(json, jsonCaptor.getValue());
     }
 
     @Test
@@ -189,7 +206,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.SUBSCRIBER_CODE, subscriberCode);
         expectedJson.put(WebSocketConstants.VIEWER_INFO, viewerInfo);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -208,7 +225,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.STREAM_ID, streamId);
         expectedJson.put(WebSocketConstants.TOKEN, token);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -229,7 +246,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.SDP, sdp);
         expectedJson.put(WebSocketConstants.TYPE, type);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -253,7 +270,25 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.CANDIDATE_ID, id);
         expectedJson.put(WebSocketConstants.CANDIDATE_SDP, candidate);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
+    }
+
+    @Test
+    public void testSendLocalIceCandidateWithDeduplication() {
+        webSocketHandler.setIceCandidateDeduplication(true);
+
+        webSocketHandler.sendLocalIceCandidate("stream123", new IceCandidate("0", 0, "candidate1"));
+        webSocketHandler.sendLocalIceCandidate("stream123", new IceCandidate("0", 0, "candidate2"));
+        webSocketHandler.sendLocalIceCandidate("stream123", new IceCandidate("0", 0, "candidate2"));
+
+        verify(webSocketHandler, times(2)).sendTextMessage(anyString());
+        assertEquals(1, webSocketHandler.getIceCandidateFilter().getCandidatesDropped());
+        assertEquals(2, webSocketHandler.getIceCandidateFramesSent());
+        assertEquals(1, webSocketHandler.getIceCandidateFramesSuppressed());
+
+        webSocketHandler.setIceCandidateDeduplication(false);
+        webSocketHandler.sendLocalIceCandidate("stream123", new IceCandidate("0", 0, "candidate2"));
+        verify(webSocketHandler, times(3)).sendTextMessage(anyString());
     }
 
     @Test
@@ -272,7 +307,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.STREAM_ID, streamId);
         expectedJson.put(WebSocketConstants.TOKEN, token);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -293,7 +328,14 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.TRACK_ID, trackId);
         expectedJson.put(WebSocketConstants.ENABLED, enabled);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
+    }
+
+    /**
+     * Field order of org.json in unit tests is different from Android's, so messages are compared as JSON
+     */
+    private static void assertJsonEquals(JSONObject expected, String actual) throws JSONException {
+        assertTrue("expected:" + expected + " actual:" + actual, expected.similar(new JSONObject(actual)));
     }
 
     @Test
@@ -307,7 +349,68 @@ public class WebSocketHandlerTest {
         JSONObject expectedJson = new JSONObject();
         expectedJson.put(WebSocketConstants.COMMAND, WebSocketConstants.PING_COMMAND);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
+    }
+
+    @Test
+    public void testPongMeasuresRtt() {
+        Clock clock = mock(Clock.class);
+        webSocketHandler.setClock(clock);
+        doReturn(true).when(webSocketHandler).isConnected();
+
+        when(clock.nowMs()).thenReturn(1000L);
+        webSocketHandler.sendPingPongMessage();
+        when(clock.nowMs()).thenReturn(1100L);
+        webSocketHandler.sendPingPongMessage();
+
+        when(clock.nowMs()).thenReturn(1200L);
+        webSocketHandler.onTextMessage("{\"command\":\"pong\"}");
+        verify(signallingListener).onSignallingRttMeasured(200, 200, 100);
+
+        when(clock.nowMs()).thenReturn(1300L);
+        webSocketHandler.onTextMessage("{\"command\":\"pong\"}");
+        verify(signallingListener).onSignallingRttMeasured(200, 200, 75);
+        assertEquals(2, webSocketHandler.getRttEstimator().getSampleCount());
+
+        //pong without a ping is not measured
+        webSocketHandler.onTextMessage("{\"command\":\"pong\"}");
+        assertEquals(2, webSocketHandler.getRttEstimator().getSampleCount());
+    }
+
+    @Test
+    public void testDeadPeerTimeoutDisconnects() {
+        Clock clock = mock(Clock.class);
+        webSocketHandler.setClock(clock);
+        SignalingTransport transport = mock(SignalingTransport.class);
+        webSocketHandler.setSignalingTransport(transport);
+        doAnswer(invocation -> {
+            webSocketHandler.onClose(null, "closed");
+            return null;
+        }).when(transport).disconnect();
+        when(handler.post(any(Runnable.class))).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return true;
+        });
+        ScheduledExecutorService pingExecutor = mock(ScheduledExecutorService.class);
+        ArgumentCaptor<Runnable> pingCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+        when(clock.nowMs()).thenReturn(1000L);
+        webSocketHandler.startPingPongTimer(pingExecutor);
+        verify(pingExecutor).schedule(pingCaptor.capture(), eq(WebSocketHandler.TIMER_DELAY), eq(TimeUnit.MILLISECONDS));
+
+        //first ping is sent
+        pingCaptor.getValue().run();
+        verify(webSocketHandler, times(1)).sendPingPongMessage();
+        verify(pingExecutor, times(2)).schedule(pingCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+
+        //pong is not received in the dead peer timeout
+        when(clock.nowMs()).thenReturn(1000L + webSocketHandler.getRttEstimator().getDeadPeerTimeoutMs());
+        pingCaptor.getValue().run();
+
+        verify(webSocketHandler, times(1)).sendPingPongMessage();
+        verify(pingExecutor).shutdown();
+        verify(handler).post(any(Runnable.class));
+        verify(transport).disconnect();
     }
 
     @Test
@@ -326,7 +429,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.ROOM, roomName);
         expectedJson.put(WebSocketConstants.STREAM_ID, streamId);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -343,7 +446,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.COMMAND, WebSocketConstants.LEAVE_THE_ROOM);
         expectedJson.put(WebSocketConstants.ROOM, roomName);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -362,7 +465,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.ROOM, roomName);
         expectedJson.put(WebSocketConstants.STREAM_ID, streamId);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -378,7 +481,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.COMMAND, WebSocketConstants.GET_STREAM_INFO_COMMAND);
         expectedJson.put(WebSocketConstants.STREAM_ID, streamId);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -397,7 +500,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.STREAM_ID, streamId);
         expectedJson.put(WebSocketConstants.STREAM_HEIGHT, height);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -412,7 +515,7 @@ public class WebSocketHandlerTest {
         expectedJson.put(WebSocketConstants.COMMAND, WebSocketConstants.GET_BROADCAST_OBJECT_COMMAND);
         expectedJson.put(WebSocketConstants.STREAM_ID, streamId);
 
-        assertEquals(expectedJson.toString(), jsonCaptor.getValue());
+        assertJsonEquals(expectedJson, jsonCaptor.getValue());
     }
 
     @Test
@@ -451,11 +554,86 @@ public class WebSocketHandlerTest {
 
     }
 
+    @Test
+    public void testOnTextMessageStreamInformation() {
+        doReturn(true).when(webSocketHandler).isConnected();
+
+        String message = "{\"command\":\"streamInformation\",\"streamId\":\"stream123\",\"streamInfo\":[{\"streamWidth\":640,\"streamHeight\":360,"
+                + "\"videoBitrate\":500000,\"audioBitrate\":32000,\"videoCodec\":\"VP8\"}]}";
+        webSocketHandler.onTextMessage(message);
+
+        ArgumentCaptor<ArrayList> captor = ArgumentCaptor.forClass(ArrayList.class);
+        verify(signallingListener).onStreamInfoList(eq("stream123"), captor.capture());
+
+        StreamInfo streamInfo = (StreamInfo) captor.getValue().get(0);
+        assertEquals(640, streamInfo.getWidth());
+        assertEquals(360, streamInfo.getHeight());
+        assertEquals(500000, streamInfo.getVideoBitrate());
+        assertEquals(32000, streamInfo.getAudioBitrate());
+        assertEquals("VP8", streamInfo.getCodec());
+    }
+
+    @Test
+    public void testOnTextMessageNotifications() {
+        doReturn(true).when(webSocketHandler).isConnected();
+        doNothing().when(webSocketHandler).startPingPongTimer();
+
+        webSocketHandler.onTextMessage("{\"command\":\"notification\",\"definition\":\"publish_started\",\"streamId\":\"stream123\"}");
+        verify(signallingListener).onPublishStarted("stream123");
+        verify(webSocketHandler).startPingPongTimer();
+
+        webSocketHandler.onTextMessage("{\"command\":\"notification\",\"definition\":\"play_started\",\"streamId\":\"stream123\"}");
+        verify(signallingListener).onPlayStarted("stream123");
+
+        webSocketHandler.onTextMessage("{\"command\":\"notification\",\"definition\":\"joinedTheRoom\",\"streamId\":\"stream123\",\"streams\":[\"s1\",\"s2\"]}");
+        verify(signallingListener).onJoinedTheRoom("stream123", new String[]{"s1", "s2"});
+
+        webSocketHandler.onTextMessage("{\"command\":\"notification\",\"definition\":\"bitrateMeasurement\",\"streamId\":\"stream123\","
+                + "\"targetBitrate\":2000,\"videoBitrate\":1500,\"audioBitrate\":64}");
+        verify(signallingListener).onBitrateMeasurement("stream123", 2000, 1500, 64);
+
+        webSocketHandler.onTextMessage("{\"command\":\"roomInformation\",\"streams\":[\"s1\"]}");
+        verify(signallingListener).onRoomInformation(new String[]{"s1"});
+
+        webSocketHandler.onTextMessage("{\"command\":\"trackList\",\"trackList\":[\"t1\",\"t2\"]}");
+        verify(signallingListener).onTrackList(new String[]{"t1", "t2"});
+    }
+
+    @Test
+    public void testOnTextMessageErrorCommand() {
+        doReturn(true).when(webSocketHandler).isConnected();
+
+        webSocketHandler.onTextMessage("{\"command\":\"error\",\"definition\":\"no_stream_exist\",\"streamId\":\"stream123\"}");
+        verify(signallingListener).onError("stream123", WebSocketConstants.NO_STREAM_EXIST);
+        verify(signallingListener).noStreamExistsToPlay("stream123");
+
+        webSocketHandler.onTextMessage("{\"command\":\"error\",\"definition\":\"streamIdInUse\",\"streamId\":\"stream123\"}");
+        verify(signallingListener).streamIdInUse("stream123");
+    }
+
+    @Test
+    public void testOnTextMessageInvalidMessages() {
+        doReturn(true).when(webSocketHandler).isConnected();
+
+        webSocketHandler.onTextMessage("{\"command\":\"takeCandidate\",");
+        webSocketHandler.onTextMessage("{\"command\":\"takeCandidate\",\"streamId\":\"stream123\"}");
+        webSocketHandler.onTextMessage("{\"command\":\"unknownCommand\"}");
+        webSocketHandler.onTextMessage("{\"streamId\":\"stream123\"}");
+
+        verifyZeroInteractions(signallingListener);
+    }
+
     @Test
     public void testWsReconnection(){
         Handler wsReconnectionHandlerMock = mock(Handler.class);
+        ReconnectionPolicy reconnectionPolicy = mock(ReconnectionPolicy.class);
+        when(reconnectionPolicy.nextDelayMs()).thenReturn(1500L);
+        Clock clock = mock(Clock.class);
+        when(clock.nowMs()).thenReturn(1000L);
 
         webSocketHandler.setWsReconnectionHandler(wsReconnectionHandlerMock);
+        webSocketHandler.setReconnectionPolicy(reconnectionPolicy);
+        webSocketHandler.setClock(clock);
 
         doReturn(false).when(webSocketHandler).isConnected();
         webSocketHandler.setupWsReconnection();
@@ -468,16 +646,313 @@ public class WebSocketHandlerTest {
 
         doNothing().when(webSocketHandler).connect(anyString());
 
+        //disconnection is detected, first attempt is scheduled by the policy
+        capturedRunnable.run();
+        verify(webSocketHandler, never()).connect(anyString());
+        verify(wsReconnectionHandlerMock, times(1)).postDelayed(capturedRunnable, 1500L);
+
         capturedRunnable.run();
 
         verify(webSocketHandler, times(1)).connect(anyString());
+        verify(reconnectionPolicy, times(1)).onAttempt();
+        verify(wsReconnectionHandlerMock, times(2)).postDelayed(capturedRunnable, 1500L);
+        assertEquals(1, webSocketHandler.getReconnectionAttemptCount());
+
+        when(clock.nowMs()).thenReturn(4000L);
+        assertEquals(3000, webSocketHandler.getDisconnectedTimeMs());
 
         doReturn(true).when(webSocketHandler).isConnected();
+        webSocketHandler.onOpen();
+
+        verify(reconnectionPolicy, times(1)).onConnected();
+        when(clock.nowMs()).thenReturn(10000L);
+        assertEquals(3000, webSocketHandler.getDisconnectedTimeMs());
 
         capturedRunnable.run();
 
         verify(webSocketHandler, times(1)).connect(anyString());
+        verify(wsReconnectionHandlerMock, times(3)).postDelayed(capturedRunnable, WebSocketHandler.WEBSOCKET_RECONNECTION_CONTROL_PERIOD_MS);
+
+    }
+
+    @Test
+    public void testWsReconnectionStartsOnClose(){
+        Handler wsReconnectionHandlerMock = mock(Handler.class);
+        webSocketHandler.setWsReconnectionHandler(wsReconnectionHandlerMock);
+
+        doReturn(false).when(webSocketHandler).isConnected();
+        webSocketHandler.setupWsReconnection();
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(wsReconnectionHandlerMock, times(1)).postDelayed(runnableCaptor.capture(), eq(WebSocketHandler.WEBSOCKET_RECONNECTION_CONTROL_PERIOD_MS));
+
+        webSocketHandler.onClose(null, "closed");
+
+        verify(wsReconnectionHandlerMock, times(1)).removeCallbacks(runnableCaptor.getValue());
+        verify(wsReconnectionHandlerMock, times(1)).post(runnableCaptor.getValue());
+    }
+
+    @Test
+    public void testFailedReconnectionAttemptsWaitForPolicy(){
+        Handler wsReconnectionHandlerMock = mock(Handler.class);
+        ReconnectionPolicy reconnectionPolicy = mock(ReconnectionPolicy.class);
+        when(reconnectionPolicy.nextDelayMs()).thenReturn(1000L, 2000L, 4000L);
+        webSocketHandler.setWsReconnectionHandler(wsReconnectionHandlerMock);
+        webSocketHandler.setReconnectionPolicy(reconnectionPolicy);
+        doNothing().when(webSocketHandler).connect(anyString());
+
+        doReturn(false).when(webSocketHandler).isConnected();
+        webSocketHandler.setupWsReconnection();
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(wsReconnectionHandlerMock).postDelayed(runnableCaptor.capture(), eq(WebSocketHandler.WEBSOCKET_RECONNECTION_CONTROL_PERIOD_MS));
+        Runnable reconnector = runnableCaptor.getValue();
+
+        //connection is lost, reconnector runs now and schedules the first attempt
+        webSocketHandler.onClose(null, "closed");
+        verify(wsReconnectionHandlerMock, times(1)).post(reconnector);
+        reconnector.run();
+        verify(wsReconnectionHandlerMock).postDelayed(reconnector, 1000L);
+
+        //first attempt fails
+        reconnector.run();
+        verify(webSocketHandler, times(1)).connect(anyString());
+        verify(wsReconnectionHandlerMock).postDelayed(reconnector, 2000L);
+        webSocketHandler.onClose(null, "cannot connect");
+
+        //second attempt fails, it's not run now but after the delay of the policy
+        verify(wsReconnectionHandlerMock, times(1)).post(reconnector);
+        verify(wsReconnectionHandlerMock, times(1)).removeCallbacks(reconnector);
+        reconnector.run();
+        verify(webSocketHandler, times(2)).connect(anyString());
+        verify(wsReconnectionHandlerMock).postDelayed(reconnector, 4000L);
+        webSocketHandler.onClose(null, "cannot connect");
+
+        verify(wsReconnectionHandlerMock, times(1)).post(reconnector);
+        verify(webSocketHandler, times(2)).connect(anyString());
+        assertEquals(2, webSocketHandler.getReconnectionAttemptCount());
+    }
+
+
+    @Test
+    public void testSignallingOverLoopbackTransport() {
+        WebSocketHandler loopbackHandler = spy(new WebSocketHandler(signallingListener, handler));
+        doNothing().when(loopbackHandler).checkIfCalledOnValidThread();
+        LoopbackSignalingTransport transport = new LoopbackSignalingTransport(new AntMediaLoopbackScript());
+        loopbackHandler.setSignalingTransport(transport);
+
+        loopbackHandler.connect("ws://loopback/WebRTCAppEE/websocket");
+        verify(signallingListener, timeout(1000)).onWebSocketConnected();
+
+        loopbackHandler.startPublish("stream1", "", true, true, "", "", "", "");
+        verify(signallingListener, timeout(1000)).onStartStreaming("stream1");
+
+        loopbackHandler.sendConfiguration("stream1", new SessionDescription(SessionDescription.Type.OFFER, "v=0"), "offer");
+        verify(signallingListener, timeout(1000)).onTakeConfiguration(eq("stream1"), any(SessionDescription.class));
+        verify(signallingListener, timeout(1000).times(2)).onRemoteIceCandidate(eq("stream1"), any(IceCandidate.class));
+        verify(signallingListener, timeout(1000)).onPublishStarted("stream1");
+
+        loopbackHandler.disconnect(false);
+        verify(signallingListener, timeout(1000)).onWebSocketDisconnected();
+        transport.release();
+    }
+
+    @Test
+    public void testOutboxReplaysMessagesAfterReconnection() {
+        WebSocketHandler outboxHandler = spy(new WebSocketHandler(signallingListener, handler));
+        doNothing().when(outboxHandler).checkIfCalledOnValidThread();
+        SignalingTransport transport = mock(SignalingTransport.class);
+        outboxHandler.setSignalingTransport(transport);
+
+        when(transport.isConnected()).thenReturn(false);
+        outboxHandler.enableTrack("room1", "stream2", false);
+        outboxHandler.enableTrack("room1", "stream2", true);
+        outboxHandler.sendPingPongMessage();
+        outboxHandler.sendIceCandidateMessage("stream1", new IceCandidate("0", 0, "candidate1"));
+        verify(transport, never()).sendTextMessage(anyString());
+        assertEquals(1, outboxHandler.getOutbox().size());
+
+        when(transport.isConnected()).thenReturn(true);
+        outboxHandler.onOpen();
+
+        verify(transport, times(1)).sendTextMessage(anyString());
+        verify(transport).sendTextMessage("{\"command\":\"enableTrack\",\"streamId\":\"room1\",\"trackId\":\"stream2\",\"enabled\":true}");
+        verify(signallingListener).onWebSocketConnected();
+
+        outboxHandler.setOutboxCapacity(0);
+        assertEquals(null, outboxHandler.getOutbox());
+    }
+
+    @Test
+    public void testBinarySignallingDeliversSameEvents() {
+        List<String> jsonEvents = new CopyOnWriteArrayList<>();
+        LoopbackSignalingTransport jsonTransport = runLoopbackSession(false, jsonEvents);
 
+        List<String> binaryEvents = new CopyOnWriteArrayList<>();
+        LoopbackSignalingTransport binaryTransport = runLoopbackSession(true, binaryEvents);
+
+        assertEquals(jsonEvents, binaryEvents);
+        assertTrue(binaryTransport.getReceivedBytes() < jsonTransport.getReceivedBytes());
+        assertTrue(binaryTransport.getSentBytes() < jsonTransport.getSentBytes());
     }
 
+    @Test
+    public void testBinarySignallingFallsBackToJson() {
+        WebSocketHandler binaryHandler = spy(new WebSocketHandler(signallingListener, handler));
+        doNothing().when(binaryHandler).checkIfCalledOnValidThread();
+        //server does not reply to signallingEncoding
+        LoopbackSignalingTransport transport = new LoopbackSignalingTransport(new AntMediaLoopbackScript());
+        binaryHandler.setSignalingTransport(transport);
+        binaryHandler.setBinaryEncoding(true, true);
+
+        binaryHandler.connect("ws://loopback/WebRTCAppEE/websocket");
+        verify(signallingListener, timeout(1000)).onWebSocketConnected();
+
+        binaryHandler.startPublish("stream1", "", true, true, "", "", "", "");
+        verify(signallingListener, timeout(1000)).onStartStreaming("stream1");
+        assertEquals("json", binaryHandler.getSignallingEncoding());
+
+        binaryHandler.disconnect(false);
+        transport.release();
+    }
+
+    @Test
+    public void testSharedConnectionRoutesMessagesByStreamId() {
+        AntMediaSignallingEvents publisher = mock(AntMediaSignallingEvents.class);
+        AntMediaSignallingEvents player = mock(AntMediaSignallingEvents.class);
+        SignallingEventRouter router = new SignallingEventRouter();
+        router.addListener(publisher);
+        router.addListener(player);
+
+        WebSocketHandler sharedHandler = spy(new WebSocketHandler(router, handler));
+        doNothing().when(sharedHandler).checkIfCalledOnValidThread();
+        assertEquals(router, sharedHandler.getEventRouter());
+        LoopbackSignalingTransport transport = new LoopbackSignalingTransport(new AntMediaLoopbackScript());
+        sharedHandler.setSignalingTransport(transport);
+
+        sharedHandler.connect("ws://loopback/WebRTCAppEE/websocket");
+        verify(publisher, timeout(1000)).onWebSocketConnected();
+        verify(player, timeout(1000)).onWebSocketConnected();
+
+        router.addRoute("stream1", publisher);
+        router.addRoute("stream2", player);
+
+        sharedHandler.startPublish("stream1", "", true, true, "", "", "", "");
+        sharedHandler.startPlay("stream2", "", null, "", "", "");
+
+        verify(publisher, timeout(1000)).onStartStreaming("stream1");
+        verify(player, timeout(1000)).onTakeConfiguration(eq("stream2"), any(SessionDescription.class));
+        verify(player, timeout(1000).times(2)).onRemoteIceCandidate(eq("stream2"), any(IceCandidate.class));
+
+        verify(player, never()).onStartStreaming(anyString());
+        verify(publisher, never()).onTakeConfiguration(anyString(), any(SessionDescription.class));
+        verify(publisher, never()).onRemoteIceCandidate(anyString(), any(IceCandidate.class));
+
+        sharedHandler.disconnect(false);
+        verify(publisher, timeout(1000)).onWebSocketDisconnected();
+        verify(player, timeout(1000)).onWebSocketDisconnected();
+        transport.release();
+    }
+
+    @Test
+    public void testStopCommandOnSharedConnectionIsRoutedToOwner() {
+        AntMediaSignallingEvents publisher = mock(AntMediaSignallingEvents.class);
+        AntMediaSignallingEvents player = mock(AntMediaSignallingEvents.class);
+        SignallingEventRouter router = new SignallingEventRouter();
+        router.addListener(publisher);
+        router.addListener(player);
+        router.addRoute("stream1", publisher);
+        router.addRoute("stream2", player);
+
+        WebSocketHandler sharedHandler = spy(new WebSocketHandler(router, handler));
+        doNothing().when(sharedHandler).checkIfCalledOnValidThread();
+        doNothing().when(sharedHandler).disconnect(anyBoolean());
+        doReturn(true).when(sharedHandler).isConnected();
+
+        sharedHandler.onTextMessage("{\"command\":\"stop\",\"streamId\":\"stream1\"}");
+        verify(publisher).onWebSocketDisconnected();
+        verify(player, never()).onWebSocketDisconnected();
+        verify(sharedHandler, never()).disconnect(anyBoolean());
+        assertSame(router, router.getListener("stream1"));
+
+        sharedHandler.onTextMessage("{\"command\":\"stop\",\"streamId\":\"stream2\"}");
+        verify(player).onWebSocketDisconnected();
+        verify(sharedHandler).disconnect(true);
+    }
+
+    /**
+     * Publishes and plays a stream over the loopback transport and records the signalling events
+     */
+    private LoopbackSignalingTransport runLoopbackSession(boolean binary, List<String> events) {
+        AntMediaSignallingEvents recorder = (AntMediaSignallingEvents) Proxy.newProxyInstance(
+                AntMediaSignallingEvents.class.getClassLoader(),
+                new Class[]{AntMediaSignallingEvents.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(this, args);
+                    }
+                    //rtt depends on the timing, it's not compared
+                    if (!method.getName().equals("onSignallingRttMeasured")) {
+                        events.add(method.getName() + describe(args));
+                    }
+                    return null;
+                });
+
+        WebSocketHandler loopbackHandler = spy(new WebSocketHandler(recorder, handler));
+        doNothing().when(loopbackHandler).checkIfCalledOnValidThread();
+        AntMediaLoopbackScript script = new AntMediaLoopbackScript(Arrays.asList("stream2", "stream3"));
+        script.setBinaryEncodingSupported(true);
+        LoopbackSignalingTransport transport = new LoopbackSignalingTransport(script);
+        loopbackHandler.setSignalingTransport(transport);
+        loopbackHandler.setBinaryEncoding(binary, true);
+
+        loopbackHandler.connect("ws://loopback/WebRTCAppEE/websocket");
+        Awaitility.await().until(() -> events.contains("onWebSocketConnected[]"));
+        if (binary) {
+            Awaitility.await().until(() -> CborSignallingCodec.ENCODING_CBOR_DEFLATE.equals(loopbackHandler.getSignallingEncoding()));
+        }
+
+        loopbackHandler.startPublish("stream1", "", true, true, "", "", "", "");
+        loopbackHandler.sendConfiguration("stream1", new SessionDescription(SessionDescription.Type.OFFER, AntMediaLoopbackScript.SDP), "offer");
+        Awaitility.await().until(() -> events.contains("onPublishStarted[stream1]"));
+
+        loopbackHandler.startPlay("stream2", "", null, "", "", "");
+        Awaitility.await().until(() -> events.contains("onRemoteIceCandidate[stream2, 1]"));
+        loopbackHandler.sendConfiguration("stream2", new SessionDescription(SessionDescription.Type.ANSWER, AntMediaLoopbackScript.SDP), "answer");
+        Awaitility.await().until(() -> events.contains("onPlayStarted[stream2]"));
+
+        loopbackHandler.getStreamInfoList("stream2");
+        loopbackHandler.getTrackList("stream2", "");
+        loopbackHandler.stop("stream1");
+        loopbackHandler.stop("stream2");
+        Awaitility.await().until(() -> events.contains("onPlayFinished[stream2]"));
+
+        loopbackHandler.disconnect(false);
+        Awaitility.await().until(() -> events.contains("onWebSocketDisconnected[]"));
+        transport.release();
+        return transport;
+    }
+
+    private static String describe(Object[] args) {
+        List<String> values = new ArrayList<>();
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof SessionDescription) {
+                    values.add(((SessionDescription) arg).type + " " + ((SessionDescription) arg).description);
+                }
+                else if (arg instanceof IceCandidate) {
+                    values.add(String.valueOf(((IceCandidate) arg).sdpMLineIndex));
+                }
+                else if (arg instanceof String[]) {
+                    values.add(Arrays.toString((String[]) arg));
+                }
+                else if (arg instanceof List) {
+                    values.add(String.valueOf(((List<?>) arg).size()));
+                }
+                else {
+                    values.add(String.valueOf(arg));
+                }
+            }
+        }
+        return values.toString();
+    }
 }
@@ -49,6 +49,8 @@ public class DefaultDataChannelObserverTest {
         defaultDataChannelObserver.onBufferedAmountChange(100, "label");
 
         defaultDataChannelObserver.onStateChange(DataChannel.State.OPEN, "label");
+
+        defaultDataChannelObserver.onWritabilityChanged(false, "label");
         //nothing for assertion
     }
 
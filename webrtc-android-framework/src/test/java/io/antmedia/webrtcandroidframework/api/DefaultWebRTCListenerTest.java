@@ -203,4 +203,10 @@ public class DefaultWebRTCListenerTest {
         defaultWebRTCListener.onBroadcastObject((Broadcast) Mockito.anyObject());
         verify(defaultWebRTCListener, times(1)).callbackCalled(anyString());
     }
+
+    @Test
+    public void testOnSignallingRttMeasured(){
+        defaultWebRTCListener.onSignallingRttMeasured(120, 100, 20);
+        verify(defaultWebRTCListener, times(1)).callbackCalled(anyString());
+    }
 }
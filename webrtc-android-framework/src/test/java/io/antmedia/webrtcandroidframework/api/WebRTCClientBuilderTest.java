@@ -9,11 +9,20 @@ import org.webrtc.RendererCommon;
 import android.app.Activity;
 
 import java.util.Arrays;
+import java.util.concurrent.Executor;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import io.antmedia.webrtcandroidframework.AntMediaLoopbackScript;
+import io.antmedia.webrtcandroidframework.LoopbackSignalingTransport;
+import io.antmedia.webrtcandroidframework.core.DataChannelBufferPool;
+import io.antmedia.webrtcandroidframework.core.DataChannelOptions;
 import io.antmedia.webrtcandroidframework.core.WebRTCClient;
+import io.antmedia.webrtcandroidframework.sdp.SdpMungingRules;
+import io.antmedia.webrtcandroidframework.websocket.ExponentialBackoffReconnectionPolicy;
+import io.antmedia.webrtcandroidframework.websocket.ReconnectionPolicy;
+import io.antmedia.webrtcandroidframework.websocket.SignalingTransport;
 
 public class WebRTCClientBuilderTest {
     private WebRTCClientBuilder webRTCClientBuilder;
@@ -196,4 +205,121 @@ public class WebRTCClientBuilderTest {
         webRTCClientBuilder.setLocalVideoRenderer(mockSurfaceViewRenderer);
         assertEquals(mockSurfaceViewRenderer, webRTCClientBuilder.getConfig().localVideoRenderer);
     }
+
+    @Test
+    public void testSetReconnectionTierTimeouts() {
+        webRTCClientBuilder.setReconnectionTierTimeouts(2000, 0);
+        assertEquals(2000, webRTCClientBuilder.getConfig().iceRestartTimeoutMs);
+        assertEquals(0, webRTCClientBuilder.getConfig().sessionRestoreTimeoutMs);
+    }
+
+    @Test
+    public void testSetMaxConcurrentReconnections() {
+        webRTCClientBuilder.setMaxConcurrentReconnections(4);
+        assertEquals(4, webRTCClientBuilder.getConfig().maxConcurrentReconnections);
+    }
+
+    @Test
+    public void testSetIceCandidateDeduplicationEnabled() {
+        webRTCClientBuilder.setIceCandidateDeduplicationEnabled(true);
+        assertTrue(webRTCClientBuilder.getConfig().iceCandidateDeduplicationEnabled);
+    }
+
+    @Test
+    public void testSetIceCandidatePipeliningEnabled() {
+        assertTrue(webRTCClientBuilder.getConfig().iceCandidatePipeliningEnabled);
+        webRTCClientBuilder.setIceCandidatePipeliningEnabled(false);
+        assertFalse(webRTCClientBuilder.getConfig().iceCandidatePipeliningEnabled);
+    }
+
+    @Test
+    public void testSetWsReconnectionPolicy() {
+        ReconnectionPolicy policy = new ExponentialBackoffReconnectionPolicy();
+        webRTCClientBuilder.setWsReconnectionPolicy(policy);
+        assertEquals(policy, webRTCClientBuilder.getConfig().wsReconnectionPolicy);
+    }
+
+    @Test
+    public void testSetSignalingTransport() {
+        SignalingTransport transport = new LoopbackSignalingTransport(new AntMediaLoopbackScript());
+        webRTCClientBuilder.setSignalingTransport(transport);
+        assertEquals(transport, webRTCClientBuilder.getConfig().signalingTransport);
+    }
+
+    @Test
+    public void testSetSignallingOutboxCapacity() {
+        webRTCClientBuilder.setSignallingOutboxCapacity(20);
+        assertEquals(20, webRTCClientBuilder.getConfig().signallingOutboxCapacity);
+    }
+
+    @Test
+    public void testSetBinarySignallingEnabled() {
+        assertFalse(webRTCClientBuilder.getConfig().binarySignallingEnabled);
+        webRTCClientBuilder.setBinarySignallingEnabled(true, false);
+        assertTrue(webRTCClientBuilder.getConfig().binarySignallingEnabled);
+        assertFalse(webRTCClientBuilder.getConfig().sdpCompressionEnabled);
+    }
+
+    @Test
+    public void testSetSharedWebSocketConnection() {
+        assertFalse(webRTCClientBuilder.getConfig().sharedWebSocketConnection);
+        webRTCClientBuilder.setSharedWebSocketConnection(true);
+        assertTrue(webRTCClientBuilder.getConfig().sharedWebSocketConnection);
+    }
+
+    @Test
+    public void testSetSharedPeerConnectionFactory() {
+        assertFalse(webRTCClientBuilder.getConfig().sharedPeerConnectionFactory);
+        webRTCClientBuilder.setSharedPeerConnectionFactory(true, 1000);
+        assertTrue(webRTCClientBuilder.getConfig().sharedPeerConnectionFactory);
+        assertEquals(1000, webRTCClientBuilder.getConfig().sharedFactoryKeepAliveMs);
+    }
+
+    @Test
+    public void testSetSdpMungingRules() {
+        assertNull(webRTCClientBuilder.getConfig().sdpMungingRules);
+        SdpMungingRules rules = SdpMungingRules.builder().setOpusDtx(true).build();
+        webRTCClientBuilder.setSdpMungingRules(rules);
+        assertEquals(rules, webRTCClientBuilder.getConfig().sdpMungingRules);
+    }
+
+    @Test
+    public void testSetDataChannelReceive() {
+        DataChannelBufferPool pool = new DataChannelBufferPool();
+        Executor executor = Runnable::run;
+        webRTCClientBuilder.setDataChannelBufferPool(pool).setDataChannelMessageExecutor(executor);
+        assertEquals(pool, webRTCClientBuilder.getConfig().dataChannelBufferPool);
+        assertEquals(executor, webRTCClientBuilder.getConfig().dataChannelMessageExecutor);
+    }
+
+    @Test
+    public void testSetDataChannelSendQueue() {
+        webRTCClientBuilder.setDataChannelSendQueue(2000, 500, 10000);
+        assertEquals(2000, webRTCClientBuilder.getConfig().dataChannelHighWatermark);
+        assertEquals(500, webRTCClientBuilder.getConfig().dataChannelLowWatermark);
+        assertEquals(10000, webRTCClientBuilder.getConfig().dataChannelMaxQueuedBytes);
+    }
+
+    @Test
+    public void testSetFileTransferListener() {
+        IFileTransferListener listener = mock(IFileTransferListener.class);
+        webRTCClientBuilder.setFileTransferListener(listener, 64 * 1024);
+        assertEquals(listener, webRTCClientBuilder.getConfig().fileTransferListener);
+        assertEquals(64 * 1024, webRTCClientBuilder.getConfig().fileTransferChunkSize);
+    }
+
+    @Test
+    public void testAddDataChannel() {
+        DataChannelOptions telemetry = DataChannelOptions.builder("telemetry").setOrdered(false).build();
+        webRTCClientBuilder.addDataChannel(telemetry);
+        assertEquals(1, webRTCClientBuilder.getConfig().dataChannels.size());
+        assertEquals(telemetry, webRTCClientBuilder.getConfig().dataChannels.get(0));
+    }
+
+    @Test
+    public void testSetDataChannelBatching() {
+        webRTCClientBuilder.setDataChannelBatching(5, 4096);
+        assertEquals(5, webRTCClientBuilder.getConfig().dataChannelBatchIntervalMs);
+        assertEquals(4096, webRTCClientBuilder.getConfig().dataChannelMaxBatchSize);
+    }
 }